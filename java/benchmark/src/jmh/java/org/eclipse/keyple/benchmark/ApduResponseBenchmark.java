@@ -0,0 +1,62 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.benchmark;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.keyple.core.seproxy.message.ApduRequest;
+import org.eclipse.keyple.core.seproxy.message.ApduResponse;
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Construction and reading of the APDU responses, done for each APDU exchanged
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ApduResponseBenchmark {
+
+    /** status code of the response, successful only thanks to the additional status codes */
+    private static final byte[] RESPONSE_6200 =
+            ByteArrayUtil.fromHex("00112233445566778899AABBCCDDEEFF00112233445566778899AABBCC6200");
+
+    private Set<Integer> successfulStatusCodes;
+    private ApduRequest apduRequest;
+    private ApduResponse apduResponse;
+
+    @Setup
+    public void setUp() {
+        successfulStatusCodes = new HashSet<Integer>();
+        successfulStatusCodes.add(0x6200);
+        successfulStatusCodes.add(0x6283);
+        apduRequest = new ApduRequest(ByteArrayUtil.fromHex("00B2014400"), false,
+                successfulStatusCodes);
+        apduResponse = new ApduResponse(RESPONSE_6200, successfulStatusCodes);
+    }
+
+    @Benchmark
+    public ApduResponse newWithStatusCodes() {
+        return new ApduResponse(RESPONSE_6200, successfulStatusCodes);
+    }
+
+    @Benchmark
+    public ApduResponse forRequest() {
+        return ApduResponse.forRequest(apduRequest, RESPONSE_6200);
+    }
+
+    @Benchmark
+    public byte[] getDataOut() {
+        return apduResponse.getDataOut();
+    }
+}
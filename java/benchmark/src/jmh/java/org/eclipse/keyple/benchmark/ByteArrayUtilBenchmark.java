@@ -0,0 +1,51 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Hexadecimal conversions, used by the logs, the stub SE and the remote SE serialization
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ByteArrayUtilBenchmark {
+
+    /** length of the converted data, in bytes */
+    @Param({"8", "64", "256"})
+    private int length;
+
+    private byte[] bytes;
+    private String hex;
+
+    @Setup
+    public void setUp() {
+        bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i * 31);
+        }
+        hex = ByteArrayUtil.toHex(bytes);
+    }
+
+    @Benchmark
+    public byte[] fromHex() {
+        return ByteArrayUtil.fromHex(hex);
+    }
+
+    @Benchmark
+    public String toHex() {
+        return ByteArrayUtil.toHex(bytes);
+    }
+}
@@ -0,0 +1,73 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.keyple.core.seproxy.message.*;
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+import org.eclipse.keyple.plugin.remotese.transport.DtoCodec;
+import org.eclipse.keyple.plugin.remotese.transport.DtoCodecs;
+import org.eclipse.keyple.plugin.remotese.transport.json.JsonParser;
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDtoHelper;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Encoding and decoding of a transmit response by the remote SE codecs
+ * <p>
+ * A sending and a receiving codec are used, as on a connection. Each message is self-contained,
+ * whatever the codec: the binary codec defines its strings in each message.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DtoCodecBenchmark {
+
+    @Param({"json", "json-embedded", "binary"})
+    private String codecName;
+
+    private DtoCodec sendingCodec;
+    private DtoCodec receivingCodec;
+    private KeypleDto keypleDto;
+    private byte[] encodedDto;
+
+    @Setup
+    public void setUp() {
+        sendingCodec = DtoCodecs.newCodec(codecName);
+        receivingCodec = DtoCodecs.newCodec(codecName);
+
+        List<ApduResponse> apduResponses = new ArrayList<ApduResponse>();
+        apduResponses.add(new ApduResponse(ByteArrayUtil.fromHex(
+                "00112233445566778899AABBCCDDEEFF00112233445566778899AABBCC9000"), null));
+        apduResponses.add(new ApduResponse(ByteArrayUtil.fromHex(
+                "24B92848080000131A50001200000000000000000000000000000000009000"), null));
+        SeResponse seResponse = new SeResponse(true, true, null, apduResponses);
+        keypleDto = KeypleDtoHelper.buildResponse("reader_transmit",
+                JsonParser.getGson().toJson(seResponse, SeResponse.class),
+                UUID.randomUUID().toString(), "nativeReader", "virtualReader", "master", "slave",
+                UUID.randomUUID().toString());
+        encodedDto = sendingCodec.encode(keypleDto);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return sendingCodec.encode(keypleDto);
+    }
+
+    @Benchmark
+    public KeypleDto decode() {
+        return receivingCodec.decode(encodedDto);
+    }
+}
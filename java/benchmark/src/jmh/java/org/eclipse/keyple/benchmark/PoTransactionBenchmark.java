@@ -0,0 +1,78 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.eclipse.keyple.calypso.command.po.parser.ReadDataStructure;
+import org.eclipse.keyple.calypso.transaction.*;
+import org.eclipse.keyple.core.selection.SelectionsResult;
+import org.eclipse.keyple.core.seproxy.ChannelState;
+import org.eclipse.keyple.core.seproxy.exception.KeypleBaseException;
+import org.eclipse.keyple.plugin.stub.StubReader;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Complete Calypso transaction with stub PO and SAM: selection, opening of the secure session with
+ * the reading of a record, reading in session, closing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PoTransactionBenchmark {
+    private static final String PO_READER_NAME = "benchmarkPoReader";
+    private static final String SAM_READER_NAME = "benchmarkSamReader";
+
+    private StubReader poReader;
+    private SamResource samResource;
+    private final SecuritySettings securitySettings = new SecuritySettings();
+
+    @Setup
+    public void setUp() throws KeypleBaseException {
+        poReader = StubReaders.plugPoReader(PO_READER_NAME);
+        samResource = StubReaders.plugSamReader(SAM_READER_NAME);
+        /* the stub SAM answers to the Digest Update Multiple commands */
+        securitySettings.setDigestUpdateMultipleEnabled(true);
+    }
+
+    @TearDown
+    public void tearDown() throws KeypleBaseException {
+        StubReaders.unplugReaders(PO_READER_NAME, SAM_READER_NAME);
+    }
+
+    @Benchmark
+    public PoTransaction openReadClose() throws KeypleBaseException {
+        SelectionsResult selectionsResult = StubReaders.getPoSelection(ChannelState.KEEP_OPEN)
+                .processExplicitSelection(poReader);
+        if (!selectionsResult.hasActiveSelection()) {
+            throw new IllegalStateException("The stub PO was not selected");
+        }
+        CalypsoPo calypsoPo = (CalypsoPo) selectionsResult.getActiveSelection().getMatchingSe();
+
+        PoTransaction poTransaction = new PoTransaction(new PoResource(poReader, calypsoPo),
+                samResource, securitySettings);
+        poTransaction.prepareReadRecordsCmd(StubReaders.SFI_EVENT_LOG,
+                ReadDataStructure.SINGLE_RECORD_DATA, StubReaders.RECORD_NUMBER_1, "EventLog");
+        if (!poTransaction.processOpening(PoTransaction.ModificationMode.ATOMIC,
+                PoTransaction.SessionAccessLevel.SESSION_LVL_DEBIT, (byte) 0, (byte) 0)) {
+            throw new IllegalStateException("Opening failure");
+        }
+        poTransaction.prepareReadRecordsCmd(StubReaders.SFI_EVENT_LOG,
+                ReadDataStructure.SINGLE_RECORD_DATA, StubReaders.RECORD_NUMBER_1, "EventLog");
+        if (!poTransaction.processPoCommandsInSession()) {
+            throw new IllegalStateException("Reading failure");
+        }
+        if (!poTransaction.processClosing(ChannelState.CLOSE_AFTER)) {
+            throw new IllegalStateException("Closing failure");
+        }
+        return poTransaction;
+    }
+}
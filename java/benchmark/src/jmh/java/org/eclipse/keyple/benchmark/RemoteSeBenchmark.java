@@ -0,0 +1,91 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.benchmark;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.keyple.calypso.command.PoClass;
+import org.eclipse.keyple.calypso.command.po.builder.ReadRecordsCmdBuild;
+import org.eclipse.keyple.calypso.command.po.parser.ReadDataStructure;
+import org.eclipse.keyple.core.seproxy.ChannelState;
+import org.eclipse.keyple.core.seproxy.SeProxyService;
+import org.eclipse.keyple.core.seproxy.exception.KeypleBaseException;
+import org.eclipse.keyple.core.seproxy.message.SeRequest;
+import org.eclipse.keyple.core.seproxy.message.SeResponse;
+import org.eclipse.keyple.core.seproxy.plugin.AbstractObservableReader;
+import org.eclipse.keyple.plugin.remotese.nativese.SlaveAPI;
+import org.eclipse.keyple.plugin.remotese.pluginse.MasterAPI;
+import org.eclipse.keyple.plugin.remotese.transport.impl.java.LocalTransportFactory;
+import org.eclipse.keyple.plugin.stub.StubPlugin;
+import org.eclipse.keyple.plugin.stub.StubReader;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Remote SE round trips between a master and a slave bound by a {@link LocalTransportFactory}:
+ * each transmit to the virtual reader is a remote method call to the stub reader of the slave.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RemoteSeBenchmark {
+    private static final String NATIVE_READER_NAME = "benchmarkNativeReader";
+    private static final String MASTER_NODE_ID = "benchmarkMaster";
+    private static final String SLAVE_NODE_ID = "benchmarkSlave";
+    private static final String REMOTE_SE_PLUGIN_NAME = "benchmarkRemoteSePlugin";
+
+    private SlaveAPI slaveAPI;
+    private AbstractObservableReader virtualReader;
+    private SeRequest readRecordRequest;
+
+    @Setup
+    public void setUp() throws KeypleBaseException {
+        LocalTransportFactory factory = new LocalTransportFactory(MASTER_NODE_ID);
+        MasterAPI masterAPI = new MasterAPI(SeProxyService.getInstance(), factory.getServer(),
+                10000, MasterAPI.PLUGIN_TYPE_DEFAULT, REMOTE_SE_PLUGIN_NAME);
+        slaveAPI = new SlaveAPI(SeProxyService.getInstance(), factory.getClient(SLAVE_NODE_ID),
+                MASTER_NODE_ID);
+
+        StubReader nativeReader = StubReaders.plugPoReader(NATIVE_READER_NAME);
+        slaveAPI.connectReader(nativeReader);
+        virtualReader = (AbstractObservableReader) masterAPI.getPlugin().getReaders().first();
+
+        /* select the PO once, the channel is kept open for the benchmarked exchanges */
+        if (!StubReaders.getPoSelection(ChannelState.KEEP_OPEN)
+                .processExplicitSelection(virtualReader).hasActiveSelection()) {
+            throw new IllegalStateException("The stub PO was not selected");
+        }
+        readRecordRequest = new SeRequest(
+                Collections.singletonList(new ReadRecordsCmdBuild(PoClass.ISO,
+                        StubReaders.SFI_EVENT_LOG, ReadDataStructure.SINGLE_RECORD_DATA,
+                        StubReaders.RECORD_NUMBER_1, true, "EventLog").getApduRequest()),
+                ChannelState.KEEP_OPEN);
+    }
+
+    @TearDown
+    public void tearDown() throws KeypleBaseException {
+        slaveAPI.disconnectReader("", NATIVE_READER_NAME);
+        StubReaders.unplugReaders(NATIVE_READER_NAME);
+        SeProxyService.getInstance().unregisterPlugin(REMOTE_SE_PLUGIN_NAME);
+        SeProxyService.getInstance().unregisterPlugin(StubPlugin.PLUGIN_NAME);
+    }
+
+    @Benchmark
+    public SeResponse transmit() throws KeypleBaseException {
+        return virtualReader.transmit(readRecordRequest);
+    }
+
+    @Benchmark
+    public SeResponse transmitAsync() throws InterruptedException, ExecutionException {
+        return virtualReader.transmitAsync(readRecordRequest, null).get();
+    }
+}
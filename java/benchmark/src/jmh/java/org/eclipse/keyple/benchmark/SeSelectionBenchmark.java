@@ -0,0 +1,51 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.eclipse.keyple.core.selection.SelectionsResult;
+import org.eclipse.keyple.core.seproxy.ChannelState;
+import org.eclipse.keyple.core.seproxy.exception.KeypleBaseException;
+import org.eclipse.keyple.plugin.stub.StubReader;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Explicit selection of a Calypso PO in a stub reader, the channel is closed after each selection
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SeSelectionBenchmark {
+    private static final String PO_READER_NAME = "benchmarkPoReader";
+
+    private StubReader poReader;
+
+    @Setup
+    public void setUp() throws KeypleBaseException {
+        poReader = StubReaders.plugPoReader(PO_READER_NAME);
+    }
+
+    @TearDown
+    public void tearDown() throws KeypleBaseException {
+        StubReaders.unplugReaders(PO_READER_NAME);
+    }
+
+    @Benchmark
+    public SelectionsResult processExplicitSelection() throws KeypleBaseException {
+        SelectionsResult selectionsResult = StubReaders.getPoSelection(ChannelState.CLOSE_AFTER)
+                .processExplicitSelection(poReader);
+        if (selectionsResult.getMatchingSelections().isEmpty()) {
+            throw new IllegalStateException("The stub PO was not selected");
+        }
+        return selectionsResult;
+    }
+}
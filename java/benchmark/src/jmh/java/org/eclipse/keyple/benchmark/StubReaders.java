@@ -0,0 +1,114 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.benchmark;
+
+import org.eclipse.keyple.benchmark.stub.StubCalypsoClassic;
+import org.eclipse.keyple.benchmark.stub.StubSamCalypsoClassic;
+import org.eclipse.keyple.calypso.command.sam.SamRevision;
+import org.eclipse.keyple.calypso.transaction.*;
+import org.eclipse.keyple.core.selection.SeSelection;
+import org.eclipse.keyple.core.seproxy.ChannelState;
+import org.eclipse.keyple.core.seproxy.SeProxyService;
+import org.eclipse.keyple.core.seproxy.SeSelector;
+import org.eclipse.keyple.core.seproxy.exception.KeypleBaseException;
+import org.eclipse.keyple.core.seproxy.protocol.SeCommonProtocols;
+import org.eclipse.keyple.plugin.stub.*;
+
+/**
+ * Stub readers and Calypso SE shared by the benchmarks
+ */
+final class StubReaders {
+    /** AID of the application of the stub PO */
+    static final String PO_AID = "315449432E49434131";
+    /** SFI and record of the EventLog file of the stub PO */
+    static final byte SFI_EVENT_LOG = (byte) 0x08;
+    static final byte RECORD_NUMBER_1 = 1;
+
+    private StubReaders() {}
+
+    /**
+     * Plug a stub reader holding the stub Calypso PO
+     *
+     * @param readerName the name of the reader
+     * @return the reader
+     * @throws KeypleBaseException if the stub plugin fails
+     */
+    static StubReader plugPoReader(String readerName) throws KeypleBaseException {
+        StubReader poReader = plugReader(readerName);
+        poReader.addSeProtocolSetting(SeCommonProtocols.PROTOCOL_ISO14443_4,
+                StubProtocolSetting.STUB_PROTOCOL_SETTING
+                        .get(SeCommonProtocols.PROTOCOL_ISO14443_4));
+        poReader.insertSe(new StubCalypsoClassic());
+        return poReader;
+    }
+
+    /**
+     * Plug a stub reader holding the stub Calypso SAM and select the SAM
+     *
+     * @param readerName the name of the reader
+     * @return the SAM resource
+     * @throws KeypleBaseException if the stub plugin or the selection fails
+     */
+    static SamResource plugSamReader(String readerName) throws KeypleBaseException {
+        StubReader samReader = plugReader(readerName);
+        samReader.addSeProtocolSetting(SeCommonProtocols.PROTOCOL_ISO7816_3,
+                StubProtocolSetting.STUB_PROTOCOL_SETTING
+                        .get(SeCommonProtocols.PROTOCOL_ISO7816_3));
+        samReader.insertSe(new StubSamCalypsoClassic());
+
+        SeSelection samSelection = new SeSelection();
+        samSelection.prepareSelection(new SamSelectionRequest(
+                new SamSelector(SamRevision.C1, ".*", "SAM C1"), ChannelState.KEEP_OPEN));
+        CalypsoSam calypsoSam = (CalypsoSam) samSelection.processExplicitSelection(samReader)
+                .getActiveSelection().getMatchingSe();
+        return new SamResource(samReader, calypsoSam);
+    }
+
+    /**
+     * Unplug stub readers
+     *
+     * @param readerNames the names of the readers
+     * @throws KeypleBaseException if the stub plugin fails
+     */
+    static void unplugReaders(String... readerNames) throws KeypleBaseException {
+        StubPlugin stubPlugin =
+                (StubPlugin) SeProxyService.getInstance().getPlugin(StubPlugin.PLUGIN_NAME);
+        for (String readerName : readerNames) {
+            stubPlugin.unplugStubReader(readerName, true);
+        }
+    }
+
+    /**
+     * @param channelState the channel state after the selection
+     * @return a selection of the application of the stub PO
+     */
+    static SeSelection getPoSelection(ChannelState channelState) {
+        SeSelection seSelection = new SeSelection();
+        seSelection.prepareSelection(new PoSelectionRequest(
+                new PoSelector(SeCommonProtocols.PROTOCOL_ISO14443_4, null,
+                        new PoSelector.PoAidSelector(new SeSelector.AidSelector.IsoAid(PO_AID),
+                                PoSelector.InvalidatedPo.REJECT),
+                        "AID: " + PO_AID),
+                channelState));
+        return seSelection;
+    }
+
+    private static StubReader plugReader(String readerName) throws KeypleBaseException {
+        SeProxyService seProxyService = SeProxyService.getInstance();
+        if (!seProxyService.isRegistered(StubPlugin.PLUGIN_NAME)) {
+            seProxyService.registerPlugin(new StubPluginFactory());
+        }
+        StubPlugin stubPlugin = (StubPlugin) seProxyService.getPlugin(StubPlugin.PLUGIN_NAME);
+        stubPlugin.plugStubReader(readerName, true);
+        return (StubReader) stubPlugin.getReader(readerName);
+    }
+}
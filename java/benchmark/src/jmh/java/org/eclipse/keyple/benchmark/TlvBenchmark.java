@@ -0,0 +1,59 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.eclipse.keyple.calypso.command.po.parser.GetDataFciRespPars;
+import org.eclipse.keyple.core.seproxy.message.ApduResponse;
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+import org.eclipse.keyple.core.util.bertlv.TLV;
+import org.eclipse.keyple.core.util.bertlv.Tag;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * BER-TLV parsing of the FCI returned by the selection of a Calypso PO
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TlvBenchmark {
+
+    /* FCI of the stub Calypso PO */
+    private static final byte[] FCI = ByteArrayUtil.fromHex(
+            "6F238409315449432E49434131A516BF0C13C708000000001122334453070A3C23121410019000");
+
+    /* Application Serial Number: private class, primitive, tag number 7h => tag field C7h */
+    private static final Tag TAG_APPLICATION_SERIAL_NUMBER =
+            new Tag(0x07, Tag.PRIVATE, Tag.TagType.PRIMITIVE);
+
+    private ApduResponse fciResponse;
+
+    @Setup
+    public void setUp() {
+        fciResponse = new ApduResponse(FCI, null);
+    }
+
+    @Benchmark
+    public byte[] parse() {
+        TLV tlv = new TLV(FCI);
+        /* C7 tag of the stub FCI */
+        if (!tlv.parse(TAG_APPLICATION_SERIAL_NUMBER, 18)) {
+            throw new IllegalStateException("Application serial number not found");
+        }
+        return tlv.getValue();
+    }
+
+    @Benchmark
+    public GetDataFciRespPars parseFci() {
+        return new GetDataFciRespPars(fciResponse);
+    }
+}
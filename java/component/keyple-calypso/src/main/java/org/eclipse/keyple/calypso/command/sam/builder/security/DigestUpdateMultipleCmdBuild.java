@@ -31,7 +31,9 @@ public class DigestUpdateMultipleCmdBuild extends AbstractSamCommandBuilder {
      * Instantiates a new DigestUpdateMultipleCmdBuild.
      *
      * @param revision the revision
-     * @param digestData the digest data
+     * @param digestData the digest data: a concatenation of length-prefixed blocks (one block for
+     *        each command sent to or response received from the PO)
+     * @throws IllegalArgumentException - if the digest data is null or has a length &gt; 255
      * @throws IllegalArgumentException - if the request is inconsistent
      */
     public DigestUpdateMultipleCmdBuild(SamRevision revision, byte[] digestData)
@@ -44,6 +46,10 @@ public class DigestUpdateMultipleCmdBuild extends AbstractSamCommandBuilder {
         byte p1 = (byte) 0x80;
         byte p2 = (byte) 0x00;
 
+        if (digestData == null || digestData.length > 255) {
+            throw new IllegalArgumentException("Digest data null or too long!");
+        }
+
         request = setApduRequest(cla, command, p1, p2, digestData, null);
     }
 }
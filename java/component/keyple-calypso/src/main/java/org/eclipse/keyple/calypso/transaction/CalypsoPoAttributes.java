@@ -0,0 +1,148 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.calypso.transaction;
+
+import org.eclipse.keyple.calypso.command.po.PoRevision;
+import org.eclipse.keyple.calypso.command.po.parser.GetDataFciRespPars;
+import org.eclipse.keyple.core.seproxy.message.ApduResponse;
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+
+/**
+ * The characteristics of a Calypso PO deduced from its ATR and FCI
+ * <p>
+ * Immutable: the same instance may be shared by the {@link CalypsoPo} of several presentations of
+ * a PO (see {@link PoSelectionCache}).
+ */
+final class CalypsoPoAttributes {
+    private static final int PO_REV1_ATR_LENGTH = 20;
+    private static final int REV1_PO_DEFAULT_WRITE_OPERATIONS_NUMBER_SUPPORTED_PER_SESSION = 3;
+    private static final int REV2_PO_DEFAULT_WRITE_OPERATIONS_NUMBER_SUPPORTED_PER_SESSION = 6;
+
+    final byte bufferSizeIndicator;
+    final int bufferSizeValue;
+    final byte platform;
+    final byte applicationType;
+    final boolean isRev3_2ModeAvailable;
+    final boolean isRatificationCommandRequired;
+    final boolean hasCalypsoStoredValue;
+    final boolean hasCalypsoPin;
+    final byte applicationSubtypeByte;
+    final byte softwareIssuerByte;
+    final byte softwareVersion;
+    final byte softwareRevision;
+    final boolean isDfInvalidated;
+    final byte[] applicationSerialNumber;
+    final PoRevision revision;
+    final byte[] dfName;
+    final int modificationsCounterMax;
+    final boolean modificationCounterIsInBytes;
+
+    /**
+     * Parses the PO FCI, or the ATR if no FCI is available
+     *
+     * @param poAtr the PO ATR
+     * @param fci the PO FCI (null or unsuccessful if not available, e.g. old PO Calypso Rev 1)
+     * @throws IllegalStateException if the ATR of a PO without FCI is not a Calypso Rev1 ATR
+     */
+    CalypsoPoAttributes(byte[] poAtr, ApduResponse fci) {
+        if (fci != null && fci.isSuccessful()) {
+            /* Parse PO FCI - to retrieve Calypso Revision, Serial Number, &amp; DF Name (AID) */
+            GetDataFciRespPars poFciRespPars = new GetDataFciRespPars(fci);
+
+            /*
+             * Resolve the PO revision from the application type byte:
+             *
+             * <ul> <li>if
+             * <code>%1-------</code>&nbsp;&nbsp;&rarr;&nbsp;&nbsp;CLAP&nbsp;&nbsp;&rarr;&nbsp;&
+             * nbsp; REV3.1</li> <li>if
+             * <code>%00101---</code>&nbsp;&nbsp;&rarr;&nbsp;&nbsp;REV3.2</li> <li>if
+             * <code>%00100---</code>&nbsp;&nbsp;&rarr;&nbsp;&nbsp;REV3.1</li>
+             * <li>otherwise&nbsp;&nbsp;&rarr;&nbsp;&nbsp;REV2.4</li> </ul>
+             */
+            byte applicationTypeByte = poFciRespPars.getApplicationTypeByte();
+            if ((applicationTypeByte & (1 << 7)) != 0) {
+                /* CLAP */
+                this.revision = PoRevision.REV3_1_CLAP;
+            } else if ((applicationTypeByte >> 3) == (byte) (0x05)) {
+                this.revision = PoRevision.REV3_2;
+            } else if ((applicationTypeByte >> 3) == (byte) (0x04)) {
+                this.revision = PoRevision.REV3_1;
+            } else {
+                this.revision = PoRevision.REV2_4;
+            }
+
+            this.dfName = poFciRespPars.getDfName();
+
+            this.applicationSerialNumber = poFciRespPars.getApplicationSerialNumber();
+
+            if (this.revision == PoRevision.REV2_4) {
+                /* old cards have their modification counter in number of commands */
+                this.modificationCounterIsInBytes = false;
+                this.modificationsCounterMax =
+                        REV2_PO_DEFAULT_WRITE_OPERATIONS_NUMBER_SUPPORTED_PER_SESSION;
+            } else {
+                this.modificationCounterIsInBytes = true;
+                this.modificationsCounterMax = poFciRespPars.getBufferSizeValue();
+            }
+            this.bufferSizeIndicator = poFciRespPars.getBufferSizeIndicator();
+            this.bufferSizeValue = poFciRespPars.getBufferSizeValue();
+            this.platform = poFciRespPars.getPlatformByte();
+            this.applicationType = poFciRespPars.getApplicationTypeByte();
+            this.isRev3_2ModeAvailable = poFciRespPars.isRev3_2ModeAvailable();
+            this.isRatificationCommandRequired = poFciRespPars.isRatificationCommandRequired();
+            this.hasCalypsoStoredValue = poFciRespPars.hasCalypsoStoredValue();
+            this.hasCalypsoPin = poFciRespPars.hasCalypsoPin();
+            this.applicationSubtypeByte = poFciRespPars.getApplicationSubtypeByte();
+            this.softwareIssuerByte = poFciRespPars.getSoftwareIssuerByte();
+            this.softwareVersion = poFciRespPars.getSoftwareVersionByte();
+            this.softwareRevision = poFciRespPars.getSoftwareRevisionByte();
+            this.isDfInvalidated = poFciRespPars.isDfInvalidated();
+        } else {
+            /*
+             * FCI is not provided: we consider it is Calypso PO rev 1, it's serial number is
+             * provided in the ATR
+             */
+
+            /* basic check: we expect to be here following a selection based on the ATR */
+            if (poAtr.length != PO_REV1_ATR_LENGTH) {
+                throw new IllegalStateException(
+                        "Unexpected ATR length: " + ByteArrayUtil.toHex(poAtr));
+            }
+
+            this.revision = PoRevision.REV1_0;
+            this.dfName = null;
+            this.applicationSerialNumber = new byte[8];
+            /* old cards have their modification counter in number of commands */
+            this.modificationCounterIsInBytes = false;
+            /*
+             * the array is initialized with 0 (cf. default value for primitive types)
+             */
+            System.arraycopy(poAtr, 12, this.applicationSerialNumber, 4, 4);
+            this.modificationsCounterMax =
+                    REV1_PO_DEFAULT_WRITE_OPERATIONS_NUMBER_SUPPORTED_PER_SESSION;
+
+            this.bufferSizeIndicator = 0;
+            this.bufferSizeValue = REV1_PO_DEFAULT_WRITE_OPERATIONS_NUMBER_SUPPORTED_PER_SESSION;
+            this.platform = poAtr[6];
+            this.applicationType = poAtr[7];
+            this.applicationSubtypeByte = poAtr[8];
+            this.isRev3_2ModeAvailable = false;
+            this.isRatificationCommandRequired = true;
+            this.hasCalypsoStoredValue = false;
+            this.hasCalypsoPin = false;
+            this.softwareIssuerByte = poAtr[9];
+            this.softwareVersion = poAtr[10];
+            this.softwareRevision = poAtr[11];
+            this.isDfInvalidated = false;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.calypso.transaction;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.eclipse.keyple.core.seproxy.message.ApduResponse;
+
+/**
+ * Bounded LRU cache of the PO characteristics parsed from the ATR and the FCI received during the
+ * selection.
+ * <p>
+ * When the same PO is presented several times, its {@link CalypsoPo} is built without parsing
+ * again the FCI. The cache is enabled by providing it to the {@link PoSelectionRequest}; it can be
+ * shared by several selection requests and readers.
+ * <p>
+ * The byte arrays returned by the {@link CalypsoPo} getters (serial number, DF name) are shared by
+ * all the CalypsoPo built from the same cache entry and must not be modified.
+ */
+public final class PoSelectionCache {
+    private final int maxSize;
+    private final Map<Key, CalypsoPoAttributes> attributesMap;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * The ATR and FCI of a PO
+     */
+    private static final class Key {
+        private final byte[] atr;
+        private final byte[] fci;
+        private final int hashCode;
+
+        Key(byte[] atr, byte[] fci) {
+            this.atr = atr;
+            this.fci = fci;
+            this.hashCode = 31 * Arrays.hashCode(atr) + Arrays.hashCode(fci);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return hashCode == key.hashCode && Arrays.equals(atr, key.atr)
+                    && Arrays.equals(fci, key.fci);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * Constructor
+     *
+     * @param maxSize the maximum number of POs kept, the least recently presented PO is evicted
+     *        beyond this size
+     * @throws IllegalArgumentException if maxSize is not positive
+     */
+    public PoSelectionCache(final int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("The cache size must be > 0.");
+        }
+        this.maxSize = maxSize;
+        this.attributesMap = new LinkedHashMap<Key, CalypsoPoAttributes>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CalypsoPoAttributes> eldest) {
+                if (size() > maxSize) {
+                    evictionCount++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Gets the characteristics of a PO, parses them if they are not in the cache
+     *
+     * @param poAtr the PO ATR
+     * @param fci the PO FCI (null or unsuccessful if not available)
+     * @return the PO characteristics
+     */
+    CalypsoPoAttributes getAttributes(byte[] poAtr, ApduResponse fci) {
+        /* the content of an unsuccessful FCI is not used */
+        Key key = new Key(poAtr, fci != null && fci.isSuccessful() ? fci.getBytes() : null);
+        synchronized (this) {
+            CalypsoPoAttributes attributes = attributesMap.get(key);
+            if (attributes != null) {
+                hitCount++;
+                return attributes;
+            }
+            missCount++;
+        }
+        /* parsed outside of the lock, a failure is not cached */
+        CalypsoPoAttributes attributes = new CalypsoPoAttributes(poAtr, fci);
+        synchronized (this) {
+            attributesMap.put(key, attributes);
+        }
+        return attributes;
+    }
+
+    /**
+     * @return the maximum number of POs kept
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return the number of POs currently kept
+     */
+    public synchronized int getSize() {
+        return attributesMap.size();
+    }
+
+    /**
+     * @return the number of selections served by the cache
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return the number of selections that required the parsing of the FCI or ATR
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return the number of POs evicted to respect the maximum size
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Removes all the POs from the cache (the counters are kept)
+     */
+    public synchronized void clear() {
+        attributesMap.clear();
+    }
+}
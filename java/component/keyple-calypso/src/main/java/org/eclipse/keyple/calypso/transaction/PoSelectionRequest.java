@@ -47,6 +47,8 @@ public final class PoSelectionRequest extends AbstractSeSelectionRequest {
 
     private final PoClass poClass;
 
+    private final PoSelectionCache poSelectionCache;
+
     /**
      * Constructor.
      * 
@@ -54,9 +56,26 @@ public final class PoSelectionRequest extends AbstractSeSelectionRequest {
      * @param channelState tell if the channel is to be closed or not after the command
      */
     public PoSelectionRequest(PoSelector poSelector, ChannelState channelState) {
+        this(poSelector, channelState, null);
+    }
+
+    /**
+     * Constructor.
+     * <p>
+     * The characteristics of the selected POs are kept in the provided cache: a PO presented again
+     * is not parsed again.
+     *
+     * @param poSelector the selector to target a particular SE
+     * @param channelState tell if the channel is to be closed or not after the command
+     * @param poSelectionCache the cache of the PO characteristics (may be null)
+     */
+    public PoSelectionRequest(PoSelector poSelector, ChannelState channelState,
+            PoSelectionCache poSelectionCache) {
 
         super(poSelector, channelState);
 
+        this.poSelectionCache = poSelectionCache;
+
         commandIndex = 0;
 
         /* No AID selector for a legacy Calypso PO */
@@ -285,6 +304,6 @@ public final class PoSelectionRequest extends AbstractSeSelectionRequest {
     @Override
     protected CalypsoPo parse(SeResponse seResponse) {
         return new CalypsoPo(seResponse, seSelector.getSeProtocol().getTransmissionMode(),
-                seSelector.getExtraInfo());
+                seSelector.getExtraInfo(), poSelectionCache);
     }
 }
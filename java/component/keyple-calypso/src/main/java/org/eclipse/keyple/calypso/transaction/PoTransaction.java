@@ -65,6 +65,9 @@ public final class PoTransaction {
     private final static int OFFSET_Lc = 4;
     private final static int OFFSET_DATA = 5;
 
+    /** Maximum length of the data field of a Digest Update Multiple command */
+    private final static int DIGEST_UPDATE_MULTIPLE_MAX_DATA_LENGTH = 255;
+
     /** Ratification command APDU for rev <= 2.4 */
     private final static byte[] ratificationCmdApduLegacy = ByteArrayUtil.fromHex("94B2000000");
     /** Ratification command APDU for rev > 2.4 */
@@ -76,6 +79,8 @@ public final class PoTransaction {
     private final ProxyReader poReader;
     /** The reader for session SAM. */
     private ProxyReader samReader;
+    /** The SAM resource (null if the transaction has been created without SAM). */
+    private SamResource samResource;
     /** The SAM default revision. */
     private final SamRevision samRevision = SamRevision.C1;
     /** The security settings. */
@@ -114,6 +119,12 @@ public final class PoTransaction {
     private boolean preparedCommandsProcessed;
     private int preparedCommandIndex;
 
+    /** The digest processor of the current secure session */
+    private final DigestProcessor digestProcessor = new DigestProcessor();
+    /** The anticipated response builder of the current transaction */
+    private final AnticipatedResponseBuilder anticipatedResponseBuilder =
+            new AnticipatedResponseBuilder();
+
     /**
      * PoTransaction with PO and SAM readers.
      * <ul>
@@ -131,8 +142,13 @@ public final class PoTransaction {
 
         this(poResource);
 
+        this.samResource = samResource;
+
         samReader = (ProxyReader) samResource.getSeReader();
 
+        /* the SAM may still be diversified with this PO from a previous transaction */
+        isDiversificationDone = samResource.isDiversifiedWith(poCalypsoInstanceSerial);
+
         this.securitySettings = securitySettings;
     }
 
@@ -176,6 +192,8 @@ public final class PoTransaction {
      * <li>In case not logical channel is active with the SAM, a channel is open.</li>
      * <li>Then a Select Diversifier (with the PO serial) &amp; a Get Challenge are automatically
      * operated. The SAM challenge is recovered.</li>
+     * <li>This request is skipped when a challenge prefetched by the {@link SamResource} can be
+     * used (see {@link SamResource#prefetchChallenge(PoRevision)}).</li>
      * </ul>
      * </li>
      * <li>The PO Open Session command is built according to the PO revision, the SAM challenge, the
@@ -207,79 +225,17 @@ public final class PoTransaction {
             byte openingRecordNumberToRead, List<PoBuilderParser> poBuilderParsers)
             throws KeypleReaderException {
 
-        /*
-         * counts 'select diversifier' and 'get challenge' commands. At least get challenge is
-         * present
-         */
-        int numberOfSamCmd = 1;
-
-        /* SAM ApduRequest List to hold Select Diversifier and Get Challenge commands */
-        List<ApduRequest> samApduRequestList = new ArrayList<ApduRequest>();
-
         if (logger.isDebugEnabled()) {
             logger.debug("processAtomicOpening => Identification: DFNAME = {}, SERIALNUMBER = {}",
                     ByteArrayUtil.toHex(poCalypsoInstanceAid),
                     ByteArrayUtil.toHex(poCalypsoInstanceSerial));
         }
-        /* diversify only if this has not already been done. */
-        if (!isDiversificationDone) {
-            /* Build the SAM Select Diversifier command to provide the SAM with the PO S/N */
-            AbstractApduCommandBuilder selectDiversifier =
-                    new SelectDiversifierCmdBuild(this.samRevision, poCalypsoInstanceSerial);
-
-            samApduRequestList.add(selectDiversifier.getApduRequest());
 
-            /* increment command number */
-            numberOfSamCmd++;
-
-            /* change the diversification status */
-            isDiversificationDone = true;
-        }
-        /* Build the SAM Get Challenge command */
+        /* Get the SAM challenge */
         byte challengeLength = poRevision.equals(PoRevision.REV3_2) ? CHALLENGE_LENGTH_REV32
                 : CHALLENGE_LENGTH_REV_INF_32;
 
-        AbstractSamCommandBuilder samGetChallenge =
-                new SamGetChallengeCmdBuild(this.samRevision, challengeLength);
-
-        samApduRequestList.add(samGetChallenge.getApduRequest());
-
-        /* Build a SAM SeRequest */
-        SeRequest samSeRequest = new SeRequest(samApduRequestList, ChannelState.KEEP_OPEN);
-
-        logger.debug("processAtomicOpening => identification: SAMSEREQUEST = {}", samSeRequest);
-
-        /*
-         * Transmit the SeRequest to the SAM and get back the SeResponse (list of ApduResponse)
-         */
-        SeResponse samSeResponse = samReader.transmit(samSeRequest);
-
-        if (samSeResponse == null) {
-            throw new KeypleCalypsoSecureSessionException("Null response received",
-                    KeypleCalypsoSecureSessionException.Type.SAM, samSeRequest.getApduRequests(),
-                    null);
-        }
-
-        logger.debug("processAtomicOpening => identification: SAMSERESPONSE = {}", samSeResponse);
-
-        List<ApduResponse> samApduResponseList = samSeResponse.getApduResponses();
-        byte[] sessionTerminalChallenge;
-
-        if (samApduResponseList.size() == numberOfSamCmd
-                && samApduResponseList.get(numberOfSamCmd - 1).isSuccessful() && samApduResponseList
-                        .get(numberOfSamCmd - 1).getDataOut().length == challengeLength) {
-            SamGetChallengeRespPars samChallengePars =
-                    new SamGetChallengeRespPars(samApduResponseList.get(numberOfSamCmd - 1));
-            sessionTerminalChallenge = samChallengePars.getChallenge();
-            if (logger.isDebugEnabled()) {
-                logger.debug("processAtomicOpening => identification: TERMINALCHALLENGE = {}",
-                        ByteArrayUtil.toHex(sessionTerminalChallenge));
-            }
-        } else {
-            throw new KeypleCalypsoSecureSessionException("Invalid message received",
-                    KeypleCalypsoSecureSessionException.Type.SAM, samApduRequestList,
-                    samApduResponseList);
-        }
+        byte[] sessionTerminalChallenge = getSessionTerminalChallenge(challengeLength);
 
         /* PO ApduRequest List to hold Open Secure Session and other optional commands */
         List<ApduRequest> poApduRequestList = new ArrayList<ApduRequest>();
@@ -339,7 +295,7 @@ public final class PoTransaction {
         }
 
         /* Track Read Records for later use to build anticipated responses. */
-        AnticipatedResponseBuilder.storeCommandResponse(poBuilderParsers, poApduRequestList,
+        anticipatedResponseBuilder.storeCommandResponse(poBuilderParsers, poApduRequestList,
                 poApduResponseList, true);
 
         /* Parse the response to Open Secure Session (the first item of poApduResponseList) */
@@ -395,11 +351,12 @@ public final class PoTransaction {
          * Update) until the session closing. AT this moment, all SAM Apdu will be processed at
          * once.
          */
-        DigestProcessor.initialize(poRevision, samRevision, false, false,
+        digestProcessor.initialize(poRevision, samRevision, false, false,
                 poRevision.equals(PoRevision.REV3_2),
                 securitySettings
                         .getKeyInfo(SecuritySettings.DefaultKeyInfo.SAM_DEFAULT_KEY_RECORD_NUMBER),
-                kif, poKvc, poApduResponseList.get(0).getDataOut());
+                kif, poKvc, securitySettings.isDigestUpdateMultipleEnabled(),
+                poApduResponseList.get(0).getDataOut());
 
         /*
          * Add all commands data to the digest computation. The first command in the list is the
@@ -412,7 +369,7 @@ public final class PoTransaction {
                 /*
                  * Add requests and responses to the DigestProcessor
                  */
-                DigestProcessor.pushPoExchangeData(poApduRequestList.get(i),
+                digestProcessor.pushPoExchangeData(poApduRequestList.get(i),
                         poApduResponseList.get(i));
             }
         }
@@ -425,6 +382,141 @@ public final class PoTransaction {
         return new SeResponse(true, true, poSeResponse.getSelectionStatus(), poApduResponseList);
     }
 
+    /**
+     * Transmit a request to the SAM.
+     * <p>
+     * A reader failure or a response showing that the SAM selection was lost (channel reopened,
+     * class or instruction not supported) invalidates the selection of the SAM resource, so that a
+     * resource kept warm by the {@link SamResourceManager} is selected again before its next use:
+     * the SAM may have been swapped without the reader noticing it. The regular command errors
+     * (e.g. a PO signature rejected by the SAM) keep the selection.
+     *
+     * @param samSeRequest the SAM request
+     * @return the SAM response
+     * @throws KeypleReaderException the IO reader exception
+     */
+    private SeResponse transmitSamRequest(SeRequest samSeRequest) throws KeypleReaderException {
+        SeResponse samSeResponse;
+        try {
+            samSeResponse = samReader.transmit(samSeRequest);
+        } catch (KeypleReaderException e) {
+            samResource.invalidateSelection();
+            throw e;
+        } catch (IllegalStateException e) {
+            /* no logical channel open */
+            samResource.invalidateSelection();
+            throw e;
+        }
+        if (SamResource.isSelectionLost(samSeResponse)) {
+            samResource.invalidateSelection();
+        }
+        return samSeResponse;
+    }
+
+    /**
+     * Get the terminal challenge to be used for the opening of the secure session.
+     * <ul>
+     * <li>If a challenge has been prefetched by the SAM resource and no diversification is needed
+     * (the SAM is already diversified with the PO serial number), it is used directly without any
+     * exchange with the SAM.</li>
+     * <li>Otherwise, a Select Diversifier (if not already done) &amp; a Get Challenge are sent to
+     * the SAM.</li>
+     * </ul>
+     *
+     * @param challengeLength the expected challenge length
+     * @return the terminal challenge
+     * @throws KeypleReaderException the IO reader exception
+     */
+    private byte[] getSessionTerminalChallenge(byte challengeLength)
+            throws KeypleReaderException {
+
+        if (samResource != null) {
+            byte[] prefetchedChallenge =
+                    samResource.takePrefetchedChallenge(poCalypsoInstanceSerial, challengeLength);
+            if (prefetchedChallenge != null) {
+                /* the SAM is already diversified with the current PO serial number */
+                isDiversificationDone = true;
+                if (logger.isDebugEnabled()) {
+                    logger.debug(
+                            "processAtomicOpening => identification: PREFETCHED TERMINALCHALLENGE = {}",
+                            ByteArrayUtil.toHex(prefetchedChallenge));
+                }
+                return prefetchedChallenge;
+            }
+        }
+
+        /*
+         * counts 'select diversifier' and 'get challenge' commands. At least get challenge is
+         * present
+         */
+        int numberOfSamCmd = 1;
+
+        /* SAM ApduRequest List to hold Select Diversifier and Get Challenge commands */
+        List<ApduRequest> samApduRequestList = new ArrayList<ApduRequest>();
+
+        /* diversify only if this has not already been done. */
+        if (!isDiversificationDone) {
+            /* Build the SAM Select Diversifier command to provide the SAM with the PO S/N */
+            AbstractApduCommandBuilder selectDiversifier =
+                    new SelectDiversifierCmdBuild(this.samRevision, poCalypsoInstanceSerial);
+
+            samApduRequestList.add(selectDiversifier.getApduRequest());
+
+            /* increment command number */
+            numberOfSamCmd++;
+
+            /* change the diversification status */
+            isDiversificationDone = true;
+        }
+        /* Build the SAM Get Challenge command */
+        AbstractSamCommandBuilder samGetChallenge =
+                new SamGetChallengeCmdBuild(this.samRevision, challengeLength);
+
+        samApduRequestList.add(samGetChallenge.getApduRequest());
+
+        /* Build a SAM SeRequest */
+        SeRequest samSeRequest = new SeRequest(samApduRequestList, ChannelState.KEEP_OPEN);
+
+        logger.debug("processAtomicOpening => identification: SAMSEREQUEST = {}", samSeRequest);
+
+        /*
+         * Transmit the SeRequest to the SAM and get back the SeResponse (list of ApduResponse)
+         */
+        SeResponse samSeResponse = transmitSamRequest(samSeRequest);
+
+        if (samSeResponse == null) {
+            throw new KeypleCalypsoSecureSessionException("Null response received",
+                    KeypleCalypsoSecureSessionException.Type.SAM, samSeRequest.getApduRequests(),
+                    null);
+        }
+
+        logger.debug("processAtomicOpening => identification: SAMSERESPONSE = {}", samSeResponse);
+
+        List<ApduResponse> samApduResponseList = samSeResponse.getApduResponses();
+        byte[] sessionTerminalChallenge;
+
+        if (samApduResponseList.size() == numberOfSamCmd
+                && samApduResponseList.get(numberOfSamCmd - 1).isSuccessful() && samApduResponseList
+                        .get(numberOfSamCmd - 1).getDataOut().length == challengeLength) {
+            SamGetChallengeRespPars samChallengePars =
+                    new SamGetChallengeRespPars(samApduResponseList.get(numberOfSamCmd - 1));
+            sessionTerminalChallenge = samChallengePars.getChallenge();
+            if (logger.isDebugEnabled()) {
+                logger.debug("processAtomicOpening => identification: TERMINALCHALLENGE = {}",
+                        ByteArrayUtil.toHex(sessionTerminalChallenge));
+            }
+            /* keep track of the SAM diversification for the next challenge prefetches */
+            if (samResource != null && numberOfSamCmd > 1) {
+                samResource.setCurrentDiversifier(poCalypsoInstanceSerial);
+            }
+        } else {
+            throw new KeypleCalypsoSecureSessionException("Invalid message received",
+                    KeypleCalypsoSecureSessionException.Type.SAM, samApduRequestList,
+                    samApduResponseList);
+        }
+        return sessionTerminalChallenge;
+    }
+
     /**
      * Change SendableInSession List to ApduRequest List .
      *
@@ -511,7 +603,7 @@ public final class PoTransaction {
         }
 
         /* Track Read Records for later use to build anticipated responses. */
-        AnticipatedResponseBuilder.storeCommandResponse(poBuilderParsers, poApduRequestList,
+        anticipatedResponseBuilder.storeCommandResponse(poBuilderParsers, poApduRequestList,
                 poApduResponseList, false);
 
         /*
@@ -523,7 +615,7 @@ public final class PoTransaction {
                 /*
                  * Add requests and responses to the DigestProcessor
                  */
-                DigestProcessor.pushPoExchangeData(poApduRequestList.get(i),
+                digestProcessor.pushPoExchangeData(poApduRequestList.get(i),
                         poApduResponseList.get(i));
             }
         }
@@ -653,7 +745,7 @@ public final class PoTransaction {
                     /*
                      * Add requests and responses to the DigestProcessor
                      */
-                    DigestProcessor.pushPoExchangeData(poApduRequestList.get(i),
+                    digestProcessor.pushPoExchangeData(poApduRequestList.get(i),
                             poAnticipatedResponses.get(i));
                 }
             } else {
@@ -666,12 +758,12 @@ public final class PoTransaction {
 
         /* All SAM digest operations will now run at once. */
         /* Get the SAM Digest request from the cache manager */
-        SeRequest samSeRequest = DigestProcessor.getSamDigestRequest();
+        SeRequest samSeRequest = digestProcessor.getSamDigestRequest();
 
         logger.debug("processAtomicClosing => SAMREQUEST = {}", samSeRequest);
 
         /* Transmit SeRequest and get SeResponse */
-        SeResponse samSeResponse = samReader.transmit(samSeRequest);
+        SeResponse samSeResponse = transmitSamRequest(samSeRequest);
 
         logger.debug("processAtomicClosing => SAMRESPONSE = {}", samSeResponse);
 
@@ -821,7 +913,7 @@ public final class PoTransaction {
         logger.debug("PoTransaction.DigestProcessor => checkPoSignature: SAMREQUEST = {}",
                 samSeRequest);
 
-        samSeResponse = samReader.transmit(samSeRequest);
+        samSeResponse = transmitSamRequest(samSeRequest);
 
         logger.debug("PoTransaction.DigestProcessor => checkPoSignature: SAMRESPONSE = {}",
                 samSeResponse);
@@ -894,7 +986,7 @@ public final class PoTransaction {
             TransmissionMode transmissionMode, ChannelState channelState)
             throws KeypleReaderException {
         List<ApduResponse> poAnticipatedResponses =
-                AnticipatedResponseBuilder.getResponses(poBuilderParsers);
+                anticipatedResponseBuilder.getResponses(poBuilderParsers);
         return processAtomicClosing(poBuilderParsers, poAnticipatedResponses, transmissionMode,
                 channelState);
     }
@@ -1014,6 +1106,9 @@ public final class PoTransaction {
      * - getTerminalSignature: Digest Close, returns the terminal part of the signature
      *
      * - checkPoSignature: Digest Authenticate, verify the PO part of the signature
+     *
+     * Each {@link PoTransaction} owns its own instance so that several secure sessions can be
+     * operated concurrently.
      */
     private static class DigestProcessor {
         /*
@@ -1021,15 +1116,16 @@ public final class PoTransaction {
          * 1st buffer is the data buffer to be provided with Digest Init. The following buffers are
          * PO command/response pairs
          */
-        private static final List<byte[]> poDigestDataCache = new ArrayList<byte[]>();
-        private static SamRevision samRevision;
-        private static PoRevision poRevision;
-        private static boolean encryption;
-        private static boolean verification;
-        private static boolean revMode;
-        private static byte keyRecordNumber;
-        private static byte keyKIF;
-        private static byte keyKVC;
+        private final List<byte[]> poDigestDataCache = new ArrayList<byte[]>();
+        private SamRevision samRevision;
+        private PoRevision poRevision;
+        private boolean encryption;
+        private boolean verification;
+        private boolean revMode;
+        private byte keyRecordNumber;
+        private byte keyKIF;
+        private byte keyKVC;
+        private boolean digestUpdateMultiple;
 
         /**
          * Initializes the digest computation process
@@ -1042,11 +1138,13 @@ public final class PoTransaction {
          * @param workKeyRecordNumber the key record number
          * @param workKeyKif the PO KIF
          * @param workKeyKVC the PO KVC
+         * @param digestUpdateMultipleEnabled true if Digest Update Multiple commands can be used
          * @param digestData a first bunch of data to digest.
          */
-        static void initialize(PoRevision poRev, SamRevision samRev, boolean sessionEncryption,
+        void initialize(PoRevision poRev, SamRevision samRev, boolean sessionEncryption,
                 boolean verificationMode, boolean rev3_2Mode, byte workKeyRecordNumber,
-                byte workKeyKif, byte workKeyKVC, byte[] digestData) {
+                byte workKeyKif, byte workKeyKVC, boolean digestUpdateMultipleEnabled,
+                byte[] digestData) {
             /* Store work context */
             poRevision = poRev;
             samRevision = samRev;
@@ -1056,6 +1154,7 @@ public final class PoTransaction {
             keyRecordNumber = workKeyRecordNumber;
             keyKIF = workKeyKif;
             keyKVC = workKeyKVC;
+            digestUpdateMultiple = digestUpdateMultipleEnabled;
             if (logger.isDebugEnabled()) {
                 logger.debug(
                         "PoTransaction.DigestProcessor => initialize: POREVISION = {}, SAMREVISION = {}, SESSIONENCRYPTION = {}",
@@ -1084,7 +1183,7 @@ public final class PoTransaction {
          * @param request PO request
          * @param response PO response
          */
-        static void pushPoExchangeData(ApduRequest request, ApduResponse response) {
+        void pushPoExchangeData(ApduRequest request, ApduResponse response) {
 
             logger.debug("PoTransaction.DigestProcessor => pushPoExchangeData: REQUEST = {}",
                     request);
@@ -1108,14 +1207,77 @@ public final class PoTransaction {
             poDigestDataCache.add(response.getBytes());
         }
 
+        /**
+         * Indicates whether the digest data can be sent with Digest Update Multiple commands.
+         * <p>
+         * The command has to be enabled in the {@link SecuritySettings}. It is not available with
+         * S1D SAMs and is not used in encrypted sessions (the SAM has to return the deciphered
+         * data of each block).
+         *
+         * @return true if the Digest Update Multiple command can be used
+         */
+        private boolean isDigestUpdateMultipleAllowed() {
+            return digestUpdateMultiple && !encryption && samRevision != SamRevision.S1D;
+        }
+
+        /**
+         * Packs the digest data blocks (from index 1) into as few Digest Update Multiple commands
+         * as possible.
+         * <p>
+         * Consecutive blocks are concatenated, each one prefixed by its length, as long as the
+         * data field of the command does not exceed 255 bytes. A command holding a single block
+         * and a block too large to be packed are sent with a simple Digest Update command.
+         *
+         * @return the list of Digest Update (Multiple) ApduRequest
+         */
+        private List<ApduRequest> getPackedDigestUpdateRequests() {
+            List<ApduRequest> digestUpdateRequests = new ArrayList<ApduRequest>();
+            int index = 1;
+            while (index < poDigestDataCache.size()) {
+                /* determine the blocks that fit in the current command */
+                int packedLength = 0;
+                int lastIndex = index;
+                while (lastIndex < poDigestDataCache.size()) {
+                    int blockLength = poDigestDataCache.get(lastIndex).length;
+                    if (packedLength + 1 + blockLength > DIGEST_UPDATE_MULTIPLE_MAX_DATA_LENGTH) {
+                        break;
+                    }
+                    packedLength += 1 + blockLength;
+                    lastIndex++;
+                }
+                if (lastIndex - index < 2) {
+                    /* a single block (or a block too long to be packed) */
+                    digestUpdateRequests.add(new DigestUpdateCmdBuild(samRevision, encryption,
+                            poDigestDataCache.get(index)).getApduRequest());
+                    index++;
+                } else {
+                    byte[] packedData = new byte[packedLength];
+                    int offset = 0;
+                    for (int i = index; i < lastIndex; i++) {
+                        byte[] block = poDigestDataCache.get(i);
+                        packedData[offset++] = (byte) block.length;
+                        System.arraycopy(block, 0, packedData, offset, block.length);
+                        offset += block.length;
+                    }
+                    digestUpdateRequests.add(
+                            new DigestUpdateMultipleCmdBuild(samRevision, packedData)
+                                    .getApduRequest());
+                    index = lastIndex;
+                }
+            }
+            return digestUpdateRequests;
+        }
+
         /**
          * Get a unique SAM request for the whole digest computation process.
+         * <p>
+         * Digest Update Multiple commands are used whenever possible to reduce the number of
+         * exchanges with the SAM.
          * 
          * @return SeRequest all the ApduRequest to send to the SAM in order to get the terminal
          *         signature
          */
-        // TODO optimization with the use of Digest Update Multiple whenever possible.
-        static SeRequest getSamDigestRequest() {
+        SeRequest getSamDigestRequest() {
             List<ApduRequest> samApduRequestList = new ArrayList<ApduRequest>();
 
             if (poDigestDataCache.size() == 0) {
@@ -1143,10 +1305,13 @@ public final class PoTransaction {
              *
              * The first command is at index 1.
              */
-            for (int i = 1; i < poDigestDataCache.size(); i++) {
-                samApduRequestList.add(
-                        new DigestUpdateCmdBuild(samRevision, encryption, poDigestDataCache.get(i))
-                                .getApduRequest());
+            if (isDigestUpdateMultipleAllowed()) {
+                samApduRequestList.addAll(getPackedDigestUpdateRequests());
+            } else {
+                for (int i = 1; i < poDigestDataCache.size(); i++) {
+                    samApduRequestList.add(new DigestUpdateCmdBuild(samRevision, encryption,
+                            poDigestDataCache.get(i)).getApduRequest());
+                }
             }
 
             /*
@@ -1163,6 +1328,8 @@ public final class PoTransaction {
 
     /**
      * The class handles the anticipated response computation.
+     * <p>
+     * The stored Read Record exchanges are specific to the current {@link PoTransaction}.
      */
     private static class AnticipatedResponseBuilder {
         /**
@@ -1189,7 +1356,7 @@ public final class PoTransaction {
         /**
          * A Map of SFI and Commands/Responses
          */
-        private static Map<Byte, CommandResponse> sfiCommandResponseHashMap =
+        private final Map<Byte, CommandResponse> sfiCommandResponseHashMap =
                 new HashMap<Byte, CommandResponse>();
 
         /**
@@ -1201,7 +1368,7 @@ public final class PoTransaction {
          * @param skipFirstItem a flag to indicate if the first apduRequest/apduResponse pair has to
          *        be ignored or not.
          */
-        static void storeCommandResponse(List<PoBuilderParser> poBuilderParsers,
+        void storeCommandResponse(List<PoBuilderParser> poBuilderParsers,
                 List<ApduRequest> apduRequests, List<ApduResponse> apduResponses,
                 Boolean skipFirstItem) {
             if (poBuilderParsers != null) {
@@ -1249,7 +1416,7 @@ public final class PoTransaction {
          * @return the anticipated responses.
          * @throws KeypleCalypsoSecureSessionException if an response can't be determined.
          */
-        private static List<ApduResponse> getResponses(List<PoBuilderParser> poBuilderParsers)
+        private List<ApduResponse> getResponses(List<PoBuilderParser> poBuilderParsers)
                 throws KeypleCalypsoSecureSessionException {
             List<ApduResponse> apduResponses = new ArrayList<ApduResponse>();
             if (poBuilderParsers != null) {
@@ -1447,6 +1614,76 @@ public final class PoTransaction {
         return poProcessSuccess;
     }
 
+    /**
+     * Anticipates the responses to a list of PO commands sent in session, so that the commands can
+     * be sent with the Close Session command.
+     *
+     * @param poBuilderParsers the PO commands
+     * @return the anticipated responses or null if a command is not a modification command or if
+     *         its response can't be determined
+     */
+    private List<ApduResponse> getAnticipatedResponses(List<PoBuilderParser> poBuilderParsers) {
+        if (poBuilderParsers.isEmpty()) {
+            return null;
+        }
+        for (PoBuilderParser poBuilderParser : poBuilderParsers) {
+            if (!(poBuilderParser.getCommandBuilder() instanceof PoModificationCommand)) {
+                /* the response of a read command is needed for the session digest */
+                return null;
+            }
+        }
+        try {
+            return anticipatedResponseBuilder.getResponses(poBuilderParsers);
+        } catch (KeypleCalypsoSecureSessionException e) {
+            logger.debug("Unable to anticipate the PO responses: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Sends PO modification commands along with the Close Session command (contacts mode, channel
+     * kept open).
+     * <p>
+     * If a command fails, its response differs from the anticipated one: the PO rejects the
+     * terminal signature and cancels all the modifications of the session, including those of the
+     * successful commands. As with the commands processed before the closing, the failure is
+     * raised: the session is closed and none of its modifications has been committed.
+     *
+     * @param poModificationCommands the PO modification commands
+     * @param poAnticipatedResponses the anticipated responses to the modification commands
+     * @return SeResponse the responses to the modification commands
+     * @throws KeypleReaderException the IO reader exception or the closing failure, a
+     *         {@link KeypleCalypsoSecureSessionException} with the PO responses if a modification
+     *         command failed
+     */
+    private SeResponse processAnticipatedClosing(List<PoBuilderParser> poModificationCommands,
+            List<ApduResponse> poAnticipatedResponses) throws KeypleReaderException {
+        try {
+            return processAtomicClosing(poModificationCommands, poAnticipatedResponses,
+                    TransmissionMode.CONTACTS, ChannelState.KEEP_OPEN);
+        } catch (KeypleCalypsoSecureSessionException ex) {
+            List<ApduResponse> poApduResponses = ex.getResponses();
+            if (ex.getType() != KeypleCalypsoSecureSessionException.Type.PO
+                    || poApduResponses == null
+                    || poApduResponses.size() <= poAnticipatedResponses.size()) {
+                throw ex;
+            }
+            for (int i = 0; i < poAnticipatedResponses.size(); i++) {
+                if (!poApduResponses.get(i).isSuccessful()) {
+                    logger.debug("processAnticipatedClosing => command failure RESPONSE = {}",
+                            poApduResponses.get(i));
+                    /* the PO has cancelled the session */
+                    sessionState = SessionState.SESSION_CLOSED;
+                    throw new KeypleCalypsoSecureSessionException(
+                            "Invalid response, session cancelled",
+                            KeypleCalypsoSecureSessionException.Type.PO, ex.getRequests(),
+                            poApduResponses);
+                }
+            }
+            throw ex;
+        }
+    }
+
     /**
      * Process all prepared PO commands (outside a Secure Session).
      * <ul>
@@ -1537,17 +1774,30 @@ public final class PoTransaction {
                      * The current command would overflow the modifications buffer in the PO. We
                      * send the current commands and update the parsers. The parsers Iterator is
                      * kept all along the process.
+                     *
+                     * Then close the session and reset the modifications buffer counters for the
+                     * next round (set the contact mode to avoid the transmission of the
+                     * ratification).
                      */
-                    SeResponse seResponsePoCommands = processAtomicPoCommands(
-                            poAtomicBuilderParserList, ChannelState.KEEP_OPEN);
+                    List<ApduResponse> poAnticipatedResponses =
+                            getAnticipatedResponses(poAtomicBuilderParserList);
+                    SeResponse seResponsePoCommands;
+                    if (poAnticipatedResponses != null) {
+                        /*
+                         * The responses can be anticipated: the commands are sent along with the
+                         * Close Session command, in a single exchange with the PO
+                         */
+                        seResponsePoCommands = processAnticipatedClosing(poAtomicBuilderParserList,
+                                poAnticipatedResponses);
+                    } else {
+                        seResponsePoCommands = processAtomicPoCommands(poAtomicBuilderParserList,
+                                ChannelState.KEEP_OPEN);
+                        processAtomicClosing(null, TransmissionMode.CONTACTS,
+                                ChannelState.KEEP_OPEN);
+                    }
                     if (!createResponseParsers(seResponsePoCommands, poAtomicBuilderParserList)) {
                         poProcessSuccess = false;
                     }
-                    /*
-                     * Close the session and reset the modifications buffer counters for the next
-                     * round (set the contact mode to avoid the transmission of the ratification)
-                     */
-                    processAtomicClosing(null, TransmissionMode.CONTACTS, ChannelState.KEEP_OPEN);
                     resetModificationsBufferCounter();
                     /* We reopen a new session for the remaining commands to be sent */
                     SeResponse seResponseOpening = processAtomicOpening(currentAccessLevel,
@@ -11,10 +11,37 @@
  ********************************************************************************/
 package org.eclipse.keyple.calypso.transaction;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.eclipse.keyple.calypso.command.po.PoRevision;
+import org.eclipse.keyple.calypso.command.sam.SamRevision;
+import org.eclipse.keyple.calypso.command.sam.builder.security.SamGetChallengeCmdBuild;
+import org.eclipse.keyple.calypso.command.sam.parser.security.SamGetChallengeRespPars;
+import org.eclipse.keyple.calypso.transaction.exception.KeypleCalypsoSecureSessionException;
 import org.eclipse.keyple.core.selection.SeResource;
+import org.eclipse.keyple.core.seproxy.ChannelState;
 import org.eclipse.keyple.core.seproxy.SeReader;
+import org.eclipse.keyple.core.seproxy.exception.KeypleReaderException;
+import org.eclipse.keyple.core.seproxy.message.*;
+import org.eclipse.keyple.core.seproxy.plugin.AbstractLocalReader;
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class SamResource extends SeResource<CalypsoSam> {
+    private static final Logger logger = LoggerFactory.getLogger(SamResource.class);
+
+    /** The SAM revision used to build the commands (same default as {@link PoTransaction}) */
+    private final static SamRevision samRevision = SamRevision.C1;
+
+    private final static byte CHALLENGE_LENGTH_REV_INF_32 = (byte) 0x04;
+    private final static byte CHALLENGE_LENGTH_REV32 = (byte) 0x08;
+
+    /** status words of a card not answering as a selected Calypso SAM */
+    private final static int SW_CLASS_NOT_SUPPORTED = 0x6E00;
+    private final static int SW_INS_NOT_SUPPORTED = 0x6D00;
+
     /** the free/busy enum status */
     public enum SamResourceStatus {
         FREE, BUSY;
@@ -26,6 +53,18 @@ public class SamResource extends SeResource<CalypsoSam> {
     /** the sam identifier */
     private SamIdentifier samIdentifier;
 
+    /** the diversifier (PO serial number) currently set in the SAM, null if unknown */
+    private byte[] currentDiversifier;
+
+    /** the terminal challenge obtained in advance from the SAM, null if none is available */
+    private byte[] prefetchedChallenge;
+
+    /** true when the SAM has to be selected again before its next use */
+    private volatile boolean selectionInvalidated;
+
+    /** the SE removal count of the reader when the resource was created, -1 if not available */
+    private final long selectionSeRemovalCount;
+
     /**
      * Constructor
      *
@@ -37,6 +76,14 @@ public class SamResource extends SeResource<CalypsoSam> {
 
         samResourceStatus = SamResourceStatus.FREE;
         samIdentifier = null;
+        selectionSeRemovalCount = getSeRemovalCount(seReader);
+    }
+
+    private static long getSeRemovalCount(SeReader seReader) {
+        if (seReader instanceof AbstractLocalReader) {
+            return ((AbstractLocalReader) seReader).getSeRemovalCount();
+        }
+        return -1;
     }
 
     /**
@@ -57,6 +104,13 @@ public class SamResource extends SeResource<CalypsoSam> {
         this.samIdentifier = samIdentifier;
     }
 
+    /**
+     * @return the {@link SamIdentifier} of the current {@link SamResource} (may be null)
+     */
+    public SamIdentifier getSamIdentifier() {
+        return samIdentifier;
+    }
+
     /**
      * Indicates whether the SamResource matches the provided SAM identifier.
      * <p>
@@ -84,4 +138,194 @@ public class SamResource extends SeResource<CalypsoSam> {
     public void setSamResourceStatus(SamResourceStatus samResourceStatus) {
         this.samResourceStatus = samResourceStatus;
     }
+
+    /**
+     * Indicates that the selection of the SAM can no longer be relied on (reader error, SAM
+     * swap...).
+     * <p>
+     * A resource kept warm by the {@link SamResourceManager} is selected again instead of being
+     * reused. It is called automatically when the SAM reader fails or when the SAM response shows
+     * that its selection was lost, during a {@link PoTransaction} or a challenge prefetch.
+     */
+    public synchronized void invalidateSelection() {
+        selectionInvalidated = true;
+        currentDiversifier = null;
+        prefetchedChallenge = null;
+    }
+
+    /**
+     * The selection is no longer valid when it has been invalidated or when the reader has detected
+     * the removal of the SAM since the creation of the resource (the SAM may have been swapped).
+     * <p>
+     * The removals are only counted by the local readers ({@link AbstractLocalReader}) and, for an
+     * unobserved reader, only when a channel was open. With the other readers (e.g. remote virtual
+     * readers) a swapped SAM is detected on its next use: a reader error, a closed logical channel
+     * or a command rejected by a card that is not the selected SAM invalidates the selection.
+     *
+     * @return false if the SAM has to be selected again before its next use
+     */
+    public boolean isSelectionValid() {
+        return !selectionInvalidated
+                && getSeRemovalCount(getSeReader()) == selectionSeRemovalCount;
+    }
+
+    /**
+     * Checks a SAM response: a SAM that has been swapped or powered again since its selection
+     * answers without its logical channel, or rejects the class or the instruction of the Calypso
+     * SAM commands (status words 6E00 and 6D00).
+     * <p>
+     * The other unsuccessful status words are regular command errors (e.g. a PO signature rejected
+     * by Digest Authenticate), they don't question the selection of the SAM.
+     *
+     * @param samSeResponse the SAM response
+     * @return true if the selection of the SAM can no longer be relied on
+     */
+    static boolean isSelectionLost(SeResponse samSeResponse) {
+        if (samSeResponse == null || !samSeResponse.wasChannelPreviouslyOpen()) {
+            return true;
+        }
+        for (ApduResponse apduResponse : samSeResponse.getApduResponses()) {
+            byte[] bytes = apduResponse.getBytes();
+            if (bytes == null || bytes.length < 2) {
+                return true;
+            }
+            int statusCode = apduResponse.getStatusCode();
+            if (statusCode == SW_CLASS_NOT_SUPPORTED || statusCode == SW_INS_NOT_SUPPORTED) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets a terminal challenge from the SAM in advance, typically while the PO reader is waiting
+     * for a card.
+     * <p>
+     * The challenge is kept by the resource and used by the next secure session opening of a
+     * {@link PoTransaction} as long as no Select Diversifier command has to be sent to the SAM
+     * before, i.e. if the SAM is already diversified with the serial number of the presented PO.
+     * In the other cases, the prefetched challenge is discarded and a new one is requested after
+     * the diversification.
+     * <p>
+     * The SAM only keeps the last generated challenge, so at most one challenge is kept: a new
+     * call replaces the previous one.
+     *
+     * @param poRevision the revision of the PO expected for the next session, it determines the
+     *        challenge length (8 bytes for {@link PoRevision#REV3_2}, 4 bytes otherwise)
+     * @throws KeypleReaderException if a reader error occurs
+     * @throws KeypleCalypsoSecureSessionException if the SAM response is not the expected one
+     */
+    public synchronized void prefetchChallenge(PoRevision poRevision)
+            throws KeypleReaderException {
+        byte challengeLength = poRevision.equals(PoRevision.REV3_2) ? CHALLENGE_LENGTH_REV32
+                : CHALLENGE_LENGTH_REV_INF_32;
+
+        /* the current challenge of the SAM will be replaced by the new one */
+        prefetchedChallenge = null;
+
+        List<ApduRequest> samApduRequestList = new ArrayList<ApduRequest>();
+        samApduRequestList
+                .add(new SamGetChallengeCmdBuild(samRevision, challengeLength).getApduRequest());
+
+        SeRequest samSeRequest = new SeRequest(samApduRequestList, ChannelState.KEEP_OPEN);
+
+        logger.debug("prefetchChallenge => SAMSEREQUEST = {}", samSeRequest);
+
+        SeResponse samSeResponse;
+        try {
+            samSeResponse = ((ProxyReader) getSeReader()).transmit(samSeRequest);
+        } catch (KeypleReaderException e) {
+            invalidateSelection();
+            throw e;
+        } catch (IllegalStateException e) {
+            /* no logical channel open */
+            invalidateSelection();
+            throw e;
+        }
+
+        logger.debug("prefetchChallenge => SAMSERESPONSE = {}", samSeResponse);
+
+        if (isSelectionLost(samSeResponse)) {
+            invalidateSelection();
+        }
+
+        if (samSeResponse == null || samSeResponse.getApduResponses().size() != 1) {
+            throw new KeypleCalypsoSecureSessionException("Invalid message received",
+                    KeypleCalypsoSecureSessionException.Type.SAM, samApduRequestList,
+                    samSeResponse != null ? samSeResponse.getApduResponses() : null);
+        }
+
+        byte[] challenge =
+                new SamGetChallengeRespPars(samSeResponse.getApduResponses().get(0)).getChallenge();
+
+        if (challenge == null || challenge.length != challengeLength) {
+            throw new KeypleCalypsoSecureSessionException("Invalid message received",
+                    KeypleCalypsoSecureSessionException.Type.SAM, samApduRequestList,
+                    samSeResponse.getApduResponses());
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("prefetchChallenge => TERMINALCHALLENGE = {}",
+                    ByteArrayUtil.toHex(challenge));
+        }
+
+        prefetchedChallenge = challenge;
+    }
+
+    /**
+     * Indicates whether a prefetched challenge is available
+     *
+     * @return true if a challenge is ready to be used
+     */
+    public synchronized boolean isChallengePrefetched() {
+        return prefetchedChallenge != null;
+    }
+
+    /**
+     * Retrieves and invalidates the prefetched challenge.
+     * <p>
+     * The challenge is returned only if the SAM is diversified with the provided diversifier and
+     * if its length is the expected one. In all cases, the prefetched challenge can no longer be
+     * used after this call.
+     *
+     * @param diversifier the diversifier (PO serial number) required by the session
+     * @param challengeLength the expected challenge length
+     * @return the challenge or null if no valid challenge is available
+     */
+    synchronized byte[] takePrefetchedChallenge(byte[] diversifier, int challengeLength) {
+        byte[] challenge = prefetchedChallenge;
+        prefetchedChallenge = null;
+        if (challenge == null || challenge.length != challengeLength
+                || !isDiversifiedWith(diversifier)) {
+            return null;
+        }
+        return challenge;
+    }
+
+    /**
+     * Indicates whether the SAM is diversified with the provided diversifier, i.e. whether a
+     * Select Diversifier command can be skipped.
+     * <p>
+     * The diversifier is not relied on anymore once the selection is no longer valid (see
+     * {@link #isSelectionValid()}): the SAM may have been swapped.
+     *
+     * @param diversifier the diversifier (PO serial number)
+     * @return true if the last diversifier sent to the selected SAM is the provided one
+     */
+    synchronized boolean isDiversifiedWith(byte[] diversifier) {
+        return isSelectionValid() && currentDiversifier != null
+                && Arrays.equals(diversifier, currentDiversifier);
+    }
+
+    /**
+     * Records the diversifier sent to the SAM with a Select Diversifier command.
+     * <p>
+     * A challenge obtained before is no longer valid.
+     *
+     * @param diversifier the diversifier (PO serial number), null if unknown
+     */
+    synchronized void setCurrentDiversifier(byte[] diversifier) {
+        this.currentDiversifier = diversifier;
+        this.prefetchedChallenge = null;
+    }
 }
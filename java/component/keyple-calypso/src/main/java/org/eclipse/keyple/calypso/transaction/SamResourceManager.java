@@ -13,6 +13,9 @@ package org.eclipse.keyple.calypso.transaction;
 
 import static org.eclipse.keyple.calypso.command.sam.SamRevision.AUTO;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Pattern;
 import org.eclipse.keyple.core.selection.SeSelection;
 import org.eclipse.keyple.core.selection.SelectionsResult;
@@ -32,6 +35,21 @@ import org.slf4j.LoggerFactory;
  * Management of SAM resources:
  * <p>
  * Provides methods fot the allocation/deallocation of SAM resources
+ * <p>
+ * With local readers, the resources are managed as a pool: the requests waiting for a resource
+ * are queued in arrival order and a freed resource is directly handed over to the first waiting
+ * request it matches.
+ * <p>
+ * A local allocation can provide an affinity key (e.g. the name of the PO reader or of a group of
+ * readers): the key is pinned to a preferred SAM resource, chosen among the least loaded ones,
+ * which is allocated whenever it is free. Otherwise, the least loaded free resource is allocated.
+ * Coming back to the same SAM lets the next transactions skip the Select Diversifier command when
+ * the same PO is presented again.
+ * <p>
+ * With a {@link ReaderPoolPlugin}, the freed resources can be kept warm (see
+ * {@link #setWarmSamResourceCapacity(int)}): the reader stays allocated with its logical channel
+ * open and the next allocation for the same group reuses the resulting SAM resource without a new
+ * selection.
  */
 public class SamResourceManager {
     private static final Logger logger = LoggerFactory.getLogger(SamResourceManager.class);
@@ -40,12 +58,78 @@ public class SamResourceManager {
         BLOCKING, NON_BLOCKING
     }
 
-    /* the maximum time (in tenths of a second) during which the BLOCKING mode will wait */
-    private final static int MAX_BLOCKING_TIME = 1000; // 10 sec
+    /* the default maximum time (in milliseconds) during which the BLOCKING mode will wait */
+    private final static long MAX_BLOCKING_TIME = 10000; // 10 sec
     private final ReaderPlugin samReaderPlugin;
     private final List<SamResource> localSamResources = new ArrayList<SamResource>();
     private final boolean dynamicAllocationPlugin;
 
+    /* the lock protecting the local resources, the free resources and the waiting queue */
+    private final ReentrantLock poolLock = new ReentrantLock();
+    /*
+     * the free local resources, in release order (a local resource has no SAM identifier, it
+     * matches all the allocation requests)
+     */
+    private final LinkedList<SamResource> freeSamResources = new LinkedList<SamResource>();
+    /* the allocation requests waiting for a resource, in arrival order */
+    private final LinkedList<AllocationRequest> waitingRequests =
+            new LinkedList<AllocationRequest>();
+
+    /* the maximum number of free resources kept warm with a reader pool plugin, 0 to disable */
+    private int warmSamResourceCapacity;
+    /* the free resources kept warm, indexed by the group reference of their allocation */
+    private final Map<String, LinkedList<SamResource>> warmSamResources =
+            new HashMap<String, LinkedList<SamResource>>();
+    private int warmSamResourceCount;
+    /* the group reference of the allocated resources that can be kept warm */
+    private final Map<SamResource, String> warmGroupReferences =
+            new IdentityHashMap<SamResource, String>();
+    private long warmReuseCount;
+
+    /* the preferred resource of each affinity key */
+    private final Map<String, SamResource> preferredSamResources =
+            new HashMap<String, SamResource>();
+    /* the load of each local resource */
+    private final Map<SamResource, SamLoad> samLoads = new IdentityHashMap<SamResource, SamLoad>();
+    private long affinityHitCount;
+
+    /* allocation statistics */
+    private long allocationCount;
+    private long allocationFailureCount;
+    private long totalWaitTime;
+    private long maxWaitTime;
+
+    /**
+     * A blocked allocation request, waiting for a matching SAM resource to be freed
+     */
+    private static final class AllocationRequest {
+        private final SamIdentifier samIdentifier;
+        private final Condition resourceAvailable;
+        /* the resource handed over to the request, null while waiting */
+        private SamResource samResource;
+
+        AllocationRequest(SamIdentifier samIdentifier, Condition resourceAvailable) {
+            this.samIdentifier = samIdentifier;
+            this.resourceAvailable = resourceAvailable;
+        }
+    }
+
+    /**
+     * The load of a local SAM resource
+     */
+    private static final class SamLoad {
+        /* the number of affinity keys pinned to the resource */
+        private int affinityKeyCount;
+        private long allocationCount;
+
+        /* the less loaded resource has the less pinned affinity keys, then the less allocations */
+        private boolean isLessLoadedThan(SamLoad samLoad) {
+            return affinityKeyCount < samLoad.affinityKeyCount
+                    || (affinityKeyCount == samLoad.affinityKeyCount
+                            && allocationCount < samLoad.allocationCount);
+        }
+    }
+
     /**
      * Instantiate a new SamResourceManager.
      * <p>
@@ -61,6 +145,7 @@ public class SamResourceManager {
     public SamResourceManager(ReaderPlugin samReaderPlugin, String samReaderFilter)
             throws KeypleReaderException {
         this.samReaderPlugin = samReaderPlugin;
+        Pattern samReaderPattern = Pattern.compile(samReaderFilter);
         if (samReaderPlugin instanceof ReaderPoolPlugin) {
             logger.info("Create SAM resource manager from reader pool plugin: {}",
                     samReaderPlugin.getName());
@@ -75,7 +160,8 @@ public class SamResourceManager {
             if (samReaderPlugin instanceof ObservablePlugin) {
                 // add an observer to monitor reader and SAM insertions
                 ReaderObserver readerObserver = new ReaderObserver();
-                PluginObserver pluginObserver = new PluginObserver(readerObserver, samReaderFilter);
+                PluginObserver pluginObserver =
+                        new PluginObserver(readerObserver, samReaderPattern);
                 logger.info("Add observer PLUGINNAME = {}", samReaderPlugin.getName());
                 ((ObservablePlugin) samReaderPlugin).addObserver(pluginObserver);
             } else {
@@ -85,10 +171,9 @@ public class SamResourceManager {
                 SortedSet<? extends SeReader> samReaders = samReaderPlugin.getReaders();
                 for (SeReader samReader : samReaders) {
                     String readerName = samReader.getName();
-                    Pattern p = Pattern.compile(samReaderFilter);
-                    if (p.matcher(readerName).matches()) {
+                    if (samReaderPattern.matcher(readerName).matches()) {
                         logger.debug("Add reader: {}", readerName);
-                        localSamResources.add(createSamResource(samReader));
+                        addSamResource(createSamResource(samReader));
                     } else {
                         logger.debug("Reader not matching: {}", readerName);
                     }
@@ -132,7 +217,7 @@ public class SamResourceManager {
      * <p>
      * In the case where the allocation mode is BLOCKING, this method will wait until a SAM resource
      * becomes free and then return the reference to the allocated resource. However, the BLOCKING
-     * mode will wait a maximum time defined in tenths of a second by MAX_BLOCKING_TIME.
+     * mode will wait a maximum time defined in milliseconds by MAX_BLOCKING_TIME.
      * <p>
      * In the case where the allocation mode is NON_BLOCKING and no SAM resource is available, this
      * method will return null.
@@ -142,85 +227,685 @@ public class SamResourceManager {
      *
      * @param allocationMode the blocking/non-blocking mode
      * @param samIdentifier the targeted SAM identifier
+     * @return the allocated {@link SamResource} or null if no resource is available
+     * @throws InterruptedException if the waiting thread is interrupted
+     * @throws KeypleReaderException if a reader error occurs
      */
     public SamResource allocateSamResource(AllocationMode allocationMode,
             SamIdentifier samIdentifier) throws InterruptedException, KeypleReaderException {
-        long maxBlockingDate = System.currentTimeMillis() + MAX_BLOCKING_TIME;
-        boolean noSamResourceLogged = false;
+        return allocateSamResource(allocationMode, samIdentifier, MAX_BLOCKING_TIME);
+    }
+
+    /**
+     * Allocate a SAM resource from the specified SAM group.
+     * <p>
+     * Same as {@link #allocateSamResource(AllocationMode, SamIdentifier)} with a specific maximum
+     * waiting time for the BLOCKING mode.
+     * <p>
+     * With local readers, the blocked requests are served in arrival order: a freed resource is
+     * given to the oldest waiting request it matches.
+     *
+     * @param allocationMode the blocking/non-blocking mode
+     * @param samIdentifier the targeted SAM identifier
+     * @param timeout the maximum waiting time in milliseconds (BLOCKING mode only)
+     * @return the allocated {@link SamResource} or null if no resource is available
+     * @throws InterruptedException if the waiting thread is interrupted
+     * @throws KeypleReaderException if a reader error occurs
+     */
+    public SamResource allocateSamResource(AllocationMode allocationMode,
+            SamIdentifier samIdentifier, long timeout)
+            throws InterruptedException, KeypleReaderException {
+        return allocateSamResource(allocationMode, samIdentifier, null, timeout);
+    }
+
+    /**
+     * Allocate a SAM resource from the specified SAM group, preferably the SAM resource pinned to
+     * the provided affinity key.
+     * <p>
+     * Same as {@link #allocateSamResource(AllocationMode, SamIdentifier)} with an affinity key.
+     *
+     * @param allocationMode the blocking/non-blocking mode
+     * @param samIdentifier the targeted SAM identifier
+     * @param affinityKey the affinity key (e.g. the name of the PO reader), null for none
+     * @return the allocated {@link SamResource} or null if no resource is available
+     * @throws InterruptedException if the waiting thread is interrupted
+     * @throws KeypleReaderException if a reader error occurs
+     */
+    public SamResource allocateSamResource(AllocationMode allocationMode,
+            SamIdentifier samIdentifier, String affinityKey)
+            throws InterruptedException, KeypleReaderException {
+        return allocateSamResource(allocationMode, samIdentifier, affinityKey, MAX_BLOCKING_TIME);
+    }
+
+    /**
+     * Allocate a SAM resource from the specified SAM group, preferably the SAM resource pinned to
+     * the provided affinity key.
+     * <p>
+     * With local readers, the affinity key is pinned to the least loaded free resource at its
+     * first allocation (or when its preferred resource has been removed). When the preferred
+     * resource is busy or does not match the identifier, the least loaded free resource is
+     * allocated instead. The blocked requests are served in arrival order regardless of their
+     * affinity.
+     * <p>
+     * The affinity key is ignored with a {@link ReaderPoolPlugin}.
+     *
+     * @param allocationMode the blocking/non-blocking mode
+     * @param samIdentifier the targeted SAM identifier
+     * @param affinityKey the affinity key (e.g. the name of the PO reader), null for none
+     * @param timeout the maximum waiting time in milliseconds (BLOCKING mode only)
+     * @return the allocated {@link SamResource} or null if no resource is available
+     * @throws InterruptedException if the waiting thread is interrupted
+     * @throws KeypleReaderException if a reader error occurs
+     */
+    public SamResource allocateSamResource(AllocationMode allocationMode,
+            SamIdentifier samIdentifier, String affinityKey, long timeout)
+            throws InterruptedException, KeypleReaderException {
         logger.debug("Allocating SAM reader channel...");
-        while (true) {
-            if (dynamicAllocationPlugin) {
-                // virtually infinite number of readers
-                SeReader samReader = ((ReaderPoolPlugin) samReaderPlugin)
-                        .allocateReader(samIdentifier.getGroupReference());
-                if (samReader != null) {
-                    SamResource samResource = createSamResource(samReader);
-                    logger.debug("Allocation succeeded. SAM resource created.");
-                    return samResource;
-                }
+        if (dynamicAllocationPlugin) {
+            return allocateDynamicSamResource(allocationMode, samIdentifier, timeout);
+        }
+
+        long startTime = System.nanoTime();
+        SamResource samResource;
+        poolLock.lock();
+        try {
+            if (affinityKey != null) {
+                samResource = takeAffinitySamResource(samIdentifier, affinityKey);
             } else {
-                synchronized (localSamResources) {
-                    for (SamResource samResource : localSamResources) {
-                        if (samResource.isSamResourceFree()) {
-                            if (samResource.isSamMatching(samIdentifier)) {
-                                samResource
-                                        .setSamResourceStatus(SamResource.SamResourceStatus.BUSY);
-                                logger.debug("Allocation succeeded. SAM resource created.");
-                                return samResource;
-                            }
-                        }
-                    }
+                samResource = takeFreeSamResource(samIdentifier);
+            }
+            if (samResource == null && allocationMode == AllocationMode.BLOCKING) {
+                logger.trace("No SAM resources available at the moment.");
+                samResource = waitForSamResource(samIdentifier, timeout);
+            }
+            if (samResource != null) {
+                samResource.setSamResourceStatus(SamResource.SamResourceStatus.BUSY);
+                SamLoad samLoad = samLoads.get(samResource);
+                if (samLoad != null) {
+                    samLoad.allocationCount++;
                 }
+                long waitTime = System.nanoTime() - startTime;
+                allocationCount++;
+                totalWaitTime += waitTime;
+                if (waitTime > maxWaitTime) {
+                    maxWaitTime = waitTime;
+                }
+            } else {
+                allocationFailureCount++;
             }
-            // loop until MAX_BLOCKING_TIME in blocking mode, only once in non-blocking mode
+        } finally {
+            poolLock.unlock();
+        }
+
+        if (samResource != null) {
+            logger.debug("Allocation succeeded. SAM resource created.");
+        } else if (allocationMode == AllocationMode.BLOCKING) {
+            logger.error("The allocation process failed. Timeout {} sec exceeded .",
+                    (timeout / 1000.0));
+        } else {
+            logger.trace("No SAM resources available at the moment.");
+        }
+        return samResource;
+    }
+
+    /**
+     * Allocate a SAM resource from a {@link ReaderPoolPlugin}.
+     * <p>
+     * In BLOCKING mode, a {@link BlockingReaderPoolPlugin} is waited for the release of one of its
+     * readers. The other pool plugins do not notify the release of their readers, the allocation
+     * is retried periodically.
+     *
+     * @param allocationMode the blocking/non-blocking mode
+     * @param samIdentifier the targeted SAM identifier
+     * @param timeout the maximum waiting time in milliseconds (BLOCKING mode only)
+     * @return the allocated {@link SamResource} or null if no resource is available
+     * @throws InterruptedException if the waiting thread is interrupted
+     * @throws KeypleReaderException if a reader error occurs
+     */
+    private SamResource allocateDynamicSamResource(AllocationMode allocationMode,
+            SamIdentifier samIdentifier, long timeout)
+            throws InterruptedException, KeypleReaderException {
+        String groupReference = samIdentifier.getGroupReference();
+        SamResource warmSamResource = takeWarmSamResource(groupReference);
+        if (warmSamResource != null) {
+            logger.debug("Allocation succeeded. Warm SAM resource reused.");
+            return warmSamResource;
+        }
+        if (allocationMode == AllocationMode.BLOCKING
+                && samReaderPlugin instanceof BlockingReaderPoolPlugin) {
+            SeReader samReader = ((BlockingReaderPoolPlugin) samReaderPlugin)
+                    .allocateReader(groupReference, timeout);
+            if (samReader == null) {
+                logger.error("The allocation process failed. Timeout {} sec exceeded .",
+                        (timeout / 1000.0));
+                return null;
+            }
+            return createDynamicSamResource(samReader, groupReference);
+        }
+        long maxBlockingDate = System.currentTimeMillis() + timeout;
+        boolean noSamResourceLogged = false;
+        while (true) {
+            // virtually infinite number of readers
+            SeReader samReader =
+                    ((ReaderPoolPlugin) samReaderPlugin).allocateReader(groupReference);
+            if (samReader != null) {
+                return createDynamicSamResource(samReader, groupReference);
+            }
+            // loop until timeout in blocking mode, only once in non-blocking mode
             if (allocationMode == AllocationMode.NON_BLOCKING) {
                 logger.trace("No SAM resources available at the moment.");
-                break;
-            } else {
-                if (!noSamResourceLogged) {
-                    /* log once the first time */
-                    logger.trace("No SAM resources available at the moment.");
-                    noSamResourceLogged = true;
-                }
-                Thread.sleep(10);
-                if (System.currentTimeMillis() >= maxBlockingDate) {
-                    logger.error("The allocation process failed. Timeout {} sec exceeded .",
-                            (MAX_BLOCKING_TIME / 100.0));
+                return null;
+            }
+            if (!noSamResourceLogged) {
+                /* log once the first time */
+                logger.trace("No SAM resources available at the moment.");
+                noSamResourceLogged = true;
+            }
+            Thread.sleep(10);
+            if (System.currentTimeMillis() >= maxBlockingDate) {
+                logger.error("The allocation process failed. Timeout {} sec exceeded .",
+                        (timeout / 1000.0));
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Create a SAM resource with a reader allocated from the {@link ReaderPoolPlugin}, to be kept
+     * warm when freed if enabled.
+     *
+     * @param samReader the allocated reader
+     * @param groupReference the group reference of the allocation
+     * @return the busy {@link SamResource}
+     * @throws KeypleReaderException if a reader error occurs
+     */
+    private SamResource createDynamicSamResource(SeReader samReader, String groupReference)
+            throws KeypleReaderException {
+        SamResource samResource = createSamResource(samReader);
+        samResource.setSamResourceStatus(SamResource.SamResourceStatus.BUSY);
+        poolLock.lock();
+        try {
+            if (warmSamResourceCapacity > 0) {
+                warmGroupReferences.put(samResource, groupReference);
+            }
+        } finally {
+            poolLock.unlock();
+        }
+        logger.debug("Allocation succeeded. SAM resource created.");
+        return samResource;
+    }
+
+    /**
+     * Take a warm resource allocated for the provided group and check that it can be reused
+     * without a new selection: its selection must still be valid (see
+     * {@link SamResource#isSelectionValid()}, a swapped SAM invalidates it) and the SAM must still
+     * be present. The resources failing the check are released to the reader pool plugin.
+     *
+     * @param groupReference the group reference of the allocation
+     * @return the resource or null if no warm resource can be reused
+     */
+    private SamResource takeWarmSamResource(String groupReference) {
+        while (true) {
+            SamResource samResource;
+            poolLock.lock();
+            try {
+                LinkedList<SamResource> samResources = warmSamResources.get(groupReference);
+                if (samResources == null || samResources.isEmpty()) {
                     return null;
                 }
+                samResource = samResources.removeFirst();
+                warmSamResourceCount--;
+            } finally {
+                poolLock.unlock();
+            }
+            if (isWarmSamResourceValid(samResource)) {
+                samResource.setSamResourceStatus(SamResource.SamResourceStatus.BUSY);
+                poolLock.lock();
+                try {
+                    warmGroupReferences.put(samResource, groupReference);
+                    warmReuseCount++;
+                } finally {
+                    poolLock.unlock();
+                }
+                return samResource;
+            }
+            logger.debug("Warm SAM resource no longer valid, release the reader {}.",
+                    samResource.getSeReader().getName());
+            ((ReaderPoolPlugin) samReaderPlugin).releaseReader(samResource.getSeReader());
+        }
+    }
+
+    private static boolean isWarmSamResourceValid(SamResource samResource) {
+        if (!samResource.isSelectionValid()) {
+            return false;
+        }
+        try {
+            return samResource.getSeReader().isSePresent();
+        } catch (NoStackTraceThrowable e) {
+            return false;
+        }
+    }
+
+    /**
+     * Queue an allocation request and wait until a matching resource is handed over or the
+     * timeout expires.
+     * <p>
+     * Must be called with the pool lock held.
+     *
+     * @param samIdentifier the targeted SAM identifier
+     * @param timeout the maximum waiting time in milliseconds
+     * @return the allocated resource or null if the timeout expired
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    private SamResource waitForSamResource(SamIdentifier samIdentifier, long timeout)
+            throws InterruptedException {
+        AllocationRequest request = new AllocationRequest(samIdentifier, poolLock.newCondition());
+        waitingRequests.addLast(request);
+        long remainingTime = TimeUnit.MILLISECONDS.toNanos(timeout);
+        try {
+            while (request.samResource == null && remainingTime > 0) {
+                remainingTime = request.resourceAvailable.awaitNanos(remainingTime);
+            }
+        } catch (InterruptedException e) {
+            if (request.samResource != null) {
+                /* a resource has been handed over in the meantime, give it back to the pool */
+                releaseSamResource(request.samResource);
+                request.samResource = null;
+            }
+            throw e;
+        } finally {
+            waitingRequests.remove(request);
+        }
+        return request.samResource;
+    }
+
+    /**
+     * Remove and return the first free resource matching the provided identifier.
+     * <p>
+     * Must be called with the pool lock held.
+     *
+     * @param samIdentifier the targeted SAM identifier
+     * @return the resource or null if no free resource matches
+     */
+    private SamResource takeFreeSamResource(SamIdentifier samIdentifier) {
+        Iterator<SamResource> iterator = freeSamResources.iterator();
+        while (iterator.hasNext()) {
+            SamResource samResource = iterator.next();
+            if (samIdentifier == null || samResource.isSamMatching(samIdentifier)) {
+                iterator.remove();
+                return samResource;
             }
         }
         return null;
     }
 
+    /**
+     * Remove and return the free resource pinned to the affinity key if it matches the provided
+     * identifier, otherwise the least loaded free resource matching it. The key is pinned to the
+     * returned resource if it has no preferred resource yet.
+     * <p>
+     * Must be called with the pool lock held.
+     *
+     * @param samIdentifier the targeted SAM identifier
+     * @param affinityKey the affinity key
+     * @return the resource or null if no free resource matches
+     */
+    private SamResource takeAffinitySamResource(SamIdentifier samIdentifier, String affinityKey) {
+        SamResource preferredSamResource = preferredSamResources.get(affinityKey);
+        if (preferredSamResource != null
+                && (samIdentifier == null || preferredSamResource.isSamMatching(samIdentifier))) {
+            if (freeSamResources.remove(preferredSamResource)) {
+                affinityHitCount++;
+                return preferredSamResource;
+            }
+        }
+        SamResource leastLoadedSamResource = null;
+        for (SamResource samResource : freeSamResources) {
+            if ((samIdentifier == null || samResource.isSamMatching(samIdentifier))
+                    && (leastLoadedSamResource == null || samLoads.get(samResource)
+                            .isLessLoadedThan(samLoads.get(leastLoadedSamResource)))) {
+                leastLoadedSamResource = samResource;
+            }
+        }
+        if (leastLoadedSamResource == null) {
+            return null;
+        }
+        freeSamResources.remove(leastLoadedSamResource);
+        if (preferredSamResource == null) {
+            logger.debug("Affinity key {} pinned to the SAM of the reader {}", affinityKey,
+                    leastLoadedSamResource.getSeReader().getName());
+            preferredSamResources.put(affinityKey, leastLoadedSamResource);
+            samLoads.get(leastLoadedSamResource).affinityKeyCount++;
+        }
+        return leastLoadedSamResource;
+    }
+
+    /**
+     * Hand the resource over to the oldest waiting request it matches, or put it in the free
+     * resources.
+     * <p>
+     * Must be called with the pool lock held.
+     *
+     * @param samResource the resource to release
+     */
+    private void releaseSamResource(SamResource samResource) {
+        Iterator<AllocationRequest> iterator = waitingRequests.iterator();
+        while (iterator.hasNext()) {
+            AllocationRequest request = iterator.next();
+            if (request.samIdentifier == null
+                    || samResource.isSamMatching(request.samIdentifier)) {
+                iterator.remove();
+                request.samResource = samResource;
+                request.resourceAvailable.signal();
+                return;
+            }
+        }
+        samResource.setSamResourceStatus(SamResource.SamResourceStatus.FREE);
+        freeSamResources.addLast(samResource);
+    }
+
+    /**
+     * Add a new local resource to the pool and make it available
+     *
+     * @param samResource the new resource
+     */
+    private void addSamResource(SamResource samResource) {
+        poolLock.lock();
+        try {
+            localSamResources.add(samResource);
+            samLoads.put(samResource, new SamLoad());
+            releaseSamResource(samResource);
+        } finally {
+            poolLock.unlock();
+        }
+    }
+
     /**
      * Free a previously allocated SAM resource.
+     * <p>
+     * With local readers, the resource is directly allocated to the oldest waiting request it
+     * matches, if any.
+     * <p>
+     * Freeing a resource that is already free (indexed as free or kept warm) has no effect.
      *
      * @param samResource the SAM resource reference to free
      */
     public void freeSamResource(SamResource samResource) {
         if (dynamicAllocationPlugin) {
+            poolLock.lock();
+            try {
+                if (samResource.isSamResourceFree()) {
+                    logger.debug("SAM resource already free.");
+                    return;
+                }
+                samResource.setSamResourceStatus(SamResource.SamResourceStatus.FREE);
+                if (warmGroupReferences.containsKey(samResource)) {
+                    String groupReference = warmGroupReferences.remove(samResource);
+                    if (warmSamResourceCount < warmSamResourceCapacity
+                            && samResource.isSelectionValid()) {
+                        logger.debug("Keeping HSM SAM resource warm.");
+                        addWarmSamResource(groupReference, samResource);
+                        return;
+                    }
+                }
+            } finally {
+                poolLock.unlock();
+            }
             // virtually infinite number of readers
             logger.debug("Freeing HSM SAM resource.");
             ((ReaderPoolPlugin) samReaderPlugin).releaseReader(samResource.getSeReader());
         } else {
-            synchronized (localSamResources) {
+            poolLock.lock();
+            try {
+                if (samResource.isSamResourceFree()) {
+                    logger.debug("SAM resource already free.");
+                    return;
+                }
                 logger.debug("Freeing local SAM resource.");
-                samResource.setSamResourceStatus(SamResource.SamResourceStatus.FREE);
+                if (localSamResources.contains(samResource)) {
+                    releaseSamResource(samResource);
+                } else {
+                    /* the resource has been removed in the meantime */
+                    samResource.setSamResourceStatus(SamResource.SamResourceStatus.FREE);
+                }
+            } finally {
+                poolLock.unlock();
             }
         }
     }
 
+    /* must be called with the pool lock held */
+    private void addWarmSamResource(String groupReference, SamResource samResource) {
+        LinkedList<SamResource> samResources = warmSamResources.get(groupReference);
+        if (samResources == null) {
+            samResources = new LinkedList<SamResource>();
+            warmSamResources.put(groupReference, samResources);
+        }
+        samResources.addLast(samResource);
+        warmSamResourceCount++;
+    }
+
+    /**
+     * Set the maximum number of free SAM resources kept warm with a {@link ReaderPoolPlugin}.
+     * <p>
+     * A warm resource keeps its reader allocated from the pool plugin, with the logical channel
+     * open, and is reused by the next allocation for the same group after a cheap check (no reader
+     * error since its selection and SAM still present). The SAM is selected again only when the
+     * check fails.
+     * <p>
+     * The pool plugin must not reclaim the readers kept allocated (lease expiry). Reducing the
+     * capacity releases the warm resources in excess.
+     *
+     * @param warmSamResourceCapacity the maximum number of warm resources, 0 to release the
+     *        readers at each free (default)
+     */
+    public void setWarmSamResourceCapacity(int warmSamResourceCapacity) {
+        if (warmSamResourceCapacity < 0) {
+            throw new IllegalArgumentException(
+                    "The warm SAM resource capacity must not be negative");
+        }
+        poolLock.lock();
+        try {
+            this.warmSamResourceCapacity = warmSamResourceCapacity;
+        } finally {
+            poolLock.unlock();
+        }
+        releaseWarmSamResources(warmSamResourceCapacity);
+    }
+
+    /**
+     * Release the readers of all the warm SAM resources to the reader pool plugin
+     *
+     * @return the number of released readers
+     */
+    public int releaseWarmSamResources() {
+        return releaseWarmSamResources(0);
+    }
+
+    /* release the warm resources in excess of the provided number */
+    private int releaseWarmSamResources(int keptCount) {
+        List<SamResource> releasedSamResources = new ArrayList<SamResource>();
+        poolLock.lock();
+        try {
+            Iterator<LinkedList<SamResource>> iterator = warmSamResources.values().iterator();
+            while (warmSamResourceCount > keptCount && iterator.hasNext()) {
+                LinkedList<SamResource> samResources = iterator.next();
+                while (warmSamResourceCount > keptCount && !samResources.isEmpty()) {
+                    releasedSamResources.add(samResources.removeFirst());
+                    warmSamResourceCount--;
+                }
+            }
+        } finally {
+            poolLock.unlock();
+        }
+        for (SamResource samResource : releasedSamResources) {
+            ((ReaderPoolPlugin) samReaderPlugin).releaseReader(samResource.getSeReader());
+        }
+        return releasedSamResources.size();
+    }
+
+    /**
+     * @return the number of free SAM resources currently kept warm
+     */
+    public int getWarmSamResourceCount() {
+        poolLock.lock();
+        try {
+            return warmSamResourceCount;
+        } finally {
+            poolLock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of allocations served by a warm SAM resource, without selection
+     */
+    public long getWarmReuseCount() {
+        poolLock.lock();
+        try {
+            return warmReuseCount;
+        } finally {
+            poolLock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of local allocations served by the preferred resource of their affinity
+     *         key
+     */
+    public long getAffinityHitCount() {
+        poolLock.lock();
+        try {
+            return affinityHitCount;
+        } finally {
+            poolLock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of affinity keys pinned to each local SAM resource
+     */
+    public Map<SamResource, Integer> getAffinityKeyCounts() {
+        poolLock.lock();
+        try {
+            Map<SamResource, Integer> affinityKeyCounts =
+                    new IdentityHashMap<SamResource, Integer>();
+            for (Map.Entry<SamResource, SamLoad> entry : samLoads.entrySet()) {
+                affinityKeyCounts.put(entry.getKey(), entry.getValue().affinityKeyCount);
+            }
+            return affinityKeyCounts;
+        } finally {
+            poolLock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of local SAM resources managed
+     */
+    public int getSamResourceCount() {
+        poolLock.lock();
+        try {
+            return localSamResources.size();
+        } finally {
+            poolLock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of local SAM resources currently allocated
+     */
+    public int getBusySamResourceCount() {
+        poolLock.lock();
+        try {
+            return localSamResources.size() - freeSamResources.size();
+        } finally {
+            poolLock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of allocation requests currently waiting for a local SAM resource
+     */
+    public int getWaitingRequestCount() {
+        poolLock.lock();
+        try {
+            return waitingRequests.size();
+        } finally {
+            poolLock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of successful local allocations
+     */
+    public long getAllocationCount() {
+        poolLock.lock();
+        try {
+            return allocationCount;
+        } finally {
+            poolLock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of local allocations that failed (timeout or no resource available)
+     */
+    public long getAllocationFailureCount() {
+        poolLock.lock();
+        try {
+            return allocationFailureCount;
+        } finally {
+            poolLock.unlock();
+        }
+    }
+
+    /**
+     * @return the average waiting time of the successful local allocations in microseconds
+     */
+    public long getAverageWaitTime() {
+        poolLock.lock();
+        try {
+            return allocationCount == 0 ? 0
+                    : TimeUnit.NANOSECONDS.toMicros(totalWaitTime / allocationCount);
+        } finally {
+            poolLock.unlock();
+        }
+    }
+
+    /**
+     * @return the maximum waiting time of the successful local allocations in microseconds
+     */
+    public long getMaxWaitTime() {
+        poolLock.lock();
+        try {
+            return TimeUnit.NANOSECONDS.toMicros(maxWaitTime);
+        } finally {
+            poolLock.unlock();
+        }
+    }
+
     /**
      * Remove a {@link SamResource}from the current SamResource list
      *
      * @param samReader the SAM reader of the resource to remove from the list.
      */
     private void removeResource(SeReader samReader) {
+        poolLock.lock();
+        try {
+            removeResourceLocked(samReader);
+        } finally {
+            poolLock.unlock();
+        }
+    }
+
+    private void removeResourceLocked(SeReader samReader) {
         ListIterator<SamResource> iterator = localSamResources.listIterator();
         while (iterator.hasNext()) {
             SamResource currentSamResource = iterator.next();
             if (currentSamResource.getSeReader().equals(samReader)) {
+                freeSamResources.remove(currentSamResource);
+                /* the affinity keys of the resource will be pinned again */
+                samLoads.remove(currentSamResource);
+                preferredSamResources.values().removeAll(Collections.singleton(currentSamResource));
                 if (logger.isInfoEnabled()) {
                     logger.info(
                             "Freed SAM resource: READER = {}, SAM_REVISION = {}, SAM_SERIAL_NUMBER = {}",
@@ -233,6 +918,28 @@ public class SamResourceManager {
         }
     }
 
+    /**
+     * Set a parameter of a newly connected SAM reader.
+     * <p>
+     * The parameters are those of a PC/SC reader: a reader of another plugin (e.g. a stub reader)
+     * may not support them, which is not an error.
+     *
+     * @param samReader the SAM reader
+     * @param name the parameter name
+     * @param value the parameter value
+     */
+    private static void setSamReaderParameter(SeReader samReader, String name, String value) {
+        try {
+            samReader.setParameter(name, value);
+        } catch (KeypleBaseException e) {
+            logger.debug("Parameter {} not set on reader {}: {}", name, samReader.getName(),
+                    e.getMessage());
+        } catch (IllegalArgumentException e) {
+            logger.debug("Parameter {} not set on reader {}: {}", name, samReader.getName(),
+                    e.getMessage());
+        }
+    }
+
     /**
      * Plugin observer to handle SAM reader connection/disconnection.
      * <p>
@@ -243,12 +950,11 @@ public class SamResourceManager {
     class PluginObserver implements ObservablePlugin.PluginObserver {
 
         final ReaderObserver readerObserver;
-        final String samReaderFilter;
-        Pattern p;
+        final Pattern samReaderPattern;
 
-        PluginObserver(ReaderObserver readerObserver, String samReaderFilter) {
+        PluginObserver(ReaderObserver readerObserver, Pattern samReaderPattern) {
             this.readerObserver = readerObserver;
-            this.samReaderFilter = samReaderFilter;
+            this.samReaderPattern = samReaderPattern;
         }
 
         /**
@@ -280,21 +986,15 @@ public class SamResourceManager {
                          *
                          * We add an observer to this reader if possible.
                          */
-                        p = Pattern.compile(samReaderFilter);
-                        if (p.matcher(readerName).matches()) {
-                            /* Enable logging */
-                            try {
-                                /* enable low level logging */
-                                samReader.setParameter("logging", "true");
-
-                                /* contactless SE works with T0 protocol */
-                                samReader.setParameter("protocol", "T0");
-
-                                /* Shared mode */
-                                samReader.setParameter("mode", "shared");
-                            } catch (KeypleBaseException e) {
-                                e.printStackTrace();
-                            }
+                        if (samReaderPattern.matcher(readerName).matches()) {
+                            /* enable low level logging */
+                            setSamReaderParameter(samReader, "logging", "true");
+
+                            /* contactless SE works with T0 protocol */
+                            setSamReaderParameter(samReader, "protocol", "T0");
+
+                            /* Shared mode */
+                            setSamReaderParameter(samReader, "mode", "shared");
 
                             if (samReader instanceof ObservableReader && readerObserver != null) {
                                 logger.info("Add observer READERNAME = {}", samReader.getName());
@@ -305,9 +1005,7 @@ public class SamResourceManager {
                                 try {
                                     if (samReader.isSePresent()) {
                                         logger.debug("Create SAM resource: {}", readerName);
-                                        synchronized (localSamResources) {
-                                            localSamResources.add(createSamResource(samReader));
-                                        }
+                                        addSamResource(createSamResource(samReader));
                                     }
                                 } catch (NoStackTraceThrowable noStackTraceThrowable) {
                                     noStackTraceThrowable.printStackTrace();
@@ -327,8 +1025,7 @@ public class SamResourceManager {
                          * right after. Thus, we can properly remove the observer attached to this
                          * reader before the list update.
                          */
-                        p = Pattern.compile(samReaderFilter);
-                        if (p.matcher(readerName).matches()) {
+                        if (samReaderPattern.matcher(readerName).matches()) {
 
                             logger.info("Reader removed. READERNAME = {}", readerName);
                             if (samReader instanceof ObservableReader) {
@@ -379,40 +1076,38 @@ public class SamResourceManager {
             } catch (KeypleReaderNotFoundException e) {
                 e.printStackTrace();
             }
-            synchronized (localSamResources) {
-                switch (event.getEventType()) {
-                    case SE_MATCHED:
-                    case SE_INSERTED:
-                        SamResource newSamResource = null;
-                        try {
-                            /*
-                             * although the reader allocation is dynamic, the SAM resource type is
-                             * STATIC
-                             */
-                            newSamResource = createSamResource(samReader);
-                        } catch (KeypleReaderException e) {
-                            logger.error("Reader failure while creating a SamResource from {}",
-                                    samReader.getName());
-                            e.printStackTrace();
-                        }
-                        /* failures are ignored */
-                        if (newSamResource != null) {
-                            if (logger.isInfoEnabled()) {
-                                logger.info(
-                                        "Created SAM resource: READER = {}, SAM_REVISION = {}, SAM_SERIAL_NUMBER = {}",
-                                        event.getReaderName(),
-                                        newSamResource.getMatchingSe().getSamRevision(),
-                                        ByteArrayUtil.toHex(
-                                                newSamResource.getMatchingSe().getSerialNumber()));
-                            }
-                            localSamResources.add(newSamResource);
+            switch (event.getEventType()) {
+                case SE_MATCHED:
+                case SE_INSERTED:
+                    SamResource newSamResource = null;
+                    try {
+                        /*
+                         * although the reader allocation is dynamic, the SAM resource type is
+                         * STATIC
+                         */
+                        newSamResource = createSamResource(samReader);
+                    } catch (KeypleReaderException e) {
+                        logger.error("Reader failure while creating a SamResource from {}",
+                                samReader.getName());
+                        e.printStackTrace();
+                    }
+                    /* failures are ignored */
+                    if (newSamResource != null) {
+                        if (logger.isInfoEnabled()) {
+                            logger.info(
+                                    "Created SAM resource: READER = {}, SAM_REVISION = {}, SAM_SERIAL_NUMBER = {}",
+                                    event.getReaderName(),
+                                    newSamResource.getMatchingSe().getSamRevision(),
+                                    ByteArrayUtil.toHex(
+                                            newSamResource.getMatchingSe().getSerialNumber()));
                         }
-                        break;
-                    case SE_REMOVAL:
-                    case IO_ERROR:
-                        removeResource(samReader);
-                        break;
-                }
+                        addSamResource(newSamResource);
+                    }
+                    break;
+                case SE_REMOVAL:
+                case IO_ERROR:
+                    removeResource(samReader);
+                    break;
             }
         }
     }
@@ -48,6 +48,8 @@ public class SecuritySettings {
     private final static byte DEFAULT_KEY_RECORD_NUMER = (byte) 0x00;
     /** List of authorized KVCs */
     private List<Byte> authorizedKvcList;
+    /** true if the digest data can be sent with Digest Update Multiple commands */
+    private boolean digestUpdateMultipleEnabled;
 
     /** Enummap containing the key information */
     private final EnumMap<DefaultKeyInfo, Byte> keySettings =
@@ -104,6 +106,27 @@ public class SecuritySettings {
         this.authorizedKvcList = authorizedKvcList;
     }
 
+    /**
+     * Enables the use of Digest Update Multiple commands to send the session digest data to the
+     * SAM.
+     * <p>
+     * The command reduces the number of exchanges with the SAM at the closing of the session but
+     * is not supported by all SAMs. It is disabled by default.
+     *
+     * @param digestUpdateMultipleEnabled true to pack the digest data in Digest Update Multiple
+     *        commands
+     */
+    public void setDigestUpdateMultipleEnabled(boolean digestUpdateMultipleEnabled) {
+        this.digestUpdateMultipleEnabled = digestUpdateMultipleEnabled;
+    }
+
+    /**
+     * @return true if the digest data can be sent with Digest Update Multiple commands
+     */
+    public boolean isDigestUpdateMultipleEnabled() {
+        return digestUpdateMultipleEnabled;
+    }
+
     /**
      * CHeck if the provided kvc value is authorized or not.
      * <p>
@@ -0,0 +1,41 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.calypso.command.sam.builder;
+
+
+import org.eclipse.keyple.calypso.command.sam.SamRevision;
+import org.eclipse.keyple.calypso.command.sam.builder.security.DigestUpdateMultipleCmdBuild;
+import org.eclipse.keyple.core.command.AbstractApduCommandBuilder;
+import org.eclipse.keyple.core.seproxy.message.ApduRequest;
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DigestUpdateMultipleCmdBuildTest {
+
+    @Test
+    public void digestUpdateMultipleCmdBuild() throws IllegalArgumentException {
+        byte[] digestData = ByteArrayUtil.fromHex("04 94AE0102 02 9000");
+        byte[] request = ByteArrayUtil.fromHex("80 8C 80 00 08 04 94AE0102 02 9000");
+
+        AbstractApduCommandBuilder apduCommandBuilder =
+                new DigestUpdateMultipleCmdBuild(SamRevision.C1, digestData);
+        ApduRequest apduRequest = apduCommandBuilder.getApduRequest();
+
+        Assert.assertArrayEquals(request, apduRequest.getBytes());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void digestUpdateMultipleCmdBuild_tooLong() throws IllegalArgumentException {
+        new DigestUpdateMultipleCmdBuild(SamRevision.C1, new byte[256]);
+    }
+}
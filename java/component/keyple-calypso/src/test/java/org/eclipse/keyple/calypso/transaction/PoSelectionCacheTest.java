@@ -0,0 +1,81 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.calypso.transaction;
+
+import org.eclipse.keyple.calypso.command.po.PoRevision;
+import org.eclipse.keyple.core.seproxy.message.AnswerToReset;
+import org.eclipse.keyple.core.seproxy.message.ApduResponse;
+import org.eclipse.keyple.core.seproxy.message.SeResponse;
+import org.eclipse.keyple.core.seproxy.message.SelectionStatus;
+import org.eclipse.keyple.core.seproxy.protocol.TransmissionMode;
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PoSelectionCacheTest {
+    private final static String ATR = "3B8F8001805A08030400020011223344829000F3";
+
+    /* Rev 3.1 FCI, the serial number ends with the provided byte */
+    private static String getFci(int serialNumberLastByte) {
+        return String.format(
+                "6F238409315449432E49434131A516BF0C13C70800000000112233%02X53070A3C23051410019000",
+                serialNumberLastByte);
+    }
+
+    private static CalypsoPo getCalypsoPo(String fci, PoSelectionCache poSelectionCache) {
+        SeResponse selectionData = new SeResponse(true, false,
+                new SelectionStatus(new AnswerToReset(ByteArrayUtil.fromHex(ATR)),
+                        new ApduResponse(ByteArrayUtil.fromHex(fci), null), true),
+                null);
+        return new CalypsoPo(selectionData, TransmissionMode.CONTACTLESS, null,
+                poSelectionCache);
+    }
+
+    @Test
+    public void samePo_parsedOnce() {
+        PoSelectionCache poSelectionCache = new PoSelectionCache(10);
+
+        CalypsoPo firstPresentation = getCalypsoPo(getFci(0x44), poSelectionCache);
+        CalypsoPo secondPresentation = getCalypsoPo(getFci(0x44), poSelectionCache);
+
+        Assert.assertEquals(1, poSelectionCache.getMissCount());
+        Assert.assertEquals(1, poSelectionCache.getHitCount());
+        Assert.assertEquals(1, poSelectionCache.getSize());
+        Assert.assertEquals(PoRevision.REV3_1, secondPresentation.getRevision());
+        Assert.assertArrayEquals(ByteArrayUtil.fromHex("0000000011223344"),
+                secondPresentation.getApplicationSerialNumber());
+        Assert.assertEquals(firstPresentation.getBufferSizeValue(),
+                secondPresentation.getBufferSizeValue());
+    }
+
+    @Test
+    public void leastRecentlyPresentedPo_evicted() {
+        PoSelectionCache poSelectionCache = new PoSelectionCache(2);
+
+        getCalypsoPo(getFci(1), poSelectionCache);
+        getCalypsoPo(getFci(2), poSelectionCache);
+        /* PO 1 becomes the most recent */
+        getCalypsoPo(getFci(1), poSelectionCache);
+        getCalypsoPo(getFci(3), poSelectionCache);
+
+        Assert.assertEquals(2, poSelectionCache.getSize());
+        Assert.assertEquals(1, poSelectionCache.getEvictionCount());
+
+        /* PO 1 is still cached, PO 2 has been evicted */
+        getCalypsoPo(getFci(1), poSelectionCache);
+        Assert.assertEquals(2, poSelectionCache.getHitCount());
+        CalypsoPo calypsoPo = getCalypsoPo(getFci(2), poSelectionCache);
+        Assert.assertEquals(4, poSelectionCache.getMissCount());
+        Assert.assertArrayEquals(ByteArrayUtil.fromHex("0000000011223302"),
+                calypsoPo.getApplicationSerialNumber());
+    }
+}
@@ -0,0 +1,251 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.calypso.transaction;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import org.eclipse.keyple.calypso.command.po.parser.ReadDataStructure;
+import org.eclipse.keyple.core.seproxy.ChannelState;
+import org.eclipse.keyple.core.seproxy.message.*;
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Runs many secure sessions in parallel, each one with its own PO and SAM readers, and checks that
+ * the digest data sent to each SAM only contains the exchanges of its own session.
+ */
+public class PoTransactionConcurrencyTest {
+    private final static String ATR_VALUE = "3B8F8001805A08030400020011223344829000F3";
+    private final static String FCI_REV31 =
+            "6F238409315449432E49434131A516BF0C13C708000000001122334453070A3C23051410019000";
+
+    private final static int SESSION_NUMBER = 300;
+    private final static int THREAD_NUMBER = 32;
+
+    private final static byte SFI_EVENT_LOG = (byte) 0x08;
+    private final static int RECORD_SIZE = 29;
+
+    private final static byte INS_GET_CHALLENGE = (byte) 0x84;
+    private final static byte INS_DIGEST_UPDATE = (byte) 0x8C;
+    private final static byte INS_DIGEST_CLOSE = (byte) 0x8E;
+    private final static byte INS_OPEN_SESSION = (byte) 0x8A;
+    private final static byte INS_CLOSE_SESSION = (byte) 0x8E;
+    private final static byte INS_READ_RECORDS = (byte) 0xB2;
+
+    /**
+     * Builds the record content of a session: the session index is written in every byte so that
+     * the data of two different sessions can't be confused.
+     */
+    private static byte[] getSessionRecord(int sessionIndex) {
+        byte[] record = new byte[RECORD_SIZE];
+        Arrays.fill(record, (byte) (sessionIndex & 0xFF));
+        record[0] = (byte) ((sessionIndex >> 8) & 0xFF);
+        return record;
+    }
+
+    private static SeResponse buildSeResponse(List<ApduResponse> apduResponses) {
+        return new SeResponse(true, true, null, apduResponses);
+    }
+
+    /**
+     * PO stub: answers to Open Session, Read Records (with the session data) and Close Session.
+     */
+    private static ProxyReader getPoReader(final byte[] sessionRecord) throws Exception {
+        ProxyReader poReader = mock(ProxyReader.class);
+        when(poReader.transmit(any(SeRequest.class))).thenAnswer(new Answer<SeResponse>() {
+            @Override
+            public SeResponse answer(InvocationOnMock invocation) {
+                SeRequest seRequest = invocation.getArgument(0);
+                List<ApduResponse> apduResponses = new ArrayList<ApduResponse>();
+                for (ApduRequest apduRequest : seRequest.getApduRequests()) {
+                    byte ins = apduRequest.getBytes()[1];
+                    byte[] response;
+                    if (ins == INS_OPEN_SESSION) {
+                        response = ByteArrayUtil.fromHex("0304900000307E009000");
+                    } else if (ins == INS_READ_RECORDS && apduRequest.getBytes()[3] != 0x00) {
+                        /* the session data, padded to the expected length */
+                        int length = apduRequest.getBytes()[4] & 0xFF;
+                        response = Arrays.copyOf(sessionRecord, length + 2);
+                        response[length] = (byte) 0x90;
+                    } else if (ins == INS_CLOSE_SESSION) {
+                        response = ByteArrayUtil.fromHex("FEDCBA989000");
+                    } else {
+                        response = ByteArrayUtil.fromHex("9000");
+                    }
+                    apduResponses.add(new ApduResponse(response, null));
+                }
+                return buildSeResponse(apduResponses);
+            }
+        });
+        return poReader;
+    }
+
+    /**
+     * SAM stub: answers to all session commands and collects the Digest Update (Multiple)
+     * commands and their data blocks.
+     */
+    private static ProxyReader getSamReader(final List<byte[]> digestUpdateData,
+            final List<byte[]> digestUpdateCommands) throws Exception {
+        ProxyReader samReader = mock(ProxyReader.class);
+        when(samReader.transmit(any(SeRequest.class))).thenAnswer(new Answer<SeResponse>() {
+            @Override
+            public SeResponse answer(InvocationOnMock invocation) {
+                SeRequest seRequest = invocation.getArgument(0);
+                List<ApduResponse> apduResponses = new ArrayList<ApduResponse>();
+                for (ApduRequest apduRequest : seRequest.getApduRequests()) {
+                    byte[] command = apduRequest.getBytes();
+                    byte[] response;
+                    if (command[1] == INS_DIGEST_UPDATE) {
+                        digestUpdateCommands.add(command);
+                    }
+                    if (command[1] == INS_GET_CHALLENGE) {
+                        response = ByteArrayUtil.fromHex("C1C2C3C49000");
+                    } else if (command[1] == INS_DIGEST_UPDATE && command[2] == (byte) 0x80) {
+                        /* Digest Update Multiple: length-prefixed blocks */
+                        int offset = 5;
+                        while (offset < 5 + (command[4] & 0xFF)) {
+                            int blockLength = command[offset] & 0xFF;
+                            digestUpdateData.add(Arrays.copyOfRange(command, offset + 1,
+                                    offset + 1 + blockLength));
+                            offset += 1 + blockLength;
+                        }
+                        response = ByteArrayUtil.fromHex("9000");
+                    } else if (command[1] == INS_DIGEST_UPDATE) {
+                        digestUpdateData
+                                .add(Arrays.copyOfRange(command, 5, 5 + (command[4] & 0xFF)));
+                        response = ByteArrayUtil.fromHex("9000");
+                    } else if (command[1] == INS_DIGEST_CLOSE) {
+                        response = ByteArrayUtil.fromHex("123456789000");
+                    } else {
+                        response = ByteArrayUtil.fromHex("9000");
+                    }
+                    apduResponses.add(new ApduResponse(response, null));
+                }
+                return buildSeResponse(apduResponses);
+            }
+        });
+        return samReader;
+    }
+
+    /**
+     * Runs a complete session (reading in opening, update in closing) and returns the digest data
+     * received by the SAM.
+     * <p>
+     * The Digest Update Multiple command is used for every other session.
+     */
+    private static List<byte[]> runSession(int sessionIndex) throws Exception {
+        byte[] sessionRecord = getSessionRecord(sessionIndex);
+        List<byte[]> digestUpdateData = Collections.synchronizedList(new ArrayList<byte[]>());
+        List<byte[]> digestUpdateCommands = new ArrayList<byte[]>();
+        SecuritySettings securitySettings = new SecuritySettings();
+        securitySettings.setDigestUpdateMultipleEnabled(sessionIndex % 2 == 0);
+
+        CalypsoPo calypsoPo = CalypsoPoTest.getCalypsoPo(ATR_VALUE, FCI_REV31);
+        PoTransaction poTransaction = new PoTransaction(
+                new PoResource(getPoReader(sessionRecord), calypsoPo),
+                new SamResource(getSamReader(digestUpdateData, digestUpdateCommands), null),
+                securitySettings);
+
+        poTransaction.prepareReadRecordsCmd(SFI_EVENT_LOG, ReadDataStructure.SINGLE_RECORD_DATA,
+                (byte) 0x01, RECORD_SIZE, "EventLog");
+        Assert.assertTrue(poTransaction.processOpening(PoTransaction.ModificationMode.ATOMIC,
+                PoTransaction.SessionAccessLevel.SESSION_LVL_DEBIT, (byte) 0x00, (byte) 0x00));
+
+        poTransaction.prepareUpdateRecordCmd(SFI_EVENT_LOG, (byte) 0x01, sessionRecord,
+                "EventLog");
+        Assert.assertTrue(poTransaction.processClosing(ChannelState.CLOSE_AFTER));
+        Assert.assertTrue(poTransaction.isSuccessful());
+        /* the 4 blocks fit in a single Digest Update Multiple command */
+        Assert.assertEquals(sessionIndex % 2 == 0 ? 1 : 4, digestUpdateCommands.size());
+
+        return digestUpdateData;
+    }
+
+    @Test
+    public void parallelSessions_keepTheirOwnDigestData() throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(THREAD_NUMBER);
+        final CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<List<byte[]>>> results = new ArrayList<Future<List<byte[]>>>();
+
+        try {
+            for (int i = 0; i < SESSION_NUMBER; i++) {
+                final int sessionIndex = i;
+                results.add(executorService.submit(new Callable<List<byte[]>>() {
+                    @Override
+                    public List<byte[]> call() throws Exception {
+                        startSignal.await();
+                        return runSession(sessionIndex);
+                    }
+                }));
+            }
+            startSignal.countDown();
+
+            for (int i = 0; i < SESSION_NUMBER; i++) {
+                List<byte[]> digestUpdateData = results.get(i).get(30, TimeUnit.SECONDS);
+                byte[] sessionRecord = getSessionRecord(i);
+                /* read record command, read record response, update command, update response */
+                Assert.assertEquals(4, digestUpdateData.size());
+                Assert.assertArrayEquals(sessionRecord,
+                        Arrays.copyOf(digestUpdateData.get(1), sessionRecord.length));
+                Assert.assertArrayEquals(sessionRecord, Arrays.copyOfRange(digestUpdateData.get(2),
+                        5, 5 + sessionRecord.length));
+                Assert.assertArrayEquals(ByteArrayUtil.fromHex("9000"), digestUpdateData.get(3));
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void digestUpdateMultiple_packingBoundary() throws Exception {
+        List<byte[]> digestUpdateData = new ArrayList<byte[]>();
+        List<byte[]> digestUpdateCommands = new ArrayList<byte[]>();
+        SecuritySettings securitySettings = new SecuritySettings();
+        securitySettings.setDigestUpdateMultipleEnabled(true);
+
+        CalypsoPo calypsoPo = CalypsoPoTest.getCalypsoPo(ATR_VALUE, FCI_REV31);
+        PoTransaction poTransaction = new PoTransaction(
+                new PoResource(getPoReader(getSessionRecord(1)), calypsoPo),
+                new SamResource(getSamReader(digestUpdateData, digestUpdateCommands), null),
+                securitySettings);
+
+        /*
+         * digest blocks: read command (5 bytes), 246-byte record and status word (248 bytes), read
+         * command (5 bytes), 29-byte record and status word (31 bytes)
+         */
+        poTransaction.prepareReadRecordsCmd(SFI_EVENT_LOG, ReadDataStructure.SINGLE_RECORD_DATA,
+                (byte) 0x01, 246, "EventLog");
+        Assert.assertTrue(poTransaction.processOpening(PoTransaction.ModificationMode.ATOMIC,
+                PoTransaction.SessionAccessLevel.SESSION_LVL_DEBIT, (byte) 0x00, (byte) 0x00));
+        poTransaction.prepareReadRecordsCmd(SFI_EVENT_LOG, ReadDataStructure.SINGLE_RECORD_DATA,
+                (byte) 0x02, RECORD_SIZE, "EventLog");
+        Assert.assertTrue(poTransaction.processPoCommandsInSession());
+        Assert.assertTrue(poTransaction.processClosing(ChannelState.CLOSE_AFTER));
+
+        /* the first two blocks fill exactly the 255 bytes of a command, the third doesn't fit */
+        Assert.assertEquals(2, digestUpdateCommands.size());
+        Assert.assertEquals((byte) 0x80, digestUpdateCommands.get(0)[2]);
+        Assert.assertEquals(255, digestUpdateCommands.get(0)[4] & 0xFF);
+        Assert.assertEquals(1 + 5 + 1 + 31, digestUpdateCommands.get(1)[4] & 0xFF);
+        Assert.assertEquals(4, digestUpdateData.size());
+        Assert.assertEquals(248, digestUpdateData.get(1).length);
+    }
+}
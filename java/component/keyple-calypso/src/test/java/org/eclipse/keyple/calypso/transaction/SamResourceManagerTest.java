@@ -0,0 +1,331 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.calypso.transaction;
+
+import static org.mockito.Mockito.*;
+import java.util.*;
+import java.util.concurrent.*;
+import org.eclipse.keyple.calypso.command.sam.SamRevision;
+import org.eclipse.keyple.calypso.transaction.SamResourceManager.AllocationMode;
+import org.eclipse.keyple.core.seproxy.BlockingReaderPoolPlugin;
+import org.eclipse.keyple.core.seproxy.ReaderPlugin;
+import org.eclipse.keyple.core.seproxy.ReaderPoolPlugin;
+import org.eclipse.keyple.core.seproxy.SeReader;
+import org.eclipse.keyple.core.seproxy.message.*;
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class SamResourceManagerTest {
+    private final static String SAM_ATR = "3B3F9600805A0080C120000012345678829000";
+    private final static SamIdentifier SAM_IDENTIFIER =
+            new SamIdentifier(SamRevision.AUTO, null, null);
+
+    /**
+     * SAM reader stub: answers to the SAM selection with a Calypso SAM ATR
+     */
+    private static SeReader getSamReader(String name) throws Exception {
+        ProxyReader samReader = mock(ProxyReader.class);
+        when(samReader.getName()).thenReturn(name);
+        List<SeResponse> seResponses = new ArrayList<SeResponse>();
+        seResponses.add(new SeResponse(true, true,
+                new SelectionStatus(new AnswerToReset(ByteArrayUtil.fromHex(SAM_ATR)), null,
+                        true),
+                new ArrayList<ApduResponse>()));
+        when(samReader.transmitSet(Mockito.<SeRequest>anySet())).thenReturn(seResponses);
+        return samReader;
+    }
+
+    private static SamResourceManager getSamResourceManager(int samNumber) throws Exception {
+        SortedSet<SeReader> samReaders = new TreeSet<SeReader>(new Comparator<SeReader>() {
+            @Override
+            public int compare(SeReader r1, SeReader r2) {
+                return r1.getName().compareTo(r2.getName());
+            }
+        });
+        for (int i = 0; i < samNumber; i++) {
+            samReaders.add(getSamReader("SAM_READER_" + i));
+        }
+        ReaderPlugin samReaderPlugin = mock(ReaderPlugin.class);
+        when(samReaderPlugin.getName()).thenReturn("SAM_PLUGIN");
+        when(samReaderPlugin.getReaders()).thenReturn(samReaders);
+        return new SamResourceManager(samReaderPlugin, "SAM_READER_.*");
+    }
+
+    private static Future<SamResource> allocateAsync(ExecutorService executorService,
+            final SamResourceManager samResourceManager, final long timeout) {
+        return executorService.submit(new Callable<SamResource>() {
+            @Override
+            public SamResource call() throws Exception {
+                return samResourceManager.allocateSamResource(
+                        AllocationMode.BLOCKING, SAM_IDENTIFIER, timeout);
+            }
+        });
+    }
+
+    private static void waitForWaitingRequests(SamResourceManager samResourceManager, int number)
+            throws InterruptedException {
+        long maxDate = System.currentTimeMillis() + 5000;
+        while (samResourceManager.getWaitingRequestCount() != number
+                && System.currentTimeMillis() < maxDate) {
+            Thread.sleep(1);
+        }
+        Assert.assertEquals(number, samResourceManager.getWaitingRequestCount());
+    }
+
+    @Test
+    public void allocate_nonBlocking() throws Exception {
+        SamResourceManager samResourceManager = getSamResourceManager(2);
+        Assert.assertEquals(2, samResourceManager.getSamResourceCount());
+
+        SamResource samResource1 = samResourceManager
+                .allocateSamResource(AllocationMode.NON_BLOCKING, SAM_IDENTIFIER);
+        SamResource samResource2 = samResourceManager
+                .allocateSamResource(AllocationMode.NON_BLOCKING, SAM_IDENTIFIER);
+        Assert.assertNotNull(samResource1);
+        Assert.assertNotNull(samResource2);
+        Assert.assertNotSame(samResource1, samResource2);
+        Assert.assertFalse(samResource1.isSamResourceFree());
+        Assert.assertEquals(2, samResourceManager.getBusySamResourceCount());
+
+        /* no more resources */
+        Assert.assertNull(samResourceManager
+                .allocateSamResource(AllocationMode.NON_BLOCKING, SAM_IDENTIFIER));
+        Assert.assertEquals(1, samResourceManager.getAllocationFailureCount());
+
+        samResourceManager.freeSamResource(samResource1);
+        Assert.assertTrue(samResource1.isSamResourceFree());
+        Assert.assertSame(samResource1, samResourceManager
+                .allocateSamResource(AllocationMode.NON_BLOCKING, SAM_IDENTIFIER));
+        Assert.assertEquals(3, samResourceManager.getAllocationCount());
+    }
+
+    @Test
+    public void free_twice() throws Exception {
+        SamResourceManager samResourceManager = getSamResourceManager(1);
+        SamResource samResource = samResourceManager
+                .allocateSamResource(AllocationMode.NON_BLOCKING, SAM_IDENTIFIER);
+
+        /* the second free is ignored: the resource is allocated only once */
+        samResourceManager.freeSamResource(samResource);
+        samResourceManager.freeSamResource(samResource);
+        Assert.assertSame(samResource, samResourceManager
+                .allocateSamResource(AllocationMode.NON_BLOCKING, SAM_IDENTIFIER));
+        Assert.assertNull(samResourceManager
+                .allocateSamResource(AllocationMode.NON_BLOCKING, SAM_IDENTIFIER));
+    }
+
+    @Test
+    public void free_twice_poolPlugin() throws Throwable {
+        SeReader samReader1 = getSamReader("SAM_READER_1");
+        SeReader samReader2 = getSamReader("SAM_READER_2");
+        when(samReader1.isSePresent()).thenReturn(true);
+        ReaderPoolPlugin samReaderPlugin = mock(ReaderPoolPlugin.class);
+        when(samReaderPlugin.getName()).thenReturn("SAM_POOL_PLUGIN");
+        when(samReaderPlugin.allocateReader(null)).thenReturn(samReader1, samReader2);
+        SamResourceManager samResourceManager =
+                new SamResourceManager(samReaderPlugin, "SAM_READER_.*");
+        samResourceManager.setWarmSamResourceCapacity(1);
+
+        /* a warm resource is not released by a second free */
+        SamResource warmSamResource = samResourceManager
+                .allocateSamResource(AllocationMode.NON_BLOCKING, SAM_IDENTIFIER);
+        samResourceManager.freeSamResource(warmSamResource);
+        samResourceManager.freeSamResource(warmSamResource);
+        Assert.assertEquals(1, samResourceManager.getWarmSamResourceCount());
+        verify(samReaderPlugin, never()).releaseReader(samReader1);
+
+        /* a released reader is released only once */
+        SamResource samResource = samResourceManager
+                .allocateSamResource(AllocationMode.NON_BLOCKING, SAM_IDENTIFIER);
+        SamResource samResource2 = samResourceManager
+                .allocateSamResource(AllocationMode.NON_BLOCKING, SAM_IDENTIFIER);
+        Assert.assertSame(warmSamResource, samResource);
+        Assert.assertSame(samReader2, samResource2.getSeReader());
+        samResourceManager.freeSamResource(samResource);
+        samResourceManager.freeSamResource(samResource2);
+        samResourceManager.freeSamResource(samResource2);
+        verify(samReaderPlugin, times(1)).releaseReader(samReader2);
+    }
+
+    @Test
+    public void allocate_blockingTimeout() throws Exception {
+        SamResourceManager samResourceManager = getSamResourceManager(1);
+        Assert.assertNotNull(samResourceManager
+                .allocateSamResource(AllocationMode.BLOCKING, SAM_IDENTIFIER));
+
+        long startTime = System.currentTimeMillis();
+        Assert.assertNull(samResourceManager
+                .allocateSamResource(AllocationMode.BLOCKING, SAM_IDENTIFIER, 100));
+        Assert.assertTrue(System.currentTimeMillis() - startTime >= 100);
+        Assert.assertEquals(0, samResourceManager.getWaitingRequestCount());
+        Assert.assertEquals(1, samResourceManager.getAllocationFailureCount());
+    }
+
+    @Test
+    public void allocate_blockingWokenUpByFree() throws Exception {
+        SamResourceManager samResourceManager = getSamResourceManager(1);
+        SamResource samResource = samResourceManager
+                .allocateSamResource(AllocationMode.BLOCKING, SAM_IDENTIFIER);
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            Future<SamResource> waiter = allocateAsync(executorService, samResourceManager, 10000);
+            waitForWaitingRequests(samResourceManager, 1);
+
+            samResourceManager.freeSamResource(samResource);
+
+            /* handed over without waiting for the timeout */
+            Assert.assertSame(samResource, waiter.get(1, TimeUnit.SECONDS));
+            Assert.assertFalse(samResource.isSamResourceFree());
+            Assert.assertEquals(1, samResourceManager.getBusySamResourceCount());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void allocate_blockingFifo() throws Exception {
+        SamResourceManager samResourceManager = getSamResourceManager(1);
+        SamResource samResource = samResourceManager
+                .allocateSamResource(AllocationMode.BLOCKING, SAM_IDENTIFIER);
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            Future<SamResource> firstWaiter =
+                    allocateAsync(executorService, samResourceManager, 10000);
+            waitForWaitingRequests(samResourceManager, 1);
+            Future<SamResource> secondWaiter =
+                    allocateAsync(executorService, samResourceManager, 10000);
+            waitForWaitingRequests(samResourceManager, 2);
+
+            samResourceManager.freeSamResource(samResource);
+            Assert.assertSame(samResource, firstWaiter.get(1, TimeUnit.SECONDS));
+            Assert.assertFalse(secondWaiter.isDone());
+
+            samResourceManager.freeSamResource(samResource);
+            Assert.assertSame(samResource, secondWaiter.get(1, TimeUnit.SECONDS));
+            Assert.assertEquals(0, samResourceManager.getWaitingRequestCount());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void allocate_warmSamResourceReused() throws Throwable {
+        SeReader samReader1 = getSamReader("SAM_READER_1");
+        SeReader samReader2 = getSamReader("SAM_READER_2");
+        when(samReader1.isSePresent()).thenReturn(true);
+        when(samReader2.isSePresent()).thenReturn(false);
+        ReaderPoolPlugin samReaderPlugin = mock(ReaderPoolPlugin.class);
+        when(samReaderPlugin.getName()).thenReturn("SAM_POOL_PLUGIN");
+        when(samReaderPlugin.allocateReader(null)).thenReturn(samReader1, samReader2, samReader1);
+        SamResourceManager samResourceManager =
+                new SamResourceManager(samReaderPlugin, "SAM_READER_.*");
+        samResourceManager.setWarmSamResourceCapacity(1);
+
+        /* the freed resource is kept warm and reused without selection */
+        SamResource samResource = samResourceManager
+                .allocateSamResource(AllocationMode.NON_BLOCKING, SAM_IDENTIFIER);
+        samResourceManager.freeSamResource(samResource);
+        Assert.assertEquals(1, samResourceManager.getWarmSamResourceCount());
+        Assert.assertSame(samResource, samResourceManager
+                .allocateSamResource(AllocationMode.NON_BLOCKING, SAM_IDENTIFIER));
+        Assert.assertEquals(1, samResourceManager.getWarmReuseCount());
+        verify(samReaderPlugin, times(1)).allocateReader(null);
+        verify((ProxyReader) samReader1, times(1)).transmitSet(Mockito.<SeRequest>anySet());
+
+        /* a resource whose selection has been invalidated is released */
+        samResource.invalidateSelection();
+        samResourceManager.freeSamResource(samResource);
+        Assert.assertEquals(0, samResourceManager.getWarmSamResourceCount());
+        verify(samReaderPlugin).releaseReader(samReader1);
+
+        /* a warm resource whose SAM is no longer present is replaced */
+        samResource = samResourceManager
+                .allocateSamResource(AllocationMode.NON_BLOCKING, SAM_IDENTIFIER);
+        Assert.assertSame(samReader2, samResource.getSeReader());
+        samResourceManager.freeSamResource(samResource);
+        samResource = samResourceManager
+                .allocateSamResource(AllocationMode.NON_BLOCKING, SAM_IDENTIFIER);
+        Assert.assertSame(samReader1, samResource.getSeReader());
+        verify(samReaderPlugin).releaseReader(samReader2);
+        Assert.assertEquals(1, samResourceManager.getWarmReuseCount());
+
+        /* the readers of the warm resources are given back on demand */
+        samResourceManager.freeSamResource(samResource);
+        Assert.assertEquals(1, samResourceManager.releaseWarmSamResources());
+        verify(samReaderPlugin, times(2)).releaseReader(samReader1);
+    }
+
+    @Test
+    public void allocate_blockingPoolPlugin() throws Exception {
+        SeReader samReader = getSamReader("SAM_READER_1");
+        BlockingReaderPoolPlugin samReaderPlugin = mock(BlockingReaderPoolPlugin.class);
+        when(samReaderPlugin.getName()).thenReturn("SAM_POOL_PLUGIN");
+        when(samReaderPlugin.allocateReader(null, 1000)).thenReturn(samReader);
+        SamResourceManager samResourceManager =
+                new SamResourceManager(samReaderPlugin, "SAM_READER_.*");
+
+        /* the blocking allocation waits for a release of the pool instead of polling it */
+        SamResource samResource = samResourceManager
+                .allocateSamResource(AllocationMode.BLOCKING, SAM_IDENTIFIER, 1000);
+        Assert.assertSame(samReader, samResource.getSeReader());
+        verify(samReaderPlugin, never()).allocateReader(null);
+
+        /* no reader released before the timeout */
+        Assert.assertNull(samResourceManager.allocateSamResource(AllocationMode.BLOCKING,
+                SAM_IDENTIFIER, 10));
+        verify(samReaderPlugin).allocateReader(null, 10);
+        verify(samReaderPlugin, never()).allocateReader(null);
+    }
+
+    @Test
+    public void allocate_affinity() throws Exception {
+        SamResourceManager samResourceManager = getSamResourceManager(2);
+
+        /* each key is pinned to the SAM with the less pinned keys */
+        SamResource samResourceA = samResourceManager
+                .allocateSamResource(AllocationMode.NON_BLOCKING, SAM_IDENTIFIER, "READER_A");
+        samResourceManager.freeSamResource(samResourceA);
+        SamResource samResourceB = samResourceManager
+                .allocateSamResource(AllocationMode.NON_BLOCKING, SAM_IDENTIFIER, "READER_B");
+        samResourceManager.freeSamResource(samResourceB);
+        Assert.assertNotSame(samResourceA, samResourceB);
+        Assert.assertEquals(Integer.valueOf(1),
+                samResourceManager.getAffinityKeyCounts().get(samResourceA));
+        Assert.assertEquals(Integer.valueOf(1),
+                samResourceManager.getAffinityKeyCounts().get(samResourceB));
+
+        /* the preferred SAM is allocated whenever it is free */
+        for (int i = 0; i < 3; i++) {
+            SamResource samResource = samResourceManager
+                    .allocateSamResource(AllocationMode.NON_BLOCKING, SAM_IDENTIFIER, "READER_A");
+            Assert.assertSame(samResourceA, samResource);
+            samResourceManager.freeSamResource(samResource);
+        }
+        Assert.assertEquals(3, samResourceManager.getAffinityHitCount());
+
+        /* fallback to the other SAM when the preferred one is busy, without pinning */
+        SamResource samResource = samResourceManager
+                .allocateSamResource(AllocationMode.NON_BLOCKING, SAM_IDENTIFIER, "READER_A");
+        Assert.assertSame(samResourceB, samResourceManager
+                .allocateSamResource(AllocationMode.NON_BLOCKING, SAM_IDENTIFIER, "READER_A"));
+        Assert.assertNull(samResourceManager
+                .allocateSamResource(AllocationMode.NON_BLOCKING, SAM_IDENTIFIER, "READER_A"));
+        samResourceManager.freeSamResource(samResource);
+        samResourceManager.freeSamResource(samResourceB);
+        Assert.assertSame(samResourceA, samResourceManager
+                .allocateSamResource(AllocationMode.NON_BLOCKING, SAM_IDENTIFIER, "READER_A"));
+        Assert.assertEquals(Integer.valueOf(1),
+                samResourceManager.getAffinityKeyCounts().get(samResourceB));
+    }
+}
@@ -0,0 +1,169 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.calypso.transaction;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.util.ArrayList;
+import java.util.List;
+import org.eclipse.keyple.calypso.command.po.PoRevision;
+import org.eclipse.keyple.calypso.transaction.exception.KeypleCalypsoSecureSessionException;
+import org.eclipse.keyple.core.seproxy.message.ApduResponse;
+import org.eclipse.keyple.core.seproxy.message.ProxyReader;
+import org.eclipse.keyple.core.seproxy.message.SeRequest;
+import org.eclipse.keyple.core.seproxy.message.SeResponse;
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SamResourceTest {
+    private final static byte[] PO_SERIAL = ByteArrayUtil.fromHex("0000000011223344");
+    private final static byte[] OTHER_PO_SERIAL = ByteArrayUtil.fromHex("0000000055667788");
+
+    private static SamResource getSamResource(String challengeResponse) throws Exception {
+        return getSamResource(challengeResponse, true);
+    }
+
+    private static SamResource getSamResource(String challengeResponse,
+            boolean channelPreviouslyOpen) throws Exception {
+        ProxyReader samReader = mock(ProxyReader.class);
+        List<ApduResponse> apduResponses = new ArrayList<ApduResponse>();
+        apduResponses.add(new ApduResponse(ByteArrayUtil.fromHex(challengeResponse), null));
+        when(samReader.transmit(any(SeRequest.class)))
+                .thenReturn(new SeResponse(true, channelPreviouslyOpen, null, apduResponses));
+        return new SamResource(samReader, null);
+    }
+
+    @Test
+    public void prefetchChallenge_sameDiversifier() throws Exception {
+        SamResource samResource = getSamResource("C1C2C3C49000");
+        samResource.setCurrentDiversifier(PO_SERIAL);
+
+        samResource.prefetchChallenge(PoRevision.REV3_1);
+        Assert.assertTrue(samResource.isChallengePrefetched());
+
+        Assert.assertArrayEquals(ByteArrayUtil.fromHex("C1C2C3C4"),
+                samResource.takePrefetchedChallenge(PO_SERIAL, 4));
+        /* the challenge can be used only once */
+        Assert.assertFalse(samResource.isChallengePrefetched());
+        Assert.assertNull(samResource.takePrefetchedChallenge(PO_SERIAL, 4));
+    }
+
+    @Test
+    public void prefetchChallenge_diversificationNeeded() throws Exception {
+        SamResource samResource = getSamResource("C1C2C3C49000");
+        samResource.setCurrentDiversifier(PO_SERIAL);
+
+        samResource.prefetchChallenge(PoRevision.REV3_1);
+
+        Assert.assertNull(samResource.takePrefetchedChallenge(OTHER_PO_SERIAL, 4));
+        Assert.assertFalse(samResource.isChallengePrefetched());
+    }
+
+    @Test
+    public void prefetchChallenge_unknownDiversifier() throws Exception {
+        SamResource samResource = getSamResource("C1C2C3C49000");
+
+        samResource.prefetchChallenge(PoRevision.REV3_1);
+
+        Assert.assertNull(samResource.takePrefetchedChallenge(PO_SERIAL, 4));
+    }
+
+    @Test
+    public void prefetchChallenge_noDiversifier() throws Exception {
+        SamResource samResource = getSamResource("C1C2C3C49000");
+
+        samResource.prefetchChallenge(PoRevision.REV3_1);
+
+        /* the diversification of the SAM is unknown, it can't be skipped */
+        Assert.assertNull(samResource.takePrefetchedChallenge(null, 4));
+    }
+
+    @Test
+    public void prefetchChallenge_badLength() throws Exception {
+        SamResource samResource = getSamResource("C1C2C3C49000");
+        samResource.setCurrentDiversifier(PO_SERIAL);
+
+        samResource.prefetchChallenge(PoRevision.REV3_1);
+
+        /* a REV3.2 PO requires an 8-byte challenge */
+        Assert.assertNull(samResource.takePrefetchedChallenge(PO_SERIAL, 8));
+    }
+
+    @Test
+    public void prefetchChallenge_invalidatedByDiversification() throws Exception {
+        SamResource samResource = getSamResource("C1C2C3C49000");
+        samResource.setCurrentDiversifier(PO_SERIAL);
+
+        samResource.prefetchChallenge(PoRevision.REV3_1);
+        samResource.setCurrentDiversifier(PO_SERIAL);
+
+        Assert.assertFalse(samResource.isChallengePrefetched());
+    }
+
+    @Test(expected = KeypleCalypsoSecureSessionException.class)
+    public void prefetchChallenge_samError() throws Exception {
+        SamResource samResource = getSamResource("6985");
+
+        samResource.prefetchChallenge(PoRevision.REV3_1);
+    }
+
+    @Test
+    public void prefetchChallenge_samError_selectionKept() throws Exception {
+        /* a regular command error doesn't question the selection of the SAM */
+        SamResource samResource = getSamResource("6985");
+
+        try {
+            samResource.prefetchChallenge(PoRevision.REV3_1);
+            Assert.fail();
+        } catch (KeypleCalypsoSecureSessionException e) {
+            Assert.assertTrue(samResource.isSelectionValid());
+        }
+    }
+
+    @Test
+    public void prefetchChallenge_insNotSupported_selectionInvalidated() throws Exception {
+        /* e.g. a SAM swapped behind a remote reader, answering without having been selected */
+        SamResource samResource = getSamResource("6D00");
+        Assert.assertTrue(samResource.isSelectionValid());
+
+        try {
+            samResource.prefetchChallenge(PoRevision.REV3_1);
+            Assert.fail();
+        } catch (KeypleCalypsoSecureSessionException e) {
+            Assert.assertFalse(samResource.isSelectionValid());
+        }
+    }
+
+    @Test
+    public void prefetchChallenge_channelReopened_selectionInvalidated() throws Exception {
+        SamResource samResource = getSamResource("C1C2C3C49000", false);
+
+        samResource.prefetchChallenge(PoRevision.REV3_1);
+
+        Assert.assertFalse(samResource.isSelectionValid());
+    }
+
+    @Test
+    public void diversification_forgottenWhenSelectionInvalidated() throws Exception {
+        SamResource samResource = getSamResource("C1C2C3C49000");
+        Assert.assertFalse(samResource.isDiversifiedWith(PO_SERIAL));
+        samResource.setCurrentDiversifier(PO_SERIAL);
+        Assert.assertTrue(samResource.isDiversifiedWith(PO_SERIAL));
+        Assert.assertFalse(samResource.isDiversifiedWith(OTHER_PO_SERIAL));
+
+        samResource.invalidateSelection();
+        Assert.assertFalse(samResource.isSelectionValid());
+        Assert.assertFalse(samResource.isDiversifiedWith(PO_SERIAL));
+    }
+}
@@ -0,0 +1,225 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.selection;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.keyple.core.seproxy.SeReader;
+import org.eclipse.keyple.core.seproxy.exception.KeypleReaderException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A selection in progress on the readers of a {@link SeSelectionFarm}
+ * <p>
+ * The {@link ReaderSelectionResult} are delivered in their order of completion, exactly one per
+ * reader.
+ */
+public final class FarmSelection {
+    private static final Logger logger = LoggerFactory.getLogger(FarmSelection.class);
+
+    private final SeSelection seSelection;
+    private final long timeout;
+    private final ScheduledExecutorService timeoutScheduler;
+    private final List<ReaderTask> readerTasks;
+
+    /* completed results, not yet taken */
+    private final BlockingQueue<ReaderSelectionResult> results =
+            new LinkedBlockingQueue<ReaderSelectionResult>();
+
+    /* number of results not yet taken (nor reserved by a taker) */
+    private final AtomicInteger untakenCount;
+
+    /* number of readers whose selection has not ended */
+    private final AtomicInteger pendingCount;
+
+    /**
+     * The selection of one reader
+     */
+    private final class ReaderTask implements Runnable {
+        private final SeReader seReader;
+        private final AtomicBoolean ended = new AtomicBoolean(false);
+        private volatile Future<?> future;
+        private volatile ScheduledFuture<?> expiration;
+
+        ReaderTask(SeReader seReader) {
+            this.seReader = seReader;
+        }
+
+        @Override
+        public void run() {
+            if (ended.get()) {
+                return;
+            }
+            if (timeout > 0) {
+                expiration = timeoutScheduler.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (end(ReaderSelectionResult.Status.TIMED_OUT, null, null)) {
+                            logger.warn("[{}] Selection not ended within {} ms",
+                                    seReader.getName(), timeout);
+                            interrupt();
+                        }
+                    }
+                }, timeout, TimeUnit.MILLISECONDS);
+            }
+            try {
+                end(ReaderSelectionResult.Status.COMPLETED,
+                        seSelection.processExplicitSelection(seReader), null);
+            } catch (KeypleReaderException e) {
+                end(ReaderSelectionResult.Status.FAILED, null, e);
+            } catch (RuntimeException e) {
+                end(ReaderSelectionResult.Status.FAILED, null, e);
+            }
+        }
+
+        /**
+         * Ends the selection of the reader, only the first call is taken into account
+         *
+         * @return true if the selection has been ended by this call
+         */
+        boolean end(ReaderSelectionResult.Status status, SelectionsResult selectionsResult,
+                Exception exception) {
+            if (!ended.compareAndSet(false, true)) {
+                return false;
+            }
+            ScheduledFuture<?> currentExpiration = expiration;
+            if (currentExpiration != null) {
+                currentExpiration.cancel(false);
+            }
+            pendingCount.decrementAndGet();
+            results.add(new ReaderSelectionResult(seReader, status, selectionsResult, exception));
+            return true;
+        }
+
+        void interrupt() {
+            Future<?> currentFuture = future;
+            if (currentFuture != null) {
+                currentFuture.cancel(true);
+            }
+        }
+    }
+
+    FarmSelection(ExecutorService executorService, ScheduledExecutorService timeoutScheduler,
+            SeSelection seSelection, Collection<? extends SeReader> seReaders, long timeout) {
+        this.seSelection = seSelection;
+        this.timeout = timeout;
+        this.timeoutScheduler = timeoutScheduler;
+        this.readerTasks = new ArrayList<ReaderTask>(seReaders.size());
+        this.untakenCount = new AtomicInteger(seReaders.size());
+        this.pendingCount = new AtomicInteger(seReaders.size());
+        for (SeReader seReader : seReaders) {
+            readerTasks.add(new ReaderTask(seReader));
+        }
+        for (ReaderTask readerTask : readerTasks) {
+            try {
+                readerTask.future = executorService.submit(readerTask);
+            } catch (RejectedExecutionException e) {
+                readerTask.end(ReaderSelectionResult.Status.FAILED, null, e);
+            }
+        }
+    }
+
+    /**
+     * Waits for the next result
+     *
+     * @return the result of the next reader whose selection ended, or null if all the results
+     *         have already been taken
+     * @throws InterruptedException if the current thread is interrupted
+     */
+    public ReaderSelectionResult take() throws InterruptedException {
+        if (!reserve()) {
+            return null;
+        }
+        try {
+            return results.take();
+        } catch (InterruptedException e) {
+            untakenCount.incrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for the next result, at most for the provided time
+     *
+     * @param timeout the maximum waiting time
+     * @param unit the unit of the timeout
+     * @return the result of the next reader whose selection ended, or null if none is available
+     *         within the waiting time or if all the results have already been taken
+     * @throws InterruptedException if the current thread is interrupted
+     */
+    public ReaderSelectionResult poll(long timeout, TimeUnit unit) throws InterruptedException {
+        if (!reserve()) {
+            return null;
+        }
+        ReaderSelectionResult result = null;
+        try {
+            result = results.poll(timeout, unit);
+            return result;
+        } finally {
+            if (result == null) {
+                untakenCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Waits for the end of the selection of all the readers
+     *
+     * @return the results not yet taken, in their order of completion
+     * @throws InterruptedException if the current thread is interrupted
+     */
+    public List<ReaderSelectionResult> awaitAll() throws InterruptedException {
+        List<ReaderSelectionResult> remainingResults = new ArrayList<ReaderSelectionResult>();
+        ReaderSelectionResult result;
+        while ((result = take()) != null) {
+            remainingResults.add(result);
+        }
+        return remainingResults;
+    }
+
+    /**
+     * Cancels the selections that have not ended: their result is
+     * {@link ReaderSelectionResult.Status#CANCELLED} and the selections in progress are
+     * interrupted.
+     */
+    public void cancel() {
+        for (ReaderTask readerTask : readerTasks) {
+            if (readerTask.end(ReaderSelectionResult.Status.CANCELLED, null, null)) {
+                readerTask.interrupt();
+            }
+        }
+    }
+
+    /**
+     * @return the number of readers whose selection has not ended yet
+     */
+    public int getPendingSelectionCount() {
+        return pendingCount.get();
+    }
+
+    /* reserves one of the results not yet taken */
+    private boolean reserve() {
+        int count;
+        do {
+            count = untakenCount.get();
+            if (count == 0) {
+                return false;
+            }
+        } while (!untakenCount.compareAndSet(count, count - 1));
+        return true;
+    }
+}
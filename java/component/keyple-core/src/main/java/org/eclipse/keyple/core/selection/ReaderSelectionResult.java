@@ -0,0 +1,79 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.selection;
+
+import org.eclipse.keyple.core.seproxy.SeReader;
+
+/**
+ * The outcome of a selection made on one reader of a {@link SeSelectionFarm}
+ */
+public final class ReaderSelectionResult {
+    /**
+     * How the selection ended
+     */
+    public enum Status {
+        /** the selection has been processed, the {@link SelectionsResult} is available */
+        COMPLETED,
+        /** the selection failed, the exception is available */
+        FAILED,
+        /** the selection did not end within the timeout */
+        TIMED_OUT,
+        /** the selection has been cancelled */
+        CANCELLED
+    }
+
+    private final SeReader seReader;
+    private final Status status;
+    private final SelectionsResult selectionsResult;
+    private final Exception exception;
+
+    ReaderSelectionResult(SeReader seReader, Status status, SelectionsResult selectionsResult,
+            Exception exception) {
+        this.seReader = seReader;
+        this.status = status;
+        this.selectionsResult = selectionsResult;
+        this.exception = exception;
+    }
+
+    /**
+     * @return the reader on which the selection was made
+     */
+    public SeReader getSeReader() {
+        return seReader;
+    }
+
+    /**
+     * @return the way the selection ended
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the result of the selection (null if the status is not COMPLETED)
+     */
+    public SelectionsResult getSelectionsResult() {
+        return selectionsResult;
+    }
+
+    /**
+     * @return the failure cause (null if the status is not FAILED)
+     */
+    public Exception getException() {
+        return exception;
+    }
+
+    @Override
+    public String toString() {
+        return "ReaderSelectionResult: READER = " + seReader.getName() + ", STATUS = " + status;
+    }
+}
@@ -0,0 +1,149 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.selection;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.keyple.core.seproxy.SeReader;
+
+/**
+ * Runs a prepared {@link SeSelection} on a set of readers (e.g. the readers of a personalization
+ * line) in parallel.
+ * <p>
+ * The selections are executed by a bounded executor: at most as many readers as executor threads
+ * are selected at the same time, the others wait for a free thread. The results are available
+ * reader by reader as soon as they complete, through the returned {@link FarmSelection}.
+ * <p>
+ * The same SeSelection is used for all the readers: it must be fully prepared before and must not
+ * be modified while the farm selection is in progress.
+ */
+public final class SeSelectionFarm {
+
+    /*
+     * Single scheduler shared by all farms to expire the selections that take too long
+     */
+    private static final ScheduledExecutorService timeoutScheduler =
+            Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "SeSelectionFarm-timeout");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    private final ExecutorService executorService;
+
+    /* true if the executor has been created by the farm */
+    private final boolean ownExecutorService;
+
+    /* farm selections that may not have ended, cancelled by the shutdown */
+    private final Set<FarmSelection> farmSelections =
+            Collections.newSetFromMap(new ConcurrentHashMap<FarmSelection, Boolean>());
+
+    private volatile boolean isShutdown;
+
+    /**
+     * Creates a farm with its own executor
+     *
+     * @param maxParallelSelections the maximum number of readers selected at the same time
+     * @throws IllegalArgumentException if maxParallelSelections is not positive
+     */
+    public SeSelectionFarm(int maxParallelSelections) {
+        if (maxParallelSelections <= 0) {
+            throw new IllegalArgumentException("The number of parallel selections must be > 0.");
+        }
+        final AtomicInteger threadNumber = new AtomicInteger();
+        this.executorService =
+                Executors.newFixedThreadPool(maxParallelSelections, new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable,
+                                "SeSelectionFarm-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        this.ownExecutorService = true;
+    }
+
+    /**
+     * Creates a farm running the selections with the provided executor
+     * <p>
+     * The executor is not shut down by {@link #shutdown()}.
+     *
+     * @param executorService the executor, its number of threads bounds the number of readers
+     *        selected at the same time
+     */
+    public SeSelectionFarm(ExecutorService executorService) {
+        if (executorService == null) {
+            throw new IllegalArgumentException("The executor must be provided.");
+        }
+        this.executorService = executorService;
+        this.ownExecutorService = false;
+    }
+
+    /**
+     * Starts the selection on each of the provided readers and returns immediately.
+     * <p>
+     * The timeout of a reader starts when its selection starts (not while it waits for a free
+     * thread). A reader that does not complete within the timeout gets a
+     * {@link ReaderSelectionResult.Status#TIMED_OUT} result and its selection thread is
+     * interrupted.
+     *
+     * @param seSelection the prepared selection
+     * @param seReaders the readers
+     * @param timeout the maximum duration of the selection of a reader, in milliseconds (0 for no
+     *        timeout)
+     * @return the farm selection, giving the results as they come
+     */
+    public FarmSelection processExplicitSelection(SeSelection seSelection,
+            Collection<? extends SeReader> seReaders, long timeout) {
+        if (seSelection == null || seReaders == null || timeout < 0) {
+            throw new IllegalArgumentException("Bad farm selection arguments.");
+        }
+        /* forget the farm selections that have ended */
+        for (Iterator<FarmSelection> it = farmSelections.iterator(); it.hasNext();) {
+            if (it.next().getPendingSelectionCount() == 0) {
+                it.remove();
+            }
+        }
+        FarmSelection farmSelection = new FarmSelection(executorService, timeoutScheduler,
+                seSelection, seReaders, timeout);
+        farmSelections.add(farmSelection);
+        if (isShutdown) {
+            /* started concurrently with the shutdown */
+            farmSelection.cancel();
+        }
+        return farmSelection;
+    }
+
+    /**
+     * Stops the threads of the farm (when the executor has been created by the farm). The
+     * selections that have not ended, in progress or waiting for a thread, are cancelled: their
+     * result is {@link ReaderSelectionResult.Status#CANCELLED}.
+     */
+    public void shutdown() {
+        isShutdown = true;
+        for (FarmSelection farmSelection : farmSelections) {
+            farmSelection.cancel();
+        }
+        farmSelections.clear();
+        if (ownExecutorService) {
+            executorService.shutdownNow();
+        }
+    }
+}
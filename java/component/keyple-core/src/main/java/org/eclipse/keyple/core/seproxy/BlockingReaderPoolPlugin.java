@@ -0,0 +1,32 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.seproxy;
+
+/**
+ * A {@link ReaderPoolPlugin} able to wait for the release of a reader when none is available.
+ * <p>
+ * The waiting allocation is notified by the release, so a caller does not need to retry
+ * allocateReader periodically.
+ */
+public interface BlockingReaderPoolPlugin extends ReaderPoolPlugin {
+    /**
+     * Obtains an available SeReader resource, waiting for a release if none is available, and
+     * makes it exclusive to the caller until the releaseReader method is called.
+     *
+     * @param groupReference the reference of the group to which the reader belongs (may be null
+     *        depending on the implementation made)
+     * @param timeout the maximum waiting time in milliseconds
+     * @return a SeReader object or null if no reader has been released before the timeout
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    SeReader allocateReader(String groupReference, long timeout) throws InterruptedException;
+}
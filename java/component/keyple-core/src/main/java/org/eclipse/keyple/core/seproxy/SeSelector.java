@@ -246,6 +246,10 @@ public class SeSelector {
 
     /**
      * Static nested class to hold the data elements used to perform an ATR based filtering
+     * <p>
+     * The filtering is done either with a regular expression applied to the hex ATR or with a
+     * byte-level mask applied to the ATR bytes. The regular expression is compiled once, at its
+     * first use.
      */
     public static class AtrFilter {
         /**
@@ -253,6 +257,13 @@ public class SeSelector {
          */
         private String atrRegex;
 
+        /** Expected ATR and mask of the significant bits, for a mask based filter */
+        private byte[] atrValue;
+        private byte[] atrMask;
+
+        /** Compiled atrRegex */
+        private transient volatile Pattern atrPattern;
+
         /**
          * Regular expression based filter
          *
@@ -262,19 +273,43 @@ public class SeSelector {
             this.atrRegex = atrRegex;
         }
 
+        /**
+         * Mask based filter
+         * <p>
+         * The ATR matches if it has the length of atrValue and if its bits selected by atrMask are
+         * equal to those of atrValue.
+         *
+         * @param atrValue the expected ATR
+         * @param atrMask the mask of the significant bits, same length as atrValue
+         * @throws IllegalArgumentException if the arguments are null or of different lengths
+         */
+        public AtrFilter(byte[] atrValue, byte[] atrMask) {
+            if (atrValue == null || atrMask == null || atrValue.length != atrMask.length) {
+                throw new IllegalArgumentException(
+                        "The ATR value and mask must be provided, with the same length.");
+            }
+            this.atrValue = atrValue.clone();
+            this.atrMask = atrMask.clone();
+        }
+
         /**
          * Setter for the regular expression provided at construction time
+         * <p>
+         * The filter becomes a regular expression based filter.
          *
          * @param atrRegex expression string
          */
         public void setAtrRegex(String atrRegex) {
             this.atrRegex = atrRegex;
+            this.atrValue = null;
+            this.atrMask = null;
+            this.atrPattern = null;
         }
 
         /**
          * Getter for the regular expression provided at construction time
          *
-         * @return Regular expression string
+         * @return Regular expression string (null for a mask based filter)
          */
         public String getAtrRegex() {
             return atrRegex;
@@ -289,15 +324,45 @@ public class SeSelector {
          * @return a boolean true the ATR matches the current regex
          */
         public boolean atrMatches(byte[] atr) {
-            boolean m;
-            if (atrRegex.length() != 0) {
-                Pattern p = Pattern.compile(atrRegex);
-                String atrString = ByteArrayUtil.toHex(atr);
-                m = p.matcher(atrString).matches();
-            } else {
-                m = true;
+            return atrMatches(atr, null);
+        }
+
+        /**
+         * Tells if the provided ATR matches the filter
+         * <p>
+         * Variant to be used by the readers that keep the hex ATR of the current SE: it is then
+         * not converted again for each selector.
+         *
+         * @param atr a buffer containing the ATR to be checked
+         * @param atrHex the ATR in hex (as returned by {@link ByteArrayUtil#toHex(byte[])}), or
+         *        null to convert it here when needed
+         * @return a boolean true the ATR matches the filter
+         */
+        public boolean atrMatches(byte[] atr, String atrHex) {
+            if (atrMask != null) {
+                return maskMatches(atr);
+            }
+            if (atrRegex.length() == 0) {
+                return true;
+            }
+            Pattern pattern = atrPattern;
+            if (pattern == null) {
+                pattern = Pattern.compile(atrRegex);
+                atrPattern = pattern;
             }
-            return m;
+            return pattern.matcher(atrHex != null ? atrHex : ByteArrayUtil.toHex(atr)).matches();
+        }
+
+        private boolean maskMatches(byte[] atr) {
+            if (atr.length != atrValue.length) {
+                return false;
+            }
+            for (int i = 0; i < atr.length; i++) {
+                if (((atr[i] ^ atrValue[i]) & atrMask[i]) != 0) {
+                    return false;
+                }
+            }
+            return true;
         }
 
         /**
@@ -306,7 +371,12 @@ public class SeSelector {
          * @return a string
          */
         public String toString() {
-            return String.format("ATR regex:%s", atrRegex.length() != 0 ? atrRegex : "empty");
+            if (atrMask != null) {
+                return String.format("ATR value:%s, mask:%s", ByteArrayUtil.toHex(atrValue),
+                        ByteArrayUtil.toHex(atrMask));
+            }
+            return String.format("ATR regex:%s",
+                    atrRegex == null || atrRegex.length() == 0 ? "empty" : atrRegex);
         }
     }
 
@@ -348,10 +418,10 @@ public class SeSelector {
             this.extraInfo = "";
         }
         if (logger.isTraceEnabled()) {
-            logger.trace("Selection data: AID = {}, ATRREGEX = {}, EXTRAINFO = {}",
+            logger.trace("Selection data: AID = {}, ATRFILTER = {}, EXTRAINFO = {}",
                     this.aidSelector == null ? "null"
                             : ByteArrayUtil.toHex(this.aidSelector.getAidToSelect().getValue()),
-                    this.atrFilter == null ? "null" : this.atrFilter.getAtrRegex(), extraInfo);
+                    this.atrFilter == null ? "null" : this.atrFilter, extraInfo);
         }
     }
 
@@ -12,6 +12,7 @@
 package org.eclipse.keyple.core.seproxy.message;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Set;
 import org.eclipse.keyple.core.util.ByteArrayUtil;
@@ -44,6 +45,13 @@ public final class ApduRequest implements Serializable {
      */
     private final Set<Integer> successfulStatusCodes;
 
+    /**
+     * Sorted copy of the successful status codes, built at the first check (the request may be
+     * deserialized without its constructor). Volatile: a request can be sent from several threads
+     * at once, the array must not be seen before its contents.
+     */
+    private transient volatile int[] sortedSuccessfulStatusCodes;
+
     /**
      * Name of the request being sent
      */
@@ -131,6 +139,36 @@ public final class ApduRequest implements Serializable {
         return successfulStatusCodes;
     }
 
+    /**
+     * Checks if a status code is successful for this request: 9000 or one of the additional
+     * successful status codes.
+     * <p>
+     * The additional status codes are looked up in a sorted array built at the first call, the
+     * status code is not boxed.
+     *
+     * @param statusCode the status code of the response
+     * @return true if the status code is successful
+     */
+    public boolean isSuccessfulStatusCode(int statusCode) {
+        if (statusCode == 0x9000) {
+            return true;
+        }
+        if (successfulStatusCodes == null) {
+            return false;
+        }
+        int[] statusCodes = sortedSuccessfulStatusCodes;
+        if (statusCodes == null) {
+            statusCodes = new int[successfulStatusCodes.size()];
+            int i = 0;
+            for (Integer successfulStatusCode : successfulStatusCodes) {
+                statusCodes[i++] = successfulStatusCode;
+            }
+            Arrays.sort(statusCodes);
+            sortedSuccessfulStatusCodes = statusCodes;
+        }
+        return Arrays.binarySearch(statusCodes, statusCode) >= 0;
+    }
+
     /**
      * Get the name of this APDU request
      * 
@@ -36,6 +36,12 @@ public final class ApduResponse implements Serializable {
      */
     private final byte[] bytes;
 
+    /**
+     * data before the status code, sliced at the first access (volatile: a response can be read
+     * by another thread than the one that received it)
+     */
+    private transient volatile byte[] dataOut;
+
 
     /**
      * Create a new ApduResponse from the provided byte array
@@ -56,17 +62,7 @@ public final class ApduResponse implements Serializable {
         if (buffer == null) {
             this.successful = false;
         } else {
-            if (buffer.length < 2) {
-                throw new IllegalArgumentException(
-                        "Building an ApduResponse with a illegal buffer (length must be > 2): "
-                                + buffer.length);
-            }
-            int statusCode = ((buffer[buffer.length - 2] & 0x000000FF) << 8)
-                    + (buffer[buffer.length - 1] & 0x000000FF);
-            // java is signed only
-            if (statusCode < 0) {
-                statusCode += -2 * Short.MIN_VALUE;
-            }
+            int statusCode = statusCode(buffer);
             if (successfulStatusCodes != null) {
                 this.successful =
                         statusCode == 0x9000 || successfulStatusCodes.contains(statusCode);
@@ -76,6 +72,38 @@ public final class ApduResponse implements Serializable {
         }
     }
 
+    private ApduResponse(byte[] buffer, boolean successful) {
+        this.bytes = buffer;
+        this.successful = successful;
+    }
+
+    /**
+     * Create a new ApduResponse to the provided request from the received byte array
+     * <p>
+     * The successful status is determined with the successful status codes of the request without
+     * boxing the status code.
+     *
+     * @param apduRequest the request this response answers to
+     * @param buffer apdu response data buffer (including sw1sw2)
+     * @return the ApduResponse
+     * @throws IllegalArgumentException if the buffer is too short
+     */
+    public static ApduResponse forRequest(ApduRequest apduRequest, byte[] buffer)
+            throws IllegalArgumentException {
+        return new ApduResponse(buffer,
+                buffer != null && apduRequest.isSuccessfulStatusCode(statusCode(buffer)));
+    }
+
+    private static int statusCode(byte[] buffer) {
+        if (buffer.length < 2) {
+            throw new IllegalArgumentException(
+                    "Building an ApduResponse with a illegal buffer (length must be > 2): "
+                            + buffer.length);
+        }
+        return ((buffer[buffer.length - 2] & 0x000000FF) << 8)
+                + (buffer[buffer.length - 1] & 0x000000FF);
+    }
+
     /**
      * Checks if is successful.
      *
@@ -86,14 +114,7 @@ public final class ApduResponse implements Serializable {
     }
 
     public int getStatusCode() {
-        int s = ((bytes[bytes.length - 2] & 0x000000FF) << 8)
-                + (bytes[bytes.length - 1] & 0x000000FF);
-
-        // java is signed only
-        if (s < 0) {
-            s += -2 * Short.MIN_VALUE;
-        }
-        return s;
+        return statusCode(bytes);
     }
 
     public byte[] getBytes() {
@@ -102,11 +123,28 @@ public final class ApduResponse implements Serializable {
 
     /**
      * Get the data before the statusCode
+     * <p>
+     * The slice is built at the first call and then shared, like the buffer returned by
+     * {@link #getBytes()} it must not be modified.
      * 
      * @return slice of the buffer before the status code
      */
     public byte[] getDataOut() {
-        return Arrays.copyOfRange(this.bytes, 0, this.bytes.length - 2);
+        byte[] data = dataOut;
+        if (data == null) {
+            data = Arrays.copyOfRange(this.bytes, 0, this.bytes.length - 2);
+            dataOut = data;
+        }
+        return data;
+    }
+
+    /**
+     * Get the length of the data before the statusCode, without slicing the buffer
+     *
+     * @return the data length
+     */
+    public int getDataOutLength() {
+        return this.bytes.length - 2;
     }
 
     @Override
@@ -0,0 +1,31 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.seproxy.message;
+
+import org.eclipse.keyple.core.seproxy.exception.KeypleReaderException;
+
+/**
+ * Callback notified at the end of an asynchronous transmission (see the transmitAsync and
+ * transmitSetAsync methods of
+ * {@link org.eclipse.keyple.core.seproxy.plugin.AbstractObservableReader})
+ *
+ * @param <T> the type of the response ({@link SeResponse} or List of {@link SeResponse})
+ */
+public interface TransmitCallback<T> {
+    /**
+     * Called once, by the thread that completes the transmission.
+     *
+     * @param response the response, null if the transmission failed
+     * @param exception the failure cause, null if the transmission succeeded
+     */
+    void onComplete(T response, KeypleReaderException exception);
+}
@@ -0,0 +1,118 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.seproxy.message;
+
+import java.util.concurrent.*;
+import org.eclipse.keyple.core.seproxy.exception.KeypleReaderException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Result of an asynchronous transmission.
+ * <p>
+ * The transmission is completed once by the reader with either a response or a
+ * {@link KeypleReaderException}, the optional {@link TransmitCallback} is then notified. A failure
+ * is reported by the get methods as an {@link ExecutionException} whose cause is the
+ * {@link KeypleReaderException}.
+ * <p>
+ * An asynchronous transmission can't be cancelled.
+ *
+ * @param <T> the type of the response ({@link SeResponse} or List of {@link SeResponse})
+ */
+public final class TransmitFuture<T> implements Future<T> {
+    private static final Logger logger = LoggerFactory.getLogger(TransmitFuture.class);
+
+    private final CountDownLatch completion = new CountDownLatch(1);
+    private final TransmitCallback<T> callback;
+    private volatile T response;
+    private volatile KeypleReaderException exception;
+
+    /**
+     * @param callback the callback to notify at the end of the transmission (may be null)
+     */
+    public TransmitFuture(TransmitCallback<T> callback) {
+        this.callback = callback;
+    }
+
+    /**
+     * Complete the transmission with a response
+     *
+     * @param response the received response
+     */
+    public void complete(T response) {
+        setResult(response, null);
+    }
+
+    /**
+     * Complete the transmission with a failure
+     *
+     * @param exception the failure cause
+     */
+    public void fail(KeypleReaderException exception) {
+        setResult(null, exception);
+    }
+
+    private void setResult(T response, KeypleReaderException exception) {
+        synchronized (completion) {
+            if (completion.getCount() == 0) {
+                throw new IllegalStateException("The transmission is already completed.");
+            }
+            this.response = response;
+            this.exception = exception;
+            completion.countDown();
+        }
+        if (callback != null) {
+            try {
+                callback.onComplete(response, exception);
+            } catch (RuntimeException e) {
+                logger.error("Exception thrown by the transmit callback", e);
+            }
+        }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return false;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return false;
+    }
+
+    @Override
+    public boolean isDone() {
+        return completion.getCount() == 0;
+    }
+
+    @Override
+    public T get() throws InterruptedException, ExecutionException {
+        completion.await();
+        return getResult();
+    }
+
+    @Override
+    public T get(long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        if (!completion.await(timeout, unit)) {
+            throw new TimeoutException();
+        }
+        return getResult();
+    }
+
+    private T getResult() throws ExecutionException {
+        if (exception != null) {
+            throw new ExecutionException(exception);
+        }
+        return response;
+    }
+}
@@ -0,0 +1,157 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.seproxy.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations in nanoseconds
+ * <p>
+ * The durations are counted in power of two buckets: the bucket i holds the durations from
+ * 2<sup>i-1</sup> to 2<sup>i</sup>-1 ns (the bucket 0 holds the null durations). The percentiles
+ * are therefore approximated by the upper bound of a bucket, i.e. by less than a factor 2.
+ */
+public final class LatencyHistogram {
+    /** number of buckets, enough for any positive long */
+    public static final int BUCKET_COUNT = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalDuration = new AtomicLong();
+    private final AtomicLong maxDuration = new AtomicLong();
+
+    /**
+     * Records a duration
+     *
+     * @param duration the duration in nanoseconds (a negative duration is counted as 0)
+     */
+    public void record(long duration) {
+        if (duration < 0) {
+            duration = 0;
+        }
+        buckets.incrementAndGet(getBucketIndex(duration));
+        count.incrementAndGet();
+        totalDuration.addAndGet(duration);
+        long max = maxDuration.get();
+        while (duration > max && !maxDuration.compareAndSet(max, duration)) {
+            max = maxDuration.get();
+        }
+    }
+
+    private static int getBucketIndex(long duration) {
+        return 64 - Long.numberOfLeadingZeros(duration);
+    }
+
+    /**
+     * @param bucketIndex the index of a bucket
+     * @return the greatest duration counted in the bucket, in nanoseconds
+     */
+    public static long getBucketUpperBound(int bucketIndex) {
+        if (bucketIndex < 0 || bucketIndex >= BUCKET_COUNT) {
+            throw new IllegalArgumentException("Bad bucket index: " + bucketIndex);
+        }
+        return bucketIndex == BUCKET_COUNT - 1 ? Long.MAX_VALUE : (1L << bucketIndex) - 1;
+    }
+
+    /**
+     * @return the number of durations recorded
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @return the sum of the durations recorded, in nanoseconds
+     */
+    public long getTotalDuration() {
+        return totalDuration.get();
+    }
+
+    /**
+     * @return the mean duration in nanoseconds, 0 if nothing has been recorded
+     */
+    public long getMeanDuration() {
+        long currentCount = count.get();
+        return currentCount == 0 ? 0 : totalDuration.get() / currentCount;
+    }
+
+    /**
+     * @return the greatest duration recorded, in nanoseconds
+     */
+    public long getMaxDuration() {
+        return maxDuration.get();
+    }
+
+    /**
+     * Gets an approximation by excess of a percentile
+     *
+     * @param percentile the percentile, from 0 to 100 (e.g. 99 for the 99th percentile)
+     * @return the upper bound of the bucket holding the percentile (at most the greatest duration
+     *         recorded), in nanoseconds, 0 if nothing has been recorded
+     */
+    public long getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Bad percentile: " + percentile);
+        }
+        long[] bucketCounts = getBucketCounts();
+        long total = 0;
+        for (long bucketCount : bucketCounts) {
+            total += bucketCount;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long cumulatedCount = 0;
+        int bucketIndex = 0;
+        while (bucketIndex < BUCKET_COUNT - 1) {
+            cumulatedCount += bucketCounts[bucketIndex];
+            if (cumulatedCount >= rank) {
+                break;
+            }
+            bucketIndex++;
+        }
+        return Math.min(getBucketUpperBound(bucketIndex), maxDuration.get());
+    }
+
+    /**
+     * @return a copy of the number of durations counted in each bucket
+     */
+    public long[] getBucketCounts() {
+        long[] bucketCounts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            bucketCounts[i] = buckets.get(i);
+        }
+        return bucketCounts;
+    }
+
+    /**
+     * Clears the recorded durations
+     * <p>
+     * The durations recorded concurrently may be partially cleared.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        totalDuration.set(0);
+        maxDuration.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("COUNT = %d, MEAN = %d ns, P99 = %d ns, MAX = %d ns", getCount(),
+                getMeanDuration(), getPercentile(99), getMaxDuration());
+    }
+}
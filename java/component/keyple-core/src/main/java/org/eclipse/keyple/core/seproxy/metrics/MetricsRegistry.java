@@ -0,0 +1,120 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.seproxy.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The registry of the {@link ReaderMetrics} of the readers.
+ * <p>
+ * The readers based on AbstractObservableReader get their metrics at their creation and update
+ * them while they are in use; the metrics of a reader are removed when it is unplugged, so that
+ * the registry doesn't grow with the readers that come and go. The values can be exported
+ * periodically (e.g. to JMX or to a monitoring system) with {@link #getAllReaderMetrics()}.
+ * <p>
+ * The recording is enabled by default. Its cost is a couple of timestamps and atomic updates per
+ * APDU, which is negligible compared to an exchange with a SE.
+ */
+public final class MetricsRegistry {
+    /** singleton instance of MetricsRegistry */
+    private static final MetricsRegistry uniqueInstance = new MetricsRegistry();
+
+    private final ConcurrentMap<String, ReaderMetrics> readerMetricsMap =
+            new ConcurrentHashMap<String, ReaderMetrics>();
+
+    private volatile boolean enabled = true;
+
+    private MetricsRegistry() {}
+
+    /**
+     * Gets the single instance of MetricsRegistry.
+     *
+     * @return single instance of MetricsRegistry
+     */
+    public static MetricsRegistry getInstance() {
+        return uniqueInstance;
+    }
+
+    /**
+     * Enables or disables the recording of the metrics by the readers (the values already
+     * recorded are kept)
+     *
+     * @param enabled true to record the metrics
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return true if the readers record their metrics
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    private static String getKey(String pluginName, String readerName) {
+        return pluginName + '/' + readerName;
+    }
+
+    /**
+     * Gets the metrics of a reader, creates them if needed
+     *
+     * @param pluginName the name of the plugin of the reader
+     * @param readerName the name of the reader
+     * @return the metrics of the reader
+     */
+    public ReaderMetrics getReaderMetrics(String pluginName, String readerName) {
+        String key = getKey(pluginName, readerName);
+        ReaderMetrics readerMetrics = readerMetricsMap.get(key);
+        if (readerMetrics == null) {
+            ReaderMetrics newReaderMetrics = new ReaderMetrics(pluginName, readerName);
+            readerMetrics = readerMetricsMap.putIfAbsent(key, newReaderMetrics);
+            if (readerMetrics == null) {
+                readerMetrics = newReaderMetrics;
+            }
+        }
+        return readerMetrics;
+    }
+
+    /**
+     * Removes the metrics of a reader, called when the reader is unplugged
+     * <p>
+     * The reader object keeps updating its former metrics if still used, a reader plugged later
+     * with the same name gets new metrics.
+     *
+     * @param pluginName the name of the plugin of the reader
+     * @param readerName the name of the reader
+     * @return the removed metrics, null if the reader had no metrics
+     */
+    public ReaderMetrics removeReaderMetrics(String pluginName, String readerName) {
+        return readerMetricsMap.remove(getKey(pluginName, readerName));
+    }
+
+    /**
+     * @return the metrics of all the readers
+     */
+    public List<ReaderMetrics> getAllReaderMetrics() {
+        return new ArrayList<ReaderMetrics>(readerMetricsMap.values());
+    }
+
+    /**
+     * Clears the values of all the reader metrics
+     */
+    public void reset() {
+        for (ReaderMetrics readerMetrics : readerMetricsMap.values()) {
+            readerMetrics.reset();
+        }
+    }
+}
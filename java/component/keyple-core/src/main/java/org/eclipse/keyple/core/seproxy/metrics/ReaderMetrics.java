@@ -0,0 +1,199 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.seproxy.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Activity counters and latencies of a reader
+ * <p>
+ * The values are updated by the reader (see {@link MetricsRegistry}) and can be read at any time
+ * from any thread. The durations are in nanoseconds.
+ */
+public final class ReaderMetrics {
+    private final String pluginName;
+    private final String readerName;
+
+    private final AtomicLong apduCount = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+
+    private final LatencyHistogram apduLatency = new LatencyHistogram();
+    private final LatencyHistogram selectionLatency = new LatencyHistogram();
+    private final LatencyHistogram physicalChannelOpeningLatency = new LatencyHistogram();
+    private final LatencyHistogram physicalChannelClosingLatency = new LatencyHistogram();
+    private final LatencyHistogram eventNotificationLatency = new LatencyHistogram();
+
+    /* error counters by exception class name */
+    private final ConcurrentMap<String, AtomicLong> errorCounts =
+            new ConcurrentHashMap<String, AtomicLong>();
+
+    ReaderMetrics(String pluginName, String readerName) {
+        this.pluginName = pluginName;
+        this.readerName = readerName;
+    }
+
+    /**
+     * @return the name of the plugin of the reader
+     */
+    public String getPluginName() {
+        return pluginName;
+    }
+
+    /**
+     * @return the name of the reader
+     */
+    public String getReaderName() {
+        return readerName;
+    }
+
+    /**
+     * Records the exchange of an APDU
+     *
+     * @param sentLength the number of bytes sent to the SE
+     * @param receivedLength the number of bytes received from the SE (status word included)
+     * @param duration the duration of the exchange
+     */
+    public void recordApdu(int sentLength, int receivedLength, long duration) {
+        apduCount.incrementAndGet();
+        bytesSent.addAndGet(sentLength);
+        bytesReceived.addAndGet(receivedLength);
+        apduLatency.record(duration);
+    }
+
+    /**
+     * Counts an error
+     *
+     * @param error the exception raised by the reader
+     */
+    public void recordError(Exception error) {
+        String errorType = error.getClass().getName();
+        AtomicLong errorCount = errorCounts.get(errorType);
+        if (errorCount == null) {
+            AtomicLong newErrorCount = new AtomicLong();
+            errorCount = errorCounts.putIfAbsent(errorType, newErrorCount);
+            if (errorCount == null) {
+                errorCount = newErrorCount;
+            }
+        }
+        errorCount.incrementAndGet();
+    }
+
+    /**
+     * @return the number of APDUs exchanged (the get response commands issued by the reader
+     *         included)
+     */
+    public long getApduCount() {
+        return apduCount.get();
+    }
+
+    /**
+     * @return the number of bytes sent to the SEs
+     */
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    /**
+     * @return the number of bytes received from the SEs
+     */
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    /**
+     * @return the latency of the APDU exchanges
+     */
+    public LatencyHistogram getApduLatency() {
+        return apduLatency;
+    }
+
+    /**
+     * @return the duration of the selections (ATR filtering and application selection)
+     */
+    public LatencyHistogram getSelectionLatency() {
+        return selectionLatency;
+    }
+
+    /**
+     * @return the duration of the openings of the physical channel
+     */
+    public LatencyHistogram getPhysicalChannelOpeningLatency() {
+        return physicalChannelOpeningLatency;
+    }
+
+    /**
+     * @return the duration of the closings of the physical channel
+     */
+    public LatencyHistogram getPhysicalChannelClosingLatency() {
+        return physicalChannelClosingLatency;
+    }
+
+    /**
+     * The time taken to notify an event to the observers of the reader: the processing by the
+     * observers in synchronous dispatch, the queuing of the event in asynchronous dispatch.
+     *
+     * @return the duration of the event notifications
+     */
+    public LatencyHistogram getEventNotificationLatency() {
+        return eventNotificationLatency;
+    }
+
+    /**
+     * @return a sorted copy of the error counters, by exception class name
+     */
+    public Map<String, Long> getErrorCounts() {
+        Map<String, Long> counts = new TreeMap<String, Long>();
+        for (Map.Entry<String, AtomicLong> entry : errorCounts.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().get());
+        }
+        return counts;
+    }
+
+    /**
+     * @return the total number of errors
+     */
+    public long getErrorCount() {
+        long count = 0;
+        for (AtomicLong errorCount : errorCounts.values()) {
+            count += errorCount.get();
+        }
+        return count;
+    }
+
+    /**
+     * Clears all the counters and latencies
+     */
+    public void reset() {
+        apduCount.set(0);
+        bytesSent.set(0);
+        bytesReceived.set(0);
+        apduLatency.reset();
+        selectionLatency.reset();
+        physicalChannelOpeningLatency.reset();
+        physicalChannelClosingLatency.reset();
+        eventNotificationLatency.reset();
+        errorCounts.clear();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "ReaderMetrics: PLUGIN = %s, READER = %s, APDU = %d, SENT = %d bytes, RECEIVED = %d bytes, ERRORS = %s, APDULATENCY = {%s}, SELECTIONLATENCY = {%s}",
+                pluginName, readerName, getApduCount(), getBytesSent(), getBytesReceived(),
+                getErrorCounts(), apduLatency, selectionLatency);
+    }
+}
@@ -12,6 +12,9 @@
 package org.eclipse.keyple.core.seproxy.plugin;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
 import org.eclipse.keyple.core.seproxy.SeSelector;
 import org.eclipse.keyple.core.seproxy.event.AbstractDefaultSelectionsRequest;
 import org.eclipse.keyple.core.seproxy.event.ObservableReader;
@@ -48,9 +51,41 @@ public abstract class AbstractLocalReader extends AbstractObservableReader {
     /** current selection status */
     private SelectionStatus currentSelectionStatus;
 
+    /** true while a request set is processed */
+    private boolean processingRequestSet = false;
+
+    /** ATR of the current SE, read once for the whole request set being processed */
+    private byte[] requestSetAtr;
+
+    /** duration of the last selection made by processSeRequestLogical, in nanoseconds */
+    private long lastSelectionDuration;
+
+    /** timings of the requests of the last request set */
+    private volatile List<SeRequestTiming> lastSeRequestSetTimings =
+            Collections.emptyList();
+
+    /** ATR of the current SE and its hex conversion */
+    private volatile HexAtr currentHexAtr;
+
+    /**
+     * An ATR with its hex conversion
+     */
+    private static final class HexAtr {
+        private final byte[] atr;
+        private final String hex;
+
+        HexAtr(byte[] atr) {
+            this.atr = atr.clone();
+            this.hex = ByteArrayUtil.toHex(atr);
+        }
+    }
+
     /** notification status flag used to avoid redundant notifications */
     private boolean presenceNotified = false;
 
+    /** number of SE removals detected since the creation of the reader */
+    private final AtomicLong seRemovalCount = new AtomicLong();
+
     /** Timestamp recorder */
     private long before;
 
@@ -205,9 +240,10 @@ public abstract class AbstractLocalReader extends AbstractObservableReader {
                     ReaderEvent.EventType.SE_REMOVAL, null));
             presenceNotified = false;
         }
+        countSeRemoval();
         closeLogicalChannel();
         try {
-            closePhysicalChannel();
+            closePhysicalChannelAndRecord();
         } catch (KeypleChannelStateException e) {
             logger.trace("[{}] Exception occured in waitForCardAbsent. Message: {}", this.getName(),
                     e.getMessage());
@@ -215,6 +251,28 @@ public abstract class AbstractLocalReader extends AbstractObservableReader {
         }
     }
 
+    /**
+     * Record the removal of the SE.
+     * <p>
+     * Invoked by cardRemoved, to be invoked also by the plugins detecting a removal by other means
+     * (e.g. the SE swap of a stub reader).
+     */
+    protected final void countSeRemoval() {
+        seRemovalCount.incrementAndGet();
+    }
+
+    /**
+     * Gets the number of SE removals detected since the creation of the reader.
+     * <p>
+     * A change of this number between two uses of the reader tells that the SE may have been
+     * swapped in the meantime, its selection can no longer be relied on.
+     *
+     * @return the number of removals
+     */
+    public final long getSeRemovalCount() {
+        return seRemovalCount.get();
+    }
+
     /** ==== Physical and logical channels management ====================== */
 
     /**
@@ -227,6 +285,23 @@ public abstract class AbstractLocalReader extends AbstractObservableReader {
      */
     protected abstract byte[] getATR();
 
+    /**
+     * Gets the hex form of the provided ATR
+     * <p>
+     * The conversion is done once for the current SE, then shared by all the selectors and
+     * protocol rules that apply to it.
+     *
+     * @param atr the ATR of the current SE (as returned by getATR)
+     * @return the hex ATR
+     */
+    protected final String getAtrHex(byte[] atr) {
+        HexAtr hexAtr = currentHexAtr;
+        if (hexAtr == null || !Arrays.equals(hexAtr.atr, atr)) {
+            hexAtr = new HexAtr(atr);
+            currentHexAtr = hexAtr;
+        }
+        return hexAtr.hex;
+    }
 
     /**
      * This abstract method must be implemented by the derived class in order to proceed to the
@@ -321,7 +396,16 @@ public abstract class AbstractLocalReader extends AbstractObservableReader {
     protected SelectionStatus openLogicalChannel(SeSelector seSelector)
             throws KeypleIOReaderException, KeypleChannelStateException,
             KeypleApplicationSelectionException {
-        byte[] atr = getATR();
+        byte[] atr;
+        if (processingRequestSet) {
+            /* the ATR is read once for all the requests of the set */
+            if (requestSetAtr == null) {
+                requestSetAtr = getATR();
+            }
+            atr = requestSetAtr;
+        } else {
+            atr = getATR();
+        }
         boolean selectionHasMatched = true;
         SelectionStatus selectionStatus;
 
@@ -331,13 +415,11 @@ public abstract class AbstractLocalReader extends AbstractObservableReader {
                 throw new KeypleIOReaderException("Didn't get an ATR from the SE.");
             }
 
-            if (logger.isTraceEnabled()) {
-                logger.trace("[{}] openLogicalChannel => ATR = {}", this.getName(),
-                        ByteArrayUtil.toHex(atr));
-            }
-            if (!seSelector.getAtrFilter().atrMatches(atr)) {
+            String atrHex = getAtrHex(atr);
+            logger.trace("[{}] openLogicalChannel => ATR = {}", this.getName(), atrHex);
+            if (!seSelector.getAtrFilter().atrMatches(atr, atrHex)) {
                 logger.info("[{}] openLogicalChannel => ATR didn't match. SELECTOR = {}, ATR = {}",
-                        this.getName(), seSelector, ByteArrayUtil.toHex(atr));
+                        this.getName(), seSelector, atrHex);
                 selectionHasMatched = false;
             }
         }
@@ -409,7 +491,7 @@ public abstract class AbstractLocalReader extends AbstractObservableReader {
              * channel
              */
             if (!isPhysicalChannelOpen()) {
-                openPhysicalChannel();
+                openPhysicalChannelAndRecord();
             }
             if (!isPhysicalChannelOpen()) {
                 throw new KeypleChannelStateException("Fail to open physical channel.");
@@ -446,6 +528,36 @@ public abstract class AbstractLocalReader extends AbstractObservableReader {
      */
     protected abstract boolean isPhysicalChannelOpen();
 
+    /**
+     * Opens the physical channel and records the time taken in the reader metrics
+     *
+     * @throws KeypleChannelStateException if the channel opening fails
+     */
+    protected final void openPhysicalChannelAndRecord() throws KeypleChannelStateException {
+        if (!isMetricsEnabled()) {
+            openPhysicalChannel();
+            return;
+        }
+        long openingStart = System.nanoTime();
+        openPhysicalChannel();
+        metrics.getPhysicalChannelOpeningLatency().record(System.nanoTime() - openingStart);
+    }
+
+    /**
+     * Closes the physical channel and records the time taken in the reader metrics
+     *
+     * @throws KeypleChannelStateException if a reader error occurs
+     */
+    protected final void closePhysicalChannelAndRecord() throws KeypleChannelStateException {
+        if (!isMetricsEnabled()) {
+            closePhysicalChannel();
+            return;
+        }
+        long closingStart = System.nanoTime();
+        closePhysicalChannel();
+        metrics.getPhysicalChannelClosingLatency().record(System.nanoTime() - closingStart);
+    }
+
     /**
      * Tells if a logical channel is open
      *
@@ -476,6 +588,10 @@ public abstract class AbstractLocalReader extends AbstractObservableReader {
      */
     protected Map<SeProtocol, String> protocolsMap = new HashMap<SeProtocol, String>();
 
+    /** compiled protocol rules, by rule */
+    private final ConcurrentMap<String, Pattern> protocolRulePatterns =
+            new ConcurrentHashMap<String, Pattern>();
+
     /**
      * Defines the protocol setting Map to allow SE to be differentiated according to their
      * communication protocol.
@@ -486,6 +602,7 @@ public abstract class AbstractLocalReader extends AbstractObservableReader {
     @Override
     public void addSeProtocolSetting(SeProtocol seProtocol, String protocolRule) {
         this.protocolsMap.put(seProtocol, protocolRule);
+        protocolRulePatterns.clear();
     }
 
     /**
@@ -495,6 +612,29 @@ public abstract class AbstractLocalReader extends AbstractObservableReader {
      */
     public void setSeProtocolSetting(Map<SeProtocol, String> protocolSetting) {
         this.protocolsMap.putAll(protocolSetting);
+        protocolRulePatterns.clear();
+    }
+
+    /**
+     * Gets the protocol rule associated with the protocol flag, compiled as a regular expression
+     * <p>
+     * For the plugins whose protocol rules are regular expressions (e.g. ATR regex for Pcsc
+     * plugins). A rule is compiled only once, not for each SeRequest.
+     *
+     * @param protocolFlag the protocol flag
+     * @return the compiled rule or null if no rule is defined for this protocol flag
+     */
+    protected final Pattern getProtocolRulePattern(SeProtocol protocolFlag) {
+        String protocolRule = protocolsMap.get(protocolFlag);
+        if (protocolRule == null) {
+            return null;
+        }
+        Pattern pattern = protocolRulePatterns.get(protocolRule);
+        if (pattern == null) {
+            pattern = Pattern.compile(protocolRule);
+            protocolRulePatterns.put(protocolRule, pattern);
+        }
+        return pattern;
     }
 
     /**
@@ -529,17 +669,40 @@ public abstract class AbstractLocalReader extends AbstractObservableReader {
      */
     protected final List<SeResponse> processSeRequestSet(Set<SeRequest> requestSet)
             throws KeypleReaderException {
+        processingRequestSet = true;
+        try {
+            return processSeRequestSetOnce(requestSet);
+        } finally {
+            processingRequestSet = false;
+            requestSetAtr = null;
+        }
+    }
+
+    /**
+     * Processes a request set (see processSeRequestSet) with the protocol matching and the ATR
+     * evaluated once for the whole set: the candidate selections are run back to back on the same
+     * physical channel.
+     */
+    private List<SeResponse> processSeRequestSetOnce(Set<SeRequest> requestSet)
+            throws KeypleReaderException {
 
         boolean requestMatchesProtocol[] = new boolean[requestSet.size()];
         int requestIndex = 0, lastRequestIndex;
 
         // Determine which requests are matching the current ATR
         // All requests without selector are considered matching
+        // The protocol matching is evaluated once per protocol flag
+        Map<SeProtocol, Boolean> protocolMatches = new HashMap<SeProtocol, Boolean>();
         for (SeRequest request : requestSet) {
             SeSelector seSelector = request.getSeSelector();
             if (seSelector != null) {
-                requestMatchesProtocol[requestIndex] =
-                        protocolFlagMatches(request.getSeSelector().getSeProtocol());
+                SeProtocol seProtocol = seSelector.getSeProtocol();
+                Boolean matches = protocolMatches.get(seProtocol);
+                if (matches == null) {
+                    matches = protocolFlagMatches(seProtocol);
+                    protocolMatches.put(seProtocol, matches);
+                }
+                requestMatchesProtocol[requestIndex] = matches;
             } else {
                 requestMatchesProtocol[requestIndex] = true;
             }
@@ -563,7 +726,8 @@ public abstract class AbstractLocalReader extends AbstractObservableReader {
          *
          * If keepChannelOpen is false, we close the physical channel for the last request.
          */
-        List<SeResponse> responses = new ArrayList<SeResponse>();
+        List<SeResponse> responses = new ArrayList<SeResponse>(lastRequestIndex);
+        List<SeRequestTiming> timings = new ArrayList<SeRequestTiming>(lastRequestIndex);
         boolean stopProcess = false;
         for (SeRequest request : requestSet) {
 
@@ -572,6 +736,8 @@ public abstract class AbstractLocalReader extends AbstractObservableReader {
                     logger.debug("[{}] processSeRequestSet => transmit {}", this.getName(),
                             request);
                     SeResponse response = null;
+                    long requestStart = System.nanoTime();
+                    lastSelectionDuration = 0;
                     try {
                         response = processSeRequestLogical(request);
                     } catch (KeypleReaderException ex) {
@@ -586,8 +752,13 @@ public abstract class AbstractLocalReader extends AbstractObservableReader {
                         logger.debug(
                                 "[{}] processSeRequestSet => transmit : process interrupted, collect previous responses {}",
                                 this.getName(), responses);
+                        timings.add(new SeRequestTiming(true, lastSelectionDuration,
+                                System.nanoTime() - requestStart));
+                        lastSeRequestSetTimings = Collections.unmodifiableList(timings);
                         throw ex;
                     }
+                    timings.add(new SeRequestTiming(true, lastSelectionDuration,
+                            System.nanoTime() - requestStart));
                     responses.add(response);
                     logger.debug("[{}] processSeRequestSet => receive {}", this.getName(),
                             response);
@@ -596,6 +767,7 @@ public abstract class AbstractLocalReader extends AbstractObservableReader {
                      * in case the protocolFlag of a SeRequest doesn't match the reader status, a
                      * null SeResponse is added to the SeResponse List.
                      */
+                    timings.add(new SeRequestTiming(false, 0, 0));
                     responses.add(null);
                 }
                 requestIndex++;
@@ -606,7 +778,7 @@ public abstract class AbstractLocalReader extends AbstractObservableReader {
                          * SE reader status, if the logical channel doesn't require to be kept open,
                          * then the physical channel is closed.
                          */
-                        closePhysicalChannel();
+                        closePhysicalChannelAndRecord();
 
                         logger.debug("[{}] processSeRequestSet => Closing of the physical channel.",
                                 this.getName());
@@ -625,9 +797,22 @@ public abstract class AbstractLocalReader extends AbstractObservableReader {
                 }
             }
         }
+        lastSeRequestSetTimings = Collections.unmodifiableList(timings);
         return responses;
     }
 
+    /**
+     * Gets the time spent on each request of the last request set processed by this reader
+     * <p>
+     * The list has one element per element of the returned response list: the requests skipped
+     * after a request that kept the channel open are not included.
+     *
+     * @return the timings, in the order of the requests
+     */
+    public final List<SeRequestTiming> getLastSeRequestSetTimings() {
+        return lastSeRequestSetTimings;
+    }
+
     /**
      * Executes a request made of one or more Apdus and receives their answers. The selection of the
      * application is handled.
@@ -647,7 +832,7 @@ public abstract class AbstractLocalReader extends AbstractObservableReader {
 
         /* close the physical channel if CLOSE_AFTER is requested */
         if (!seRequest.isKeepChannelOpen()) {
-            closePhysicalChannel();
+            closePhysicalChannelAndRecord();
         }
 
         return seResponse;
@@ -672,7 +857,9 @@ public abstract class AbstractLocalReader extends AbstractObservableReader {
         boolean previouslyOpen = true;
         SelectionStatus selectionStatus = null;
 
-        List<ApduResponse> apduResponseList = new ArrayList<ApduResponse>();
+        List<ApduRequest> apduRequests = seRequest.getApduRequests();
+        List<ApduResponse> apduResponseList = new ArrayList<ApduResponse>(
+                apduRequests != null ? apduRequests.size() : 0);
 
         logger.trace("[{}] processSeRequest => Logical channel open = {}", this.getName(),
                 isLogicalChannelOpen());
@@ -727,6 +914,7 @@ public abstract class AbstractLocalReader extends AbstractObservableReader {
             if (!isLogicalChannelOpen()) {
                 previouslyOpen = false;
 
+                long selectionStart = System.nanoTime();
                 try {
                     selectionStatus = openLogicalChannelAndSelect(seRequest.getSeSelector());
                     logger.trace("[{}] processSeRequest => Logical channel opening success.",
@@ -737,6 +925,11 @@ public abstract class AbstractLocalReader extends AbstractObservableReader {
                     closeLogicalChannel();
                     /* return a null SeResponse when the opening of the logical channel failed */
                     return null;
+                } finally {
+                    lastSelectionDuration = System.nanoTime() - selectionStart;
+                    if (isMetricsEnabled()) {
+                        metrics.getSelectionLatency().record(lastSelectionDuration);
+                    }
                 }
 
                 if (selectionStatus.hasMatched()) {
@@ -765,8 +958,8 @@ public abstract class AbstractLocalReader extends AbstractObservableReader {
         }
 
         /* process request if not empty */
-        if (seRequest.getApduRequests() != null) {
-            for (ApduRequest apduRequest : seRequest.getApduRequests()) {
+        if (apduRequests != null) {
+            for (ApduRequest apduRequest : apduRequests) {
                 try {
                     apduResponseList.add(processApduRequest(apduRequest));
                 } catch (KeypleIOReaderException ex) {
@@ -816,11 +1009,19 @@ public abstract class AbstractLocalReader extends AbstractObservableReader {
                     apduRequest, elapsedMs);
         }
 
-        byte[] buffer = apduRequest.getBytes();
-        apduResponse =
-                new ApduResponse(transmitApdu(buffer), apduRequest.getSuccessfulStatusCodes());
+        byte[] apduIn = apduRequest.getBytes();
+        if (isMetricsEnabled()) {
+            long exchangeStart = System.nanoTime();
+            byte[] apduOut = transmitApdu(apduIn);
+            /* a reader may give no response (see ApduResponse) */
+            metrics.recordApdu(apduIn.length, apduOut == null ? 0 : apduOut.length,
+                    System.nanoTime() - exchangeStart);
+            apduResponse = ApduResponse.forRequest(apduRequest, apduOut);
+        } else {
+            apduResponse = ApduResponse.forRequest(apduRequest, transmitApdu(apduIn));
+        }
 
-        if (apduRequest.isCase4() && apduResponse.getDataOut().length == 0
+        if (apduRequest.isCase4() && apduResponse.getDataOutLength() == 0
                 && apduResponse.isSuccessful()) {
             // do the get response command but keep the original status code
             apduResponse = case4HackGetResponse(apduResponse.getStatusCode());
@@ -860,7 +1061,13 @@ public abstract class AbstractLocalReader extends AbstractObservableReader {
                     this.getName(), ByteArrayUtil.toHex(getResponseHackRequestBytes), elapsedMs);
         }
 
+        long exchangeStart = System.nanoTime();
         byte[] getResponseHackResponseBytes = transmitApdu(getResponseHackRequestBytes);
+        if (isMetricsEnabled()) {
+            metrics.recordApdu(getResponseHackRequestBytes.length,
+                    getResponseHackResponseBytes == null ? 0 : getResponseHackResponseBytes.length,
+                    System.nanoTime() - exchangeStart);
+        }
 
         /* we expect here a 0x9000 status code */
         ApduResponse getResponseHackResponse = new ApduResponse(getResponseHackResponseBytes, null);
@@ -111,9 +111,18 @@ abstract class AbstractLoggedObservable<T> extends Observable<T> implements Name
 
         setChanged();
 
+        long notificationStart = System.nanoTime();
         super.notifyObservers(event);
+        notificationDone(System.nanoTime() - notificationStart);
     }
 
+    /**
+     * Called at the end of each notification
+     *
+     * @param duration the time spent in the notification, in nanoseconds
+     */
+    void notificationDone(long duration) {}
+
     /**
      * Set a list of parameters on a reader.
      * <p>
@@ -12,8 +12,10 @@
 package org.eclipse.keyple.core.seproxy.plugin;
 
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.*;
 import org.eclipse.keyple.core.seproxy.SeReader;
 import org.eclipse.keyple.core.seproxy.event.ObservableReader.NotificationMode;
 import org.eclipse.keyple.core.seproxy.event.ObservableReader.ReaderObserver;
@@ -22,6 +24,8 @@ import org.eclipse.keyple.core.seproxy.exception.KeypleChannelStateException;
 import org.eclipse.keyple.core.seproxy.exception.KeypleIOReaderException;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderException;
 import org.eclipse.keyple.core.seproxy.message.*;
+import org.eclipse.keyple.core.seproxy.metrics.MetricsRegistry;
+import org.eclipse.keyple.core.seproxy.metrics.ReaderMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,9 +49,35 @@ public abstract class AbstractObservableReader extends AbstractLoggedObservable<
     /** Timestamp recorder */
     private long before;
 
+    /** number of threads shared by all readers for the asynchronous transmissions */
+    private static final int ASYNC_TRANSMIT_THREADS =
+            Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+    /** threads shared by all readers for the asynchronous transmissions */
+    private static final ThreadPoolExecutor asyncTransmitExecutor =
+            new ThreadPoolExecutor(ASYNC_TRANSMIT_THREADS, ASYNC_TRANSMIT_THREADS, 60,
+                    TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable runnable) {
+                            Thread thread = new Thread(runnable, "Reader-transmit");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+
+    static {
+        asyncTransmitExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /** serializes the asynchronous transmissions of this reader */
+    private final Executor transmitExecutor = new SerialExecutor(asyncTransmitExecutor);
+
     /** Contains the name of the plugin */
     protected final String pluginName;
 
+    /** The activity counters and latencies of the reader */
+    final ReaderMetrics metrics;
+
     /** The default DefaultSelectionsRequest to be executed upon SE insertion */
     protected DefaultSelectionsRequest defaultSelectionsRequest;
 
@@ -69,6 +99,7 @@ public abstract class AbstractObservableReader extends AbstractLoggedObservable<
     protected AbstractObservableReader(String pluginName, String readerName) {
         super(readerName);
         this.pluginName = pluginName;
+        this.metrics = MetricsRegistry.getInstance().getReaderMetrics(pluginName, readerName);
         this.before = System.nanoTime(); /*
                                           * provides an initial value for measuring the
                                           * inter-exchange time. The first measurement gives the
@@ -100,6 +131,26 @@ public abstract class AbstractObservableReader extends AbstractLoggedObservable<
         return this.getName().compareTo(seReader.getName());
     }
 
+    /**
+     * @return true if the metrics of the reader have to be recorded
+     */
+    final boolean isMetricsEnabled() {
+        return MetricsRegistry.getInstance().isEnabled();
+    }
+
+    private void recordError(KeypleReaderException ex) {
+        if (isMetricsEnabled()) {
+            metrics.recordError(ex);
+        }
+    }
+
+    @Override
+    final void notificationDone(long duration) {
+        if (isMetricsEnabled()) {
+            metrics.getEventNotificationLatency().record(duration);
+        }
+    }
+
     /** ==== High level communication API ================================== */
 
     /**
@@ -134,6 +185,7 @@ public abstract class AbstractObservableReader extends AbstractLoggedObservable<
         try {
             responseSet = processSeRequestSet(requestSet);
         } catch (KeypleChannelStateException ex) {
+            recordError(ex);
             long timeStamp = System.nanoTime();
             double elapsedMs = (double) ((timeStamp - this.before) / 100000) / 10;
             this.before = timeStamp;
@@ -142,6 +194,7 @@ public abstract class AbstractObservableReader extends AbstractLoggedObservable<
             /* Throw an exception with the responses collected so far. */
             throw ex;
         } catch (KeypleIOReaderException ex) {
+            recordError(ex);
             long timeStamp = System.nanoTime();
             double elapsedMs = (double) ((timeStamp - this.before) / 100000) / 10;
             this.before = timeStamp;
@@ -149,6 +202,9 @@ public abstract class AbstractObservableReader extends AbstractLoggedObservable<
                     elapsedMs);
             /* Throw an exception with the responses collected so far. */
             throw ex;
+        } catch (KeypleReaderException ex) {
+            recordError(ex);
+            throw ex;
         }
 
         if (logger.isDebugEnabled()) {
@@ -204,6 +260,7 @@ public abstract class AbstractObservableReader extends AbstractLoggedObservable<
         try {
             seResponse = processSeRequest(seRequest);
         } catch (KeypleChannelStateException ex) {
+            recordError(ex);
             long timeStamp = System.nanoTime();
             double elapsedMs = (double) ((timeStamp - this.before) / 100000) / 10;
             this.before = timeStamp;
@@ -212,6 +269,7 @@ public abstract class AbstractObservableReader extends AbstractLoggedObservable<
             /* Throw an exception with the responses collected so far (ex.getSeResponse()). */
             throw ex;
         } catch (KeypleIOReaderException ex) {
+            recordError(ex);
             long timeStamp = System.nanoTime();
             double elapsedMs = (double) ((timeStamp - this.before) / 100000) / 10;
             this.before = timeStamp;
@@ -219,6 +277,9 @@ public abstract class AbstractObservableReader extends AbstractLoggedObservable<
                     elapsedMs);
             /* Throw an exception with the responses collected so far (ex.getSeResponse()). */
             throw ex;
+        } catch (KeypleReaderException ex) {
+            recordError(ex);
+            throw ex;
         }
 
         if (logger.isDebugEnabled()) {
@@ -244,6 +305,186 @@ public abstract class AbstractObservableReader extends AbstractLoggedObservable<
     protected abstract SeResponse processSeRequest(SeRequest seRequest)
             throws KeypleReaderException;
 
+    /**
+     * Execute the transmission of an ordered list of {@link SeRequest} and returns the list of
+     * {@link SeResponse} of the processed requests
+     * <p>
+     * Unlike {@link #transmitSet(Set)}, the requests are not selection alternatives: they are all
+     * processed in order, as with consecutive calls to {@link #transmit(SeRequest)}. The
+     * processing stops after the first {@link SeResponse} containing an unsuccessful
+     * {@link ApduResponse}. A remote reader sends the whole list in a single exchange.
+     * <p>
+     * The global execution time (inter-exchange and communication) and the list of SeRequest
+     * content is logged (DEBUG level).
+     * <p>
+     * As the method is final, it cannot be extended.
+     *
+     * @param seRequests the ordered list of requests
+     * @return the responses of the processed requests
+     * @throws KeypleReaderException if a reader error occurs
+     */
+    public final List<SeResponse> transmitScript(List<SeRequest> seRequests)
+            throws KeypleReaderException {
+        if (seRequests == null) {
+            throw new IllegalArgumentException("seRequests must not be null");
+        }
+
+        if (logger.isDebugEnabled()) {
+            long timeStamp = System.nanoTime();
+            double elapsedMs = (double) ((timeStamp - this.before) / 100000) / 10;
+            this.before = timeStamp;
+            logger.debug("[{}] transmit => SEREQUESTSCRIPT = {}, elapsed {} ms.", this.getName(),
+                    seRequests.toString(), elapsedMs);
+        }
+
+        List<SeResponse> responses;
+        try {
+            responses = processSeRequestScript(seRequests);
+        } catch (KeypleReaderException ex) {
+            recordError(ex);
+            throw ex;
+        }
+
+        if (logger.isDebugEnabled()) {
+            long timeStamp = System.nanoTime();
+            double elapsedMs = (double) ((timeStamp - before) / 100000) / 10;
+            this.before = timeStamp;
+            logger.debug("[{}] transmit => SERESPONSESCRIPT = {}, elapsed {} ms.", this.getName(),
+                    responses.toString(), elapsedMs);
+        }
+
+        return responses;
+    }
+
+    /**
+     * Executes an ordered list of requests, each one as with {@link #processSeRequest(SeRequest)}.
+     * <p>
+     * The processing stops after the first response containing an unsuccessful APDU response.
+     * <p>
+     * This method is handled by transmitScript. It can be overridden by the readers able to
+     * process the whole list in a single exchange (e.g. remote readers).
+     *
+     * @param seRequests the ordered list of {@link SeRequest} to be processed
+     * @return the List of {@link SeResponse} of the processed requests
+     * @throws KeypleReaderException if a transmission fails, the exception holds the responses
+     *         collected so far
+     */
+    protected List<SeResponse> processSeRequestScript(List<SeRequest> seRequests)
+            throws KeypleReaderException {
+        List<SeResponse> responses = new ArrayList<SeResponse>();
+        for (SeRequest seRequest : seRequests) {
+            SeResponse response;
+            try {
+                response = processSeRequest(seRequest);
+            } catch (KeypleReaderException ex) {
+                /* Add the latest (and partial) SeResponse and the previous ones. */
+                responses.add(ex.getSeResponse());
+                ex.setSeResponseSet(responses);
+                throw ex;
+            }
+            responses.add(response);
+            if (!isSuccessful(response)) {
+                logger.debug("[{}] processSeRequestScript => stopped after request {}/{}",
+                        this.getName(), responses.size(), seRequests.size());
+                break;
+            }
+        }
+        return responses;
+    }
+
+    /**
+     * @param seResponse a response to a request
+     * @return true if all the APDU responses are successful
+     */
+    private static boolean isSuccessful(SeResponse seResponse) {
+        if (seResponse == null) {
+            return false;
+        }
+        for (ApduResponse apduResponse : seResponse.getApduResponses()) {
+            if (!apduResponse.isSuccessful()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Asynchronous version of {@link #transmitSet(Set)}
+     * <p>
+     * The method returns immediately. By default, the transmission is processed by
+     * {@link #transmitSet(Set)} on a thread shared by all readers; the asynchronous transmissions
+     * of a reader are processed one at a time, in the order of the requests.
+     *
+     * @param requestSet the request set
+     * @param callback the callback to notify at the end of the transmission (may be null)
+     * @return the future List of {@link SeResponse}, a reader failure is reported as an
+     *         {@link ExecutionException} caused by a {@link KeypleReaderException}
+     * @throws IllegalArgumentException if a bad argument is provided
+     */
+    public Future<List<SeResponse>> transmitSetAsync(final Set<SeRequest> requestSet,
+            TransmitCallback<List<SeResponse>> callback) {
+        if (requestSet == null) {
+            throw new IllegalArgumentException("seRequestSet must not be null");
+        }
+        final TransmitFuture<List<SeResponse>> future =
+                new TransmitFuture<List<SeResponse>>(callback);
+        transmitExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                List<SeResponse> responseSet;
+                try {
+                    responseSet = transmitSet(requestSet);
+                } catch (KeypleReaderException e) {
+                    future.fail(e);
+                    return;
+                } catch (RuntimeException e) {
+                    future.fail(new KeypleReaderException("Transmission failure", e));
+                    return;
+                }
+                future.complete(responseSet);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Asynchronous version of {@link #transmit(SeRequest)}
+     * <p>
+     * The method returns immediately. By default, the transmission is processed by
+     * {@link #transmit(SeRequest)} on a thread shared by all readers; the asynchronous
+     * transmissions of a reader are processed one at a time, in the order of the requests.
+     *
+     * @param seRequest the request to be transmitted
+     * @param callback the callback to notify at the end of the transmission (may be null)
+     * @return the future {@link SeResponse}, a reader failure is reported as an
+     *         {@link ExecutionException} caused by a {@link KeypleReaderException}
+     * @throws IllegalArgumentException if a bad argument is provided
+     */
+    public Future<SeResponse> transmitAsync(final SeRequest seRequest,
+            TransmitCallback<SeResponse> callback) {
+        if (seRequest == null) {
+            throw new IllegalArgumentException("seRequest must not be null");
+        }
+        final TransmitFuture<SeResponse> future = new TransmitFuture<SeResponse>(callback);
+        transmitExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                SeResponse seResponse;
+                try {
+                    seResponse = transmit(seRequest);
+                } catch (KeypleReaderException e) {
+                    future.fail(e);
+                    return;
+                } catch (RuntimeException e) {
+                    future.fail(new KeypleReaderException("Transmission failure", e));
+                    return;
+                }
+                future.complete(seResponse);
+            }
+        });
+        return future;
+    }
+
     /** ==== Methods specific to observability ============================= */
 
     /**
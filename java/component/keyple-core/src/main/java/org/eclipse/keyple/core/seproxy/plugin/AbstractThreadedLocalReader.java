@@ -11,6 +11,8 @@
  ********************************************************************************/
 package org.eclipse.keyple.core.seproxy.plugin;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.eclipse.keyple.core.seproxy.exception.NoStackTraceThrowable;
 import org.slf4j.Logger;
@@ -19,6 +21,9 @@ import org.slf4j.LoggerFactory;
 /**
  * Abstract definition of an threader local reader. Factorizes the observation mechanism through the
  * implementation of a monitoring thread.
+ * <p>
+ * Instead of a monitoring thread, the reader can be observed by an {@link ObservationScheduler}
+ * shared with other readers (see {@link #setObservationScheduler(ObservationScheduler, long)}).
  */
 public abstract class AbstractThreadedLocalReader extends AbstractSelectionLocalReader {
 
@@ -30,6 +35,11 @@ public abstract class AbstractThreadedLocalReader extends AbstractSelectionLocal
      */
     protected long threadWaitTimeout;
 
+    /* shared observation, null when a monitoring thread is used */
+    private volatile ObservationScheduler observationScheduler;
+    private volatile long pollingPeriod;
+    private volatile PresenceCheck presenceCheck;
+
     protected AbstractThreadedLocalReader(String pluginName, String readerName) {
         super(pluginName, readerName);
     }
@@ -41,8 +51,13 @@ public abstract class AbstractThreadedLocalReader extends AbstractSelectionLocal
      */
     @Override
     protected void startObservation() {
-        thread = new EventThread(this.getPluginName(), this.getName());
-        thread.start();
+        ObservationScheduler scheduler = observationScheduler;
+        if (scheduler != null) {
+            presenceCheck = new PresenceCheck(scheduler, pollingPeriod);
+        } else {
+            thread = new EventThread(this.getPluginName(), this.getName());
+            thread.start();
+        }
     }
 
     /**
@@ -52,6 +67,45 @@ public abstract class AbstractThreadedLocalReader extends AbstractSelectionLocal
     protected void stopObservation() {
         if (thread != null) {
             thread.end();
+            thread = null;
+        }
+        if (presenceCheck != null) {
+            presenceCheck.end();
+            presenceCheck = null;
+        }
+    }
+
+    /**
+     * Select the shared observation mode.
+     * <p>
+     * The presence of the SE is checked with {@link #checkSePresence()}, which must not block, by
+     * the threads of the scheduler: periodically and each time the plugin calls
+     * {@link #notifySePresenceChange()}. The waitForCardPresent and waitForCardAbsent methods are
+     * not used.
+     * <p>
+     * The new mode is taken into account at the next start of the observation.
+     *
+     * @param observationScheduler the scheduler, null to use a monitoring thread per reader
+     *        (default)
+     * @param pollingPeriod the period of the checks in milliseconds, 0 if all the changes of
+     *        presence are signalled by the plugin
+     */
+    protected final void setObservationScheduler(ObservationScheduler observationScheduler,
+            long pollingPeriod) {
+        this.observationScheduler = observationScheduler;
+        this.pollingPeriod = pollingPeriod;
+    }
+
+    /**
+     * Signal a possible change of the SE presence (e.g. from a native event or a multi-reader wait
+     * of the plugin), the presence is checked as soon as possible by the observation scheduler.
+     * <p>
+     * Does nothing if the reader is not observed by a scheduler.
+     */
+    protected final void notifySePresenceChange() {
+        PresenceCheck check = presenceCheck;
+        if (check != null) {
+            check.signal();
         }
     }
 
@@ -165,6 +219,103 @@ public abstract class AbstractThreadedLocalReader extends AbstractSelectionLocal
         }
     }
 
+    /**
+     * Presence check run by the observation scheduler: notifies the insertion and the removal of
+     * the SE from the notification threads of the scheduler
+     */
+    private class PresenceCheck implements Runnable {
+        private final ObservationScheduler scheduler;
+        private final Executor notifier;
+        private final ScheduledFuture<?> periodicCheck;
+
+        /* number of requested checks, a single check runs at a time */
+        private final AtomicInteger pendingChecks = new AtomicInteger();
+
+        private volatile boolean running = true;
+
+        /* last notified presence */
+        private boolean sePresent;
+
+        PresenceCheck(ObservationScheduler scheduler, long pollingPeriod) {
+            this.scheduler = scheduler;
+            this.notifier = scheduler.newNotifier();
+            this.periodicCheck = scheduler.start(this, pollingPeriod);
+        }
+
+        void signal() {
+            scheduler.execute(this);
+        }
+
+        synchronized void end() {
+            if (running) {
+                running = false;
+                scheduler.stop(periodicCheck);
+            }
+        }
+
+        @Override
+        public void run() {
+            if (pendingChecks.getAndIncrement() != 0) {
+                /* a check is running, it will check again */
+                return;
+            }
+            do {
+                pendingChecks.set(1);
+                check();
+            } while (!pendingChecks.compareAndSet(1, 0));
+        }
+
+        private void check() {
+            if (!running) {
+                return;
+            }
+            try {
+                boolean present = checkSePresence();
+                if (present != sePresent) {
+                    sePresent = present;
+                    notifier.execute(new Notification(present));
+                }
+            } catch (NoStackTraceThrowable e) {
+                logger.trace("[{}] Exception occurred in presence check: {}", getName(),
+                        e.getMessage());
+                end();
+            } catch (RuntimeException e) {
+                logger.error("[{}] Unexpected exception in presence check", getName(), e);
+            }
+        }
+
+        /**
+         * Notification of a change of presence, run by the notifier of the reader
+         */
+        private class Notification implements Runnable {
+            private final boolean present;
+
+            Notification(boolean present) {
+                this.present = present;
+            }
+
+            @Override
+            public void run() {
+                try {
+                    if (present) {
+                        logger.trace("[{}] Card inserted", getName());
+                        cardInserted();
+                    } else {
+                        logger.trace("[{}] Card removed", getName());
+                        cardRemoved();
+                    }
+                } catch (NoStackTraceThrowable e) {
+                    logger.trace("[{}] Exception occurred in presence notification: {}",
+                            getName(), e.getMessage());
+                    end();
+                } catch (RuntimeException e) {
+                    logger.error("[{}] Unexpected exception in presence notification", getName(),
+                            e);
+                }
+            }
+        }
+    }
+
     /**
      * Called when the class is unloaded. Attempt to do a clean exit.
      * 
@@ -172,8 +323,7 @@ public abstract class AbstractThreadedLocalReader extends AbstractSelectionLocal
      */
     @Override
     protected void finalize() throws Throwable {
-        thread.end();
-        thread = null;
+        stopObservation();
         logger.trace("[{}] Observable Reader thread ended.", this.getName());
         super.finalize();
     }
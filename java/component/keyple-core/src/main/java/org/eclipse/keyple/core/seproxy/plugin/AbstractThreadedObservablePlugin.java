@@ -16,6 +16,7 @@ import java.util.concurrent.ConcurrentSkipListSet;
 import org.eclipse.keyple.core.seproxy.SeReader;
 import org.eclipse.keyple.core.seproxy.event.PluginEvent;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderException;
+import org.eclipse.keyple.core.seproxy.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -105,70 +106,9 @@ public abstract class AbstractThreadedObservablePlugin extends AbstractObservabl
         }
 
         public void run() {
-            SortedSet<String> changedReaderNames = new ConcurrentSkipListSet<String>();
             try {
                 while (running) {
-                    /* retrieves the current readers names list */
-                    SortedSet<String> actualNativeReadersNames = fetchNativeReadersNames();
-                    /*
-                     * checks if it has changed this algorithm favors cases where nothing change
-                     */
-                    if (!nativeReadersNames.equals(actualNativeReadersNames)) {
-                        /*
-                         * parse the current readers list, notify for disappeared readers, update
-                         * readers list
-                         */
-                        /* build changed reader names list */
-                        changedReaderNames.clear();
-                        for (SeReader reader : readers) {
-                            if (!actualNativeReadersNames.contains(reader.getName())) {
-                                changedReaderNames.add(reader.getName());
-                            }
-                        }
-                        /* notify disconnections if any and update the reader list */
-                        if (changedReaderNames.size() > 0) {
-                            /* grouped notification */
-                            logger.trace("Notifying disconnection(s): {}", changedReaderNames);
-                            notifyObservers(new PluginEvent(this.pluginName, changedReaderNames,
-                                    PluginEvent.EventType.READER_DISCONNECTED));
-                            /* list update */
-                            for (SeReader reader : readers) {
-                                if (!actualNativeReadersNames.contains(reader.getName())) {
-                                    readers.remove(reader);
-                                    logger.trace(
-                                            "[{}][{}] Plugin thread => Remove unplugged reader from readers list.",
-                                            this.pluginName, reader.getName());
-                                    /* remove reader name from the current list */
-                                    nativeReadersNames.remove(reader.getName());
-                                }
-                            }
-                            /* clean the list for a possible connection notification */
-                            changedReaderNames.clear();
-                        }
-                        /*
-                         * parse the new readers list, notify for readers appearance, update readers
-                         * list
-                         */
-                        for (String readerName : actualNativeReadersNames) {
-                            if (!nativeReadersNames.contains(readerName)) {
-                                SeReader reader = fetchNativeReader(readerName);
-                                readers.add(reader);
-                                /* add to the notification list */
-                                changedReaderNames.add(readerName);
-                                logger.trace(
-                                        "[{}][{}] Plugin thread => Add plugged reader to readers list.",
-                                        this.pluginName, reader.getName());
-                                /* add reader name to the current list */
-                                nativeReadersNames.add(readerName);
-                            }
-                        }
-                        /* notify connections if any */
-                        if (changedReaderNames.size() > 0) {
-                            logger.trace("Notifying connection(s): {}", changedReaderNames);
-                            notifyObservers(new PluginEvent(this.pluginName, changedReaderNames,
-                                    PluginEvent.EventType.READER_CONNECTED));
-                        }
-                    }
+                    refreshReaders();
                     /* sleep for a while. */
                     Thread.sleep(threadWaitTimeout);
                 }
@@ -184,6 +124,91 @@ public abstract class AbstractThreadedObservablePlugin extends AbstractObservabl
         }
     }
 
+    /**
+     * Compare the native readers list with the current readers list, update the latter and notify
+     * the connections and disconnections.
+     * <p>
+     * Called periodically by the monitoring thread, may be called by a plugin monitoring the
+     * readers by its own means (e.g. a native event loop) instead. Must not be called concurrently.
+     *
+     * @throws KeypleReaderException if a reader error occurs
+     */
+    protected final void refreshReaders() throws KeypleReaderException {
+        String pluginName = this.getName();
+        /* retrieves the current readers names list */
+        SortedSet<String> actualNativeReadersNames = fetchNativeReadersNames();
+        /*
+         * checks if it has changed this algorithm favors cases where nothing change
+         */
+        if (nativeReadersNames.equals(actualNativeReadersNames)) {
+            return;
+        }
+        SortedSet<String> changedReaderNames = new ConcurrentSkipListSet<String>();
+        /*
+         * parse the current readers list, notify for disappeared readers, update readers list
+         */
+        /* build changed reader names list */
+        for (SeReader reader : readers) {
+            if (!actualNativeReadersNames.contains(reader.getName())) {
+                changedReaderNames.add(reader.getName());
+            }
+        }
+        /* notify disconnections if any and update the reader list */
+        if (changedReaderNames.size() > 0) {
+            /* grouped notification */
+            logger.trace("Notifying disconnection(s): {}", changedReaderNames);
+            notifyObservers(new PluginEvent(pluginName, changedReaderNames,
+                    PluginEvent.EventType.READER_DISCONNECTED));
+            /* list update */
+            for (SeReader reader : readers) {
+                if (!actualNativeReadersNames.contains(reader.getName())) {
+                    readers.remove(reader);
+                    readerRemoved(reader);
+                    MetricsRegistry.getInstance().removeReaderMetrics(pluginName,
+                            reader.getName());
+                    logger.trace(
+                            "[{}][{}] Plugin thread => Remove unplugged reader from readers list.",
+                            pluginName, reader.getName());
+                    /* remove reader name from the current list */
+                    nativeReadersNames.remove(reader.getName());
+                }
+            }
+            /* clean the list for a possible connection notification */
+            changedReaderNames.clear();
+        }
+        /*
+         * parse the new readers list, notify for readers appearance, update readers list
+         */
+        for (String readerName : actualNativeReadersNames) {
+            if (!nativeReadersNames.contains(readerName)) {
+                SeReader reader = fetchNativeReader(readerName);
+                readers.add(reader);
+                /* add to the notification list */
+                changedReaderNames.add(readerName);
+                logger.trace("[{}][{}] Plugin thread => Add plugged reader to readers list.",
+                        pluginName, reader.getName());
+                /* add reader name to the current list */
+                nativeReadersNames.add(readerName);
+            }
+        }
+        /* notify connections if any */
+        if (changedReaderNames.size() > 0) {
+            logger.trace("Notifying connection(s): {}", changedReaderNames);
+            notifyObservers(new PluginEvent(pluginName, changedReaderNames,
+                    PluginEvent.EventType.READER_CONNECTED));
+        }
+    }
+
+    /**
+     * Called by refreshReaders when a disconnected reader has been removed from the readers list.
+     * <p>
+     * Does nothing by default, to be overridden by the plugins that have to release the resources
+     * of the reader (e.g. end its monitoring).
+     *
+     * @param reader the removed reader
+     */
+    protected void readerRemoved(SeReader reader) {}
+
     /**
      * Called when the class is unloaded. Attempt to do a clean exit.
      *
@@ -191,8 +216,10 @@ public abstract class AbstractThreadedObservablePlugin extends AbstractObservabl
      */
     @Override
     protected void finalize() throws Throwable {
-        thread.end();
-        thread = null;
+        if (thread != null) {
+            thread.end();
+            thread = null;
+        }
         logger.trace("[{}] Observable Plugin thread ended.", this.getName());
         super.finalize();
     }
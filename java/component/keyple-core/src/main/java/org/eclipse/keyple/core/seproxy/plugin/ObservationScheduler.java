@@ -0,0 +1,161 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.seproxy.plugin;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Small pool of threads shared by several {@link AbstractThreadedLocalReader} to observe the
+ * presence of their SE, instead of a monitoring thread per reader.
+ * <p>
+ * Each observed reader is checked periodically (polling) and/or when the plugin signals a possible
+ * change of presence (see {@link AbstractThreadedLocalReader#notifySePresenceChange()}), the checks
+ * of a reader are never run concurrently.
+ * <p>
+ * The reader events are not notified from the threads of the scheduler but from notification
+ * threads, created on demand and serialized per reader: an observer blocking on the event of a
+ * reader (e.g. to process a transaction) does not delay the observation of the other readers.
+ */
+public final class ObservationScheduler {
+
+    /** number of threads of the default scheduler */
+    public static final int DEFAULT_THREAD_COUNT = 2;
+
+    private static ObservationScheduler defaultScheduler;
+
+    private final ScheduledExecutorService executor;
+
+    private final ExecutorService notificationExecutor;
+
+    private final AtomicInteger observedReaderCount = new AtomicInteger();
+
+    /**
+     * Create a scheduler
+     *
+     * @param name name of the scheduler, used to name its threads
+     * @param threadCount number of threads
+     */
+    public ObservationScheduler(final String name, int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("threadCount must be positive");
+        }
+        executor = Executors.newScheduledThreadPool(threadCount, new ThreadFactory() {
+            private final AtomicInteger threadCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        notificationExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger threadCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable,
+                        name + "-notification-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * @return the scheduler shared by default by all the readers
+     */
+    public static synchronized ObservationScheduler getDefault() {
+        if (defaultScheduler == null) {
+            defaultScheduler = new ObservationScheduler("observation-scheduler",
+                    DEFAULT_THREAD_COUNT);
+        }
+        return defaultScheduler;
+    }
+
+    /**
+     * @return the number of readers currently observed
+     */
+    public int getObservedReaderCount() {
+        return observedReaderCount.get();
+    }
+
+    /**
+     * Stop the threads of the scheduler, the observation of the readers is stopped
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        notificationExecutor.shutdownNow();
+    }
+
+    /**
+     * Start the observation of a reader
+     *
+     * @param check the presence check of the reader
+     * @param pollingPeriod period of the check in milliseconds, 0 to run it only when signalled
+     * @return the periodic check, null if no polling
+     */
+    ScheduledFuture<?> start(Runnable check, long pollingPeriod) {
+        observedReaderCount.incrementAndGet();
+        if (pollingPeriod > 0) {
+            return executor.scheduleWithFixedDelay(check, 0, pollingPeriod,
+                    TimeUnit.MILLISECONDS);
+        }
+        execute(check);
+        return null;
+    }
+
+    /**
+     * Stop the observation of a reader
+     *
+     * @param periodicCheck the periodic check returned by start (may be null)
+     */
+    void stop(ScheduledFuture<?> periodicCheck) {
+        if (periodicCheck != null) {
+            periodicCheck.cancel(false);
+        }
+        observedReaderCount.decrementAndGet();
+    }
+
+    /**
+     * Create the notifier of a reader: its events are delivered one at a time, in order, by the
+     * notification threads
+     *
+     * @return the notification executor of the reader
+     */
+    Executor newNotifier() {
+        return new SerialExecutor(new Executor() {
+            @Override
+            public void execute(Runnable notification) {
+                try {
+                    notificationExecutor.execute(notification);
+                } catch (RejectedExecutionException e) {
+                    /* the scheduler is shut down */
+                }
+            }
+        });
+    }
+
+    /**
+     * Run a check as soon as possible
+     *
+     * @param check the presence check of a reader
+     */
+    void execute(Runnable check) {
+        try {
+            executor.execute(check);
+        } catch (RejectedExecutionException e) {
+            /* the scheduler is shut down */
+        }
+    }
+}
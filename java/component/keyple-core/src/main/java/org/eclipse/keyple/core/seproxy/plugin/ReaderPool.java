@@ -0,0 +1,490 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.seproxy.plugin;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.eclipse.keyple.core.seproxy.ReaderPoolPlugin;
+import org.eclipse.keyple.core.seproxy.SeReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Thread-safe pool of readers organized in groups, on which the {@link ReaderPoolPlugin}
+ * implementations can rely to allocate and release their readers.
+ * <p>
+ * A group holds any number of readers. A lease gives the least used free reader of the group and
+ * may wait until a reader is released. The leases not released before the lease duration (if
+ * defined) are reclaimed, so that a leaked reader returns to the pool.
+ * <p>
+ * A lease is released with the {@link Lease} handle given by the pool: a handle whose lease has
+ * expired does not release the reader anymore, even when it has been leased again.
+ * <p>
+ * Before being leased, a reader is checked with {@link #isHealthy(SeReader)}: an unhealthy reader
+ * is evicted from the pool.
+ *
+ * @param <R> the type of the readers
+ */
+public class ReaderPool<R extends SeReader> {
+    private static final Logger logger = LoggerFactory.getLogger(ReaderPool.class);
+
+    /**
+     * The handle of a lease, to be given back to {@link #release(Lease)}
+     *
+     * @param <R> the type of the readers
+     */
+    public static final class Lease<R> {
+        private final PooledReader<R> pooledReader;
+        /* the use count of the reader when leased, identifies the lease */
+        private final long generation;
+
+        private Lease(PooledReader<R> pooledReader) {
+            this.pooledReader = pooledReader;
+            this.generation = pooledReader.useCount;
+        }
+
+        /**
+         * @return the leased reader
+         */
+        public R getReader() {
+            return pooledReader.reader;
+        }
+    }
+
+    /**
+     * A reader of the pool and its lease status
+     */
+    private static final class PooledReader<R> {
+        private final String groupReference;
+        private final R reader;
+        private long useCount;
+        private boolean leased;
+        /* true while the release of the reader is in progress */
+        private boolean releasing;
+        private boolean leaseExpiring;
+        private long leaseDeadline;
+
+        private PooledReader(String groupReference, R reader) {
+            this.groupReference = groupReference;
+            this.reader = reader;
+        }
+    }
+
+    /* the lock protecting the groups and the lease status of the readers */
+    private final ReentrantLock poolLock = new ReentrantLock();
+    private final Condition readerAvailable = poolLock.newCondition();
+    /* the readers by group reference, in the order of their addition */
+    private final Map<String, List<PooledReader<R>>> groups =
+            new HashMap<String, List<PooledReader<R>>>();
+    private final Map<String, PooledReader<R>> readersByName =
+            new HashMap<String, PooledReader<R>>();
+    private volatile long leaseDuration;
+    private int waitingRequestCount;
+    private long expiredLeaseCount;
+    private long evictedReaderCount;
+
+    /**
+     * Set the maximum duration of a lease, the expired leases are reclaimed at the next lease
+     * request (or by {@link #reclaimExpiredLeases()}).
+     * <p>
+     * A reclaimed reader can be leased again: it must not be used anymore by its former holder.
+     *
+     * @param leaseDuration the duration in milliseconds, 0 for unlimited leases (default)
+     */
+    public void setLeaseDuration(long leaseDuration) {
+        if (leaseDuration < 0) {
+            throw new IllegalArgumentException("The lease duration must not be negative");
+        }
+        this.leaseDuration = leaseDuration;
+    }
+
+    /**
+     * Check if a free reader can be leased, called with the pool lock held: must not block.
+     * <p>
+     * Always true by default.
+     *
+     * @param reader the reader
+     * @return false if the reader has to be evicted from the pool
+     */
+    protected boolean isHealthy(R reader) {
+        return true;
+    }
+
+    /**
+     * Called when a lease ends (release or expiry), before the reader is made available again.
+     * <p>
+     * Does nothing by default.
+     *
+     * @param reader the reader
+     */
+    protected void readerReleased(R reader) {}
+
+    /**
+     * Called when an unhealthy reader has been evicted from the pool.
+     * <p>
+     * Does nothing by default.
+     *
+     * @param reader the reader
+     */
+    protected void readerEvicted(R reader) {}
+
+    /**
+     * Add a free reader to a group, the group is created if needed
+     *
+     * @param groupReference the reference of the group
+     * @param reader the reader
+     * @throws IllegalArgumentException if the group reference is null or if a reader with the
+     *         same name is already in the pool
+     */
+    public void addReader(String groupReference, R reader) {
+        if (groupReference == null) {
+            throw new IllegalArgumentException("The group reference must not be null");
+        }
+        poolLock.lock();
+        try {
+            if (readersByName.containsKey(reader.getName())) {
+                throw new IllegalArgumentException(
+                        "The reader " + reader.getName() + " is already in the pool");
+            }
+            PooledReader<R> pooledReader = new PooledReader<R>(groupReference, reader);
+            List<PooledReader<R>> group = groups.get(groupReference);
+            if (group == null) {
+                group = new ArrayList<PooledReader<R>>();
+                groups.put(groupReference, group);
+            }
+            group.add(pooledReader);
+            readersByName.put(reader.getName(), pooledReader);
+            readerAvailable.signalAll();
+        } finally {
+            poolLock.unlock();
+        }
+    }
+
+    /* must be called with the pool lock held */
+    private void removePooledReader(PooledReader<R> pooledReader) {
+        List<PooledReader<R>> group = groups.get(pooledReader.groupReference);
+        group.remove(pooledReader);
+        if (group.isEmpty()) {
+            groups.remove(pooledReader.groupReference);
+        }
+        readersByName.remove(pooledReader.reader.getName());
+    }
+
+    /**
+     * Remove a reader from the pool, even if it is leased
+     *
+     * @param reader the reader
+     * @return false if the reader was not in the pool
+     */
+    public boolean removeReader(R reader) {
+        poolLock.lock();
+        try {
+            PooledReader<R> pooledReader = readersByName.get(reader.getName());
+            if (pooledReader == null || pooledReader.reader != reader) {
+                return false;
+            }
+            removePooledReader(pooledReader);
+            return true;
+        } finally {
+            poolLock.unlock();
+        }
+    }
+
+    /**
+     * Remove all the readers of a group, even if they are leased
+     *
+     * @param groupReference the reference of the group
+     * @return the removed readers
+     */
+    public List<R> removeGroup(String groupReference) {
+        poolLock.lock();
+        try {
+            List<R> readers = new ArrayList<R>();
+            List<PooledReader<R>> group = groups.remove(groupReference);
+            if (group != null) {
+                for (PooledReader<R> pooledReader : group) {
+                    readersByName.remove(pooledReader.reader.getName());
+                    readers.add(pooledReader.reader);
+                }
+            }
+            return readers;
+        } finally {
+            poolLock.unlock();
+        }
+    }
+
+    /**
+     * @return the references of the groups holding at least one reader
+     */
+    public SortedSet<String> getGroupReferences() {
+        poolLock.lock();
+        try {
+            return new TreeSet<String>(groups.keySet());
+        } finally {
+            poolLock.unlock();
+        }
+    }
+
+    /**
+     * Lease a free reader without waiting
+     *
+     * @param groupReference the reference of the group, null for any group
+     * @return the lease of the reader or null if no reader of the group is free
+     */
+    public Lease<R> tryLease(String groupReference) {
+        try {
+            return lease(groupReference, 0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Lease the least used free reader of a group, waiting for a release if none is free
+     *
+     * @param groupReference the reference of the group, null for any group
+     * @param timeout the maximum waiting time in milliseconds
+     * @return the lease of the reader or null if no reader of the group has been freed before the
+     *         timeout
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    public Lease<R> lease(String groupReference, long timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        while (true) {
+            reclaimExpiredLeases();
+            List<R> evictedReaders = new ArrayList<R>();
+            poolLock.lock();
+            try {
+                PooledReader<R> pooledReader = takeLeastUsedReader(groupReference, evictedReaders);
+                if (pooledReader != null) {
+                    return new Lease<R>(pooledReader);
+                }
+                long remainingTime = deadline - System.nanoTime();
+                if (remainingTime <= 0) {
+                    return null;
+                }
+                waitingRequestCount++;
+                try {
+                    /* wake up at the next lease expiry to reclaim it */
+                    readerAvailable.awaitNanos(Math.min(remainingTime, getTimeToNextExpiry()));
+                } finally {
+                    waitingRequestCount--;
+                }
+            } finally {
+                poolLock.unlock();
+                for (R evictedReader : evictedReaders) {
+                    logger.warn("Unhealthy reader {} evicted from the pool",
+                            evictedReader.getName());
+                    readerEvicted(evictedReader);
+                }
+            }
+        }
+    }
+
+    /* must be called with the pool lock held */
+    private PooledReader<R> takeLeastUsedReader(String groupReference, List<R> evictedReaders) {
+        Collection<List<PooledReader<R>>> candidateGroups;
+        if (groupReference == null) {
+            candidateGroups = new ArrayList<List<PooledReader<R>>>(groups.values());
+        } else {
+            List<PooledReader<R>> group = groups.get(groupReference);
+            if (group == null) {
+                return null;
+            }
+            candidateGroups = Collections.singletonList(group);
+        }
+        PooledReader<R> leastUsedReader = null;
+        for (List<PooledReader<R>> group : candidateGroups) {
+            for (PooledReader<R> pooledReader : new ArrayList<PooledReader<R>>(group)) {
+                if (pooledReader.leased) {
+                    continue;
+                }
+                if (!isHealthy(pooledReader.reader)) {
+                    removePooledReader(pooledReader);
+                    evictedReaderCount++;
+                    evictedReaders.add(pooledReader.reader);
+                    continue;
+                }
+                if (leastUsedReader == null || pooledReader.useCount < leastUsedReader.useCount) {
+                    leastUsedReader = pooledReader;
+                }
+            }
+        }
+        if (leastUsedReader != null) {
+            leastUsedReader.leased = true;
+            leastUsedReader.useCount++;
+            long duration = leaseDuration;
+            leastUsedReader.leaseExpiring = duration > 0;
+            leastUsedReader.leaseDeadline =
+                    System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(duration);
+        }
+        return leastUsedReader;
+    }
+
+    /* must be called with the pool lock held */
+    private long getTimeToNextExpiry() {
+        long timeToNextExpiry = Long.MAX_VALUE;
+        if (leaseDuration > 0) {
+            long now = System.nanoTime();
+            for (PooledReader<R> pooledReader : readersByName.values()) {
+                if (pooledReader.leased && pooledReader.leaseExpiring
+                        && !pooledReader.releasing) {
+                    timeToNextExpiry =
+                            Math.min(timeToNextExpiry, pooledReader.leaseDeadline - now);
+                }
+            }
+        }
+        return Math.max(timeToNextExpiry, 1);
+    }
+
+    /* ends the lease of a reader whose release is in progress */
+    private void endLease(PooledReader<R> pooledReader) {
+        readerReleased(pooledReader.reader);
+        poolLock.lock();
+        try {
+            pooledReader.leased = false;
+            pooledReader.releasing = false;
+            readerAvailable.signalAll();
+        } finally {
+            poolLock.unlock();
+        }
+    }
+
+    /**
+     * Release a lease
+     * <p>
+     * Only the lease in progress is released: the release of an expired lease is ignored, so that
+     * a late release from a former holder does not free the reader leased by the next holder.
+     *
+     * @param lease the lease given by {@link #lease(String, long)} or {@link #tryLease(String)}
+     * @return false if the lease is over (already released, expired or reader removed from the
+     *         pool)
+     */
+    public boolean release(Lease<R> lease) {
+        PooledReader<R> pooledReader = lease.pooledReader;
+        poolLock.lock();
+        try {
+            if (readersByName.get(pooledReader.reader.getName()) != pooledReader
+                    || !pooledReader.leased || pooledReader.releasing
+                    || pooledReader.useCount != lease.generation) {
+                return false;
+            }
+            pooledReader.releasing = true;
+        } finally {
+            poolLock.unlock();
+        }
+        endLease(pooledReader);
+        return true;
+    }
+
+    /**
+     * Release the readers whose lease has expired
+     *
+     * @return the number of reclaimed readers
+     */
+    public int reclaimExpiredLeases() {
+        if (leaseDuration == 0) {
+            return 0;
+        }
+        List<PooledReader<R>> expiredReaders = new ArrayList<PooledReader<R>>();
+        poolLock.lock();
+        try {
+            long now = System.nanoTime();
+            for (PooledReader<R> pooledReader : readersByName.values()) {
+                if (pooledReader.leased && pooledReader.leaseExpiring && !pooledReader.releasing
+                        && now - pooledReader.leaseDeadline >= 0) {
+                    pooledReader.releasing = true;
+                    expiredLeaseCount++;
+                    expiredReaders.add(pooledReader);
+                }
+            }
+        } finally {
+            poolLock.unlock();
+        }
+        for (PooledReader<R> pooledReader : expiredReaders) {
+            logger.warn("Lease of the reader {} expired, the reader is reclaimed",
+                    pooledReader.reader.getName());
+            endLease(pooledReader);
+        }
+        return expiredReaders.size();
+    }
+
+    /**
+     * @return the names of the leased readers and the references of their group
+     */
+    public Map<String, String> getLeasedReaders() {
+        poolLock.lock();
+        try {
+            Map<String, String> leasedReaders = new HashMap<String, String>();
+            for (PooledReader<R> pooledReader : readersByName.values()) {
+                if (pooledReader.leased) {
+                    leasedReaders.put(pooledReader.reader.getName(),
+                            pooledReader.groupReference);
+                }
+            }
+            return leasedReaders;
+        } finally {
+            poolLock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of readers in the pool
+     */
+    public int getReaderCount() {
+        poolLock.lock();
+        try {
+            return readersByName.size();
+        } finally {
+            poolLock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of lease requests currently waiting for a reader
+     */
+    public int getWaitingRequestCount() {
+        poolLock.lock();
+        try {
+            return waitingRequestCount;
+        } finally {
+            poolLock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of leases reclaimed after their expiry
+     */
+    public long getExpiredLeaseCount() {
+        poolLock.lock();
+        try {
+            return expiredLeaseCount;
+        } finally {
+            poolLock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of unhealthy readers evicted from the pool
+     */
+    public long getEvictedReaderCount() {
+        poolLock.lock();
+        try {
+            return evictedReaderCount;
+        } finally {
+            poolLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.seproxy.plugin;
+
+/**
+ * Time spent by a local reader on one SeRequest of a request set
+ * <p>
+ * The durations are in nanoseconds.
+ */
+public final class SeRequestTiming {
+    private final boolean processed;
+    private final long selectionDuration;
+    private final long totalDuration;
+
+    SeRequestTiming(boolean processed, long selectionDuration, long totalDuration) {
+        this.processed = processed;
+        this.selectionDuration = selectionDuration;
+        this.totalDuration = totalDuration;
+    }
+
+    /**
+     * @return false if the request has been skipped because its protocol does not match the
+     *         current SE
+     */
+    public boolean isProcessed() {
+        return processed;
+    }
+
+    /**
+     * @return the time spent in the selection (ATR filtering and application selection)
+     */
+    public long getSelectionDuration() {
+        return selectionDuration;
+    }
+
+    /**
+     * @return the time spent in the exchange of the APDUs following the selection
+     */
+    public long getApduDuration() {
+        return totalDuration - selectionDuration;
+    }
+
+    /**
+     * @return the total time spent on the request
+     */
+    public long getTotalDuration() {
+        return totalDuration;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SeRequestTiming: PROCESSED = %s, SELECTION = %d ns, TOTAL = %d ns",
+                processed, selectionDuration, totalDuration);
+    }
+}
@@ -12,43 +12,299 @@
 package org.eclipse.keyple.core.util;
 
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 
 /**
  * Generic Observable class
+ * <p>
+ * The events are dispatched synchronously by default: each observer is called in turn by the
+ * notifying thread. In asynchronous mode (see
+ * {@link #setAsynchronousDispatch(Executor, int, OverflowPolicy)}) each observer has its own
+ * bounded queue, drained in order on the threads of an executor, so that a slow observer neither
+ * delays the notifying thread nor the other observers.
  *
  * @param <T> Generic event
  *
  */
 
 public class Observable<T> {
+    private static final Logger logger = LoggerFactory.getLogger(Observable.class);
+
     public interface Observer<T> {
         void update(T event);
     }
 
+    /**
+     * Behavior of an asynchronous dispatch when the queue of an observer is full
+     */
+    public enum OverflowPolicy {
+        /** the oldest pending event is discarded to make room for the new one */
+        DROP_OLDEST,
+        /** the new event is discarded */
+        DROP_NEWEST,
+        /** the notifying thread waits until there is room in the queue */
+        BLOCK
+    }
+
+    /**
+     * Default executor of the asynchronous dispatch, its threads are created when needed
+     */
+    private static ExecutorService defaultDispatchExecutor;
+
+    /* placeholder of the null events in the queues */
+    private static final Object NULL_EVENT = new Object();
+
     private boolean changed = false;
 
     /*
-     * this object will be used to synchronize the access to the observers list in order to be
-     * thread safe
+     * copy-on-write set of observers, a notification iterates over a snapshot without copying it
+     */
+    private final CopyOnWriteArraySet<Observer<T>> observers =
+            new CopyOnWriteArraySet<Observer<T>>();
+
+    /* asynchronous dispatch settings, null in synchronous mode */
+    private volatile AsynchronousDispatch asynchronousDispatch;
+
+    /*
+     * queues of the observers in asynchronous mode, created at their first event and kept across
+     * the settings changes until the observer is removed; created and removed with the lock held
+     */
+    private final ConcurrentMap<Observer<T>, EventQueue<T>> eventQueues =
+            new ConcurrentHashMap<Observer<T>, EventQueue<T>>();
+
+    private final Object observersLock = new Object();
+
+    private final AtomicLong droppedEventCount = new AtomicLong();
+
+    /**
+     * Settings of the asynchronous dispatch
+     */
+    private static final class AsynchronousDispatch {
+        private final Executor executor;
+        private final int queueCapacity;
+        private final OverflowPolicy overflowPolicy;
+
+        private AsynchronousDispatch(Executor executor, int queueCapacity,
+                OverflowPolicy overflowPolicy) {
+            this.executor = executor;
+            this.queueCapacity = queueCapacity;
+            this.overflowPolicy = overflowPolicy;
+        }
+    }
+
+    /**
+     * Bounded queue of the events waiting to be delivered to an observer. At most one drain task
+     * is submitted to an executor at a time, which keeps the events in order.
+     * <p>
+     * The queue applies the settings of the last event offered: after a settings change, the
+     * pending events are delivered before the new ones, and never concurrently with them.
      */
-    private final Object SYNC = new Object();
+    private static final class EventQueue<T> implements Runnable {
+        private final Observer<T> observer;
+        private final AtomicLong droppedEventCount;
+        private final LinkedList<Object> events = new LinkedList<Object>();
 
-    private Set<Observer<T>> observers;
+        /* the following fields are guarded by the queue monitor */
+        private AsynchronousDispatch dispatch;
+        private boolean scheduled;
+        private boolean removed;
+
+        private EventQueue(Observer<T> observer, AtomicLong droppedEventCount) {
+            this.observer = observer;
+            this.droppedEventCount = droppedEventCount;
+        }
+
+        /**
+         * Queue an event
+         *
+         * @param event the event
+         * @param newDispatch the current settings, null in synchronous mode to queue the event
+         *        only if former events are still pending
+         * @return false if the event has not been queued because no event is pending (synchronous
+         *         mode only)
+         */
+        private boolean offer(T event, AsynchronousDispatch newDispatch) {
+            Object element = event == null ? NULL_EVENT : event;
+            AsynchronousDispatch currentDispatch;
+            synchronized (this) {
+                if (removed) {
+                    return true;
+                }
+                if (newDispatch != null) {
+                    dispatch = newDispatch;
+                } else if (!scheduled) {
+                    return false;
+                }
+                while (events.size() >= dispatch.queueCapacity) {
+                    if (dispatch.overflowPolicy == OverflowPolicy.DROP_NEWEST) {
+                        dropped(element);
+                        return true;
+                    }
+                    if (dispatch.overflowPolicy == OverflowPolicy.DROP_OLDEST) {
+                        dropped(events.removeFirst());
+                    } else {
+                        try {
+                            wait();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            dropped(element);
+                            return true;
+                        }
+                        if (removed) {
+                            return true;
+                        }
+                    }
+                }
+                events.addLast(element);
+                if (scheduled) {
+                    return true;
+                }
+                scheduled = true;
+                currentDispatch = dispatch;
+            }
+            try {
+                currentDispatch.executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                synchronized (this) {
+                    scheduled = false;
+                }
+                logger.warn("Event dispatch to observer {} rejected by the executor",
+                        observer.getClass().getSimpleName());
+            }
+            return true;
+        }
+
+        private void dropped(Object element) {
+            droppedEventCount.incrementAndGet();
+            logger.debug("Event queue of observer {} is full, event dropped: {}",
+                    observer.getClass().getSimpleName(), element);
+        }
+
+        private synchronized int size() {
+            return events.size();
+        }
+
+        /**
+         * Discard the pending events and the next ones, the observer has been removed
+         */
+        private synchronized void remove() {
+            removed = true;
+            events.clear();
+            notifyAll();
+        }
+
+        @SuppressWarnings("unchecked")
+        public void run() {
+            while (true) {
+                Object element;
+                synchronized (this) {
+                    if (removed || events.isEmpty()) {
+                        scheduled = false;
+                        return;
+                    }
+                    element = events.removeFirst();
+                    /* room for the notifying threads waiting on a full queue */
+                    notifyAll();
+                }
+                try {
+                    observer.update(element == NULL_EVENT ? null : (T) element);
+                } catch (RuntimeException e) {
+                    logger.error("Observer {} failed to process event {}",
+                            observer.getClass().getSimpleName(), element, e);
+                }
+            }
+        }
+    }
+
+    private static synchronized Executor getDefaultDispatchExecutor() {
+        if (defaultDispatchExecutor == null) {
+            defaultDispatchExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "Observable-dispatch");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return defaultDispatchExecutor;
+    }
+
+    /**
+     * Dispatch the events synchronously, from the notifying thread (default).
+     * <p>
+     * The events already queued for an observer are still delivered, before the new ones.
+     */
+    public void setSynchronousDispatch() {
+        asynchronousDispatch = null;
+    }
+
+    /**
+     * Dispatch the events asynchronously on a default shared executor
+     *
+     * @param queueCapacity the maximum number of pending events per observer
+     * @param overflowPolicy the behavior when the queue of an observer is full
+     */
+    public void setAsynchronousDispatch(int queueCapacity, OverflowPolicy overflowPolicy) {
+        setAsynchronousDispatch(getDefaultDispatchExecutor(), queueCapacity, overflowPolicy);
+    }
+
+    /**
+     * Dispatch the events asynchronously: each observer receives the events in the notification
+     * order, from a thread of the executor, without waiting for the other observers.
+     * <p>
+     * The events already queued for an observer are still delivered, before the new ones.
+     *
+     * @param executor the executor running the dispatch
+     * @param queueCapacity the maximum number of pending events per observer
+     * @param overflowPolicy the behavior when the queue of an observer is full
+     * @throws IllegalArgumentException if an argument is null or the capacity is not positive
+     */
+    public void setAsynchronousDispatch(Executor executor, int queueCapacity,
+            OverflowPolicy overflowPolicy) {
+        if (executor == null || overflowPolicy == null || queueCapacity <= 0) {
+            throw new IllegalArgumentException("Invalid asynchronous dispatch settings");
+        }
+        asynchronousDispatch = new AsynchronousDispatch(executor, queueCapacity, overflowPolicy);
+    }
+
+    /**
+     * @return true if the events are dispatched asynchronously
+     */
+    public boolean isAsynchronousDispatch() {
+        return asynchronousDispatch != null;
+    }
+
+    /**
+     * @return the number of events waiting to be delivered, for all the observers
+     */
+    public int getPendingEventCount() {
+        int count = 0;
+        for (EventQueue<T> eventQueue : eventQueues.values()) {
+            count += eventQueue.size();
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of events discarded because the queue of an observer was full
+     */
+    public long getDroppedEventCount() {
+        return droppedEventCount.get();
+    }
 
     public void addObserver(final Observer<T> observer) {
         if (observer == null) {
             return;
         }
 
-        synchronized (SYNC) {
-            if (observers == null) {
-                observers = new HashSet<Observer<T>>(1);
-            }
-            observers.add(observer);
-        }
+        observers.add(observer);
     }
 
     public void removeObserver(final Observer<T> observer) {
@@ -56,16 +312,22 @@ public class Observable<T> {
             return;
         }
 
-        synchronized (SYNC) {
-            if (observers != null) {
-                observers.remove(observer);
+        synchronized (observersLock) {
+            observers.remove(observer);
+            EventQueue<T> eventQueue = eventQueues.remove(observer);
+            if (eventQueue != null) {
+                eventQueue.remove();
             }
         }
     }
 
     public void clearObservers() {
-        if (observers != null) {
-            this.observers.clear();
+        synchronized (observersLock) {
+            observers.clear();
+            for (Iterator<EventQueue<T>> it = eventQueues.values().iterator(); it.hasNext();) {
+                it.next().remove();
+                it.remove();
+            }
         }
     }
 
@@ -82,7 +344,7 @@ public class Observable<T> {
     }
 
     public int countObservers() {
-        return observers == null ? 0 : observers.size();
+        return observers.size();
     }
 
     public void notifyObservers() {
@@ -90,17 +352,45 @@ public class Observable<T> {
     }
 
     public void notifyObservers(final T event) {
-        Set<Observer> observersCopy;
+        AsynchronousDispatch dispatch = asynchronousDispatch;
 
-        synchronized (SYNC) {
-            if (observers == null) {
-                return;
+        for (Observer<T> observer : observers) {
+            if (dispatch == null) {
+                /* the events still queued are delivered first */
+                EventQueue<T> eventQueue = eventQueues.get(observer);
+                if (eventQueue == null || !eventQueue.offer(event, null)) {
+                    observer.update(event);
+                }
+            } else {
+                EventQueue<T> eventQueue = getEventQueue(observer);
+                if (eventQueue != null) {
+                    eventQueue.offer(event, dispatch);
+                }
             }
-            observersCopy = new HashSet<Observer>(observers);
         }
+    }
 
-        for (Observer observer : observersCopy) {
-            observer.update(event);
+    /**
+     * Get or create the queue of an observer
+     *
+     * @param observer the observer
+     * @return the queue, null if the observer has been removed in the meantime
+     */
+    private EventQueue<T> getEventQueue(Observer<T> observer) {
+        EventQueue<T> eventQueue = eventQueues.get(observer);
+        if (eventQueue != null) {
+            return eventQueue;
+        }
+        synchronized (observersLock) {
+            if (!observers.contains(observer)) {
+                return null;
+            }
+            eventQueue = eventQueues.get(observer);
+            if (eventQueue == null) {
+                eventQueue = new EventQueue<T>(observer, droppedEventCount);
+                eventQueues.put(observer, eventQueue);
+            }
+            return eventQueue;
         }
     }
 }
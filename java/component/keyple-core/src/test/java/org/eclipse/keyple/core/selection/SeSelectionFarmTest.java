@@ -0,0 +1,197 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.selection;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.keyple.core.seproxy.ChannelState;
+import org.eclipse.keyple.core.seproxy.SeReader;
+import org.eclipse.keyple.core.seproxy.SeSelector;
+import org.eclipse.keyple.core.seproxy.exception.KeypleReaderException;
+import org.eclipse.keyple.core.seproxy.message.*;
+import org.eclipse.keyple.core.seproxy.protocol.TransmissionMode;
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class SeSelectionFarmTest {
+    private final CountDownLatch blockedReadersRelease = new CountDownLatch(1);
+    private final SeSelectionFarm seSelectionFarm = new SeSelectionFarm(4);
+
+    static class TestMatchingSe extends AbstractMatchingSe {
+        TestMatchingSe(SeResponse selectionResponse) {
+            super(selectionResponse, TransmissionMode.CONTACTS, "");
+        }
+    }
+
+    static class TestSelectionRequest extends AbstractSeSelectionRequest {
+        TestSelectionRequest() {
+            super(new SeSelector(null, new SeSelector.AtrFilter(".*"), null, ""),
+                    ChannelState.CLOSE_AFTER);
+        }
+
+        @Override
+        protected AbstractMatchingSe parse(SeResponse seResponse) {
+            return new TestMatchingSe(seResponse);
+        }
+    }
+
+    private static SeSelection getSeSelection() {
+        SeSelection seSelection = new SeSelection();
+        seSelection.prepareSelection(new TestSelectionRequest());
+        return seSelection;
+    }
+
+    private static SeReader getMatchingReader(String name) throws KeypleReaderException {
+        ProxyReader seReader = mock(ProxyReader.class);
+        when(seReader.getName()).thenReturn(name);
+        List<SeResponse> seResponses = new ArrayList<SeResponse>();
+        seResponses.add(new SeResponse(false, false,
+                new SelectionStatus(new AnswerToReset(ByteArrayUtil.fromHex("3B00")), null, true),
+                new ArrayList<ApduResponse>()));
+        when(seReader.transmitSet(ArgumentMatchers.<Set<SeRequest>>any())).thenReturn(seResponses);
+        return seReader;
+    }
+
+    private static SeReader getFailingReader(String name) throws KeypleReaderException {
+        ProxyReader seReader = mock(ProxyReader.class);
+        when(seReader.getName()).thenReturn(name);
+        when(seReader.transmitSet(ArgumentMatchers.<Set<SeRequest>>any()))
+                .thenThrow(new KeypleReaderException("reader failure"));
+        return seReader;
+    }
+
+    /* reader whose selection does not end until the release of the latch */
+    private SeReader getBlockedReader(String name) throws KeypleReaderException {
+        ProxyReader seReader = mock(ProxyReader.class);
+        when(seReader.getName()).thenReturn(name);
+        when(seReader.transmitSet(ArgumentMatchers.<Set<SeRequest>>any()))
+                .thenAnswer(new Answer<List<SeResponse>>() {
+                    @Override
+                    public List<SeResponse> answer(InvocationOnMock invocation) throws Throwable {
+                        blockedReadersRelease.await();
+                        return new ArrayList<SeResponse>();
+                    }
+                });
+        return seReader;
+    }
+
+    private static Map<String, ReaderSelectionResult> byReaderName(
+            List<ReaderSelectionResult> results) {
+        Map<String, ReaderSelectionResult> resultMap =
+                new HashMap<String, ReaderSelectionResult>();
+        for (ReaderSelectionResult result : results) {
+            resultMap.put(result.getSeReader().getName(), result);
+        }
+        return resultMap;
+    }
+
+    @After
+    public void tearDown() {
+        blockedReadersRelease.countDown();
+        seSelectionFarm.shutdown();
+    }
+
+    @Test
+    public void processExplicitSelection_oneResultPerReader() throws Exception {
+        List<SeReader> seReaders = new ArrayList<SeReader>();
+        for (int i = 0; i < 10; i++) {
+            seReaders.add(getMatchingReader("READER_" + i));
+        }
+        seReaders.add(getFailingReader("FAILING_READER"));
+
+        FarmSelection farmSelection =
+                seSelectionFarm.processExplicitSelection(getSeSelection(), seReaders, 10000);
+        Map<String, ReaderSelectionResult> results = byReaderName(farmSelection.awaitAll());
+
+        Assert.assertEquals(11, results.size());
+        for (int i = 0; i < 10; i++) {
+            ReaderSelectionResult result = results.get("READER_" + i);
+            Assert.assertEquals(ReaderSelectionResult.Status.COMPLETED, result.getStatus());
+            Assert.assertEquals(1, result.getSelectionsResult().getMatchingSelections().size());
+        }
+        ReaderSelectionResult failure = results.get("FAILING_READER");
+        Assert.assertEquals(ReaderSelectionResult.Status.FAILED, failure.getStatus());
+        Assert.assertTrue(failure.getException() instanceof KeypleReaderException);
+
+        Assert.assertEquals(0, farmSelection.getPendingSelectionCount());
+        Assert.assertNull(farmSelection.take());
+    }
+
+    @Test
+    public void processExplicitSelection_timeout() throws Exception {
+        FarmSelection farmSelection = seSelectionFarm.processExplicitSelection(getSeSelection(),
+                Arrays.asList(getMatchingReader("FAST_READER"), getBlockedReader("SLOW_READER")),
+                100);
+
+        /* the fast reader comes first */
+        ReaderSelectionResult first = farmSelection.poll(5, TimeUnit.SECONDS);
+        Assert.assertEquals("FAST_READER", first.getSeReader().getName());
+        Assert.assertEquals(ReaderSelectionResult.Status.COMPLETED, first.getStatus());
+
+        ReaderSelectionResult second = farmSelection.poll(5, TimeUnit.SECONDS);
+        Assert.assertEquals("SLOW_READER", second.getSeReader().getName());
+        Assert.assertEquals(ReaderSelectionResult.Status.TIMED_OUT, second.getStatus());
+
+        Assert.assertNull(farmSelection.poll(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void cancel() throws Exception {
+        FarmSelection farmSelection = seSelectionFarm.processExplicitSelection(getSeSelection(),
+                Arrays.asList(getBlockedReader("READER_1"), getBlockedReader("READER_2")), 0);
+        Assert.assertNull(farmSelection.poll(50, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(2, farmSelection.getPendingSelectionCount());
+
+        farmSelection.cancel();
+
+        List<ReaderSelectionResult> results = farmSelection.awaitAll();
+        Assert.assertEquals(2, results.size());
+        for (ReaderSelectionResult result : results) {
+            Assert.assertEquals(ReaderSelectionResult.Status.CANCELLED, result.getStatus());
+        }
+        Assert.assertEquals(0, farmSelection.getPendingSelectionCount());
+    }
+
+    @Test
+    public void shutdown_queuedSelectionsEnded() throws Exception {
+        SeSelectionFarm singleThreadFarm = new SeSelectionFarm(1);
+        List<SeReader> seReaders = new ArrayList<SeReader>();
+        for (int i = 0; i < 3; i++) {
+            seReaders.add(getBlockedReader("READER_" + i));
+        }
+        /* one selection in progress, two waiting for the thread */
+        FarmSelection farmSelection =
+                singleThreadFarm.processExplicitSelection(getSeSelection(), seReaders, 0);
+        Assert.assertNull(farmSelection.poll(50, TimeUnit.MILLISECONDS));
+
+        singleThreadFarm.shutdown();
+
+        List<ReaderSelectionResult> results = farmSelection.awaitAll();
+        Assert.assertEquals(3, results.size());
+        for (ReaderSelectionResult result : results) {
+            Assert.assertEquals(ReaderSelectionResult.Status.CANCELLED, result.getStatus());
+        }
+        Assert.assertEquals(0, farmSelection.getPendingSelectionCount());
+
+        /* a selection started after the shutdown ends at once */
+        Assert.assertEquals(3, singleThreadFarm
+                .processExplicitSelection(getSeSelection(), seReaders, 0).awaitAll().size());
+    }
+}
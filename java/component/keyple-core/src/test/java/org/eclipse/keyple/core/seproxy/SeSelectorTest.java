@@ -0,0 +1,57 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.seproxy;
+
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SeSelectorTest {
+    private final static byte[] ATR = ByteArrayUtil.fromHex("3B8880010000000000718100F9");
+
+    @Test
+    public void atrFilter_regex() {
+        SeSelector.AtrFilter atrFilter = new SeSelector.AtrFilter("3B8880.*");
+        Assert.assertTrue(atrFilter.atrMatches(ATR));
+        Assert.assertTrue(atrFilter.atrMatches(ATR, ByteArrayUtil.toHex(ATR)));
+        Assert.assertFalse(atrFilter.atrMatches(ByteArrayUtil.fromHex("3B8F8001")));
+
+        /* the compiled regex follows the changes */
+        atrFilter.setAtrRegex("3B8F80.*");
+        Assert.assertFalse(atrFilter.atrMatches(ATR));
+        atrFilter.setAtrRegex("");
+        Assert.assertTrue(atrFilter.atrMatches(ATR));
+    }
+
+    @Test
+    public void atrFilter_mask() {
+        /* only the first 3 bytes and the high nibble of the last one are significant */
+        SeSelector.AtrFilter atrFilter =
+                new SeSelector.AtrFilter(ByteArrayUtil.fromHex("3B88800000000000000000F0"),
+                        ByteArrayUtil.fromHex("FFFFFF0000000000000000F0"));
+        Assert.assertFalse(atrFilter.atrMatches(ATR));
+        Assert.assertTrue(atrFilter.atrMatches(ByteArrayUtil.fromHex("3B8880010203040506070AF1")));
+        Assert.assertFalse(atrFilter.atrMatches(ByteArrayUtil.fromHex("3B8880010203040506070AE1")));
+        Assert.assertNull(atrFilter.getAtrRegex());
+    }
+
+    @Test
+    public void atrFilter_toString_regexNotSet() {
+        /* a SamSelector builds its filter before setting the regex */
+        Assert.assertEquals("ATR regex:empty", new SeSelector.AtrFilter(null).toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void atrFilter_maskLengthMismatch() {
+        new SeSelector.AtrFilter(ByteArrayUtil.fromHex("3B88"), ByteArrayUtil.fromHex("FF"));
+    }
+}
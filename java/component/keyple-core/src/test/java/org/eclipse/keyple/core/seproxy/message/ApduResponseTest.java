@@ -119,6 +119,30 @@ public class ApduResponseTest {
         assertNotNull(resp.toString());
     }
 
+    @Test
+    public void forRequest() {
+        Set<Integer> successfulStatusCodes = getA9005CustomCode();
+        successfulStatusCodes.add(0x6200);
+        ApduRequest request =
+                new ApduRequest(ByteArrayUtil.fromHex("00B2000000"), false, successfulStatusCodes);
+
+        assertTrue(ApduResponse.forRequest(request, ByteArrayUtil.fromHex("FEDCBA98 9000h"))
+                .isSuccessful());
+        assertTrue(ApduResponse.forRequest(request, ByteArrayUtil.fromHex("FEDCBA98 6200h"))
+                .isSuccessful());
+        assertFalse(ApduResponse.forRequest(request, ByteArrayUtil.fromHex("FEDCBA98 9004h"))
+                .isSuccessful());
+        assertFalse(ApduResponse.forRequest(request, null).isSuccessful());
+    }
+
+    @Test
+    public void getDataOut_slicedOnce() {
+        ApduResponse response = getSuccessfullResponse();
+        assertEquals(4, response.getDataOutLength());
+        assertArrayEquals(ByteArrayUtil.fromHex("FEDCBA98"), response.getDataOut());
+        assertSame(response.getDataOut(), response.getDataOut());
+    }
+
     /*
      * HELPERS
      */
@@ -0,0 +1,82 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.seproxy.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void record_statistics() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0, histogram.getPercentile(99));
+        Assert.assertEquals(0, histogram.getMeanDuration());
+
+        /* 99 durations of 1000 ns and one of 1000000 ns */
+        for (int i = 0; i < 99; i++) {
+            histogram.record(1000);
+        }
+        histogram.record(1000000);
+
+        Assert.assertEquals(100, histogram.getCount());
+        Assert.assertEquals(99 * 1000 + 1000000, histogram.getTotalDuration());
+        Assert.assertEquals((99 * 1000 + 1000000) / 100, histogram.getMeanDuration());
+        Assert.assertEquals(1000000, histogram.getMaxDuration());
+        /* 1000 is counted in the bucket [512, 1023] */
+        Assert.assertEquals(1023, histogram.getPercentile(50));
+        Assert.assertEquals(1023, histogram.getPercentile(99));
+        Assert.assertEquals(1000000, histogram.getPercentile(100));
+        Assert.assertEquals(99, histogram.getBucketCounts()[10]);
+
+        histogram.reset();
+        Assert.assertEquals(0, histogram.getCount());
+        Assert.assertEquals(0, histogram.getMaxDuration());
+    }
+
+    @Test
+    public void record_bucketBounds() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(0);
+        histogram.record(1);
+        histogram.record(Long.MAX_VALUE);
+
+        long[] bucketCounts = histogram.getBucketCounts();
+        Assert.assertEquals(2, bucketCounts[0]);
+        Assert.assertEquals(1, bucketCounts[1]);
+        Assert.assertEquals(1, bucketCounts[LatencyHistogram.BUCKET_COUNT - 1]);
+        Assert.assertEquals(0, LatencyHistogram.getBucketUpperBound(0));
+        Assert.assertEquals(Long.MAX_VALUE,
+                LatencyHistogram.getBucketUpperBound(LatencyHistogram.BUCKET_COUNT - 1));
+    }
+
+    @Test
+    public void readerMetrics_errorCounts() {
+        ReaderMetrics metrics = MetricsRegistry.getInstance().getReaderMetrics("PLUGIN", "READER");
+        Assert.assertSame(metrics,
+                MetricsRegistry.getInstance().getReaderMetrics("PLUGIN", "READER"));
+        metrics.reset();
+
+        metrics.recordError(new IllegalStateException());
+        metrics.recordError(new IllegalStateException());
+        metrics.recordError(new IllegalArgumentException());
+        metrics.recordApdu(5, 2, 1000);
+
+        Assert.assertEquals(3, metrics.getErrorCount());
+        Assert.assertEquals(Long.valueOf(2),
+                metrics.getErrorCounts().get(IllegalStateException.class.getName()));
+        Assert.assertEquals(1, metrics.getApduCount());
+        Assert.assertEquals(5, metrics.getBytesSent());
+        Assert.assertEquals(2, metrics.getBytesReceived());
+    }
+}
@@ -0,0 +1,222 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.seproxy.plugin;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.keyple.core.seproxy.event.ObservableReader;
+import org.eclipse.keyple.core.seproxy.event.ReaderEvent;
+import org.eclipse.keyple.core.seproxy.exception.KeypleChannelStateException;
+import org.eclipse.keyple.core.seproxy.exception.KeypleIOReaderException;
+import org.eclipse.keyple.core.seproxy.exception.NoStackTraceThrowable;
+import org.eclipse.keyple.core.seproxy.protocol.SeProtocol;
+import org.eclipse.keyple.core.seproxy.protocol.TransmissionMode;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the observation of threaded readers by a shared scheduler
+ */
+public class AbstractThreadedLocalReaderTest {
+
+    private ObservationScheduler scheduler;
+
+    private final BlockingQueue<ReaderEvent.EventType> events =
+            new LinkedBlockingQueue<ReaderEvent.EventType>();
+
+    private final ObservableReader.ReaderObserver observer =
+            new ObservableReader.ReaderObserver() {
+                @Override
+                public void update(ReaderEvent event) {
+                    events.add(event.getEventType());
+                }
+            };
+
+    /**
+     * Reader whose SE presence is set by the test
+     */
+    static class BlankThreadedReader extends AbstractThreadedLocalReader {
+        volatile boolean sePresent;
+
+        BlankThreadedReader(String name, ObservationScheduler scheduler, long pollingPeriod) {
+            super("plugin", name);
+            setObservationScheduler(scheduler, pollingPeriod);
+        }
+
+        void setSePresent(boolean sePresent) {
+            this.sePresent = sePresent;
+            notifySePresenceChange();
+        }
+
+        @Override
+        protected boolean checkSePresence() {
+            return sePresent;
+        }
+
+        @Override
+        protected boolean waitForCardPresent(long timeout) throws NoStackTraceThrowable {
+            throw new IllegalStateException("no wait expected");
+        }
+
+        @Override
+        protected boolean waitForCardAbsent(long timeout) throws NoStackTraceThrowable {
+            throw new IllegalStateException("no wait expected");
+        }
+
+        @Override
+        protected byte[] getATR() {
+            return new byte[0];
+        }
+
+        @Override
+        protected void openPhysicalChannel() throws KeypleChannelStateException {}
+
+        @Override
+        protected void closePhysicalChannel() throws KeypleChannelStateException {}
+
+        @Override
+        protected boolean isPhysicalChannelOpen() {
+            return false;
+        }
+
+        @Override
+        protected boolean protocolFlagMatches(SeProtocol protocolFlag) {
+            return true;
+        }
+
+        @Override
+        protected byte[] transmitApdu(byte[] apduIn) throws KeypleIOReaderException {
+            return new byte[0];
+        }
+
+        @Override
+        public TransmissionMode getTransmissionMode() {
+            return TransmissionMode.CONTACTLESS;
+        }
+
+        @Override
+        public Map<String, String> getParameters() {
+            return new HashMap<String, String>();
+        }
+
+        @Override
+        public void setParameter(String key, String value) {}
+    }
+
+    @Before
+    public void setUp() {
+        scheduler = new ObservationScheduler("test-scheduler", 1);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void signalledPresenceChanges() throws Exception {
+        BlankThreadedReader reader = new BlankThreadedReader("reader", scheduler, 0);
+        reader.addObserver(observer);
+        Assert.assertEquals(1, scheduler.getObservedReaderCount());
+
+        reader.setSePresent(true);
+        Assert.assertEquals(ReaderEvent.EventType.SE_INSERTED, events.poll(1, TimeUnit.SECONDS));
+
+        reader.setSePresent(false);
+        Assert.assertEquals(ReaderEvent.EventType.SE_REMOVAL, events.poll(1, TimeUnit.SECONDS));
+
+        reader.removeObserver(observer);
+        Assert.assertEquals(0, scheduler.getObservedReaderCount());
+
+        /* no more observation */
+        reader.setSePresent(true);
+        Assert.assertNull(events.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void polledPresenceChanges() throws Exception {
+        BlankThreadedReader reader = new BlankThreadedReader("reader", scheduler, 10);
+        reader.addObserver(observer);
+
+        /* not signalled */
+        reader.sePresent = true;
+        Assert.assertEquals(ReaderEvent.EventType.SE_INSERTED, events.poll(1, TimeUnit.SECONDS));
+        reader.sePresent = false;
+        Assert.assertEquals(ReaderEvent.EventType.SE_REMOVAL, events.poll(1, TimeUnit.SECONDS));
+
+        reader.removeObserver(observer);
+    }
+
+    @Test
+    public void blockingObserver() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        BlankThreadedReader blockedReader = new BlankThreadedReader("blocked", scheduler, 0);
+        ObservableReader.ReaderObserver blockingObserver = new ObservableReader.ReaderObserver() {
+            @Override
+            public void update(ReaderEvent event) {
+                events.add(event.getEventType());
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        blockedReader.addObserver(blockingObserver);
+        BlankThreadedReader reader = new BlankThreadedReader("reader", scheduler, 0);
+        reader.addObserver(observer);
+
+        /* the observer blocked on an event does not hold the single thread of the scheduler */
+        blockedReader.setSePresent(true);
+        Assert.assertEquals(ReaderEvent.EventType.SE_INSERTED, events.poll(1, TimeUnit.SECONDS));
+        reader.setSePresent(true);
+        Assert.assertEquals(ReaderEvent.EventType.SE_INSERTED, events.poll(1, TimeUnit.SECONDS));
+
+        /* the next event of the blocked reader is delivered after the blocking one */
+        blockedReader.setSePresent(false);
+        Assert.assertNull(events.poll(100, TimeUnit.MILLISECONDS));
+        release.countDown();
+        Assert.assertEquals(ReaderEvent.EventType.SE_REMOVAL, events.poll(1, TimeUnit.SECONDS));
+
+        blockedReader.removeObserver(blockingObserver);
+        reader.removeObserver(observer);
+    }
+
+    @Test
+    public void sharedByReaders() throws Exception {
+        BlankThreadedReader[] readers = new BlankThreadedReader[50];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new BlankThreadedReader("reader" + i, scheduler, 0);
+            readers[i].addObserver(observer);
+        }
+        Assert.assertEquals(readers.length, scheduler.getObservedReaderCount());
+
+        for (BlankThreadedReader reader : readers) {
+            reader.setSePresent(true);
+        }
+        for (int i = 0; i < readers.length; i++) {
+            Assert.assertEquals(ReaderEvent.EventType.SE_INSERTED,
+                    events.poll(1, TimeUnit.SECONDS));
+        }
+        Assert.assertNull(events.poll(100, TimeUnit.MILLISECONDS));
+
+        for (BlankThreadedReader reader : readers) {
+            reader.removeObserver(observer);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.core.seproxy.plugin;
+
+import static org.mockito.Mockito.*;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.*;
+import org.eclipse.keyple.core.seproxy.SeReader;
+import org.junit.Assert;
+import org.junit.Test;
+
+@SuppressWarnings("PMD.SignatureDeclareThrowsException")
+public class ReaderPoolTest {
+
+    private static SeReader mockReader(String name) {
+        SeReader reader = mock(SeReader.class);
+        when(reader.getName()).thenReturn(name);
+        return reader;
+    }
+
+    @Test
+    public void lease_leastUsedReaderOfGroup() throws Exception {
+        ReaderPool<SeReader> pool = new ReaderPool<SeReader>();
+        SeReader reader1 = mockReader("reader1");
+        SeReader reader2 = mockReader("reader2");
+        SeReader reader3 = mockReader("reader3");
+        pool.addReader("group1", reader1);
+        pool.addReader("group1", reader2);
+        pool.addReader("group2", reader3);
+
+        /* the readers of the group are used in turn */
+        Set<SeReader> leasedReaders = new HashSet<SeReader>();
+        for (int i = 0; i < 4; i++) {
+            ReaderPool.Lease<SeReader> lease = pool.tryLease("group1");
+            leasedReaders.add(lease.getReader());
+            Assert.assertTrue(pool.release(lease));
+        }
+        Assert.assertEquals(2, leasedReaders.size());
+
+        ReaderPool.Lease<SeReader> lease3 = pool.tryLease("group2");
+        Assert.assertSame(reader3, lease3.getReader());
+        Assert.assertNull(pool.tryLease("group2"));
+        Assert.assertNull(pool.tryLease("group3"));
+        Assert.assertNotNull(pool.tryLease(null));
+        Assert.assertNotNull(pool.tryLease(null));
+        Assert.assertNull(pool.tryLease(null));
+        Assert.assertEquals(3, pool.getLeasedReaders().size());
+        Assert.assertEquals("group2", pool.getLeasedReaders().get("reader3"));
+
+        Assert.assertTrue(pool.release(lease3));
+        Assert.assertFalse(pool.release(lease3));
+        Assert.assertEquals(2, pool.getGroupReferences().size());
+        Assert.assertEquals(2, pool.removeGroup("group1").size());
+        Assert.assertEquals(1, pool.getReaderCount());
+    }
+
+    @Test
+    public void lease_waitsForRelease() throws Exception {
+        final ReaderPool<SeReader> pool = new ReaderPool<SeReader>();
+        SeReader reader = mockReader("reader");
+        pool.addReader("group", reader);
+        ReaderPool.Lease<SeReader> lease = pool.tryLease("group");
+        Assert.assertSame(reader, lease.getReader());
+
+        long start = System.nanoTime();
+        Assert.assertNull(pool.lease("group", 50));
+        Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<ReaderPool.Lease<SeReader>> nextLease =
+                executor.submit(new Callable<ReaderPool.Lease<SeReader>>() {
+                    @Override
+                    public ReaderPool.Lease<SeReader> call() throws Exception {
+                        return pool.lease("group", 5000);
+                    }
+                });
+        while (pool.getWaitingRequestCount() == 0) {
+            Thread.sleep(1);
+        }
+        pool.release(lease);
+        Assert.assertSame(reader, nextLease.get(5, TimeUnit.SECONDS).getReader());
+        executor.shutdown();
+    }
+
+    @Test
+    public void lease_expiredLeaseReclaimed() throws Exception {
+        final Set<SeReader> releasedReaders = new HashSet<SeReader>();
+        ReaderPool<SeReader> pool = new ReaderPool<SeReader>() {
+            @Override
+            protected void readerReleased(SeReader reader) {
+                releasedReaders.add(reader);
+            }
+        };
+        SeReader reader = mockReader("reader");
+        pool.addReader("group", reader);
+        pool.setLeaseDuration(20);
+
+        Assert.assertSame(reader, pool.tryLease("group").getReader());
+        /* the leaked reader is reclaimed by a waiting lease */
+        Assert.assertSame(reader, pool.lease("group", 5000).getReader());
+        Assert.assertEquals(1, pool.getExpiredLeaseCount());
+        Assert.assertTrue(releasedReaders.contains(reader));
+    }
+
+    @Test
+    public void release_expiredLeaseIgnored() throws Exception {
+        ReaderPool<SeReader> pool = new ReaderPool<SeReader>();
+        SeReader reader = mockReader("reader");
+        pool.addReader("group", reader);
+        pool.setLeaseDuration(20);
+
+        ReaderPool.Lease<SeReader> expiredLease = pool.tryLease("group");
+        ReaderPool.Lease<SeReader> lease = pool.lease("group", 5000);
+        Assert.assertSame(reader, lease.getReader());
+        pool.setLeaseDuration(0);
+
+        /* the late release of the former holder does not free the reader of the new holder */
+        Assert.assertFalse(pool.release(expiredLease));
+        Assert.assertEquals(1, pool.getLeasedReaders().size());
+        Assert.assertNull(pool.tryLease("group"));
+        Assert.assertTrue(pool.release(lease));
+        Assert.assertTrue(pool.getLeasedReaders().isEmpty());
+    }
+
+    @Test
+    public void lease_unhealthyReaderEvicted() throws Exception {
+        final SeReader unhealthyReader = mockReader("unhealthy");
+        final Set<SeReader> evictedReaders = new HashSet<SeReader>();
+        ReaderPool<SeReader> pool = new ReaderPool<SeReader>() {
+            @Override
+            protected boolean isHealthy(SeReader reader) {
+                return reader != unhealthyReader;
+            }
+
+            @Override
+            protected void readerEvicted(SeReader reader) {
+                evictedReaders.add(reader);
+            }
+        };
+        SeReader healthyReader = mockReader("healthy");
+        pool.addReader("group", unhealthyReader);
+        pool.addReader("group", healthyReader);
+
+        Assert.assertSame(healthyReader, pool.tryLease("group").getReader());
+        Assert.assertNull(pool.tryLease("group"));
+        Assert.assertEquals(1, pool.getEvictedReaderCount());
+        Assert.assertEquals(1, pool.getReaderCount());
+        Assert.assertTrue(evictedReaders.contains(unhealthyReader));
+    }
+}
@@ -11,6 +11,14 @@
  ********************************************************************************/
 package org.eclipse.keyple.core.util;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -70,4 +78,197 @@ public class ObservableTest {
         Assert.assertEquals(2, sub1.getNbCalls());
         Assert.assertEquals(1, sub2.getNbCalls());
     }
+
+    /**
+     * Observer recording the names of the received events, optionally blocked until released
+     */
+    static class RecordingObserver implements Observable.Observer<Event> {
+        final List<String> names = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch release;
+        final CountDownLatch received;
+
+        RecordingObserver(CountDownLatch release, int expectedEvents) {
+            this.release = release;
+            this.received = new CountDownLatch(expectedEvents);
+        }
+
+        @Override
+        public void update(Event event) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            names.add(event.getName());
+            received.countDown();
+        }
+    }
+
+    /**
+     * Executor running its tasks only when asked to
+     */
+    static class ManualExecutor implements Executor {
+        final List<Runnable> tasks = new ArrayList<Runnable>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.remove(0).run();
+            }
+        }
+    }
+
+    private static List<String> names(String... names) {
+        List<String> list = new ArrayList<String>();
+        Collections.addAll(list, names);
+        return list;
+    }
+
+    @Test
+    public void asynchronous_slowObserverDoesNotDelayOthers() throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            Observable<Event> pub = new Observable<Event>();
+            pub.setAsynchronousDispatch(executorService, 10, Observable.OverflowPolicy.BLOCK);
+            CountDownLatch slowRelease = new CountDownLatch(1);
+            RecordingObserver slow = new RecordingObserver(slowRelease, 3);
+            RecordingObserver fast = new RecordingObserver(new CountDownLatch(0), 3);
+            pub.addObserver(slow);
+            pub.addObserver(fast);
+
+            pub.notifyObservers(new Event("ev1"));
+            pub.notifyObservers(new Event("ev2"));
+            pub.notifyObservers(new Event("ev3"));
+
+            Assert.assertTrue(fast.received.await(1, TimeUnit.SECONDS));
+            Assert.assertEquals(names("ev1", "ev2", "ev3"), fast.names);
+            Assert.assertTrue(slow.names.isEmpty());
+
+            slowRelease.countDown();
+            Assert.assertTrue(slow.received.await(1, TimeUnit.SECONDS));
+            Assert.assertEquals(names("ev1", "ev2", "ev3"), slow.names);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void asynchronous_dropNewest() {
+        ManualExecutor executor = new ManualExecutor();
+        Observable<Event> pub = new Observable<Event>();
+        pub.setAsynchronousDispatch(executor, 2, Observable.OverflowPolicy.DROP_NEWEST);
+        RecordingObserver sub = new RecordingObserver(new CountDownLatch(0), 2);
+        pub.addObserver(sub);
+
+        pub.notifyObservers(new Event("ev1"));
+        pub.notifyObservers(new Event("ev2"));
+        pub.notifyObservers(new Event("ev3"));
+        Assert.assertEquals(2, pub.getPendingEventCount());
+        Assert.assertEquals(1, pub.getDroppedEventCount());
+        /* a single drain task for the observer */
+        Assert.assertEquals(1, executor.tasks.size());
+
+        executor.runAll();
+        Assert.assertEquals(names("ev1", "ev2"), sub.names);
+        Assert.assertEquals(0, pub.getPendingEventCount());
+    }
+
+    @Test
+    public void asynchronous_dropOldest() {
+        ManualExecutor executor = new ManualExecutor();
+        Observable<Event> pub = new Observable<Event>();
+        pub.setAsynchronousDispatch(executor, 2, Observable.OverflowPolicy.DROP_OLDEST);
+        RecordingObserver sub = new RecordingObserver(new CountDownLatch(0), 2);
+        pub.addObserver(sub);
+
+        pub.notifyObservers(new Event("ev1"));
+        pub.notifyObservers(new Event("ev2"));
+        pub.notifyObservers(new Event("ev3"));
+        Assert.assertEquals(1, pub.getDroppedEventCount());
+
+        executor.runAll();
+        Assert.assertEquals(names("ev2", "ev3"), sub.names);
+    }
+
+    @Test
+    public void asynchronous_removedObserverNotNotified() {
+        ManualExecutor executor = new ManualExecutor();
+        Observable<Event> pub = new Observable<Event>();
+        pub.setAsynchronousDispatch(executor, 2, Observable.OverflowPolicy.DROP_NEWEST);
+        RecordingObserver sub = new RecordingObserver(new CountDownLatch(0), 1);
+        pub.addObserver(sub);
+
+        pub.notifyObservers(new Event("ev1"));
+        pub.removeObserver(sub);
+        executor.runAll();
+
+        Assert.assertTrue(sub.names.isEmpty());
+        Assert.assertEquals(0, pub.countObservers());
+    }
+
+    @Test
+    public void asynchronous_observerRemovedDuringNotification() {
+        final Observable<Event> pub = new Observable<Event>();
+        final RecordingObserver removed = new RecordingObserver(new CountDownLatch(0), 1);
+        final ManualExecutor manualExecutor = new ManualExecutor();
+        /* the first observer queue is scheduled before the second observer is notified */
+        pub.setAsynchronousDispatch(new Executor() {
+            @Override
+            public void execute(Runnable task) {
+                if (manualExecutor.tasks.isEmpty()) {
+                    pub.removeObserver(removed);
+                }
+                manualExecutor.execute(task);
+            }
+        }, 2, Observable.OverflowPolicy.DROP_NEWEST);
+        RecordingObserver sub = new RecordingObserver(new CountDownLatch(0), 1);
+        pub.addObserver(sub);
+        pub.addObserver(removed);
+
+        pub.notifyObservers(new Event("ev1"));
+        manualExecutor.runAll();
+
+        /* no queue is created again for the removed observer */
+        Assert.assertEquals(names("ev1"), sub.names);
+        Assert.assertTrue(removed.names.isEmpty());
+        Assert.assertEquals(0, pub.getPendingEventCount());
+    }
+
+    @Test
+    public void asynchronous_settingsChange() {
+        ManualExecutor executor1 = new ManualExecutor();
+        ManualExecutor executor2 = new ManualExecutor();
+        Observable<Event> pub = new Observable<Event>();
+        pub.setAsynchronousDispatch(executor1, 2, Observable.OverflowPolicy.DROP_NEWEST);
+        RecordingObserver sub = new RecordingObserver(new CountDownLatch(0), 4);
+        pub.addObserver(sub);
+
+        /* the pending event is delivered before the new one, by the same drain task */
+        pub.notifyObservers(new Event("ev1"));
+        pub.setAsynchronousDispatch(executor2, 2, Observable.OverflowPolicy.DROP_NEWEST);
+        pub.notifyObservers(new Event("ev2"));
+        Assert.assertTrue(executor2.tasks.isEmpty());
+        executor1.runAll();
+        Assert.assertEquals(names("ev1", "ev2"), sub.names);
+
+        /* the new settings apply to the next drain */
+        pub.notifyObservers(new Event("ev3"));
+        Assert.assertTrue(executor1.tasks.isEmpty());
+        executor2.runAll();
+        Assert.assertEquals(names("ev1", "ev2", "ev3"), sub.names);
+
+        /* the synchronous dispatch waits for the pending events */
+        pub.notifyObservers(new Event("ev4"));
+        pub.setSynchronousDispatch();
+        pub.notifyObservers(new Event("ev5"));
+        Assert.assertEquals(names("ev1", "ev2", "ev3"), sub.names);
+        executor2.runAll();
+        Assert.assertEquals(names("ev1", "ev2", "ev3", "ev4", "ev5"), sub.names);
+        pub.notifyObservers(new Event("ev6"));
+        Assert.assertEquals(names("ev1", "ev2", "ev3", "ev4", "ev5", "ev6"), sub.names);
+    }
 }
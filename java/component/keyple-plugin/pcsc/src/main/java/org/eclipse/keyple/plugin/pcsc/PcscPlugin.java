@@ -18,4 +18,20 @@ import org.eclipse.keyple.core.seproxy.event.ObservablePlugin;
  */
 public interface PcscPlugin extends ObservablePlugin {
     String PLUGIN_NAME = "PcscPlugin";
+
+    /**
+     * Monitoring of the readers and of the SE presence:
+     * <ul>
+     * <li>{@link #SETTING_MONITORING_THREAD_PER_READER} (default): a thread for the plugin and a
+     * blocking thread for each observed reader</li>
+     * <li>{@link #SETTING_MONITORING_SHARED}: a single thread waits for the changes of all the
+     * terminals and dispatches them to the readers, whose presence checks run on the shared
+     * observation scheduler</li>
+     * </ul>
+     * The new mode is taken into account at the next start of the observations. The other
+     * parameter names are ignored.
+     */
+    String SETTING_KEY_MONITORING = "monitoring";
+    String SETTING_MONITORING_THREAD_PER_READER = "thread_per_reader";
+    String SETTING_MONITORING_SHARED = "shared";
 }
@@ -14,6 +14,7 @@ package org.eclipse.keyple.plugin.pcsc;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
@@ -44,7 +45,27 @@ final class PcscPluginImpl extends AbstractThreadedObservablePlugin implements P
 
     private boolean logging = false;
 
-    private PcscPluginImpl() {
+    /**
+     * Shared monitoring mode, see {@link #SETTING_KEY_MONITORING}
+     */
+    private volatile boolean sharedMonitoring;
+
+    /**
+     * Single status change loop of the shared monitoring mode and the number of its users (the
+     * plugin and the readers being observed)
+     */
+    private StatusChangeThread statusChangeThread;
+    private int statusChangeUserCount;
+
+    /**
+     * True when the plugin observation relies on the status change loop
+     */
+    private volatile boolean pluginMonitored;
+
+    /**
+     * Package-private for the tests: the application uses the single instance
+     */
+    PcscPluginImpl() {
         super(PLUGIN_NAME);
     }
 
@@ -59,12 +80,175 @@ final class PcscPluginImpl extends AbstractThreadedObservablePlugin implements P
 
     @Override
     public Map<String, String> getParameters() {
-        return null;
+        Map<String, String> parameters = new HashMap<String, String>();
+        if (sharedMonitoring) {
+            parameters.put(SETTING_KEY_MONITORING, SETTING_MONITORING_SHARED);
+        }
+        return parameters;
     }
 
     @Override
     public void setParameter(String key, String value) throws IllegalArgumentException {
+        if (key == null) {
+            throw new IllegalArgumentException("Parameter shouldn't be null");
+        }
+        if (key.equals(SETTING_KEY_MONITORING)) {
+            if (value == null || value.equals(SETTING_MONITORING_THREAD_PER_READER)) {
+                sharedMonitoring = false;
+            } else if (value.equals(SETTING_MONITORING_SHARED)) {
+                sharedMonitoring = true;
+            } else {
+                throw new IllegalArgumentException(
+                        "Parameter value not supported " + key + " : " + value);
+            }
+            for (SeReader reader : readers) {
+                ((PcscReaderImpl) reader).setSharedMonitoring(sharedMonitoring);
+            }
+        } else {
+            logger.warn("[{}] setParameter => unknown parameter ignored. NAME = {}, VALUE = {}",
+                    this.getName(), key, value);
+        }
+    }
+
+    /**
+     * Start the monitoring of the readers: by the status change loop in shared monitoring mode, by
+     * the plugin thread otherwise
+     */
+    @Override
+    protected void startObservation() {
+        if (sharedMonitoring) {
+            pluginMonitored = true;
+            startStatusChangeMonitoring();
+        } else {
+            super.startObservation();
+        }
+    }
+
+    @Override
+    protected void stopObservation() {
+        if (pluginMonitored) {
+            pluginMonitored = false;
+            stopStatusChangeMonitoring();
+        } else {
+            super.stopObservation();
+        }
+    }
+
+    /**
+     * Register a user of the status change loop, the loop is started by the first one
+     */
+    synchronized void startStatusChangeMonitoring() {
+        if (statusChangeUserCount++ == 0) {
+            statusChangeThread = new StatusChangeThread();
+            statusChangeThread.start();
+        }
+    }
+
+    /**
+     * Unregister a user of the status change loop, the loop ends with the last one
+     */
+    synchronized void stopStatusChangeMonitoring() {
+        if (statusChangeUserCount > 0 && --statusChangeUserCount == 0) {
+            statusChangeThread.end();
+            statusChangeThread = null;
+        }
+    }
+
+    /**
+     * Get the number of users of the status change loop
+     * <p>
+     * Package-private for the tests
+     *
+     * @return the number of users, 0 when the loop is stopped
+     */
+    synchronized int getStatusChangeUserCount() {
+        return statusChangeUserCount;
+    }
+
+    /**
+     * End the monitoring of a disconnected reader, which may still have observers: its thread or
+     * its use of the status change loop would last otherwise
+     */
+    @Override
+    protected void readerRemoved(SeReader reader) {
+        ((PcscReaderImpl) reader).stopObservation();
+    }
 
+    /**
+     * Signal the readers of the provided terminals that the presence of their SE may have changed
+     *
+     * @param terminals the terminals where a SE was inserted or removed
+     */
+    private void signalStatusChange(List<CardTerminal> terminals) {
+        for (CardTerminal terminal : terminals) {
+            for (SeReader reader : readers) {
+                if (reader.getName().equals(terminal.getName())) {
+                    ((PcscReaderImpl) reader).signalStatusChange();
+                }
+            }
+        }
+    }
+
+    /**
+     * Single thread waiting for the changes of all the terminals with
+     * {@link CardTerminals#waitForChange(long)}.
+     * <p>
+     * The insertions and removals are signalled to the readers concerned, whose presence checks
+     * and notifications run on the observation scheduler. When the plugin is observed, the readers
+     * list is refreshed at each wake-up, i.e. at least every threadWaitTimeout since PC/SC does
+     * not signal the readers connections.
+     */
+    private final class StatusChangeThread extends Thread {
+        private volatile boolean running = true;
+
+        private StatusChangeThread() {
+            super(PLUGIN_NAME + "-statusChange");
+            setDaemon(true);
+        }
+
+        void end() {
+            running = false;
+            this.interrupt();
+        }
+
+        public void run() {
+            CardTerminals terminals = getCardTerminals();
+            while (running) {
+                try {
+                    if (pluginMonitored) {
+                        refreshReaders();
+                    }
+                    if (terminals.waitForChange(threadWaitTimeout)) {
+                        signalStatusChange(terminals.list(CardTerminals.State.CARD_INSERTION));
+                        signalStatusChange(terminals.list(CardTerminals.State.CARD_REMOVAL));
+                    }
+                } catch (CardException e) {
+                    /* no reader available or terminals not accessible, retry with a new context */
+                    logger.trace("[{}] Status change loop => waitForChange failed. Exception: {}",
+                            PcscPluginImpl.this.getName(), e.getMessage());
+                    if (!pause()) {
+                        break;
+                    }
+                    terminals = getCardTerminals();
+                } catch (KeypleReaderException e) {
+                    logger.warn("[{}] An exception occurred while monitoring plugin: {}, cause {}",
+                            PcscPluginImpl.this.getName(), e.getMessage(), e.getCause());
+                    if (!pause()) {
+                        break;
+                    }
+                }
+            }
+            logger.trace("[{}] Status change loop ended.", PcscPluginImpl.this.getName());
+        }
+
+        private boolean pause() {
+            try {
+                Thread.sleep(threadWaitTimeout);
+                return true;
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }
     }
 
     /**
@@ -120,7 +304,7 @@ final class PcscPluginImpl extends AbstractThreadedObservablePlugin implements P
         CardTerminals terminals = getCardTerminals();
         try {
             for (CardTerminal term : terminals.list()) {
-                nativeReaders.add(new PcscReaderImpl(this.getName(), term));
+                nativeReaders.add(newReader(term));
             }
         } catch (CardException e) {
             if (e.getCause().toString().contains("SCARD_E_NO_READERS_AVAILABLE")) {
@@ -163,7 +347,7 @@ final class PcscPluginImpl extends AbstractThreadedObservablePlugin implements P
         try {
             for (CardTerminal term : terminals.list()) {
                 if (term.getName().equals(name)) {
-                    reader = new PcscReaderImpl(this.getName(), term);
+                    reader = newReader(term);
                 }
             }
         } catch (CardException e) {
@@ -177,6 +361,25 @@ final class PcscPluginImpl extends AbstractThreadedObservablePlugin implements P
         return reader;
     }
 
+    private PcscReaderImpl newReader(CardTerminal terminal) {
+        PcscReaderImpl reader = new PcscReaderImpl(this, terminal);
+        if (sharedMonitoring) {
+            reader.setSharedMonitoring(true);
+        }
+        return reader;
+    }
+
+    /**
+     * Replace the factory providing the PC/SC terminals, the default one is used when null
+     * <p>
+     * Package-private for the tests
+     *
+     * @param terminalFactory the terminal factory
+     */
+    static void setTerminalFactory(TerminalFactory terminalFactory) {
+        factory = terminalFactory;
+    }
+
     private CardTerminals getCardTerminals() {
         try {
             Class pcscterminal = null;
@@ -17,9 +17,9 @@ import java.util.regex.Pattern;
 import javax.smartcardio.*;
 import org.eclipse.keyple.core.seproxy.exception.*;
 import org.eclipse.keyple.core.seproxy.plugin.AbstractThreadedLocalReader;
+import org.eclipse.keyple.core.seproxy.plugin.ObservationScheduler;
 import org.eclipse.keyple.core.seproxy.protocol.SeProtocol;
 import org.eclipse.keyple.core.seproxy.protocol.TransmissionMode;
-import org.eclipse.keyple.core.util.ByteArrayUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,6 +34,9 @@ final class PcscReaderImpl extends AbstractThreadedLocalReader implements PcscRe
 
     private static final long SETTING_THREAD_TIMEOUT_DEFAULT = 5000;
 
+    /* the plugin owning the reader, whose status change loop is used in shared monitoring */
+    private final PcscPluginImpl plugin;
+
     private final CardTerminal terminal;
 
     private String parameterCardProtocol;
@@ -46,17 +49,22 @@ final class PcscReaderImpl extends AbstractThreadedLocalReader implements PcscRe
 
     private boolean logging;
 
+    /* shared monitoring mode of the plugin, see PcscPlugin.SETTING_KEY_MONITORING */
+    private volatile boolean sharedMonitoring;
+    private volatile boolean statusChangeMonitored;
+
 
     /**
      * This constructor should only be called by PcscPlugin PCSC reader parameters are initialized
      * with their default values as defined in setParameter. See
      * {@link #setParameter(String, String)} for more details
      *
-     * @param pluginName the name of the plugin
+     * @param plugin the plugin owning the reader
      * @param terminal the PC/SC terminal
      */
-    protected PcscReaderImpl(String pluginName, CardTerminal terminal) {
-        super(pluginName, terminal.getName());
+    protected PcscReaderImpl(PcscPluginImpl plugin, CardTerminal terminal) {
+        super(plugin.getName(), terminal.getName());
+        this.plugin = plugin;
         this.terminal = terminal;
         this.card = null;
         this.channel = null;
@@ -96,6 +104,52 @@ final class PcscReaderImpl extends AbstractThreadedLocalReader implements PcscRe
         }
     }
 
+    /**
+     * Select the shared monitoring mode: the SE insertions and removals are detected by the
+     * status change loop of the plugin and checked on the observation scheduler instead of a
+     * blocking thread per reader.
+     * <p>
+     * The new mode is taken into account at the next start of the observation.
+     *
+     * @param sharedMonitoring true to select the shared monitoring
+     */
+    void setSharedMonitoring(boolean sharedMonitoring) {
+        this.sharedMonitoring = sharedMonitoring;
+        setObservationScheduler(sharedMonitoring ? ObservationScheduler.getDefault() : null, 0);
+    }
+
+    /**
+     * @return true if the shared monitoring mode is selected
+     */
+    boolean isSharedMonitoring() {
+        return sharedMonitoring;
+    }
+
+    /**
+     * Called by the status change loop of the plugin when a SE was inserted or removed
+     */
+    void signalStatusChange() {
+        notifySePresenceChange();
+    }
+
+    @Override
+    protected void startObservation() {
+        super.startObservation();
+        if (sharedMonitoring) {
+            statusChangeMonitored = true;
+            plugin.startStatusChangeMonitoring();
+        }
+    }
+
+    @Override
+    protected void stopObservation() {
+        super.stopObservation();
+        if (statusChangeMonitored) {
+            statusChangeMonitored = false;
+            plugin.stopStatusChangeMonitoring();
+        }
+    }
+
     @Override
     protected boolean checkSePresence() throws NoStackTraceThrowable {
         try {
@@ -169,16 +223,15 @@ final class PcscReaderImpl extends AbstractThreadedLocalReader implements PcscRe
         // Test protocolFlag to check if ATR based protocol filtering is required
         if (protocolFlag != null) {
             if (!isPhysicalChannelOpen()) {
-                openPhysicalChannel();
+                openPhysicalChannelAndRecord();
             }
             // the requestSet will be executed only if the protocol match the requestElement
-            String selectionMask = protocolsMap.get(protocolFlag);
+            Pattern selectionMask = getProtocolRulePattern(protocolFlag);
             if (selectionMask == null) {
                 throw new KeypleReaderException("Target selector mask not found!", null);
             }
-            Pattern p = Pattern.compile(selectionMask);
-            String atr = ByteArrayUtil.toHex(card.getATR().getBytes());
-            if (!p.matcher(atr).matches()) {
+            String atr = getAtrHex(getATR());
+            if (!selectionMask.matcher(atr).matches()) {
                 if (logging) {
                     logger.trace(
                             "[{}] protocolFlagMatches => unmatching SE. PROTOCOLFLAG = {}, ATR = {}, MASK = {}",
@@ -0,0 +1,190 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.pcsc;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+import java.security.Provider;
+import java.util.Arrays;
+import javax.smartcardio.CardException;
+import javax.smartcardio.CardTerminal;
+import javax.smartcardio.CardTerminals;
+import javax.smartcardio.TerminalFactory;
+import javax.smartcardio.TerminalFactorySpi;
+import org.eclipse.keyple.core.seproxy.SeReader;
+import org.eclipse.keyple.core.seproxy.event.ObservablePlugin;
+import org.eclipse.keyple.core.seproxy.event.ObservableReader;
+import org.eclipse.keyple.core.seproxy.exception.KeypleReaderException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PcscPluginMonitoringTest {
+
+    private static final String FACTORY_TYPE = "PcscPluginMonitoringTest";
+
+    @Mock
+    CardTerminals cardTerminals;
+
+    @Mock
+    CardTerminal terminal1;
+
+    @Mock
+    CardTerminal terminal2;
+
+    private PcscPluginImpl plugin;
+
+    /**
+     * Terminal factory provider of the mocked terminals, given as the factory parameter
+     */
+    public static final class MockTerminalFactorySpi extends TerminalFactorySpi {
+        private final CardTerminals terminals;
+
+        public MockTerminalFactorySpi(Object terminals) {
+            this.terminals = (CardTerminals) terminals;
+        }
+
+        @Override
+        protected CardTerminals engineTerminals() {
+            return terminals;
+        }
+    }
+
+    private static final class MockProvider extends Provider {
+        private MockProvider() {
+            super(FACTORY_TYPE, 1.0, "Mocked PC/SC terminals");
+            put("TerminalFactory." + FACTORY_TYPE, MockTerminalFactorySpi.class.getName());
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        when(terminal1.getName()).thenReturn("reader1");
+        when(terminal2.getName()).thenReturn("reader2");
+        when(cardTerminals.list()).thenReturn(Arrays.asList(terminal1, terminal2));
+
+        PcscPluginImpl.setTerminalFactory(
+                TerminalFactory.getInstance(FACTORY_TYPE, cardTerminals, new MockProvider()));
+        plugin = new PcscPluginImpl();
+    }
+
+    @After
+    public void tearDown() {
+        PcscPluginImpl.setTerminalFactory(null);
+    }
+
+    @Test
+    public void setParameter_sharedMonitoring() throws KeypleReaderException {
+        assertEquals(2, plugin.getReaders().size());
+        assertTrue(plugin.getParameters().isEmpty());
+
+        plugin.setParameter(PcscPlugin.SETTING_KEY_MONITORING,
+                PcscPlugin.SETTING_MONITORING_SHARED);
+
+        assertEquals(PcscPlugin.SETTING_MONITORING_SHARED,
+                plugin.getParameters().get(PcscPlugin.SETTING_KEY_MONITORING));
+        for (SeReader reader : plugin.getReaders()) {
+            assertTrue(((PcscReaderImpl) reader).isSharedMonitoring());
+        }
+    }
+
+    @Test
+    public void setParameter_threadPerReader() throws KeypleReaderException {
+        plugin.setParameter(PcscPlugin.SETTING_KEY_MONITORING,
+                PcscPlugin.SETTING_MONITORING_SHARED);
+        plugin.setParameter(PcscPlugin.SETTING_KEY_MONITORING,
+                PcscPlugin.SETTING_MONITORING_THREAD_PER_READER);
+
+        assertTrue(plugin.getParameters().isEmpty());
+        for (SeReader reader : plugin.getReaders()) {
+            assertFalse(((PcscReaderImpl) reader).isSharedMonitoring());
+        }
+    }
+
+    @Test
+    public void setParameter_sharedMonitoring_newReader()
+            throws KeypleReaderException, CardException {
+        plugin.setParameter(PcscPlugin.SETTING_KEY_MONITORING,
+                PcscPlugin.SETTING_MONITORING_SHARED);
+
+        /* a reader connected afterwards is created in the shared mode */
+        CardTerminal terminal3 = mock(CardTerminal.class);
+        when(terminal3.getName()).thenReturn("reader3");
+        when(cardTerminals.list()).thenReturn(Arrays.asList(terminal1, terminal2, terminal3));
+
+        assertTrue(((PcscReaderImpl) plugin.fetchNativeReader("reader3")).isSharedMonitoring());
+    }
+
+    @Test
+    public void sharedMonitoring_readersUseTheirPlugin() throws Exception {
+        plugin.setParameter(PcscPlugin.SETTING_KEY_MONITORING,
+                PcscPlugin.SETTING_MONITORING_SHARED);
+        ObservableReader.ReaderObserver readerObserver =
+                mock(ObservableReader.ReaderObserver.class);
+        PcscReaderImpl reader1 = (PcscReaderImpl) plugin.getReader("reader1");
+
+        reader1.addObserver(readerObserver);
+        assertEquals(1, plugin.getStatusChangeUserCount());
+
+        reader1.removeObserver(readerObserver);
+        assertEquals(0, plugin.getStatusChangeUserCount());
+    }
+
+    @Test
+    public void sharedMonitoring_removedReader_observationStopped() throws Exception {
+        when(cardTerminals.waitForChange(anyLong())).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                Thread.sleep(10);
+                return false;
+            }
+        });
+        plugin.setParameter(PcscPlugin.SETTING_KEY_MONITORING,
+                PcscPlugin.SETTING_MONITORING_SHARED);
+        ObservablePlugin.PluginObserver pluginObserver =
+                mock(ObservablePlugin.PluginObserver.class);
+        ObservableReader.ReaderObserver readerObserver =
+                mock(ObservableReader.ReaderObserver.class);
+        plugin.addObserver(pluginObserver);
+        ((PcscReaderImpl) plugin.getReader("reader1")).addObserver(readerObserver);
+        assertEquals(2, plugin.getStatusChangeUserCount());
+
+        /* reader1 is disconnected while it is still observed */
+        when(cardTerminals.list()).thenReturn(Arrays.asList(terminal2));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (plugin.getStatusChangeUserCount() != 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, plugin.getStatusChangeUserCount());
+
+        plugin.removeObserver(pluginObserver);
+        assertEquals(0, plugin.getStatusChangeUserCount());
+    }
+
+    @Test
+    public void setParameter_unknownKey_ignored() {
+        plugin.setParameter("unknown", "value");
+
+        assertTrue(plugin.getParameters().isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setParameter_badMonitoringValue() {
+        plugin.setParameter(PcscPlugin.SETTING_KEY_MONITORING, "unknown");
+    }
+}
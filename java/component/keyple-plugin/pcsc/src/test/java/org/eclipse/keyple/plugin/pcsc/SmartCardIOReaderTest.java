@@ -58,7 +58,7 @@ public class SmartCardIOReaderTest {
         res = new ResponseAPDU(responseApduByte);
 
         readerName = "reader";
-        reader = new PcscReaderImpl("pcscPlugin", terminal);
+        reader = new PcscReaderImpl(PcscPluginImpl.getInstance(), terminal);
         reader.setParameter(PcscReader.SETTING_KEY_LOGGING, "true");
     }
 
@@ -159,6 +159,17 @@ public class SlaveAPI implements INativeReaderService, DtoHandler, ObservableRea
                 }
                 break;
 
+            case READER_TRANSMIT_SCRIPT:
+                // must be a request
+                if (keypleDTO.isRequest()) {
+                    RemoteMethodExecutor rmTransmitScript = new RmTransmitScriptExecutor(this);
+                    out = rmTransmitScript.execute(transportDto);
+                } else {
+                    throw new IllegalStateException(
+                            "a READER_TRANSMIT_SCRIPT response has been received by SlaveAPI");
+                }
+                break;
+
             case DEFAULT_SELECTION_REQUEST:
                 // must be a request
                 if (keypleDTO.isRequest()) {
@@ -63,8 +63,7 @@ public class RmConnectReaderTx extends RemoteMethodTx<String> {
         // if reader connection thrown an exception
         if (KeypleDtoHelper.containsException(keypleDto)) {
             logger.trace("KeypleDto contains an exception: {}", keypleDto);
-            KeypleReaderException ex =
-                    JsonParser.getGson().fromJson(keypleDto.getBody(), KeypleReaderException.class);
+            KeypleReaderException ex = keypleDto.getBody(KeypleReaderException.class);
             throw new KeypleRemoteException(
                     "An exception occurs while calling the remote method connectReader", ex);
         } else {
@@ -85,8 +84,7 @@ public class RmConnectReaderTx extends RemoteMethodTx<String> {
                 }
 
                 // retrieve sessionId from keypleDto
-                JsonObject body =
-                        JsonParser.getGson().fromJson(keypleDto.getBody(), JsonObject.class);
+                JsonObject body = keypleDto.getBody(JsonObject.class);
 
                 // sessionId is returned here
                 return body.get("sessionId").getAsString();
@@ -45,12 +45,11 @@ public class RmDisconnectReaderTx extends RemoteMethodTx<Boolean> {
         // if reader connection thrown an exception
         if (KeypleDtoHelper.containsException(keypleDto)) {
             // logger.trace("KeypleDto contains an exception: {}", keypleDto);
-            KeypleReaderException ex =
-                    JsonParser.getGson().fromJson(keypleDto.getBody(), KeypleReaderException.class);
+            KeypleReaderException ex = keypleDto.getBody(KeypleReaderException.class);
             throw new KeypleRemoteException(
                     "An exception occurs while calling the remote method disconnectReader", ex);
         } else {
-            JsonObject body = JsonParser.getGson().fromJson(keypleDto.getBody(), JsonObject.class);
+            JsonObject body = keypleDto.getBody(JsonObject.class);
             return body.has("status") && body.get("status").getAsBoolean();
         }
 
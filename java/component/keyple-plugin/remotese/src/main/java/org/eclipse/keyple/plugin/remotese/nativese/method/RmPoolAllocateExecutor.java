@@ -16,7 +16,6 @@ import org.eclipse.keyple.core.seproxy.SeReader;
 import org.eclipse.keyple.core.seproxy.message.SeResponse;
 import org.eclipse.keyple.plugin.remotese.rm.RemoteMethod;
 import org.eclipse.keyple.plugin.remotese.rm.RemoteMethodExecutor;
-import org.eclipse.keyple.plugin.remotese.transport.json.JsonParser;
 import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
 import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDtoHelper;
 import org.eclipse.keyple.plugin.remotese.transport.model.TransportDto;
@@ -42,7 +41,7 @@ public class RmPoolAllocateExecutor implements RemoteMethodExecutor {
         SeResponse seResponse = null;
 
         // Extract info from keypleDto
-        JsonObject body = JsonParser.getGson().fromJson(keypleDto.getBody(), JsonObject.class);
+        JsonObject body = keypleDto.getBody(JsonObject.class);
         String groupReference = body.get("groupReference").getAsString();
 
         // Execute Remote Method
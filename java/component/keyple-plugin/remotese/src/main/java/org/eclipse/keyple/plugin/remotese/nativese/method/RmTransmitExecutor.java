@@ -16,7 +16,6 @@ import org.eclipse.keyple.core.seproxy.message.*;
 import org.eclipse.keyple.plugin.remotese.nativese.SlaveAPI;
 import org.eclipse.keyple.plugin.remotese.rm.RemoteMethod;
 import org.eclipse.keyple.plugin.remotese.rm.RemoteMethodExecutor;
-import org.eclipse.keyple.plugin.remotese.transport.json.JsonParser;
 import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
 import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDtoHelper;
 import org.eclipse.keyple.plugin.remotese.transport.model.TransportDto;
@@ -49,7 +48,7 @@ public class RmTransmitExecutor implements RemoteMethodExecutor {
         SeResponse seResponse = null;
 
         // Extract info from keypleDto
-        SeRequest seRequest = JsonParser.getGson().fromJson(keypleDto.getBody(), SeRequest.class);
+        SeRequest seRequest = keypleDto.getBody(SeRequest.class);
         String nativeReaderName = keypleDto.getNativeReaderName();
         logger.trace("Execute locally seRequest : {}", seRequest);
 
@@ -61,11 +60,11 @@ public class RmTransmitExecutor implements RemoteMethodExecutor {
             seResponse = reader.transmit(seRequest);
 
             // prepare response
-            String parseBody = JsonParser.getGson().toJson(seResponse, SeResponse.class);
             out = transportDto.nextTransportDTO(KeypleDtoHelper.buildResponse(
-                    getMethodName().getName(), parseBody, keypleDto.getSessionId(),
-                    nativeReaderName, keypleDto.getVirtualReaderName(), keypleDto.getTargetNodeId(),
-                    keypleDto.getRequesterNodeId(), keypleDto.getId()));
+                    getMethodName().getName(), seResponse, SeResponse.class,
+                    keypleDto.getSessionId(), nativeReaderName, keypleDto.getVirtualReaderName(),
+                    keypleDto.getTargetNodeId(), keypleDto.getRequesterNodeId(),
+                    keypleDto.getId()));
 
         } catch (KeypleReaderException e) {
             // if an exception occurs, send it into a keypleDto to the Master
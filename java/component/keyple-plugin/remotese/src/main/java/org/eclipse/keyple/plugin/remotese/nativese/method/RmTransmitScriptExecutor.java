@@ -0,0 +1,111 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.remotese.nativese.method;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.eclipse.keyple.core.seproxy.exception.KeypleReaderException;
+import org.eclipse.keyple.core.seproxy.message.ApduResponse;
+import org.eclipse.keyple.core.seproxy.message.ProxyReader;
+import org.eclipse.keyple.core.seproxy.message.SeRequest;
+import org.eclipse.keyple.core.seproxy.message.SeResponse;
+import org.eclipse.keyple.core.seproxy.plugin.AbstractObservableReader;
+import org.eclipse.keyple.plugin.remotese.nativese.SlaveAPI;
+import org.eclipse.keyple.plugin.remotese.rm.RemoteMethod;
+import org.eclipse.keyple.plugin.remotese.rm.RemoteMethodExecutor;
+import org.eclipse.keyple.plugin.remotese.transport.json.JsonParser;
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDtoHelper;
+import org.eclipse.keyple.plugin.remotese.transport.model.TransportDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * Execute the TransmitScript on Native Reader
+ */
+public class RmTransmitScriptExecutor implements RemoteMethodExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(RmTransmitScriptExecutor.class);
+
+    private final SlaveAPI slaveAPI;
+
+    public RemoteMethod getMethodName() {
+        return RemoteMethod.READER_TRANSMIT_SCRIPT;
+    }
+
+    public RmTransmitScriptExecutor(SlaveAPI slaveAPI) {
+        this.slaveAPI = slaveAPI;
+    }
+
+    @Override
+    public TransportDto execute(TransportDto transportDto) {
+        KeypleDto keypleDto = transportDto.getKeypleDTO();
+        TransportDto out = null;
+        List<SeResponse> seResponseList = null;
+
+        // Extract info from keypleDto
+        List<SeRequest> seRequests = JsonParser.getGson().fromJson(keypleDto.getBody(),
+                new TypeToken<ArrayList<SeRequest>>() {}.getType());
+        String nativeReaderName = keypleDto.getNativeReaderName();
+        logger.trace("Execute locally seRequests : {}", seRequests);
+
+        try {
+            // find native reader by name
+            ProxyReader reader = slaveAPI.findLocalReader(nativeReaderName);
+
+            // execute transmitScript
+            seResponseList = transmitScript(reader, seRequests);
+
+            // prepare response
+            out = transportDto.nextTransportDTO(KeypleDtoHelper.buildResponse(
+                    getMethodName().getName(), seResponseList,
+                    new TypeToken<ArrayList<SeResponse>>() {}.getType(), keypleDto.getSessionId(),
+                    nativeReaderName, keypleDto.getVirtualReaderName(), keypleDto.getTargetNodeId(),
+                    keypleDto.getRequesterNodeId(), keypleDto.getId()));
+
+        } catch (KeypleReaderException e) {
+            // if an exception occurs, send it into a keypleDto to the Master
+            out = transportDto.nextTransportDTO(KeypleDtoHelper.ExceptionDTO(
+                    getMethodName().getName(), e, keypleDto.getSessionId(), nativeReaderName,
+                    keypleDto.getVirtualReaderName(), keypleDto.getTargetNodeId(),
+                    keypleDto.getRequesterNodeId(), keypleDto.getId()));
+        }
+
+        return out;
+    }
+
+    /**
+     * Transmits the requests with the transmitScript method of the reader, or one by one if the
+     * reader doesn't provide it. The processing stops after the first unsuccessful response.
+     */
+    private static List<SeResponse> transmitScript(ProxyReader reader, List<SeRequest> seRequests)
+            throws KeypleReaderException {
+        if (reader instanceof AbstractObservableReader) {
+            return ((AbstractObservableReader) reader).transmitScript(seRequests);
+        }
+        List<SeResponse> seResponses = new ArrayList<SeResponse>();
+        for (SeRequest seRequest : seRequests) {
+            SeResponse seResponse = reader.transmit(seRequest);
+            seResponses.add(seResponse);
+            if (seResponse == null) {
+                break;
+            }
+            for (ApduResponse apduResponse : seResponse.getApduResponses()) {
+                if (!apduResponse.isSuccessful()) {
+                    return seResponses;
+                }
+            }
+        }
+        return seResponses;
+    }
+}
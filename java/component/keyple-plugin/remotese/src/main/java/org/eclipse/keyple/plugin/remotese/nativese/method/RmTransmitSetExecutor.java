@@ -67,10 +67,9 @@ public class RmTransmitSetExecutor implements RemoteMethodExecutor {
             seResponseList = reader.transmitSet(seRequestSet);
 
             // prepare response
-            String parseBody = JsonParser.getGson().toJson(seResponseList,
-                    new TypeToken<ArrayList<SeResponse>>() {}.getType());
             out = transportDto.nextTransportDTO(KeypleDtoHelper.buildResponse(
-                    getMethodName().getName(), parseBody, keypleDto.getSessionId(),
+                    getMethodName().getName(), seResponseList,
+                    new TypeToken<ArrayList<SeResponse>>() {}.getType(), keypleDto.getSessionId(),
                     nativeReaderName, keypleDto.getVirtualReaderName(), keypleDto.getTargetNodeId(),
                     keypleDto.getRequesterNodeId(), keypleDto.getId()));
 
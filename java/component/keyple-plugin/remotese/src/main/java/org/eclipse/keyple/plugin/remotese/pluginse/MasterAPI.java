@@ -216,6 +216,7 @@ public class MasterAPI implements DtoHandler {
 
             case READER_TRANSMIT:
             case READER_TRANSMIT_SET:
+            case READER_TRANSMIT_SCRIPT:
             case DEFAULT_SELECTION_REQUEST:
                 if (keypleDTO.isRequest()) {
                     throw new IllegalStateException("a " + keypleDTO.getAction()
@@ -21,6 +21,7 @@ import org.eclipse.keyple.core.seproxy.event.ReaderEvent;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderException;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderNotFoundException;
 import org.eclipse.keyple.core.seproxy.message.ProxyReader;
+import org.eclipse.keyple.core.seproxy.metrics.MetricsRegistry;
 import org.eclipse.keyple.core.seproxy.plugin.AbstractObservablePlugin;
 import org.eclipse.keyple.core.seproxy.protocol.TransmissionMode;
 import org.eclipse.keyple.plugin.remotese.rm.RemoteMethodTxEngine;
@@ -150,6 +151,8 @@ class RemoteSePluginImpl extends AbstractObservablePlugin implements RemoteSePlu
 
         // remove reader
         readers.remove(virtualReader);
+        MetricsRegistry.getInstance().removeReaderMetrics(DEFAULT_PLUGIN_NAME,
+                virtualReader.getName());
 
         notifyObservers(new PluginEvent(getName(), virtualReader.getName(),
                 PluginEvent.EventType.READER_DISCONNECTED));
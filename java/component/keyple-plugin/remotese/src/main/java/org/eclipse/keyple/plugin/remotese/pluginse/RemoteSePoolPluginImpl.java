@@ -14,7 +14,7 @@ package org.eclipse.keyple.plugin.remotese.pluginse;
 import java.util.SortedSet;
 import org.eclipse.keyple.core.seproxy.SeReader;
 import org.eclipse.keyple.plugin.remotese.exception.KeypleRemoteException;
-import org.eclipse.keyple.plugin.remotese.rm.RemoteMethodTxPoolEngine;
+import org.eclipse.keyple.plugin.remotese.rm.RemoteMethodTxEngine;
 import org.eclipse.keyple.plugin.remotese.transport.DtoSender;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,7 +31,7 @@ class RemoteSePoolPluginImpl extends RemoteSePluginImpl implements RemoteSePoolP
 
     // Slave Node where the ReaderPluginPool is located
     String slaveNodeId;
-    RemoteMethodTxPoolEngine rmTxEngine;
+    RemoteMethodTxEngine rmTxEngine;
 
     /**
      * Only {@link MasterAPI} can instanciate a RemoteSePlugin
@@ -41,7 +41,7 @@ class RemoteSePoolPluginImpl extends RemoteSePluginImpl implements RemoteSePoolP
         super(sessionManager, sender, rpcTimeout, pluginName);
 
         // allocate a rmTxPoolEngine
-        rmTxEngine = new RemoteMethodTxPoolEngine(sender, rpcTimeout);
+        rmTxEngine = new RemoteMethodTxEngine(sender, rpcTimeout);
     }
 
     public void bind(String slaveNodeId) {
@@ -109,7 +109,7 @@ class RemoteSePoolPluginImpl extends RemoteSePluginImpl implements RemoteSePoolP
         }
     }
 
-    RemoteMethodTxPoolEngine getRmTxEngine() {
+    RemoteMethodTxEngine getRmTxEngine() {
         return rmTxEngine;
     }
 
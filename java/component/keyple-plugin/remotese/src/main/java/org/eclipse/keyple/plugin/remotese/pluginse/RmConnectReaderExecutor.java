@@ -50,7 +50,7 @@ class RmConnectReaderExecutor implements RemoteMethodExecutor {
     public TransportDto execute(TransportDto transportDto) {
         KeypleDto keypleDto = transportDto.getKeypleDTO();
 
-        JsonObject body = JsonParser.getGson().fromJson(keypleDto.getBody(), JsonObject.class);
+        JsonObject body = keypleDto.getBody(JsonObject.class);
 
         // parseResponse msg
         String nativeReaderName = keypleDto.getNativeReaderName();
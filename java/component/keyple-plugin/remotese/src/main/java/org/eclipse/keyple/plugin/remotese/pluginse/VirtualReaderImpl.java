@@ -15,18 +15,23 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Future;
 import org.eclipse.keyple.core.seproxy.event.AbstractDefaultSelectionsRequest;
 import org.eclipse.keyple.core.seproxy.event.ReaderEvent;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderException;
 import org.eclipse.keyple.core.seproxy.message.SeRequest;
 import org.eclipse.keyple.core.seproxy.message.SeResponse;
+import org.eclipse.keyple.core.seproxy.message.TransmitCallback;
+import org.eclipse.keyple.core.seproxy.message.TransmitFuture;
 import org.eclipse.keyple.core.seproxy.plugin.AbstractObservableReader;
 import org.eclipse.keyple.core.seproxy.protocol.SeProtocol;
 import org.eclipse.keyple.core.seproxy.protocol.TransmissionMode;
 import org.eclipse.keyple.plugin.remotese.exception.KeypleRemoteException;
 import org.eclipse.keyple.plugin.remotese.pluginse.method.RmSetDefaultSelectionRequestTx;
+import org.eclipse.keyple.plugin.remotese.pluginse.method.RmTransmitScriptTx;
 import org.eclipse.keyple.plugin.remotese.pluginse.method.RmTransmitSetTx;
 import org.eclipse.keyple.plugin.remotese.pluginse.method.RmTransmitTx;
+import org.eclipse.keyple.plugin.remotese.rm.RemoteMethodTxCallback;
 import org.eclipse.keyple.plugin.remotese.rm.RemoteMethodTxEngine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -130,6 +135,32 @@ final class VirtualReaderImpl extends AbstractObservableReader implements Virtua
         }
     }
 
+    /**
+     * Blocking TransmitScript, the whole list of SeRequest is sent to the slave in a single
+     * KeypleDto and processed there by the native reader
+     *
+     * @param seRequests : ordered list of SeRequest to be transmitted to SE
+     * @return List of SeResponse of the processed SeRequest
+     * @throws IllegalArgumentException
+     * @throws KeypleReaderException
+     */
+    @Override
+    protected List<SeResponse> processSeRequestScript(List<SeRequest> seRequests)
+            throws IllegalArgumentException, KeypleReaderException {
+
+        RmTransmitScriptTx transmit = new RmTransmitScriptTx(seRequests, session.getSessionId(),
+                this.getNativeReaderName(), this.getName(), session.getMasterNodeId(),
+                session.getSlaveNodeId());
+        try {
+            rmTxEngine.add(transmit);
+
+            // blocking call
+            return transmit.getResponse();
+        } catch (KeypleRemoteException e) {
+            throw toReaderException(e);
+        }
+    }
+
     /**
      * Blocking Transmit
      * 
@@ -157,6 +188,79 @@ final class VirtualReaderImpl extends AbstractObservableReader implements Virtua
 
     }
 
+    /**
+     * Non blocking TransmitSet, the response is delivered by the remote method engine
+     *
+     * @param seRequestSet : Set of SeRequest to be transmitted to SE
+     * @param callback : notified with the List of SeResponse from SE (may be null)
+     * @return future List of SeResponse from SE
+     */
+    @Override
+    public Future<List<SeResponse>> transmitSetAsync(Set<SeRequest> seRequestSet,
+            TransmitCallback<List<SeResponse>> callback) {
+        if (seRequestSet == null) {
+            throw new IllegalArgumentException("seRequestSet must not be null");
+        }
+        final TransmitFuture<List<SeResponse>> future =
+                new TransmitFuture<List<SeResponse>>(callback);
+        RmTransmitSetTx transmit = new RmTransmitSetTx(seRequestSet, session.getSessionId(),
+                this.getNativeReaderName(), this.getName(), session.getMasterNodeId(),
+                session.getSlaveNodeId());
+        rmTxEngine.add(transmit);
+        transmit.sendAsync(new RemoteMethodTxCallback<List<SeResponse>>() {
+            @Override
+            public void get(List<SeResponse> response, KeypleRemoteException exception) {
+                if (exception == null) {
+                    future.complete(response);
+                } else {
+                    future.fail(toReaderException(exception));
+                }
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Non blocking Transmit, the response is delivered by the remote method engine
+     *
+     * @param seRequest : SeRequest to be transmitted to SE
+     * @param callback : notified with the SeResponse from SE (may be null)
+     * @return future SeResponse from SE
+     */
+    @Override
+    public Future<SeResponse> transmitAsync(SeRequest seRequest,
+            TransmitCallback<SeResponse> callback) {
+        if (seRequest == null) {
+            throw new IllegalArgumentException("seRequest must not be null");
+        }
+        final TransmitFuture<SeResponse> future = new TransmitFuture<SeResponse>(callback);
+        RmTransmitTx transmit =
+                new RmTransmitTx(seRequest, session.getSessionId(), this.getNativeReaderName(),
+                        this.getName(), session.getMasterNodeId(), session.getSlaveNodeId());
+        rmTxEngine.add(transmit);
+        transmit.sendAsync(new RemoteMethodTxCallback<SeResponse>() {
+            @Override
+            public void get(SeResponse response, KeypleRemoteException exception) {
+                if (exception == null) {
+                    future.complete(response);
+                } else {
+                    future.fail(toReaderException(exception));
+                }
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Get the KeypleReaderException conveyed by a KeypleRemoteException, or create one
+     */
+    private static KeypleReaderException toReaderException(KeypleRemoteException e) {
+        if (e.getCause() instanceof KeypleReaderException) {
+            return (KeypleReaderException) e.getCause();
+        }
+        return new KeypleReaderException(e.getMessage(), e);
+    }
+
     @Override
     protected void startObservation() {
         logger.trace("startObservation is not used in this plugin");
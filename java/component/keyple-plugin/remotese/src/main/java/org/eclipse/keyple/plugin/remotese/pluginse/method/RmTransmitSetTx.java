@@ -51,8 +51,7 @@ public class RmTransmitSetTx extends RemoteMethodTx<List<SeResponse>> {
     @Override
     public KeypleDto dto() {
         return KeypleDtoHelper.buildRequest(getMethodName().getName(),
-                JsonParser.getGson().toJson(seRequestSet,
-                        new TypeToken<LinkedHashSet<SeRequest>>() {}.getType()),
+                seRequestSet, new TypeToken<LinkedHashSet<SeRequest>>() {}.getType(),
                 this.sessionId, this.nativeReaderName, this.virtualReaderName, requesterNodeId,
                 targetNodeId, id);
     }
@@ -64,8 +63,7 @@ public class RmTransmitSetTx extends RemoteMethodTx<List<SeResponse>> {
         logger.trace("KeypleDto : {}", keypleDto);
         if (KeypleDtoHelper.containsException(keypleDto)) {
             logger.trace("KeypleDto contains an exception: {}", keypleDto);
-            KeypleReaderException ex =
-                    JsonParser.getGson().fromJson(keypleDto.getBody(), KeypleReaderException.class);
+            KeypleReaderException ex = keypleDto.getBody(KeypleReaderException.class);
             throw new KeypleRemoteException(
                     "An exception occurs while calling the remote method transmitSet", ex);
         } else {
@@ -20,6 +20,8 @@ public enum RemoteMethod {
 
     READER_TRANSMIT("reader_transmit"),
 
+    READER_TRANSMIT_SCRIPT("reader_transmitScript"),
+
     READER_CONNECT("reader_connect"),
 
     READER_DISCONNECT("reader_disconnect"),
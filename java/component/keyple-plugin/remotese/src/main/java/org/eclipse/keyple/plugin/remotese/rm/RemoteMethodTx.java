@@ -12,9 +12,9 @@
 package org.eclipse.keyple.plugin.remotese.rm;
 
 import java.util.UUID;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
 import org.eclipse.keyple.plugin.remotese.exception.KeypleRemoteException;
+import org.eclipse.keyple.plugin.remotese.transport.BlockingDtoSender;
 import org.eclipse.keyple.plugin.remotese.transport.DtoSender;
 import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
 import org.slf4j.Logger;
@@ -29,6 +29,33 @@ import org.slf4j.LoggerFactory;
 public abstract class RemoteMethodTx<T> {
 
     private static final Logger logger = LoggerFactory.getLogger(RemoteMethodTx.class);
+
+    // number of threads sending the requests through a BlockingDtoSender
+    private static final int BLOCKING_SEND_THREADS = 4;
+
+    // maximum number of requests waiting for a sending thread
+    private static final int BLOCKING_SEND_QUEUE_CAPACITY = 256;
+
+    /*
+     * Shared executor for the requests sent through a BlockingDtoSender, the other requests are
+     * sent by the calling thread. A request exceeding the queue capacity is rejected (see
+     * sendAsync), the transport being unable to keep up.
+     */
+    private static final ThreadPoolExecutor blockingSendExecutor = new ThreadPoolExecutor(
+            BLOCKING_SEND_THREADS, BLOCKING_SEND_THREADS, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<Runnable>(BLOCKING_SEND_QUEUE_CAPACITY), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "RemoteMethodTx-send");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            }, new ThreadPoolExecutor.AbortPolicy());
+
+    static {
+        blockingSendExecutor.allowCoreThreadTimeOut(true);
+    }
+
     protected final String sessionId;
     protected final String nativeReaderName;
     protected final String virtualReaderName;
@@ -38,18 +65,21 @@ public abstract class RemoteMethodTx<T> {
     protected Boolean isRegistered;
 
     // response
-    private T response;
+    private volatile T response;
 
     // exception thrown if any
-    private KeypleRemoteException remoteException;
+    private volatile KeypleRemoteException remoteException;
 
-    // blocking mechanism
-    private CountDownLatch lock;
-    private RemoteMethodTxCallback<T> callback;
+    // released when the response or the exception is set
+    private final CountDownLatch completion = new CountDownLatch(1);
+    private volatile RemoteMethodTxCallback<T> callback;
     private long timeout;
 
     private DtoSender sender;
 
+    // engine where the transaction waits for its response
+    private RemoteMethodTxEngine engine;
+
     protected RemoteMethodTx(String sessionId, String nativeReaderName, String virtualReaderName,
             String targetNodeId, String requesterNodeId) {
         this.sessionId = sessionId;
@@ -71,6 +101,10 @@ public abstract class RemoteMethodTx<T> {
         this.timeout = timeout;
     }
 
+    void setEngine(RemoteMethodTxEngine engine) {
+        this.engine = engine;
+    }
+
     /**
      * Internal method to set manually the keypleDto response To be called by the tx manager
      *
@@ -96,68 +130,111 @@ public abstract class RemoteMethodTx<T> {
      */
     public void send(RemoteMethodTxCallback<T> callback) throws KeypleRemoteException {
         this.callback = callback;
-        sender.sendDTO(this.dto());
+        try {
+            sender.sendDTO(this.dto());
+        } catch (KeypleRemoteException e) {
+            unregister();
+            throw e;
+        } catch (RuntimeException e) {
+            unregister();
+            throw e;
+        }
     }
 
-
     /**
-     * Blocking method to getResponse results from the remote method call. To be called by the
-     * client (used internally by rmCommands, do not use)
+     * Non blocking method to send the remote method call, the result is obtained from the returned
+     * future. A failure while sending is reported by the future.
      *
-     * @return T : result of the command
-     * @throws KeypleRemoteException : if an
+     * @return a future completed with the result of the command
      */
-    final public T getResponse() throws KeypleRemoteException {
+    final public Future<T> sendAsync() {
         if (!isRegistered) {
             throw new IllegalStateException(
-                    "RemoteMethodTx#getResponse() can not be used until RemoteMethod is isRegistered in a RemoteMethodEngine, please call RemoteMethodEngine#register");
+                    "RemoteMethodTx#sendAsync() can not be used until RemoteMethod is isRegistered in a RemoteMethodEngine, please call RemoteMethodEngine#register");
         }
-        logger.debug("Blocking Get {}", this.getClass().getCanonicalName());
-        final RemoteMethodTx thisInstance = this;
-
-        Thread asyncSend = new Thread() {
-            public void run() {
-                try {
-                    send(new RemoteMethodTxCallback<T>() {
-                        @Override
-                        public void get(T response, KeypleRemoteException exception) {
-                            logger.debug("release lock");
-                            lock.countDown();
-                        }
-                    });
-                } catch (KeypleRemoteException e) {
-                    logger.error("Exception while sending Dto", e);
-                    thisInstance.remoteException = e;
-                    lock.countDown();
-                }
+        if (sender instanceof BlockingDtoSender) {
+            try {
+                blockingSendExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        sendRequest();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                logger.error("Too many requests waiting to be sent, request {} rejected", id);
+                sendFailed(new KeypleRemoteException(
+                        "Too many requests waiting to be sent, request rejected", e));
             }
-        };
+        } else {
+            sendRequest();
+        }
+        return new ResponseFuture();
+    }
 
+    /**
+     * Same as {@link #sendAsync()}, the result is also given to the callback
+     *
+     * @param callback get Result from this callback
+     * @return a future completed with the result of the command
+     */
+    final public Future<T> sendAsync(RemoteMethodTxCallback<T> callback) {
+        this.callback = callback;
+        return sendAsync();
+    }
+
+    /**
+     * Send the request dto, a failure completes the call with the exception
+     */
+    private void sendRequest() {
         try {
-            lock = new CountDownLatch(1);
-            logger.trace("" + "" + "Set callback on RemoteMethodTx {} {}",
-                    this.getClass().getCanonicalName(), this.hashCode());
-            asyncSend.start();
-            logger.trace("Lock {}, {}", this.getClass().getCanonicalName(), this.hashCode());
-            boolean responseReceived = lock.await(timeout, TimeUnit.MILLISECONDS);
-
-            if (responseReceived) {
-                logger.trace("Unlock {}, {}", this.getClass().getCanonicalName(), this.hashCode());
-                if (this.remoteException != null) {
-                    throw remoteException;
-                } else {
-                    return response;
-                }
-            } else {
-                /*
-                 * timeout, no answer has been received
-                 */
-                throw new KeypleRemoteException(
-                        "Waiting time elapsed, no answer received from the other node for method "
-                                + this.getClass().getCanonicalName());
-            }
+            sender.sendDTO(this.dto());
+        } catch (KeypleRemoteException e) {
+            logger.error("Exception while sending Dto", e);
+            sendFailed(e);
+        } catch (RuntimeException e) {
+            logger.error("Exception while sending Dto", e);
+            sendFailed(new KeypleRemoteException("Exception while sending Dto", e));
+        }
+    }
 
+    /**
+     * Terminate the call whose request could not be sent, no response is expected anymore
+     */
+    private void sendFailed(KeypleRemoteException exception) {
+        unregister();
+        setException(exception);
+    }
 
+    /**
+     * Stop waiting for a response in the engine
+     */
+    private void unregister() {
+        if (engine != null) {
+            engine.remove(this);
+        }
+    }
+
+
+    /**
+     * Blocking method to getResponse results from the remote method call. To be called by the
+     * client (used internally by rmCommands, do not use)
+     *
+     * @return T : result of the command
+     * @throws KeypleRemoteException : if an
+     */
+    final public T getResponse() throws KeypleRemoteException {
+        logger.debug("Blocking Get {}", this.getClass().getCanonicalName());
+        try {
+            return sendAsync().get(timeout, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw (KeypleRemoteException) e.getCause();
+        } catch (TimeoutException e) {
+            /*
+             * timeout, no answer has been received
+             */
+            throw new KeypleRemoteException(
+                    "Waiting time elapsed, no answer received from the other node for method "
+                            + this.getClass().getCanonicalName());
         } catch (InterruptedException e) {
             throw new IllegalStateException(
                     "Thread locking in blocking transmitSet has encountered an exception", e);
@@ -171,11 +248,81 @@ public abstract class RemoteMethodTx<T> {
      */
     void setResponse(KeypleDto keypleDto) {
         try {
-            this.response = parseResponse(keypleDto);
-            this.callback.get(response, null);
+            complete(parseResponse(keypleDto), null);
         } catch (KeypleRemoteException e) {
-            this.remoteException = e;
-            this.callback.get(null, e);
+            complete(null, e);
+        }
+    }
+
+    /**
+     * Terminate the RmMethod with an exception (e.g. no response received) Call the callback of the
+     * RmMethod
+     *
+     * @param exception the exception to return to the caller
+     */
+    void setException(KeypleRemoteException exception) {
+        complete(null, exception);
+    }
+
+    /**
+     * Set the result of the RmMethod, only the first result is kept
+     */
+    private void complete(T response, KeypleRemoteException exception) {
+        synchronized (completion) {
+            if (completion.getCount() == 0) {
+                logger.debug("RemoteMethodTx {} already completed, result ignored", id);
+                return;
+            }
+            this.response = response;
+            this.remoteException = exception;
+            completion.countDown();
+        }
+        RemoteMethodTxCallback<T> currentCallback = this.callback;
+        if (currentCallback != null) {
+            currentCallback.get(response, exception);
+        }
+    }
+
+    /**
+     * Future view of the result of the RmMethod
+     */
+    private final class ResponseFuture implements Future<T> {
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return false;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public boolean isDone() {
+            return completion.getCount() == 0;
+        }
+
+        @Override
+        public T get() throws InterruptedException, ExecutionException {
+            completion.await();
+            return getResult();
+        }
+
+        @Override
+        public T get(long timeout, TimeUnit unit)
+                throws InterruptedException, ExecutionException, TimeoutException {
+            if (!completion.await(timeout, unit)) {
+                throw new TimeoutException();
+            }
+            return getResult();
+        }
+
+        private T getResult() throws ExecutionException {
+            if (remoteException != null) {
+                throw new ExecutionException(remoteException);
+            }
+            return response;
         }
     }
 
@@ -11,6 +11,9 @@
  ********************************************************************************/
 package org.eclipse.keyple.plugin.remotese.rm;
 
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.keyple.plugin.remotese.exception.KeypleRemoteException;
 import org.eclipse.keyple.plugin.remotese.transport.*;
 import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
 import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDtoHelper;
@@ -20,16 +23,63 @@ import org.slf4j.LoggerFactory;
 
 
 /**
- * Manages the transaction (request/response) for remote method invocation It holds
- * the @{@link RemoteMethodTx} untils the answer is received
+ * Manages the transactions (request/response) for remote method invocation. It holds
+ * the @{@link RemoteMethodTx} until the answer is received.
+ * <p>
+ * Any number of transactions can be in progress at the same time, the responses are matched with
+ * their request by the id of the {@link KeypleDto}. A transaction that does not receive its
+ * response within the timeout is terminated with a {@link KeypleRemoteException}; the responses
+ * received afterwards, or received twice, are dropped.
  */
 public class RemoteMethodTxEngine implements DtoHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(RemoteMethodTxEngine.class);
 
+    // number of cancelled expirations after which they are purged from the scheduler
+    private static final int PURGE_THRESHOLD = 256;
 
-    // waiting transaction, supports only one at the time
-    private RemoteMethodTx remoteMethodTx;
+    // number of threads terminating the expired transactions
+    private static final int TIMEOUT_THREADS = 4;
+
+    /*
+     * Single scheduler shared by all engines to expire the transactions waiting for their
+     * response. A cancelled expiration stays in its queue until its delay elapses, holding its
+     * transaction: the cancelled expirations are purged every PURGE_THRESHOLD cancellations.
+     */
+    private static final ScheduledThreadPoolExecutor timeoutScheduler =
+            new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "RemoteMethodTxEngine-timeout");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    private static final AtomicInteger cancelledExpirations = new AtomicInteger();
+
+    /*
+     * Shared executor terminating the expired transactions, so that their callbacks don't delay
+     * the expiration of the other transactions
+     */
+    private static final ThreadPoolExecutor timeoutExecutor =
+            new ThreadPoolExecutor(TIMEOUT_THREADS, TIMEOUT_THREADS, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable runnable) {
+                            Thread thread = new Thread(runnable, "RemoteMethodTxEngine-expired");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+
+    static {
+        timeoutExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    // waiting transactions, by keypleDto id
+    private final ConcurrentMap<String, PendingTx> pendingTxs =
+            new ConcurrentHashMap<String, PendingTx>();
 
     // Dto Sender
     private final DtoSender sender;
@@ -37,13 +87,36 @@ public class RemoteMethodTxEngine implements DtoHandler {
     // timeout to wait for the answer, in milliseconds
     private final long timeout;
 
+    /**
+     * A transaction waiting for its response and its expiration task
+     */
+    private static final class PendingTx {
+        private final RemoteMethodTx<?> remoteMethodTx;
+        private volatile ScheduledFuture<?> expiration;
+
+        PendingTx(RemoteMethodTx<?> remoteMethodTx) {
+            this.remoteMethodTx = remoteMethodTx;
+        }
+
+        /**
+         * Cancel the expiration of the transaction, its response being received or no longer
+         * expected
+         */
+        void cancelExpiration() {
+            ScheduledFuture<?> currentExpiration = expiration;
+            if (currentExpiration != null && currentExpiration.cancel(false)
+                    && cancelledExpirations.incrementAndGet() % PURGE_THRESHOLD == 0) {
+                timeoutScheduler.purge();
+            }
+        }
+    }
+
     /**
      *
      * @param sender : dtosender used to send the keypleDto
      * @param timeout : timeout to wait for the answer, in milliseconds
      */
     public RemoteMethodTxEngine(DtoSender sender, long timeout) {
-        // this.queue = new LinkedList<RemoteMethodTx>();
         this.sender = sender;
         this.timeout = timeout;
     }
@@ -51,7 +124,7 @@ public class RemoteMethodTxEngine implements DtoHandler {
 
     /**
      * Set Response to a RemoteMethod Invocation
-     * 
+     *
      * @param message to be processed
      * @return TransportDto : response of the processing of the transportDto, can be an empty
      *         TransportDto
@@ -67,41 +140,94 @@ public class RemoteMethodTxEngine implements DtoHandler {
         /*
          * Check that KeypleDto is a Response
          */
-        if (message.getKeypleDTO().isRequest()) {
+        if (keypleDto.isRequest()) {
             throw new IllegalArgumentException(
                     "RemoteMethodTxEngine expects a KeypleDto response. " + keypleDto);
         }
+
         /*
-         * Check that a request has been made previously
+         * Retrieve the matching request, the removal guarantees that a transaction is completed
+         * only once
          */
-        if (remoteMethodTx == null) {
+        PendingTx pendingTx = pendingTxs.remove(keypleDto.getId());
+        if (pendingTx == null) {
             /*
-             * Should not happen, response received does not match a request. Ignore it
+             * Late (timed out) or duplicate response, or response to an unknown request. Ignore it
              */
-            logger.error(
-                    "RemoteMethodTxEngine receives a KeypleDto response but no remoteMethodTx are defined : "
-                            + keypleDto);
+            logger.warn(
+                    "RemoteMethodTxEngine receives a KeypleDto response that does not match any pending remoteMethodTx : {}",
+                    keypleDto);
+        } else {
+            pendingTx.cancelExpiration();
+            pendingTx.remoteMethodTx.setResponse(keypleDto);
         }
 
-        // only one operation is allowed at the time
-        remoteMethodTx.setResponse(keypleDto);
-
-        // re init remoteMethod
-        remoteMethodTx = null;
-
         return message.nextTransportDTO(KeypleDtoHelper.NoResponse(keypleDto.getId()));
     }
 
     /**
      * Add RemoteMethod to executing stack
-     * 
+     * <p>
+     * The timeout of the transaction starts from here.
+     *
      * @param rm : RemoteMethodTx to be executed
      */
-    public void add(final RemoteMethodTx rm) {
+    public void add(final RemoteMethodTx<?> rm) {
         logger.debug("Register rm to engine : {}", rm);
         rm.setRegistered(true);
-        remoteMethodTx = rm;
         rm.setDtoSender(sender);
         rm.setTimeout(timeout);
+        rm.setEngine(this);
+
+        final PendingTx pendingTx = new PendingTx(rm);
+        if (pendingTxs.putIfAbsent(rm.id, pendingTx) != null) {
+            throw new IllegalStateException(
+                    "A remoteMethodTx with the same id is already registered : " + rm.id);
+        }
+        pendingTx.expiration = timeoutScheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                if (pendingTxs.remove(rm.id, pendingTx)) {
+                    logger.warn("No response received within {} ms for remoteMethodTx : {}",
+                            timeout, rm.id);
+                    timeoutExecutor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            rm.setException(new KeypleRemoteException(
+                                    "Waiting time elapsed, no answer received from the other node for method "
+                                            + rm.getClass().getCanonicalName()));
+                        }
+                    });
+                }
+            }
+        }, timeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Remove a transaction that no longer waits for its response (e.g. its request could not be
+     * sent) and cancel its expiration
+     *
+     * @param rm : RemoteMethodTx to be removed
+     */
+    void remove(RemoteMethodTx<?> rm) {
+        PendingTx pendingTx = pendingTxs.remove(rm.id);
+        if (pendingTx != null) {
+            pendingTx.cancelExpiration();
+        }
+    }
+
+    /**
+     * @return the number of transactions waiting for their response
+     */
+    public int getPendingTxCount() {
+        return pendingTxs.size();
+    }
+
+    /**
+     * @return the number of expirations in the queue of the shared scheduler, including the
+     *         cancelled ones not purged yet
+     */
+    static int getScheduledExpirationCount() {
+        return timeoutScheduler.getQueue().size();
     }
 }
@@ -0,0 +1,20 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.remotese.transport;
+
+/**
+ * Marker for the {@link DtoSender} whose sendDTO methods may block for a long time (e.g. waiting
+ * for the network). The remote method requests sent through such a sender are handed over to a
+ * shared executor so that the caller waiting for the response can still time out.
+ */
+public interface BlockingDtoSender extends DtoSender {
+}
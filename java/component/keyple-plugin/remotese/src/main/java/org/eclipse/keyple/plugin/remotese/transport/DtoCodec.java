@@ -0,0 +1,46 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.remotese.transport;
+
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
+
+/**
+ * Wire encoding of the {@link KeypleDto} exchanged between two nodes.
+ * <p>
+ * Each encoded message is self-contained: a message is decoded on its own, whatever the order the
+ * messages are sent and received in. See {@link DtoCodecs} for the available codecs and their
+ * negotiation.
+ */
+public interface DtoCodec {
+
+    /**
+     * @return the name of the codec, used for the negotiation between two nodes
+     */
+    String getName();
+
+    /**
+     * Encode a KeypleDto
+     *
+     * @param keypleDto the dto to encode
+     * @return the encoded message
+     */
+    byte[] encode(KeypleDto keypleDto);
+
+    /**
+     * Decode a KeypleDto
+     *
+     * @param message the encoded message
+     * @return the decoded dto
+     * @throws IllegalArgumentException if the message is malformed
+     */
+    KeypleDto decode(byte[] message) throws IllegalArgumentException;
+}
@@ -0,0 +1,80 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.remotese.transport;
+
+import java.util.Arrays;
+import java.util.List;
+import org.eclipse.keyple.plugin.remotese.transport.binary.BinaryDtoCodec;
+import org.eclipse.keyple.plugin.remotese.transport.json.JsonDtoCodec;
+
+/**
+ * Available {@link DtoCodec} and negotiation of the codec used on a connection.
+ * <p>
+ * A node offers the names of its supported codecs (see {@link #getSupportedCodecNames()}) when it
+ * connects, e.g. in a connection header; the other node picks the codec with
+ * {@link #negotiate(List)} and answers its name. Both nodes then create their own instance with
+ * {@link #newCodec(String)}. The local transport (LocalClient, LocalServer) negotiates its codec
+ * this way.
+ */
+public final class DtoCodecs {
+
+    /** supported codecs, in decreasing order of preference */
+    private static final List<String> SUPPORTED_CODEC_NAMES =
+            Arrays.asList(BinaryDtoCodec.NAME, JsonDtoCodec.EMBEDDED_BODY_NAME, JsonDtoCodec.NAME);
+
+    private DtoCodecs() {}
+
+    /**
+     * @return the names of the supported codecs, in decreasing order of preference
+     */
+    public static List<String> getSupportedCodecNames() {
+        return SUPPORTED_CODEC_NAMES;
+    }
+
+    /**
+     * Choose the codec to use with a node
+     *
+     * @param offeredCodecNames the codecs supported by the other node, in its order of preference
+     *        (may be null if the node doesn't negotiate)
+     * @return the name of the first offered codec supported here, Json by default
+     */
+    public static String negotiate(List<String> offeredCodecNames) {
+        if (offeredCodecNames != null) {
+            for (String codecName : offeredCodecNames) {
+                if (SUPPORTED_CODEC_NAMES.contains(codecName)) {
+                    return codecName;
+                }
+            }
+        }
+        return JsonDtoCodec.NAME;
+    }
+
+    /**
+     * Create a codec instance for a connection
+     *
+     * @param codecName the negotiated codec name
+     * @return a new codec
+     * @throws IllegalArgumentException if the codec is not supported
+     */
+    public static DtoCodec newCodec(String codecName) {
+        if (BinaryDtoCodec.NAME.equals(codecName)) {
+            return new BinaryDtoCodec();
+        }
+        if (JsonDtoCodec.NAME.equals(codecName)) {
+            return new JsonDtoCodec();
+        }
+        if (JsonDtoCodec.EMBEDDED_BODY_NAME.equals(codecName)) {
+            return new JsonDtoCodec(true);
+        }
+        throw new IllegalArgumentException("Unsupported DtoCodec : " + codecName);
+    }
+}
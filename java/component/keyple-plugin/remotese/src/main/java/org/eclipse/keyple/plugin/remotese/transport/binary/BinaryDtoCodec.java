@@ -0,0 +1,477 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.remotese.transport.binary;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.*;
+import org.eclipse.keyple.plugin.remotese.transport.DtoCodec;
+import org.eclipse.keyple.plugin.remotese.transport.json.JsonParser;
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
+import com.google.gson.*;
+
+/**
+ * Compact binary encoding of the {@link KeypleDto}.
+ * <p>
+ * Layout of a message (integers are unsigned varints, strings are length-prefixed UTF-8):
+ * <ul>
+ * <li>version byte, flags byte (isRequest)</li>
+ * <li>id, requesterNodeId, targetNodeId, sessionId, nativeReaderName, virtualReaderName, action:
+ * tagged strings</li>
+ * <li>body: null, string, or Json tree when the body is a Json object or array or a typed
+ * body</li>
+ * </ul>
+ * A tagged string is either a literal, a reference to a string already written in the same
+ * message (node ids, reader names, Json keys...), an UUID sent as 16 bytes or an hexadecimal string
+ * (APDU, ATR...) sent as raw bytes.
+ * <p>
+ * The string table is rebuilt for each message: a message is decoded on its own, whatever the
+ * order the messages are received in. The codec is stateless and can be shared between
+ * connections and threads.
+ */
+public class BinaryDtoCodec implements DtoCodec {
+
+    public static final String NAME = "binary";
+
+    private static final int VERSION = 2;
+
+    /* maximum number of strings in a table and maximum length of a string to be added */
+    private static final int MAX_TABLE_SIZE = 1024;
+    private static final int MAX_INTERNED_LENGTH = 64;
+
+    /* maximum nesting of the Json objects and arrays of a body */
+    private static final int MAX_NODE_DEPTH = 64;
+
+    private static final int FLAG_REQUEST_SET = 0x01;
+    private static final int FLAG_REQUEST = 0x02;
+
+    private static final int STR_NULL = 0;
+    private static final int STR_LITERAL = 1;
+    private static final int STR_DEFINE = 2;
+    private static final int STR_UUID = 3;
+    private static final int STR_HEX = 4;
+    private static final int STR_REF = 5;
+
+    private static final int BODY_NULL = 0;
+    private static final int BODY_STRING = 1;
+    private static final int BODY_JSON = 2;
+
+    private static final int NODE_OBJECT = 0;
+    private static final int NODE_ARRAY = 1;
+    private static final int NODE_STRING = 2;
+    private static final int NODE_NUMBER = 3;
+    private static final int NODE_TRUE = 4;
+    private static final int NODE_FALSE = 5;
+    private static final int NODE_NULL = 6;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final char[] HEX_CHARS = "0123456789ABCDEF".toCharArray();
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public byte[] encode(KeypleDto keypleDto) {
+        Writer out = new Writer();
+        out.writeByte(VERSION);
+        Boolean isRequest = keypleDto.isRequest();
+        out.writeByte(isRequest == null ? 0
+                : FLAG_REQUEST_SET | (isRequest.booleanValue() ? FLAG_REQUEST : 0));
+        writeString(out, keypleDto.getId(), false);
+        writeString(out, keypleDto.getRequesterNodeId(), true);
+        writeString(out, keypleDto.getTargetNodeId(), true);
+        writeString(out, keypleDto.getSessionId(), true);
+        writeString(out, keypleDto.getNativeReaderName(), true);
+        writeString(out, keypleDto.getVirtualReaderName(), true);
+        writeString(out, keypleDto.getAction(), true);
+        writeBody(out, keypleDto);
+        return out.toByteArray();
+    }
+
+    @Override
+    public KeypleDto decode(byte[] message) {
+        Reader in = new Reader(message);
+        try {
+            int version = in.readByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException(
+                        "Unsupported binary KeypleDto version : " + version);
+            }
+            int flags = in.readByte();
+            Boolean isRequest = (flags & FLAG_REQUEST_SET) == 0 ? null
+                    : Boolean.valueOf((flags & FLAG_REQUEST) != 0);
+            String id = readString(in);
+            String requesterNodeId = readString(in);
+            String targetNodeId = readString(in);
+            String sessionId = readString(in);
+            String nativeReaderName = readString(in);
+            String virtualReaderName = readString(in);
+            String action = readString(in);
+            int bodyTag = in.readVarint();
+            String body = null;
+            JsonElement bodyTree = null;
+            if (bodyTag == BODY_STRING) {
+                body = readString(in);
+            } else if (bodyTag == BODY_JSON) {
+                bodyTree = readNode(in, 0);
+            } else if (bodyTag != BODY_NULL) {
+                throw new IllegalArgumentException(
+                        "Unknown body type in binary KeypleDto : " + bodyTag);
+            }
+            if (in.remaining() != 0) {
+                throw new IllegalArgumentException(
+                        "Unexpected trailing bytes in binary KeypleDto : " + in.remaining());
+            }
+            if (bodyTree != null) {
+                /* the body is deserialized from the tree, without going through a string */
+                return new KeypleDto(action, bodyTree, JsonElement.class, isRequest, sessionId,
+                        nativeReaderName, virtualReaderName, requesterNodeId, targetNodeId, id);
+            }
+            return new KeypleDto(action, body, isRequest, sessionId, nativeReaderName,
+                    virtualReaderName, requesterNodeId, targetNodeId, id);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated binary KeypleDto", e);
+        }
+    }
+
+    /*
+     * Encoding
+     */
+
+    private static void writeString(Writer out, String value, boolean intern) {
+        if (value == null) {
+            out.writeVarint(STR_NULL);
+            return;
+        }
+        Integer index = out.strings.get(value);
+        if (index != null) {
+            out.writeVarint(STR_REF + index);
+        } else if (isUuid(value)) {
+            out.writeVarint(STR_UUID);
+            UUID uuid = UUID.fromString(value);
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        } else if (isHex(value)) {
+            out.writeVarint(STR_HEX);
+            out.writeBlock(fromHex(value));
+        } else if (intern && value.length() <= MAX_INTERNED_LENGTH
+                && out.strings.size() < MAX_TABLE_SIZE) {
+            out.strings.put(value, out.strings.size());
+            out.writeVarint(STR_DEFINE);
+            out.writeBlock(value.getBytes(UTF8));
+        } else {
+            out.writeVarint(STR_LITERAL);
+            out.writeBlock(value.getBytes(UTF8));
+        }
+    }
+
+    private static void writeBody(Writer out, KeypleDto keypleDto) {
+        Object bodyObject = keypleDto.getBodyObject();
+        if (bodyObject != null) {
+            /* a typed body is converted to a tree, without going through a string */
+            out.writeVarint(BODY_JSON);
+            writeNode(out, bodyObject instanceof JsonElement ? (JsonElement) bodyObject
+                    : JsonParser.getGson().toJsonTree(bodyObject, keypleDto.getBodyType()));
+            return;
+        }
+        String body = keypleDto.getBody();
+        if (body == null) {
+            out.writeVarint(BODY_NULL);
+            return;
+        }
+        if (isJsonStructure(body)) {
+            JsonElement tree;
+            try {
+                tree = new com.google.gson.JsonParser().parse(body);
+            } catch (JsonParseException e) {
+                tree = null;
+            }
+            if (tree != null) {
+                out.writeVarint(BODY_JSON);
+                writeNode(out, tree);
+                return;
+            }
+        }
+        out.writeVarint(BODY_STRING);
+        writeString(out, body, false);
+    }
+
+    private static void writeNode(Writer out, JsonElement node) {
+        if (node.isJsonObject()) {
+            Set<Map.Entry<String, JsonElement>> entries = node.getAsJsonObject().entrySet();
+            out.writeVarint(NODE_OBJECT);
+            out.writeVarint(entries.size());
+            for (Map.Entry<String, JsonElement> entry : entries) {
+                writeString(out, entry.getKey(), true);
+                writeNode(out, entry.getValue());
+            }
+        } else if (node.isJsonArray()) {
+            JsonArray array = node.getAsJsonArray();
+            out.writeVarint(NODE_ARRAY);
+            out.writeVarint(array.size());
+            for (JsonElement element : array) {
+                writeNode(out, element);
+            }
+        } else if (node.isJsonNull()) {
+            out.writeVarint(NODE_NULL);
+        } else {
+            JsonPrimitive primitive = node.getAsJsonPrimitive();
+            if (primitive.isBoolean()) {
+                out.writeVarint(primitive.getAsBoolean() ? NODE_TRUE : NODE_FALSE);
+            } else if (primitive.isNumber()) {
+                out.writeVarint(NODE_NUMBER);
+                out.writeBlock(primitive.getAsString().getBytes(UTF8));
+            } else {
+                out.writeVarint(NODE_STRING);
+                writeString(out, primitive.getAsString(), true);
+            }
+        }
+    }
+
+    /*
+     * Decoding
+     */
+
+    private static String readString(Reader in) {
+        int tag = in.readVarint();
+        switch (tag) {
+            case STR_NULL:
+                return null;
+            case STR_LITERAL:
+                return new String(in.readBlock(), UTF8);
+            case STR_DEFINE:
+                String value = new String(in.readBlock(), UTF8);
+                if (in.strings.size() >= MAX_TABLE_SIZE) {
+                    throw new IllegalArgumentException("Binary KeypleDto string table overflow");
+                }
+                in.strings.add(value);
+                return value;
+            case STR_UUID:
+                return new UUID(in.readLong(), in.readLong()).toString();
+            case STR_HEX:
+                return toHex(in.readBlock());
+            default:
+                int index = tag - STR_REF;
+                if (index >= in.strings.size()) {
+                    throw new IllegalArgumentException(
+                            "Unknown string reference in binary KeypleDto : " + index);
+                }
+                return in.strings.get(index);
+        }
+    }
+
+    /* the depth is bounded, a deeply nested frame must not exhaust the stack of the transport */
+    private static JsonElement readNode(Reader in, int depth) {
+        int tag = in.readVarint();
+        if ((tag == NODE_OBJECT || tag == NODE_ARRAY) && depth >= MAX_NODE_DEPTH) {
+            throw new IllegalArgumentException("Too deeply nested binary KeypleDto");
+        }
+        switch (tag) {
+            case NODE_OBJECT:
+                JsonObject object = new JsonObject();
+                for (int count = in.readCount(); count > 0; count--) {
+                    String key = readString(in);
+                    if (key == null) {
+                        throw new IllegalArgumentException("Null key in binary KeypleDto");
+                    }
+                    object.add(key, readNode(in, depth + 1));
+                }
+                return object;
+            case NODE_ARRAY:
+                JsonArray array = new JsonArray();
+                for (int count = in.readCount(); count > 0; count--) {
+                    array.add(readNode(in, depth + 1));
+                }
+                return array;
+            case NODE_STRING:
+                return new JsonPrimitive(readString(in));
+            case NODE_NUMBER:
+                try {
+                    return new com.google.gson.JsonParser().parse(new String(in.readBlock(), UTF8))
+                            .getAsJsonPrimitive();
+                } catch (RuntimeException e) {
+                    throw new IllegalArgumentException("Invalid number in binary KeypleDto", e);
+                }
+            case NODE_TRUE:
+                return new JsonPrimitive(Boolean.TRUE);
+            case NODE_FALSE:
+                return new JsonPrimitive(Boolean.FALSE);
+            case NODE_NULL:
+                return JsonNull.INSTANCE;
+            default:
+                throw new IllegalArgumentException(
+                        "Unknown node type in binary KeypleDto : " + tag);
+        }
+    }
+
+    /*
+     * String forms
+     */
+
+    private static boolean isUuid(String value) {
+        if (value.length() != 36 || value.charAt(8) != '-') {
+            return false;
+        }
+        try {
+            /* only the canonical (lowercase) form is restored identically */
+            return UUID.fromString(value).toString().equals(value);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static boolean isHex(String value) {
+        int length = value.length();
+        if (length < 2 || (length & 1) != 0) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'A' || c > 'F')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] fromHex(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) ((Character.digit(hex.charAt(2 * i), 16) << 4)
+                    | Character.digit(hex.charAt(2 * i + 1), 16));
+        }
+        return bytes;
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[2 * i] = HEX_CHARS[(bytes[i] >> 4) & 0x0F];
+            chars[2 * i + 1] = HEX_CHARS[bytes[i] & 0x0F];
+        }
+        return new String(chars);
+    }
+
+    private static boolean isJsonStructure(String body) {
+        if (body.length() < 2) {
+            return false;
+        }
+        char first = body.charAt(0);
+        char last = body.charAt(body.length() - 1);
+        return (first == '{' && last == '}') || (first == '[' && last == ']');
+    }
+
+    /**
+     * Output buffer
+     */
+    private static final class Writer extends ByteArrayOutputStream {
+
+        /* strings already written in the message, and their index */
+        final Map<String, Integer> strings = new HashMap<String, Integer>();
+
+        Writer() {
+            super(256);
+        }
+
+        void writeByte(int value) {
+            write(value);
+        }
+
+        void writeVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+
+        void writeLong(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                write((int) (value >>> shift));
+            }
+        }
+
+        void writeBlock(byte[] bytes) {
+            writeVarint(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * Input buffer, an IndexOutOfBoundsException is raised when reading past the end
+     */
+    private static final class Reader {
+
+        /* strings already read in the message, by index */
+        final List<String> strings = new ArrayList<String>();
+
+        private final byte[] buffer;
+        private int position;
+
+        Reader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        int remaining() {
+            return buffer.length - position;
+        }
+
+        int readByte() {
+            if (position >= buffer.length) {
+                throw new IndexOutOfBoundsException();
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    if (value < 0) {
+                        throw new IllegalArgumentException("Invalid varint in binary KeypleDto");
+                    }
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Invalid varint in binary KeypleDto");
+        }
+
+        /* a count of elements, each element takes at least one byte */
+        int readCount() {
+            int count = readVarint();
+            if (count > remaining()) {
+                throw new IndexOutOfBoundsException();
+            }
+            return count;
+        }
+
+        long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | readByte();
+            }
+            return value;
+        }
+
+        byte[] readBlock() {
+            int length = readCount();
+            byte[] bytes = new byte[length];
+            System.arraycopy(buffer, position, bytes, 0, length);
+            position += length;
+            return bytes;
+        }
+    }
+}
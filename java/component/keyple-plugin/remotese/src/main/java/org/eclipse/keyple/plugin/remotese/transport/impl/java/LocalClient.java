@@ -11,6 +11,7 @@
  ********************************************************************************/
 package org.eclipse.keyple.plugin.remotese.transport.impl.java;
 
+import java.util.List;
 import org.eclipse.keyple.plugin.remotese.exception.KeypleRemoteException;
 import org.eclipse.keyple.plugin.remotese.transport.*;
 import org.eclipse.keyple.plugin.remotese.transport.factory.ClientNode;
@@ -22,6 +23,9 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Client side of the 1 to many local transport for unit testing purposes only one server
+ * <p>
+ * The client offers its codecs to the server when it connects (or when it sends its first
+ * message), the dtos are then exchanged encoded with the negotiated {@link DtoCodec}.
  */
 public class LocalClient implements ClientNode {
 
@@ -29,10 +33,46 @@ public class LocalClient implements ClientNode {
     private final LocalServer theServer;
     private DtoHandler dtoHandler;
     private final String clientNodeId;
+    private final List<String> codecNames;
+    private DtoCodec codec;
 
     public LocalClient(String clientNodeId, LocalServer server) {
+        this(clientNodeId, server, DtoCodecs.getSupportedCodecNames());
+    }
+
+    /**
+     * @param clientNodeId the client node id
+     * @param server the server to connect to
+     * @param codecNames the codecs offered to the server, in decreasing order of preference
+     */
+    public LocalClient(String clientNodeId, LocalServer server, List<String> codecNames) {
         this.theServer = server;
         this.clientNodeId = clientNodeId;
+        this.codecNames = codecNames;
+    }
+
+    /**
+     * @return the codec negotiated with the server, null if not connected yet
+     */
+    public synchronized String getCodecName() {
+        return codec == null ? null : codec.getName();
+    }
+
+    private synchronized DtoCodec getCodec() {
+        if (codec == null) {
+            codec = DtoCodecs.newCodec(theServer.negotiateCodec(this, codecNames));
+            logger.debug("Codec negotiated with the server : {}", codec.getName());
+        }
+        return codec;
+    }
+
+    /**
+     * Incoming message, encoded with the negotiated codec
+     *
+     * @param message the encoded dto
+     */
+    public void onLocalMessage(byte[] message) {
+        onLocalMessage(getCodec().decode(message));
     }
 
     public void onLocalMessage(KeypleDto keypleDto) {
@@ -56,7 +96,7 @@ public class LocalClient implements ClientNode {
             logger.trace("Keyple DTO is empty, do not send it");
         } else {
             // send keypleDto to the server
-            theServer.onLocalMessage(transportDto);
+            theServer.onLocalMessage(this, getCodec().encode(transportDto.getKeypleDTO()));
         }
     }
 
@@ -71,7 +111,7 @@ public class LocalClient implements ClientNode {
             logger.trace("Keyple DTO is empty, do not send it");
         } else {
             // send keypleDto to the server
-            theServer.onLocalMessage(new LocalTransportDto(keypleDto, this));
+            theServer.onLocalMessage(this, getCodec().encode(keypleDto));
         }
     }
 
@@ -98,6 +138,9 @@ public class LocalClient implements ClientNode {
             logger.warn("Connection callback is not implemented for this client");
         }
         logger.info("Connect Local Client");
+        if (theServer != null) {
+            getCodec();
+        }
     }
 
     @Override
@@ -12,7 +12,9 @@
 package org.eclipse.keyple.plugin.remotese.transport.impl.java;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.eclipse.keyple.core.seproxy.exception.KeypleRuntimeException;
 import org.eclipse.keyple.plugin.remotese.transport.*;
 import org.eclipse.keyple.plugin.remotese.transport.factory.ServerNode;
@@ -24,6 +26,9 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Server side of the 1 to many local transport for unit testing purposes only one server
+ * <p>
+ * A {@link DtoCodec} is negotiated with each client, the dtos exchanged with a client are encoded
+ * with its codec.
  */
 public class LocalServer implements ServerNode {
 
@@ -32,12 +37,47 @@ public class LocalServer implements ServerNode {
     private DtoHandler dtoHandler;
     private final String serverNodeId;
     private final Map<String, LocalClient> client_ids;
+    private final Map<LocalClient, DtoCodec> client_codecs;
 
     public LocalServer(String serverNodeId) {
         this.client_ids = new HashMap<String, LocalClient>();
+        this.client_codecs = new ConcurrentHashMap<LocalClient, DtoCodec>();
         this.serverNodeId = serverNodeId;
     }
 
+    /**
+     * Choose the codec used with a client
+     *
+     * @param theClient the connecting client
+     * @param offeredCodecNames the codecs offered by the client
+     * @return the name of the chosen codec
+     */
+    String negotiateCodec(LocalClient theClient, List<String> offeredCodecNames) {
+        String codecName = DtoCodecs.negotiate(offeredCodecNames);
+        client_codecs.put(theClient, DtoCodecs.newCodec(codecName));
+        logger.debug("Codec negotiated with client {} : {}", theClient.getNodeId(), codecName);
+        return codecName;
+    }
+
+    private DtoCodec getCodec(LocalClient theClient) {
+        DtoCodec codec = client_codecs.get(theClient);
+        if (codec == null) {
+            throw new IllegalStateException(
+                    "No codec negotiated with client " + theClient.getNodeId());
+        }
+        return codec;
+    }
+
+    /**
+     * Incoming message, encoded with the codec negotiated with the client
+     *
+     * @param theClient the sending client
+     * @param message the encoded dto
+     */
+    public void onLocalMessage(LocalClient theClient, byte[] message) {
+        onLocalMessage(new LocalTransportDto(getCodec(theClient).decode(message), theClient));
+    }
+
     public void onLocalMessage(TransportDto transportDto) {
         LocalClient theClient = ((LocalTransportDto) transportDto).getTheClient();
         client_ids.put(transportDto.getKeypleDTO().getRequesterNodeId(), theClient);
@@ -70,7 +110,7 @@ public class LocalServer implements ServerNode {
             logger.trace("Keyple DTO is empty, do not send it");
         } else {
             // send keypleDto to the unique client
-            theClient.onLocalMessage(transportDto.getKeypleDTO());
+            theClient.onLocalMessage(getCodec(theClient).encode(transportDto.getKeypleDTO()));
         }
     }
 
@@ -83,7 +123,7 @@ public class LocalServer implements ServerNode {
             } else {
                 logger.trace("LocalClient was found for {}", keypleDto.getTargetNodeId());
                 // send keypleDto to the unique client
-                theClient.onLocalMessage(keypleDto);
+                theClient.onLocalMessage(getCodec(theClient).encode(keypleDto));
             }
         } else {
             throw new KeypleRuntimeException(
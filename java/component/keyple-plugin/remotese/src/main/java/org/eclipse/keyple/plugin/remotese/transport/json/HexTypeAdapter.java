@@ -11,19 +11,57 @@
  ********************************************************************************/
 package org.eclipse.keyple.plugin.remotese.transport.json;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
 import org.eclipse.keyple.core.util.ByteArrayUtil;
-import com.google.gson.*;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
-public class HexTypeAdapter implements JsonSerializer<byte[]>, JsonDeserializer<byte[]> {
+/**
+ * Streaming adapter writing byte arrays as hexadecimal strings.
+ * <p>
+ * The conversion is done directly between the bytes and the characters of the string, without
+ * intermediate Json elements.
+ */
+public class HexTypeAdapter extends TypeAdapter<byte[]> {
 
-    public byte[] deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context)
-            throws JsonParseException {
-        return ByteArrayUtil.fromHex(json.getAsString());
-    }
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
 
-    public JsonElement serialize(byte[] data, Type typeOfSrc, JsonSerializationContext context) {
-        return new JsonPrimitive(ByteArrayUtil.toHex(data));
+    @Override
+    public void write(JsonWriter out, byte[] data) throws IOException {
+        if (data == null) {
+            out.nullValue();
+            return;
+        }
+        char[] hex = new char[data.length * 2];
+        for (int i = 0; i < data.length; i++) {
+            hex[2 * i] = HEX_DIGITS[(data[i] >> 4) & 0x0F];
+            hex[2 * i + 1] = HEX_DIGITS[data[i] & 0x0F];
+        }
+        out.value(new String(hex));
     }
 
+    @Override
+    public byte[] read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        String hex = in.nextString();
+        if (hex.length() % 2 != 0) {
+            /* let the generic parser handle the separators or report the error */
+            return ByteArrayUtil.fromHex(hex);
+        }
+        byte[] data = new byte[hex.length() / 2];
+        for (int i = 0; i < data.length; i++) {
+            int high = Character.digit(hex.charAt(2 * i), 16);
+            int low = Character.digit(hex.charAt(2 * i + 1), 16);
+            if (high < 0 || low < 0) {
+                return ByteArrayUtil.fromHex(hex);
+            }
+            data[i] = (byte) ((high << 4) | low);
+        }
+        return data;
+    }
 }
@@ -0,0 +1,73 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.remotese.transport.json;
+
+import java.nio.charset.Charset;
+import org.eclipse.keyple.plugin.remotese.transport.DtoCodec;
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDtoHelper;
+import com.google.gson.JsonParseException;
+
+/**
+ * Json encoding of the {@link KeypleDto} (UTF-8), stateless
+ * <p>
+ * The {@link #NAME} codec writes the body as a string, as all nodes expect. The
+ * {@link #EMBEDDED_BODY_NAME} codec embeds the body in the envelope (see
+ * {@link KeypleDtoTypeAdapter}), it is only used when the other node offers it. Both codecs decode
+ * both forms.
+ */
+public class JsonDtoCodec implements DtoCodec {
+
+    public static final String NAME = "json";
+
+    public static final String EMBEDDED_BODY_NAME = "json-embedded";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final boolean embeddedBody;
+
+    /**
+     * Json codec writing the body as a string
+     */
+    public JsonDtoCodec() {
+        this(false);
+    }
+
+    /**
+     * @param embeddedBody true to embed the body in the envelope
+     */
+    public JsonDtoCodec(boolean embeddedBody) {
+        this.embeddedBody = embeddedBody;
+    }
+
+    @Override
+    public String getName() {
+        return embeddedBody ? EMBEDDED_BODY_NAME : NAME;
+    }
+
+    @Override
+    public byte[] encode(KeypleDto keypleDto) {
+        if (embeddedBody) {
+            return KeypleDtoTypeAdapter.EMBEDDED_BODY.toJson(keypleDto).getBytes(UTF8);
+        }
+        return KeypleDtoHelper.toJson(keypleDto).getBytes(UTF8);
+    }
+
+    @Override
+    public KeypleDto decode(byte[] message) {
+        try {
+            return KeypleDtoHelper.fromJson(new String(message, UTF8));
+        } catch (JsonParseException e) {
+            throw new IllegalArgumentException("Malformed Json KeypleDto", e);
+        }
+    }
+}
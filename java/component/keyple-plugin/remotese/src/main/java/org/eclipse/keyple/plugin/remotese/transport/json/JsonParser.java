@@ -19,15 +19,19 @@ import com.google.gson.GsonBuilder;
 
 /**
  * Json Parser for Keyple DTO and Keyple DTO fields
+ * <p>
+ * The Gson instance is built once and shared, Gson being thread-safe.
  */
 public class JsonParser {
 
+    private static final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(SeProtocol.class, new GsonSeProtocolTypeAdapter())
+            .registerTypeAdapter(byte[].class, new HexTypeAdapter())
+            // .setPrettyPrinting() disable pretty printing for inline json
+            .create();
+
     static public Gson getGson() {
-        final GsonBuilder gsonBuilder = new GsonBuilder();
-        gsonBuilder.registerTypeAdapter(SeProtocol.class, new GsonSeProtocolTypeAdapter());
-        gsonBuilder.registerTypeAdapter(byte[].class, new HexTypeAdapter());
-        // gsonBuilder.setPrettyPrinting(); disable pretty printing for inline json
-        return gsonBuilder.create();
+        return gson;
     }
 
 }
@@ -0,0 +1,222 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.remotese.transport.json;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import org.eclipse.keyple.core.seproxy.message.SeRequest;
+import org.eclipse.keyple.core.seproxy.message.SeResponse;
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Streaming adapter for the {@link KeypleDto} envelope.
+ * <p>
+ * By default the body is written as a string, as expected by all the nodes. The
+ * {@link #EMBEDDED_BODY} adapter, used once both nodes have negotiated it (see
+ * {@link JsonDtoCodec#EMBEDDED_BODY_NAME}), embeds the body in the envelope instead, so that it is
+ * not serialized twice: a Json body is written as a Json tree (a body that doesn't parse stays a
+ * string), and a typed SeRequest/SeResponse body is streamed with its adapter in a field named
+ * after its type. All the forms are accepted when reading: a typed body is read back as an object,
+ * an embedded Json body as a Json tree.
+ * <p>
+ * The null fields are omitted, as with the default Gson serialization.
+ */
+public class KeypleDtoTypeAdapter extends TypeAdapter<KeypleDto> {
+
+    /** adapter embedding the body, to be used with the nodes that negotiated it */
+    public static final KeypleDtoTypeAdapter EMBEDDED_BODY = new KeypleDtoTypeAdapter(true);
+
+    /* typed bodies and the name of their field */
+    private static final String[] TYPED_BODY_NAMES = {"seRequest", "seResponse", "seRequestSet",
+            "seRequestList", "seResponseList"};
+    private static final Type[] TYPED_BODY_TYPES = {SeRequest.class, SeResponse.class,
+            new TypeToken<LinkedHashSet<SeRequest>>() {}.getType(),
+            new TypeToken<ArrayList<SeRequest>>() {}.getType(),
+            new TypeToken<ArrayList<SeResponse>>() {}.getType()};
+
+    private final boolean embeddedBody;
+
+    /**
+     * Adapter writing the body as a string, bound to {@link KeypleDto} by its annotation
+     */
+    public KeypleDtoTypeAdapter() {
+        this(false);
+    }
+
+    private KeypleDtoTypeAdapter(boolean embeddedBody) {
+        this.embeddedBody = embeddedBody;
+    }
+
+    @Override
+    public void write(JsonWriter out, KeypleDto keypleDto) throws IOException {
+        if (keypleDto == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        writeField(out, "id", keypleDto.getId());
+        writeField(out, "requesterNodeId", keypleDto.getRequesterNodeId());
+        writeField(out, "targetNodeId", keypleDto.getTargetNodeId());
+        writeField(out, "sessionId", keypleDto.getSessionId());
+        writeField(out, "nativeReaderName", keypleDto.getNativeReaderName());
+        writeField(out, "virtualReaderName", keypleDto.getVirtualReaderName());
+        writeField(out, "action", keypleDto.getAction());
+        if (embeddedBody) {
+            writeEmbeddedBody(out, keypleDto);
+        } else {
+            writeField(out, "body", keypleDto.getBody());
+        }
+        if (keypleDto.isRequest() != null) {
+            out.name("isRequest").value(keypleDto.isRequest());
+        }
+        out.endObject();
+    }
+
+    @Override
+    public KeypleDto read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        String id = null;
+        String requesterNodeId = null;
+        String targetNodeId = null;
+        String sessionId = null;
+        String nativeReaderName = null;
+        String virtualReaderName = null;
+        String action = null;
+        String body = null;
+        Object bodyObject = null;
+        Type bodyType = null;
+        Boolean isRequest = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            int typedBody = indexOf(name);
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+            } else if ("id".equals(name)) {
+                id = in.nextString();
+            } else if ("requesterNodeId".equals(name)) {
+                requesterNodeId = in.nextString();
+            } else if ("targetNodeId".equals(name)) {
+                targetNodeId = in.nextString();
+            } else if ("sessionId".equals(name)) {
+                sessionId = in.nextString();
+            } else if ("nativeReaderName".equals(name)) {
+                nativeReaderName = in.nextString();
+            } else if ("virtualReaderName".equals(name)) {
+                virtualReaderName = in.nextString();
+            } else if ("action".equals(name)) {
+                action = in.nextString();
+            } else if ("body".equals(name)) {
+                JsonToken token = in.peek();
+                if (token == JsonToken.BEGIN_OBJECT || token == JsonToken.BEGIN_ARRAY) {
+                    bodyObject = new com.google.gson.JsonParser().parse(in);
+                    bodyType = JsonElement.class;
+                } else {
+                    body = in.nextString();
+                }
+            } else if (typedBody >= 0) {
+                bodyType = TYPED_BODY_TYPES[typedBody];
+                bodyObject = JsonParser.getGson().getAdapter(TypeToken.get(bodyType)).read(in);
+            } else if ("isRequest".equals(name)) {
+                isRequest = in.nextBoolean();
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+
+        if (bodyObject != null) {
+            return new KeypleDto(action, bodyObject, bodyType, isRequest, sessionId,
+                    nativeReaderName, virtualReaderName, requesterNodeId, targetNodeId, id);
+        }
+        return new KeypleDto(action, body, isRequest, sessionId, nativeReaderName,
+                virtualReaderName, requesterNodeId, targetNodeId, id);
+    }
+
+    private static void writeField(JsonWriter out, String name, String value) throws IOException {
+        if (value != null) {
+            out.name(name).value(value);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writeEmbeddedBody(JsonWriter out, KeypleDto keypleDto)
+            throws IOException {
+        Object bodyObject = keypleDto.getBodyObject();
+        if (bodyObject != null) {
+            Type bodyType = keypleDto.getBodyType();
+            int typedBody = indexOf(bodyType);
+            out.name(typedBody >= 0 ? TYPED_BODY_NAMES[typedBody] : "body");
+            ((TypeAdapter<Object>) JsonParser.getGson().getAdapter(TypeToken.get(bodyType)))
+                    .write(out, bodyObject);
+            return;
+        }
+        String body = keypleDto.getBody();
+        if (isJsonStructure(body)) {
+            JsonElement tree;
+            try {
+                tree = new com.google.gson.JsonParser().parse(body);
+            } catch (JsonParseException e) {
+                tree = null;
+            }
+            if (tree != null) {
+                out.name("body");
+                JsonParser.getGson().getAdapter(JsonElement.class).write(out, tree);
+                return;
+            }
+        }
+        writeField(out, "body", body);
+    }
+
+    private static int indexOf(String typedBodyName) {
+        for (int i = 0; i < TYPED_BODY_NAMES.length; i++) {
+            if (TYPED_BODY_NAMES[i].equals(typedBodyName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOf(Type typedBodyType) {
+        for (int i = 0; i < TYPED_BODY_TYPES.length; i++) {
+            if (TYPED_BODY_TYPES[i].equals(typedBodyType)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Body produced by a Json serialization (object or array)
+     */
+    private static boolean isJsonStructure(String body) {
+        if (body == null || body.length() < 2) {
+            return false;
+        }
+        char first = body.charAt(0);
+        char last = body.charAt(body.length() - 1);
+        return (first == '{' && last == '}') || (first == '[' && last == ']');
+    }
+}
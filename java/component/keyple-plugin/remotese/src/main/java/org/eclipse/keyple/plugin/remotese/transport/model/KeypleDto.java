@@ -11,9 +11,21 @@
  ********************************************************************************/
 package org.eclipse.keyple.plugin.remotese.transport.model;
 
+import java.lang.reflect.Type;
+import org.eclipse.keyple.plugin.remotese.transport.json.JsonParser;
+import org.eclipse.keyple.plugin.remotese.transport.json.KeypleDtoTypeAdapter;
+import com.google.gson.JsonElement;
+import com.google.gson.annotations.JsonAdapter;
+
 /**
  * Immutable Object used to invoke remotely an API call to MasterAPI or to SlaveAPI
+ * <p>
+ * Serialized by {@link KeypleDtoTypeAdapter} with any Gson instance.
+ * <p>
+ * The body is either a Json string, or an object (typed body or Json tree) serialized only when
+ * its Json string is needed, see {@link #getBody(Type)}.
  */
+@JsonAdapter(KeypleDtoTypeAdapter.class)
 public class KeypleDto {
 
     private final String id;
@@ -36,8 +48,14 @@ public class KeypleDto {
     // API method to be called
     private final String action;
 
-    // Arguments of the API (json)
-    private final String body;
+    // Arguments of the API (json), serialized from the body object when needed
+    private volatile String body;
+
+    // Arguments of the API as an object (typed body or Json tree), may be null
+    private final Object bodyObject;
+
+    // Type of the body object
+    private final Type bodyType;
 
     // Is a request or a response
     private final Boolean isRequest;
@@ -59,10 +77,40 @@ public class KeypleDto {
     public KeypleDto(String action, String body, Boolean isRequest, String sessionId,
             String nativeReaderName, String virtualReaderName, String requesterNodeId,
             String targetNodeId, String id) {
+        this(action, body, null, null, isRequest, sessionId, nativeReaderName, virtualReaderName,
+                requesterNodeId, targetNodeId, id);
+    }
+
+    /**
+     * Constructor of a KeypleDto with a body object
+     *
+     * @param action : API method to be called
+     * @param bodyObject : Arguments of the API, serialized with {@link JsonParser#getGson()}
+     * @param bodyType : Type of the body object (a {@link JsonElement} for a Json tree)
+     * @param isRequest : Is a request or a response
+     * @param sessionId : Session Id of current Virtual Reader Session Id
+     * @param nativeReaderName : readerName of the native reader
+     * @param virtualReaderName : readerName of the virtual reader
+     * @param requesterNodeId : node the request is sent from
+     * @param targetNodeId : node the request is sent to
+     * @param id : unique id of this request (null in case of notification)
+     */
+    public KeypleDto(String action, Object bodyObject, Type bodyType, Boolean isRequest,
+            String sessionId, String nativeReaderName, String virtualReaderName,
+            String requesterNodeId, String targetNodeId, String id) {
+        this(action, null, bodyObject, bodyType, isRequest, sessionId, nativeReaderName,
+                virtualReaderName, requesterNodeId, targetNodeId, id);
+    }
+
+    private KeypleDto(String action, String body, Object bodyObject, Type bodyType,
+            Boolean isRequest, String sessionId, String nativeReaderName,
+            String virtualReaderName, String requesterNodeId, String targetNodeId, String id) {
 
         this.sessionId = sessionId;
         this.action = action;
         this.body = body;
+        this.bodyObject = bodyObject;
+        this.bodyType = bodyObject != null ? bodyType : null;
         this.isRequest = isRequest;
         this.nativeReaderName = nativeReaderName;
         this.virtualReaderName = virtualReaderName;
@@ -83,10 +131,49 @@ public class KeypleDto {
         return action;
     }
 
+    /**
+     * @return the body as a Json string, serialized from the body object if needed
+     */
     public String getBody() {
+        if (body == null && bodyObject != null) {
+            body = JsonParser.getGson().toJson(bodyObject, bodyType);
+        }
         return body;
     }
 
+    /**
+     * Deserialize the body. A body object of the requested type is returned as is, a Json tree is
+     * deserialized without going through its string form.
+     *
+     * @param type the type of the body
+     * @param <T> the class of the body
+     * @return the body, null if there is no body
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getBody(Type type) {
+        if (bodyObject != null && type.equals(bodyType)) {
+            return (T) bodyObject;
+        }
+        if (bodyObject instanceof JsonElement) {
+            return JsonParser.getGson().fromJson((JsonElement) bodyObject, type);
+        }
+        return JsonParser.getGson().fromJson(getBody(), type);
+    }
+
+    /**
+     * @return the body object (typed body or Json tree), null if the body is a string
+     */
+    public Object getBodyObject() {
+        return bodyObject;
+    }
+
+    /**
+     * @return the type of the body object, null if the body is a string
+     */
+    public Type getBodyType() {
+        return bodyType;
+    }
+
     public String getSessionId() {
         return sessionId;
     }
@@ -12,6 +12,7 @@
 package org.eclipse.keyple.plugin.remotese.transport.model;
 
 
+import java.lang.reflect.Type;
 import org.eclipse.keyple.plugin.remotese.transport.json.JsonParser;
 import com.google.gson.JsonObject;
 
@@ -43,6 +44,26 @@ public class KeypleDtoHelper {
                 requesterNodeId, targetNodeId, id);
     }
 
+    /**
+     * Build a response with a body object, serialized only if the dto is encoded as a string
+     */
+    static public KeypleDto buildResponse(String action, Object body, Type bodyType,
+            String sessionId, String nativeReaderName, String virtualReaderName,
+            String requesterNodeId, String targetNodeId, String id) {
+        return new KeypleDto(action, body, bodyType, false, sessionId, nativeReaderName,
+                virtualReaderName, requesterNodeId, targetNodeId, id);
+    }
+
+    /**
+     * Build a request with a body object, serialized only if the dto is encoded as a string
+     */
+    static public KeypleDto buildRequest(String action, Object body, Type bodyType,
+            String sessionId, String nativeReaderName, String virtualReaderName,
+            String requesterNodeId, String targetNodeId, String id) {
+        return new KeypleDto(action, body, bodyType, true, sessionId, nativeReaderName,
+                virtualReaderName, requesterNodeId, targetNodeId, id);
+    }
+
     static public KeypleDto buildNotification(String action, String body, String sessionId,
             String nativeReaderName, String virtualReaderName, String requesterNodeId,
             String targetNodeId) {
@@ -87,6 +108,13 @@ public class KeypleDtoHelper {
     }
 
     static public Boolean containsException(KeypleDto keypleDto) {
+        Object bodyObject = keypleDto.getBodyObject();
+        if (bodyObject instanceof JsonObject) {
+            return ((JsonObject) bodyObject).has("stackTrace");
+        }
+        if (bodyObject != null) {
+            return bodyObject instanceof Throwable;
+        }
         return keypleDto.getBody().contains("stackTrace");
     }
 
@@ -11,10 +11,13 @@
  ********************************************************************************/
 package org.eclipse.keyple.plugin.remotese.integration;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.eclipse.keyple.calypso.command.PoClass;
 import org.eclipse.keyple.calypso.command.po.builder.ReadRecordsCmdBuild;
 import org.eclipse.keyple.calypso.command.po.parser.ReadDataStructure;
@@ -22,6 +25,7 @@ import org.eclipse.keyple.core.seproxy.ChannelState;
 import org.eclipse.keyple.core.seproxy.SeProxyService;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderException;
 import org.eclipse.keyple.core.seproxy.message.*;
+import org.eclipse.keyple.core.seproxy.plugin.AbstractObservableReader;
 import org.eclipse.keyple.core.seproxy.protocol.TransmissionMode;
 import org.eclipse.keyple.plugin.remotese.pluginse.VirtualReader;
 import org.eclipse.keyple.plugin.remotese.rm.json.SampleFactory;
@@ -154,6 +158,67 @@ public class VirtualReaderTransmitTest extends VirtualReaderBaseTest {
 
     }
 
+    /**
+     * Successful asynchronous Transmit with a Calypso command to a Calypso SE
+     *
+     * @throws Exception
+     */
+    @Test
+    public void rse_transmitAsync_Hoplink_Sucessfull() throws Exception {
+        // insert SE
+        nativeReader.insertSe(StubReaderTest.hoplinkSE());
+
+        Thread.sleep(1000);
+
+        StubReaderTest.selectSe(virtualReader);
+
+        ReadRecordsCmdBuild poReadRecordCmd_T2Env = new ReadRecordsCmdBuild(PoClass.ISO,
+                (byte) 0x14, ReadDataStructure.SINGLE_RECORD_DATA, (byte) 0x01, true, (byte) 0x20,
+                "");
+        SeRequest seRequest = new SeRequest(Arrays.asList(poReadRecordCmd_T2Env.getApduRequest()),
+                ChannelState.KEEP_OPEN);
+
+        // test
+        Future<SeResponse> seResponse =
+                ((AbstractObservableReader) virtualReader).transmitAsync(seRequest, null);
+
+        // assert
+        Assert.assertTrue(
+                seResponse.get(5, TimeUnit.SECONDS).getApduResponses().get(0).isSuccessful());
+    }
+
+    /**
+     * Successful TransmitScript with Calypso commands to a Calypso SE, in a single remote call
+     *
+     * @throws Exception
+     */
+    @Test
+    public void rse_transmitScript_Hoplink_Sucessfull() throws Exception {
+        // insert SE
+        nativeReader.insertSe(StubReaderTest.hoplinkSE());
+
+        Thread.sleep(1000);
+
+        StubReaderTest.selectSe(virtualReader);
+
+        ReadRecordsCmdBuild poReadRecordCmd_T2Env = new ReadRecordsCmdBuild(PoClass.ISO,
+                (byte) 0x14, ReadDataStructure.SINGLE_RECORD_DATA, (byte) 0x01, true, (byte) 0x20,
+                "");
+        List<SeRequest> seRequests = new ArrayList<SeRequest>();
+        seRequests.add(new SeRequest(Arrays.asList(poReadRecordCmd_T2Env.getApduRequest()),
+                ChannelState.KEEP_OPEN));
+        seRequests.add(new SeRequest(Arrays.asList(poReadRecordCmd_T2Env.getApduRequest()),
+                ChannelState.KEEP_OPEN));
+
+        // test
+        List<SeResponse> seResponses =
+                ((AbstractObservableReader) virtualReader).transmitScript(seRequests);
+
+        // assert
+        Assert.assertEquals(2, seResponses.size());
+        Assert.assertTrue(seResponses.get(1).getApduResponses().get(0).isSuccessful());
+    }
+
     @Test(expected = KeypleReaderException.class)
     public void rse_transmit_no_response() throws Exception {
 
@@ -0,0 +1,316 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.remotese.rm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.keyple.plugin.remotese.exception.KeypleRemoteException;
+import org.eclipse.keyple.plugin.remotese.transport.BlockingDtoSender;
+import org.eclipse.keyple.plugin.remotese.transport.DtoSender;
+import org.eclipse.keyple.plugin.remotese.transport.impl.java.LocalTransportDto;
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDtoHelper;
+import org.eclipse.keyple.plugin.remotese.transport.model.TransportDto;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RemoteMethodTxEngineTest {
+
+    /**
+     * Sender that only records the sent requests
+     */
+    static class RecordingSender implements DtoSender {
+        final List<KeypleDto> requests = Collections.synchronizedList(new ArrayList<KeypleDto>());
+
+        @Override
+        public void sendDTO(TransportDto message) {
+            requests.add(message.getKeypleDTO());
+        }
+
+        @Override
+        public void sendDTO(KeypleDto message) {
+            requests.add(message);
+        }
+
+        @Override
+        public String getNodeId() {
+            return "master";
+        }
+    }
+
+    /**
+     * Sender that answers each request synchronously, from the sending thread
+     */
+    static class EchoSender implements DtoSender {
+        RemoteMethodTxEngine engine;
+        volatile Thread sendingThread;
+
+        @Override
+        public void sendDTO(TransportDto message) {
+            sendDTO(message.getKeypleDTO());
+        }
+
+        @Override
+        public void sendDTO(KeypleDto message) {
+            sendingThread = Thread.currentThread();
+            engine.onDTO(response(message, "echo"));
+        }
+
+        @Override
+        public String getNodeId() {
+            return "master";
+        }
+    }
+
+    static class BlockingEchoSender extends EchoSender implements BlockingDtoSender {
+    }
+
+    /**
+     * Remote method whose response is the body of the response dto
+     */
+    static class EchoTx extends RemoteMethodTx<String> {
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile String result;
+        volatile KeypleRemoteException exception;
+        volatile int callbackCount;
+        volatile Thread callbackThread;
+
+        EchoTx() {
+            super("session", "nativeReader", "virtualReader", "slave", "master");
+        }
+
+        @Override
+        protected String parseResponse(KeypleDto keypleDto) {
+            return keypleDto.getBody();
+        }
+
+        @Override
+        public RemoteMethod getMethodName() {
+            return RemoteMethod.READER_TRANSMIT;
+        }
+
+        @Override
+        protected KeypleDto dto() {
+            return KeypleDtoHelper.buildRequest(getMethodName().getName(), "", sessionId,
+                    nativeReaderName, virtualReaderName, requesterNodeId, targetNodeId, id);
+        }
+
+        void sendWithCallback() throws KeypleRemoteException {
+            send(new RemoteMethodTxCallback<String>() {
+                @Override
+                public void get(String response, KeypleRemoteException remoteException) {
+                    callbackCount++;
+                    callbackThread = Thread.currentThread();
+                    result = response;
+                    exception = remoteException;
+                    done.countDown();
+                }
+            });
+        }
+    }
+
+    private static TransportDto response(KeypleDto request, String body) {
+        return new LocalTransportDto(KeypleDtoHelper.buildResponse(request.getAction(), body,
+                request.getSessionId(), request.getNativeReaderName(),
+                request.getVirtualReaderName(), request.getTargetNodeId(),
+                request.getRequesterNodeId(), request.getId()), null);
+    }
+
+    @Test
+    public void concurrentTx_matchedById() throws Exception {
+        RecordingSender sender = new RecordingSender();
+        RemoteMethodTxEngine engine = new RemoteMethodTxEngine(sender, 10000);
+
+        List<EchoTx> txs = new ArrayList<EchoTx>();
+        for (int i = 0; i < 10; i++) {
+            EchoTx tx = new EchoTx();
+            engine.add(tx);
+            tx.sendWithCallback();
+            txs.add(tx);
+        }
+        Assert.assertEquals(10, engine.getPendingTxCount());
+
+        /* answer in reverse order */
+        for (int i = 9; i >= 0; i--) {
+            engine.onDTO(response(sender.requests.get(i), "response" + i));
+        }
+
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(txs.get(i).done.await(1, TimeUnit.SECONDS));
+            Assert.assertEquals("response" + i, txs.get(i).result);
+        }
+        Assert.assertEquals(0, engine.getPendingTxCount());
+    }
+
+    @Test
+    public void duplicateResponse_dropped() throws Exception {
+        RecordingSender sender = new RecordingSender();
+        RemoteMethodTxEngine engine = new RemoteMethodTxEngine(sender, 10000);
+        EchoTx tx = new EchoTx();
+        engine.add(tx);
+        tx.sendWithCallback();
+
+        engine.onDTO(response(sender.requests.get(0), "first"));
+        TransportDto out = engine.onDTO(response(sender.requests.get(0), "second"));
+
+        Assert.assertTrue(KeypleDtoHelper.isNoResponse(out.getKeypleDTO()));
+        Assert.assertEquals(1, tx.callbackCount);
+        Assert.assertEquals("first", tx.result);
+    }
+
+    @Test
+    public void timeout_thenLateResponseDropped() throws Exception {
+        RecordingSender sender = new RecordingSender();
+        RemoteMethodTxEngine engine = new RemoteMethodTxEngine(sender, 50);
+        EchoTx tx = new EchoTx();
+        engine.add(tx);
+        tx.sendWithCallback();
+
+        Assert.assertTrue(tx.done.await(1, TimeUnit.SECONDS));
+        Assert.assertNotNull(tx.exception);
+        Assert.assertEquals(0, engine.getPendingTxCount());
+
+        engine.onDTO(response(sender.requests.get(0), "late"));
+        Assert.assertEquals(1, tx.callbackCount);
+        Assert.assertNull(tx.result);
+    }
+
+    @Test
+    public void timeout_callbackOffSchedulerThread() throws Exception {
+        RecordingSender sender = new RecordingSender();
+        RemoteMethodTxEngine engine = new RemoteMethodTxEngine(sender, 50);
+        EchoTx tx = new EchoTx();
+        engine.add(tx);
+        tx.sendWithCallback();
+
+        Assert.assertTrue(tx.done.await(1, TimeUnit.SECONDS));
+        /* a slow callback doesn't delay the expiration of the other transactions */
+        Assert.assertNotEquals("RemoteMethodTxEngine-timeout", tx.callbackThread.getName());
+    }
+
+    @Test
+    public void completedTx_expirationPurged() throws Exception {
+        RecordingSender sender = new RecordingSender();
+        RemoteMethodTxEngine engine = new RemoteMethodTxEngine(sender, 60000);
+        int scheduledBefore = RemoteMethodTxEngine.getScheduledExpirationCount();
+
+        for (int i = 0; i < 1000; i++) {
+            EchoTx tx = new EchoTx();
+            engine.add(tx);
+            tx.sendWithCallback();
+            engine.onDTO(response(sender.requests.get(i), "response" + i));
+        }
+
+        /* the cancelled expirations don't hold the completed transactions until their timeout */
+        Assert.assertTrue(
+                RemoteMethodTxEngine.getScheduledExpirationCount() - scheduledBefore < 256);
+    }
+
+    @Test
+    public void getResponse_sentByCallingThread() throws Exception {
+        EchoSender sender = new EchoSender();
+        sender.engine = new RemoteMethodTxEngine(sender, 10000);
+        EchoTx tx = new EchoTx();
+        sender.engine.add(tx);
+
+        Assert.assertEquals("echo", tx.getResponse());
+        Assert.assertSame(Thread.currentThread(), sender.sendingThread);
+    }
+
+    @Test
+    public void getResponse_blockingSenderUsesExecutor() throws Exception {
+        EchoSender sender = new BlockingEchoSender();
+        sender.engine = new RemoteMethodTxEngine(sender, 10000);
+        EchoTx tx = new EchoTx();
+        sender.engine.add(tx);
+
+        Assert.assertEquals("echo", tx.getResponse());
+        Assert.assertNotSame(Thread.currentThread(), sender.sendingThread);
+    }
+
+    @Test
+    public void sendAsync_blockingSenderSaturated() throws Exception {
+        final CountDownLatch networkBack = new CountDownLatch(1);
+        DtoSender sender = new BlockingEchoSender() {
+            @Override
+            public void sendDTO(KeypleDto message) {
+                try {
+                    networkBack.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        RemoteMethodTxEngine engine = new RemoteMethodTxEngine(sender, 10000);
+
+        /* the requests exceeding the sending capacity are rejected */
+        Future<String> future = null;
+        try {
+            for (int i = 0; i < 1000; i++) {
+                EchoTx tx = new EchoTx();
+                engine.add(tx);
+                future = tx.sendAsync();
+                if (future.isDone()) {
+                    break;
+                }
+            }
+            Assert.assertTrue(future.isDone());
+            try {
+                future.get();
+                Assert.fail("The rejected request should fail");
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof KeypleRemoteException);
+            }
+        } finally {
+            networkBack.countDown();
+        }
+    }
+
+    @Test(expected = KeypleRemoteException.class)
+    public void getResponse_sendFailure() throws Exception {
+        DtoSender sender = new RecordingSender() {
+            @Override
+            public void sendDTO(KeypleDto message) {
+                throw new IllegalStateException("connection lost");
+            }
+        };
+        RemoteMethodTxEngine engine = new RemoteMethodTxEngine(sender, 10000);
+        EchoTx tx = new EchoTx();
+        engine.add(tx);
+
+        tx.getResponse();
+    }
+
+    @Test
+    public void sendAsync_sendFailure_unregistered() throws Exception {
+        DtoSender sender = new RecordingSender() {
+            @Override
+            public void sendDTO(KeypleDto message) {
+                throw new IllegalStateException("connection lost");
+            }
+        };
+        RemoteMethodTxEngine engine = new RemoteMethodTxEngine(sender, 10000);
+        EchoTx tx = new EchoTx();
+        engine.add(tx);
+
+        Future<String> future = tx.sendAsync();
+
+        Assert.assertTrue(future.isDone());
+        /* no response is awaited anymore */
+        Assert.assertEquals(0, engine.getPendingTxCount());
+    }
+}
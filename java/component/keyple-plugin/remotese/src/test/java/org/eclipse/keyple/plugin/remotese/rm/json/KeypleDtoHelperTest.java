@@ -13,14 +13,25 @@ package org.eclipse.keyple.plugin.remotese.rm.json;
 
 
 import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderException;
+import org.eclipse.keyple.core.seproxy.message.SeResponse;
+import org.eclipse.keyple.plugin.remotese.transport.DtoCodec;
+import org.eclipse.keyple.plugin.remotese.transport.DtoCodecs;
+import org.eclipse.keyple.plugin.remotese.transport.json.JsonDtoCodec;
+import org.eclipse.keyple.plugin.remotese.transport.json.JsonParser;
 import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
 import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDtoHelper;
+import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import com.google.gson.reflect.TypeToken;
 
 @RunWith(MockitoJUnitRunner.class)
 public class KeypleDtoHelperTest {
@@ -40,4 +51,107 @@ public class KeypleDtoHelperTest {
 
     }
 
+    @Test
+    public void testJsonBodyAsString() {
+        List<SeResponse> responseSet = SampleFactory.getCompleteResponseSet();
+        String body = JsonParser.getGson().toJson(responseSet);
+        KeypleDto keypleDto = KeypleDtoHelper.buildResponse("reader_transmit_set", body,
+                "session", "native", "virtual", "master", "slave", "id");
+
+        String json = KeypleDtoHelper.toJson(keypleDto);
+        logger.debug(json);
+        // the body is a string, as expected by the nodes that don't negotiate
+        Assert.assertTrue(json.contains("\"body\":\"" + body.substring(0, 1)));
+
+        KeypleDto parsed = KeypleDtoHelper.fromJson(json);
+        Assert.assertEquals(keypleDto.toString(), parsed.toString());
+    }
+
+    @Test
+    public void testJsonBodyEmbedded() {
+        List<SeResponse> responseSet = SampleFactory.getCompleteResponseSet();
+        String body = JsonParser.getGson().toJson(responseSet);
+        KeypleDto keypleDto = KeypleDtoHelper.buildResponse("reader_transmit_set", body,
+                "session", "native", "virtual", "master", "slave", "id");
+        DtoCodec codec = DtoCodecs.newCodec(JsonDtoCodec.EMBEDDED_BODY_NAME);
+
+        String json = new String(codec.encode(keypleDto), Charset.forName("UTF-8"));
+        logger.debug(json);
+        // the body is not escaped as a string
+        Assert.assertTrue(json.contains("\"body\":" + body.substring(0, 2)));
+
+        KeypleDto parsed = codec.decode(json.getBytes(Charset.forName("UTF-8")));
+        Assert.assertEquals(keypleDto.toString(), parsed.toString());
+        Assert.assertEquals(JsonParser.getGson().toJson(responseSet),
+                JsonParser.getGson().toJson(
+                        JsonParser.getGson().fromJson(parsed.getBody(), List.class)));
+    }
+
+    @Test
+    public void testNonJsonBodyEmbedded() {
+        KeypleDto keypleDto = KeypleDtoHelper.buildRequest("reader_connect", "{not json}",
+                "session", "native", "virtual", "slave", "master", "id");
+        DtoCodec codec = DtoCodecs.newCodec(JsonDtoCodec.EMBEDDED_BODY_NAME);
+
+        String json = new String(codec.encode(keypleDto), Charset.forName("UTF-8"));
+        logger.debug(json);
+        // the body is kept as a string, the message is valid Json
+        Assert.assertTrue(json.contains("\"body\":\"{not json}\""));
+        new com.google.gson.JsonParser().parse(json);
+
+        KeypleDto parsed = codec.decode(json.getBytes(Charset.forName("UTF-8")));
+        Assert.assertEquals("{not json}", parsed.getBody());
+    }
+
+    @Test
+    public void testTypedBodyStreamed() {
+        Type responseListType = new TypeToken<ArrayList<SeResponse>>() {}.getType();
+        List<SeResponse> responseSet = SampleFactory.getCompleteResponseSet();
+        KeypleDto keypleDto = KeypleDtoHelper.buildResponse("reader_transmit_set", responseSet,
+                responseListType, "session", "native", "virtual", "master", "slave", "id");
+        DtoCodec codec = DtoCodecs.newCodec(JsonDtoCodec.EMBEDDED_BODY_NAME);
+
+        byte[] message = codec.encode(keypleDto);
+        Assert.assertTrue(new String(message, Charset.forName("UTF-8"))
+                .contains("\"seResponseList\":["));
+
+        // the body is read back as a list of SeResponse, not as a string
+        KeypleDto parsed = codec.decode(message);
+        Assert.assertEquals(responseListType, parsed.getBodyType());
+        List<SeResponse> parsedResponseSet = parsed.getBody(responseListType);
+        Assert.assertEquals(JsonParser.getGson().toJson(responseSet),
+                JsonParser.getGson().toJson(parsedResponseSet));
+        Assert.assertFalse(KeypleDtoHelper.containsException(parsed));
+
+        // the string form is still readable by the nodes that don't negotiate
+        KeypleDto legacy = KeypleDtoHelper.fromJson(KeypleDtoHelper.toJson(keypleDto));
+        Assert.assertNull(legacy.getBodyObject());
+        Assert.assertEquals(JsonParser.getGson().toJson(responseSet),
+                JsonParser.getGson().toJson(legacy.<List<SeResponse>>getBody(responseListType)));
+    }
+
+    @Test
+    public void testStringBodyAccepted() {
+        String json = "{\"id\":\"id\",\"action\":\"reader_connect\","
+                + "\"body\":\"{\\\"transmissionMode\\\":\\\"CONTACTLESS\\\"}\","
+                + "\"isRequest\":true}";
+
+        KeypleDto keypleDto = KeypleDtoHelper.fromJson(json);
+
+        Assert.assertEquals("{\"transmissionMode\":\"CONTACTLESS\"}", keypleDto.getBody());
+        Assert.assertTrue(keypleDto.isRequest());
+        Assert.assertNull(keypleDto.getSessionId());
+    }
+
+    @Test
+    public void testNoResponse() {
+        KeypleDto keypleDto = KeypleDtoHelper.NoResponse("id");
+
+        KeypleDto parsed = KeypleDtoHelper.fromJson(KeypleDtoHelper.toJson(keypleDto));
+
+        Assert.assertTrue(KeypleDtoHelper.isNoResponse(parsed));
+        Assert.assertEquals("", parsed.getBody());
+        Assert.assertFalse(parsed.isRequest());
+    }
+
 }
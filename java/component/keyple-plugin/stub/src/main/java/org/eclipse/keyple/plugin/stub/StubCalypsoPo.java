@@ -0,0 +1,642 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.stub;
+
+import static org.eclipse.keyple.plugin.stub.StubCalypsoUtil.*;
+import java.util.*;
+import javax.crypto.Mac;
+import org.eclipse.keyple.core.seproxy.exception.KeypleChannelStateException;
+import org.eclipse.keyple.core.seproxy.exception.KeypleIOReaderException;
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+
+/**
+ * Stateful simulation of a Calypso PO Rev 3.1
+ * <p>
+ * Unlike the hexadecimal command table of {@link StubSecureElement}, the PO holds a file system
+ * and processes the commands:
+ * <ul>
+ * <li>Select Application and Get Data (FCI),</li>
+ * <li>Read Records, Update Record, Append Record, Increase and Decrease,</li>
+ * <li>Open Secure Session (Rev 3.1) and Close Secure Session (including the abort).</li>
+ * </ul>
+ * The modifications made in a secure session are cancelled if the session is aborted, if the
+ * terminal signature is wrong or if the SE is removed before the closing. The ratification is
+ * done by the Close Secure Session when requested, otherwise by the next command received.
+ * <p>
+ * The session signatures are checked with a {@link StubCalypsoSam} sharing the same issuer key.
+ * The commands not handled are looked up in the hexadecimal command table.
+ */
+public class StubCalypsoPo extends StubSecureElement {
+    private static final String SE_PROTOCOL = "PROTOCOL_ISO14443_4";
+    private static final byte[] DEFAULT_ATR = ByteArrayUtil.fromHex("3B8880010000000000718100F9");
+    /* AID of the default application ("1TIC.ICA") */
+    private static final byte[] DEFAULT_AID = ByteArrayUtil.fromHex("315449432E49434131");
+
+    /* startup information: buffer size indicator 0x0A (430 bytes), application type Rev 3.1 */
+    private static final byte[] STARTUP_INFORMATION = ByteArrayUtil.fromHex("0A3C2305141001");
+    private static final int SESSION_BUFFER_SIZE = 430;
+    /* size of the session buffer used by a modification, in addition to the data */
+    private static final int SESSION_BUFFER_OVERHEAD = 6;
+
+    /* KIF of the personalization, load and debit keys (key index 1 to 3) */
+    private static final byte[] KIF = {(byte) 0x21, (byte) 0x27, (byte) 0x30};
+    private static final byte KVC = (byte) 0x79;
+
+    private static final int CHALLENGE_LENGTH = 4;
+    private static final int SIGNATURE_LENGTH = 4;
+    private static final int MAX_COUNTER_VALUE = 0xFFFFFF;
+
+    /**
+     * Structure of an elementary file
+     */
+    public enum FileType {
+        LINEAR, CYCLIC, COUNTERS
+    }
+
+    /**
+     * An elementary file and its records
+     */
+    private static final class ElementaryFile {
+        private final FileType fileType;
+        private final int recordSize;
+        /* a modified record is replaced, never updated in place */
+        private byte[][] records;
+
+        private ElementaryFile(FileType fileType, int recordCount, int recordSize) {
+            this.fileType = fileType;
+            this.recordSize = recordSize;
+            this.records = new byte[recordCount][recordSize];
+        }
+    }
+
+    private final byte[] atr;
+    private final byte[] aid;
+    private final byte[] serialNumber;
+    private final byte[] fci;
+    private final Map<Byte, ElementaryFile> files = new HashMap<Byte, ElementaryFile>();
+
+    /* diversified keys, by key index - 1 */
+    private final byte[][] keys = new byte[KIF.length][];
+    private final Mac sessionDigest = newMac();
+    private final Random random = new Random();
+
+    private int transactionCounter = MAX_COUNTER_VALUE;
+    private boolean sessionOpen;
+    private int sessionBufferUsed;
+    /* content of the files before their first modification in the current session */
+    private final Map<ElementaryFile, byte[][]> sessionBackup =
+            new HashMap<ElementaryFile, byte[][]>();
+    private boolean ratificationPending;
+    private boolean ratified = true;
+    private int closedSessionCount;
+    private int cancelledSessionCount;
+
+    /**
+     * Creates a PO with the default ATR, AID (315449432E49434131) and issuer key
+     *
+     * @param serialNumber the 8-byte application serial number
+     */
+    public StubCalypsoPo(byte[] serialNumber) {
+        this(DEFAULT_ATR, DEFAULT_AID, serialNumber, DEFAULT_ISSUER_KEY);
+    }
+
+    /**
+     * Creates a PO without file
+     *
+     * @param atr the ATR
+     * @param aid the DF name of the application
+     * @param serialNumber the 8-byte application serial number
+     * @param issuerKey the key from which the keys of the PO are derived (the same as the one of
+     *        the SAM)
+     */
+    public StubCalypsoPo(byte[] atr, byte[] aid, byte[] serialNumber, byte[] issuerKey) {
+        if (atr == null || aid == null || serialNumber == null || serialNumber.length != 8
+                || issuerKey == null) {
+            throw new IllegalArgumentException("Invalid PO parameters");
+        }
+        this.atr = atr.clone();
+        this.aid = aid.clone();
+        this.serialNumber = serialNumber.clone();
+        this.fci = buildFci(aid, serialNumber);
+        for (int i = 0; i < KIF.length; i++) {
+            keys[i] = diversifyKey(sessionDigest, issuerKey, KIF[i], KVC, serialNumber);
+        }
+    }
+
+    /* 6F [84 DF name] [A5 [BF0C [C7 serial number] [53 startup information]]] */
+    private static byte[] buildFci(byte[] aid, byte[] serialNumber) {
+        int discretionaryDataLength = 2 + serialNumber.length + 2 + STARTUP_INFORMATION.length;
+        int proprietaryDataLength = 3 + discretionaryDataLength;
+        int fciLength = 2 + aid.length + 2 + proprietaryDataLength;
+        byte[] fci = new byte[2 + fciLength];
+        int offset = 0;
+        fci[offset++] = (byte) 0x6F;
+        fci[offset++] = (byte) fciLength;
+        fci[offset++] = (byte) 0x84;
+        fci[offset++] = (byte) aid.length;
+        System.arraycopy(aid, 0, fci, offset, aid.length);
+        offset += aid.length;
+        fci[offset++] = (byte) 0xA5;
+        fci[offset++] = (byte) proprietaryDataLength;
+        fci[offset++] = (byte) 0xBF;
+        fci[offset++] = (byte) 0x0C;
+        fci[offset++] = (byte) discretionaryDataLength;
+        fci[offset++] = (byte) 0xC7;
+        fci[offset++] = (byte) serialNumber.length;
+        System.arraycopy(serialNumber, 0, fci, offset, serialNumber.length);
+        offset += serialNumber.length;
+        fci[offset++] = (byte) 0x53;
+        fci[offset++] = (byte) STARTUP_INFORMATION.length;
+        System.arraycopy(STARTUP_INFORMATION, 0, fci, offset, STARTUP_INFORMATION.length);
+        return fci;
+    }
+
+    @Override
+    public byte[] getATR() {
+        return atr.clone();
+    }
+
+    @Override
+    public String getSeProcotol() {
+        return SE_PROTOCOL;
+    }
+
+    /** ==== File system =================================================== */
+
+    private void addFile(byte sfi, ElementaryFile file) {
+        if (sfi < 1 || sfi > 30) {
+            throw new IllegalArgumentException("Invalid SFI: " + sfi);
+        }
+        synchronized (this) {
+            files.put(sfi, file);
+        }
+    }
+
+    /**
+     * Adds a linear file filled with zeros
+     *
+     * @param sfi the short file identifier (1 to 30)
+     * @param recordCount the number of records
+     * @param recordSize the size of the records
+     */
+    public void addLinearFile(byte sfi, int recordCount, int recordSize) {
+        addFile(sfi, new ElementaryFile(FileType.LINEAR, recordCount, recordSize));
+    }
+
+    /**
+     * Adds a cyclic file filled with zeros, the Append Record command inserts a record as record
+     * #1 and discards the oldest one
+     *
+     * @param sfi the short file identifier (1 to 30)
+     * @param recordCount the number of records
+     * @param recordSize the size of the records
+     */
+    public void addCyclicFile(byte sfi, int recordCount, int recordSize) {
+        addFile(sfi, new ElementaryFile(FileType.CYCLIC, recordCount, recordSize));
+    }
+
+    /**
+     * Adds a counters file, its counters (3 bytes each) are set to 0 and held by the record #1
+     *
+     * @param sfi the short file identifier (1 to 30)
+     * @param counterCount the number of counters
+     */
+    public void addCountersFile(byte sfi, int counterCount) {
+        addFile(sfi, new ElementaryFile(FileType.COUNTERS, 1, 3 * counterCount));
+    }
+
+    private ElementaryFile getFile(byte sfi) {
+        ElementaryFile file = files.get(sfi);
+        if (file == null) {
+            throw new IllegalArgumentException("No file with SFI " + sfi);
+        }
+        return file;
+    }
+
+    /**
+     * Sets the content of a record (the remaining bytes are set to zero)
+     *
+     * @param sfi the short file identifier
+     * @param recordNumber the record number (from 1)
+     * @param data the record data
+     */
+    public synchronized void setRecord(byte sfi, int recordNumber, byte[] data) {
+        ElementaryFile file = getFile(sfi);
+        if (recordNumber < 1 || recordNumber > file.records.length
+                || data.length > file.recordSize) {
+            throw new IllegalArgumentException("Invalid record number or length");
+        }
+        byte[] record = new byte[file.recordSize];
+        System.arraycopy(data, 0, record, 0, data.length);
+        file.records[recordNumber - 1] = record;
+    }
+
+    /**
+     * @param sfi the short file identifier
+     * @param recordNumber the record number (from 1)
+     * @return a copy of the content of the record
+     */
+    public synchronized byte[] getRecord(byte sfi, int recordNumber) {
+        ElementaryFile file = getFile(sfi);
+        if (recordNumber < 1 || recordNumber > file.records.length) {
+            throw new IllegalArgumentException("Invalid record number: " + recordNumber);
+        }
+        return file.records[recordNumber - 1].clone();
+    }
+
+    /**
+     * @param sfi the short file identifier of a counters file
+     * @param counterNumber the counter number (from 1)
+     * @return the value of the counter
+     */
+    public synchronized int getCounterValue(byte sfi, int counterNumber) {
+        ElementaryFile file = getFile(sfi);
+        if (file.fileType != FileType.COUNTERS || counterNumber < 1
+                || 3 * counterNumber > file.recordSize) {
+            throw new IllegalArgumentException("Invalid counter: " + counterNumber);
+        }
+        return ByteArrayUtil.threeBytesToInt(file.records[0], 3 * (counterNumber - 1));
+    }
+
+    /**
+     * @return a copy of the application serial number
+     */
+    public byte[] getSerialNumber() {
+        return serialNumber.clone();
+    }
+
+    /**
+     * @return the transaction counter, decremented at each session opening
+     */
+    public synchronized int getTransactionCounter() {
+        return transactionCounter;
+    }
+
+    /**
+     * @return true if a secure session is open
+     */
+    public synchronized boolean isSessionOpen() {
+        return sessionOpen;
+    }
+
+    /**
+     * @return true if the last secure session has been ratified
+     */
+    public synchronized boolean isRatified() {
+        return ratified && !ratificationPending;
+    }
+
+    /**
+     * @return the number of secure sessions closed successfully
+     */
+    public synchronized int getClosedSessionCount() {
+        return closedSessionCount;
+    }
+
+    /**
+     * @return the number of secure sessions aborted or closed with a wrong signature
+     */
+    public synchronized int getCancelledSessionCount() {
+        return cancelledSessionCount;
+    }
+
+    /** ==== Command processing ============================================ */
+
+    @Override
+    public void closePhysicalChannel() throws KeypleChannelStateException {
+        synchronized (this) {
+            /* power off: the pending modifications are lost, no ratification */
+            cancelSession();
+            ratificationPending = false;
+        }
+        super.closePhysicalChannel();
+    }
+
+    @Override
+    public byte[] processApdu(byte[] apduIn) throws KeypleIOReaderException {
+        if (apduIn == null || apduIn.length < 4) {
+            return super.processApdu(apduIn);
+        }
+        synchronized (this) {
+            if (ratificationPending) {
+                /* any command following the closing ratifies the session */
+                ratificationPending = false;
+                ratified = true;
+            }
+            byte[] apduOut;
+            switch (apduIn[OFFSET_INS]) {
+                case (byte) 0xA4:
+                    apduOut = selectApplication(apduIn);
+                    break;
+                case (byte) 0xCA:
+                    apduOut = apduIn[OFFSET_P2] == (byte) 0x6F
+                            ? response(fci, 0, fci.length, SW_SUCCESS)
+                            : null;
+                    break;
+                case (byte) 0x8A:
+                    return openSession(apduIn);
+                case (byte) 0x8E:
+                    return closeSession(apduIn);
+                case (byte) 0xB2:
+                    apduOut = readRecords(apduIn);
+                    break;
+                case (byte) 0xDC:
+                    apduOut = updateRecord(apduIn);
+                    break;
+                case (byte) 0xE2:
+                    apduOut = appendRecord(apduIn);
+                    break;
+                case (byte) 0x32:
+                    apduOut = modifyCounter(apduIn, true);
+                    break;
+                case (byte) 0x30:
+                    apduOut = modifyCounter(apduIn, false);
+                    break;
+                default:
+                    apduOut = null;
+                    break;
+            }
+            if (apduOut != null) {
+                if (sessionOpen) {
+                    sessionDigest.update(apduIn, 0, getDigestLength(apduIn));
+                    sessionDigest.update(apduOut);
+                }
+                return apduOut;
+            }
+        }
+        return super.processApdu(apduIn);
+    }
+
+    private byte[] selectApplication(byte[] apduIn) {
+        if (apduIn[OFFSET_P1] != (byte) 0x04) {
+            /* selection by path or identifier not handled */
+            return null;
+        }
+        int dataLength = getDataLength(apduIn);
+        if (dataLength > aid.length) {
+            return response(SW_FILE_NOT_FOUND);
+        }
+        for (int i = 0; i < dataLength; i++) {
+            if (apduIn[OFFSET_DATA + i] != aid[i]) {
+                return response(SW_FILE_NOT_FOUND);
+            }
+        }
+        cancelSession();
+        return response(fci, 0, fci.length, SW_SUCCESS);
+    }
+
+    private byte[] openSession(byte[] apduIn) {
+        int keyIndex = apduIn[OFFSET_P1] & 0x07;
+        int recordNumber = (apduIn[OFFSET_P1] & 0xFF) >> 3;
+        byte sfi = (byte) ((apduIn[OFFSET_P2] & 0xFF) >> 3);
+        if ((apduIn[OFFSET_P2] & 0x07) != 0x01 || keyIndex < 1 || keyIndex > KIF.length) {
+            /* only the Rev 3.1 mode is supported */
+            return response(SW_INCORRECT_P1_P2);
+        }
+        if (getDataLength(apduIn) != CHALLENGE_LENGTH) {
+            return response(SW_WRONG_LENGTH);
+        }
+        byte[] recordData = new byte[0];
+        if (sfi != 0 && recordNumber != 0) {
+            ElementaryFile file = files.get(sfi);
+            if (file == null) {
+                return response(SW_FILE_NOT_FOUND);
+            }
+            if (recordNumber > file.records.length) {
+                return response(SW_RECORD_NOT_FOUND);
+            }
+            recordData = file.records[recordNumber - 1];
+        }
+        if (transactionCounter == 0) {
+            return response(SW_CONDITIONS_OF_USE);
+        }
+        cancelSession();
+        transactionCounter--;
+
+        /* challenge (transaction counter, random), ratification, KIF, KVC, record */
+        byte[] responseData = new byte[8 + recordData.length];
+        responseData[0] = (byte) (transactionCounter >> 16);
+        responseData[1] = (byte) (transactionCounter >> 8);
+        responseData[2] = (byte) transactionCounter;
+        responseData[3] = (byte) random.nextInt();
+        responseData[4] = ratified ? (byte) 0x00 : (byte) 0x01;
+        responseData[5] = KIF[keyIndex - 1];
+        responseData[6] = KVC;
+        responseData[7] = (byte) recordData.length;
+        System.arraycopy(recordData, 0, responseData, 8, recordData.length);
+
+        initSessionDigest(sessionDigest, keys[keyIndex - 1],
+                Arrays.copyOfRange(apduIn, OFFSET_DATA, OFFSET_DATA + CHALLENGE_LENGTH),
+                Arrays.copyOf(responseData, CHALLENGE_LENGTH));
+        sessionDigest.update(responseData);
+        sessionOpen = true;
+        sessionBufferUsed = 0;
+        return response(responseData, 0, responseData.length, SW_SUCCESS);
+    }
+
+    private byte[] closeSession(byte[] apduIn) {
+        if (!sessionOpen) {
+            return response(SW_CONDITIONS_OF_USE);
+        }
+        int dataLength = getDataLength(apduIn);
+        if (dataLength == 0) {
+            /* abort */
+            cancelSession();
+            return response(SW_SUCCESS);
+        }
+        if (dataLength != SIGNATURE_LENGTH) {
+            cancelSession();
+            return response(SW_WRONG_LENGTH);
+        }
+        byte[] signature = sessionDigest.doFinal();
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            if (apduIn[OFFSET_DATA + i] != signature[i]) {
+                cancelSession();
+                return response(SW_INCORRECT_SIGNATURE);
+            }
+        }
+        /* the modifications are kept */
+        sessionBackup.clear();
+        sessionOpen = false;
+        closedSessionCount++;
+        if (apduIn[OFFSET_P1] == (byte) 0x80) {
+            ratified = true;
+        } else {
+            ratified = false;
+            ratificationPending = true;
+        }
+        return response(signature, SIGNATURE_LENGTH, SIGNATURE_LENGTH, SW_SUCCESS);
+    }
+
+    /* restores the files modified in the current session if any */
+    private void cancelSession() {
+        if (!sessionOpen) {
+            return;
+        }
+        for (Map.Entry<ElementaryFile, byte[][]> entry : sessionBackup.entrySet()) {
+            entry.getKey().records = entry.getValue();
+        }
+        sessionBackup.clear();
+        sessionOpen = false;
+        cancelledSessionCount++;
+    }
+
+    private byte[] readRecords(byte[] apduIn) {
+        int recordNumber = apduIn[OFFSET_P1] & 0xFF;
+        byte sfi = (byte) ((apduIn[OFFSET_P2] & 0xFF) >> 3);
+        int readMode = apduIn[OFFSET_P2] & 0x07;
+        if (sfi == 0 || recordNumber == 0 || (readMode != 0x04 && readMode != 0x05)) {
+            return response(SW_INCORRECT_P1_P2);
+        }
+        ElementaryFile file = files.get(sfi);
+        if (file == null) {
+            return response(SW_FILE_NOT_FOUND);
+        }
+        if (recordNumber > file.records.length) {
+            return response(SW_RECORD_NOT_FOUND);
+        }
+        if (readMode == 0x04) {
+            return response(file.records[recordNumber - 1], 0, file.recordSize, SW_SUCCESS);
+        }
+        /* multiple records: [record number, length, data] up to the end of the file */
+        int maxLength = apduIn.length > OFFSET_LC && apduIn[OFFSET_LC] != 0
+                ? apduIn[OFFSET_LC] & 0xFF
+                : 256;
+        int recordCount =
+                Math.min(file.records.length - recordNumber + 1, maxLength / (file.recordSize + 2));
+        if (recordCount == 0) {
+            return response(SW_WRONG_LENGTH);
+        }
+        byte[] responseData = new byte[recordCount * (file.recordSize + 2)];
+        int offset = 0;
+        for (int i = recordNumber; i < recordNumber + recordCount; i++) {
+            responseData[offset++] = (byte) i;
+            responseData[offset++] = (byte) file.recordSize;
+            System.arraycopy(file.records[i - 1], 0, responseData, offset, file.recordSize);
+            offset += file.recordSize;
+        }
+        return response(responseData, 0, responseData.length, SW_SUCCESS);
+    }
+
+    /**
+     * Checks the room left in the session buffer and saves the file before its first
+     * modification in the session
+     *
+     * @return false if the session buffer is full
+     */
+    private boolean prepareModification(ElementaryFile file, int dataLength) {
+        if (!sessionOpen) {
+            return true;
+        }
+        int bufferRequirement = dataLength + SESSION_BUFFER_OVERHEAD;
+        if (sessionBufferUsed + bufferRequirement > SESSION_BUFFER_SIZE) {
+            return false;
+        }
+        sessionBufferUsed += bufferRequirement;
+        if (!sessionBackup.containsKey(file)) {
+            sessionBackup.put(file, file.records.clone());
+        }
+        return true;
+    }
+
+    private byte[] updateRecord(byte[] apduIn) {
+        int recordNumber = apduIn[OFFSET_P1] & 0xFF;
+        byte sfi = (byte) ((apduIn[OFFSET_P2] & 0xFF) >> 3);
+        int dataLength = getDataLength(apduIn);
+        if (sfi == 0 || recordNumber == 0 || (apduIn[OFFSET_P2] & 0x07) != 0x04) {
+            return response(SW_INCORRECT_P1_P2);
+        }
+        ElementaryFile file = files.get(sfi);
+        if (file == null) {
+            return response(SW_FILE_NOT_FOUND);
+        }
+        if (file.fileType == FileType.COUNTERS) {
+            return response(SW_FILE_TYPE_MISMATCH);
+        }
+        if (recordNumber > file.records.length) {
+            return response(SW_RECORD_NOT_FOUND);
+        }
+        if (dataLength == 0 || dataLength > file.recordSize) {
+            return response(SW_WRONG_LENGTH);
+        }
+        if (!prepareModification(file, dataLength)) {
+            return response(SW_SESSION_BUFFER_OVERFLOW);
+        }
+        byte[] record = new byte[file.recordSize];
+        System.arraycopy(apduIn, OFFSET_DATA, record, 0, dataLength);
+        file.records[recordNumber - 1] = record;
+        return response(SW_SUCCESS);
+    }
+
+    private byte[] appendRecord(byte[] apduIn) {
+        byte sfi = (byte) ((apduIn[OFFSET_P2] & 0xFF) >> 3);
+        int dataLength = getDataLength(apduIn);
+        if (sfi == 0 || apduIn[OFFSET_P1] != 0 || (apduIn[OFFSET_P2] & 0x07) != 0) {
+            return response(SW_INCORRECT_P1_P2);
+        }
+        ElementaryFile file = files.get(sfi);
+        if (file == null) {
+            return response(SW_FILE_NOT_FOUND);
+        }
+        if (file.fileType != FileType.CYCLIC) {
+            return response(SW_FILE_TYPE_MISMATCH);
+        }
+        if (dataLength == 0 || dataLength > file.recordSize) {
+            return response(SW_WRONG_LENGTH);
+        }
+        if (!prepareModification(file, dataLength)) {
+            return response(SW_SESSION_BUFFER_OVERFLOW);
+        }
+        byte[] record = new byte[file.recordSize];
+        System.arraycopy(apduIn, OFFSET_DATA, record, 0, dataLength);
+        System.arraycopy(file.records, 0, file.records, 1, file.records.length - 1);
+        file.records[0] = record;
+        return response(SW_SUCCESS);
+    }
+
+    private byte[] modifyCounter(byte[] apduIn, boolean increase) {
+        int counterNumber = apduIn[OFFSET_P1] & 0xFF;
+        byte sfi = (byte) ((apduIn[OFFSET_P2] & 0xFF) >> 3);
+        if (sfi == 0 || counterNumber == 0 || (apduIn[OFFSET_P2] & 0x07) != 0) {
+            return response(SW_INCORRECT_P1_P2);
+        }
+        if (getDataLength(apduIn) != 3) {
+            return response(SW_WRONG_LENGTH);
+        }
+        ElementaryFile file = files.get(sfi);
+        if (file == null) {
+            return response(SW_FILE_NOT_FOUND);
+        }
+        if (file.fileType != FileType.COUNTERS) {
+            return response(SW_FILE_TYPE_MISMATCH);
+        }
+        int offset = 3 * (counterNumber - 1);
+        if (offset + 3 > file.recordSize) {
+            return response(SW_RECORD_NOT_FOUND);
+        }
+        int value = ByteArrayUtil.threeBytesToInt(apduIn, OFFSET_DATA);
+        int newValue = ByteArrayUtil.threeBytesToInt(file.records[0], offset)
+                + (increase ? value : -value);
+        if (newValue < 0 || newValue > MAX_COUNTER_VALUE) {
+            return response(SW_INCORRECT_DATA);
+        }
+        if (!prepareModification(file, 3)) {
+            return response(SW_SESSION_BUFFER_OVERFLOW);
+        }
+        byte[] record = file.records[0].clone();
+        record[offset] = (byte) (newValue >> 16);
+        record[offset + 1] = (byte) (newValue >> 8);
+        record[offset + 2] = (byte) newValue;
+        file.records[0] = record;
+        return response(record, offset, 3, SW_SUCCESS);
+    }
+}
@@ -0,0 +1,258 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.stub;
+
+import static org.eclipse.keyple.plugin.stub.StubCalypsoUtil.*;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import javax.crypto.Mac;
+import org.eclipse.keyple.core.seproxy.exception.KeypleIOReaderException;
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+
+/**
+ * Software simulation of a Calypso SAM C1 computing the secure session signatures of the
+ * {@link StubCalypsoPo}
+ * <p>
+ * The SAM processes the commands Select Diversifier, Get Challenge, Digest Init, Digest Update,
+ * Digest Update Multiple, Digest Close and Digest Authenticate. The session key is derived from
+ * the issuer key, the KIF/KVC provided in Digest Init, the diversifier and both challenges; it
+ * signs the data of the session as the PO does.
+ * <p>
+ * The commands not handled are looked up in the hexadecimal command table.
+ */
+public class StubCalypsoSam extends StubSecureElement {
+    private static final String SE_PROTOCOL = "PROTOCOL_ISO7816_3";
+    private static final String ATR_PREFIX = "3B3F9600805A0080C1200000";
+    private static final String ATR_SUFFIX = "829000";
+    private static final byte[] DEFAULT_SERIAL_NUMBER = ByteArrayUtil.fromHex("12345678");
+
+    private final byte[] atr;
+    private final byte[] issuerKey;
+    private final Mac sessionDigest = newMac();
+    private final Random random = new Random();
+
+    private byte[] diversifier;
+    /* keys diversified with the current diversifier, by KIF/KVC */
+    private final Map<Integer, byte[]> poKeys = new HashMap<Integer, byte[]>();
+    private byte[] challenge;
+    private boolean digestInProgress;
+    private byte[] expectedPoSignature;
+    private int authenticatedSessionCount;
+    private int failedAuthenticationCount;
+    private int digestUpdateMultipleCount;
+
+    /**
+     * Creates a SAM with the default serial number (12345678) and issuer key
+     */
+    public StubCalypsoSam() {
+        this(DEFAULT_SERIAL_NUMBER, DEFAULT_ISSUER_KEY);
+    }
+
+    /**
+     * Creates a SAM
+     *
+     * @param serialNumber the 4-byte serial number, provided in the ATR
+     * @param issuerKey the key from which the keys of the POs are derived
+     */
+    public StubCalypsoSam(byte[] serialNumber, byte[] issuerKey) {
+        if (serialNumber == null || serialNumber.length != 4 || issuerKey == null) {
+            throw new IllegalArgumentException("Invalid SAM parameters");
+        }
+        this.atr = ByteArrayUtil
+                .fromHex(ATR_PREFIX + ByteArrayUtil.toHex(serialNumber) + ATR_SUFFIX);
+        this.issuerKey = issuerKey.clone();
+    }
+
+    @Override
+    public byte[] getATR() {
+        return atr.clone();
+    }
+
+    @Override
+    public String getSeProcotol() {
+        return SE_PROTOCOL;
+    }
+
+    /**
+     * @return the number of sessions whose PO signature has been verified
+     */
+    public synchronized int getAuthenticatedSessionCount() {
+        return authenticatedSessionCount;
+    }
+
+    /**
+     * @return the number of wrong PO signatures
+     */
+    public synchronized int getFailedAuthenticationCount() {
+        return failedAuthenticationCount;
+    }
+
+    /**
+     * @return the number of Digest Update Multiple commands received
+     */
+    public synchronized int getDigestUpdateMultipleCount() {
+        return digestUpdateMultipleCount;
+    }
+
+    @Override
+    public byte[] processApdu(byte[] apduIn) throws KeypleIOReaderException {
+        if (apduIn == null || apduIn.length < 4) {
+            return super.processApdu(apduIn);
+        }
+        byte[] apduOut;
+        synchronized (this) {
+            switch (apduIn[OFFSET_INS]) {
+                case (byte) 0x14:
+                    apduOut = selectDiversifier(apduIn);
+                    break;
+                case (byte) 0x84:
+                    apduOut = getChallenge(apduIn);
+                    break;
+                case (byte) 0x8A:
+                    apduOut = digestInit(apduIn);
+                    break;
+                case (byte) 0x8C:
+                    apduOut = digestUpdate(apduIn);
+                    break;
+                case (byte) 0x8E:
+                    apduOut = digestClose(apduIn);
+                    break;
+                case (byte) 0x82:
+                    apduOut = digestAuthenticate(apduIn);
+                    break;
+                default:
+                    apduOut = null;
+                    break;
+            }
+        }
+        return apduOut != null ? apduOut : super.processApdu(apduIn);
+    }
+
+    private byte[] selectDiversifier(byte[] apduIn) {
+        int dataLength = getDataLength(apduIn);
+        if (dataLength != 4 && dataLength != 8) {
+            return response(SW_WRONG_LENGTH);
+        }
+        byte[] newDiversifier = Arrays.copyOfRange(apduIn, OFFSET_DATA, OFFSET_DATA + dataLength);
+        if (!Arrays.equals(newDiversifier, diversifier)) {
+            diversifier = newDiversifier;
+            poKeys.clear();
+        }
+        return response(SW_SUCCESS);
+    }
+
+    private byte[] getChallenge(byte[] apduIn) {
+        int challengeLength = apduIn.length > OFFSET_LC ? apduIn[OFFSET_LC] : 0;
+        if (challengeLength != 4 && challengeLength != 8) {
+            return response(SW_WRONG_LENGTH);
+        }
+        challenge = new byte[challengeLength];
+        random.nextBytes(challenge);
+        return response(challenge, 0, challengeLength, SW_SUCCESS);
+    }
+
+    private byte[] getPoKey(byte kif, byte kvc) {
+        Integer keyReference = (kif & 0xFF) << 8 | (kvc & 0xFF);
+        byte[] poKey = poKeys.get(keyReference);
+        if (poKey == null) {
+            poKey = diversifyKey(sessionDigest, issuerKey, kif, kvc, diversifier);
+            poKeys.put(keyReference, poKey);
+        }
+        return poKey;
+    }
+
+    private byte[] digestInit(byte[] apduIn) {
+        int dataLength = getDataLength(apduIn);
+        if (apduIn[OFFSET_P2] != (byte) 0xFF) {
+            /* the keys referenced by record number are not supported */
+            return response(SW_INCORRECT_P1_P2);
+        }
+        if (diversifier == null || challenge == null) {
+            return response(SW_CONDITIONS_OF_USE);
+        }
+        /* the PO challenge is 4 bytes long in Rev 3.1 mode, 8 bytes long in Rev 3.2 mode */
+        int poChallengeLength = (apduIn[OFFSET_P1] & 0x02) != 0 ? 8 : 4;
+        if (dataLength < 2 + poChallengeLength) {
+            return response(SW_WRONG_LENGTH);
+        }
+        byte kif = apduIn[OFFSET_DATA];
+        byte kvc = apduIn[OFFSET_DATA + 1];
+        int digestDataOffset = OFFSET_DATA + 2;
+        initSessionDigest(sessionDigest, getPoKey(kif, kvc), challenge, Arrays
+                .copyOfRange(apduIn, digestDataOffset, digestDataOffset + poChallengeLength));
+        sessionDigest.update(apduIn, digestDataOffset, dataLength - 2);
+        /* a challenge is used once */
+        challenge = null;
+        digestInProgress = true;
+        expectedPoSignature = null;
+        return response(SW_SUCCESS);
+    }
+
+    private byte[] digestUpdate(byte[] apduIn) {
+        if (!digestInProgress) {
+            return response(SW_CONDITIONS_OF_USE);
+        }
+        int dataLength = getDataLength(apduIn);
+        if (apduIn[OFFSET_P1] != (byte) 0x80) {
+            sessionDigest.update(apduIn, OFFSET_DATA, dataLength);
+            return response(SW_SUCCESS);
+        }
+        /* Digest Update Multiple: blocks prefixed by their length */
+        digestUpdateMultipleCount++;
+        int offset = OFFSET_DATA;
+        int end = OFFSET_DATA + dataLength;
+        while (offset < end) {
+            int blockLength = apduIn[offset] & 0xFF;
+            if (offset + 1 + blockLength > end) {
+                digestInProgress = false;
+                return response(SW_WRONG_LENGTH);
+            }
+            sessionDigest.update(apduIn, offset + 1, blockLength);
+            offset += 1 + blockLength;
+        }
+        return response(SW_SUCCESS);
+    }
+
+    private byte[] digestClose(byte[] apduIn) {
+        if (!digestInProgress) {
+            return response(SW_CONDITIONS_OF_USE);
+        }
+        int signatureLength = apduIn.length > OFFSET_LC ? apduIn[OFFSET_LC] : 0;
+        if (signatureLength != 4 && signatureLength != 8) {
+            return response(SW_WRONG_LENGTH);
+        }
+        byte[] signature = sessionDigest.doFinal();
+        digestInProgress = false;
+        /* the terminal part of the signature is returned, the PO part is expected */
+        expectedPoSignature =
+                Arrays.copyOfRange(signature, signatureLength, 2 * signatureLength);
+        return response(signature, 0, signatureLength, SW_SUCCESS);
+    }
+
+    private byte[] digestAuthenticate(byte[] apduIn) {
+        if (expectedPoSignature == null) {
+            return response(SW_CONDITIONS_OF_USE);
+        }
+        byte[] poSignature = Arrays.copyOfRange(apduIn, OFFSET_DATA,
+                OFFSET_DATA + getDataLength(apduIn));
+        boolean authenticated = Arrays.equals(poSignature, expectedPoSignature);
+        expectedPoSignature = null;
+        if (authenticated) {
+            authenticatedSessionCount++;
+            return response(SW_SUCCESS);
+        }
+        failedAuthenticationCount++;
+        return response(SW_INCORRECT_SIGNATURE);
+    }
+}
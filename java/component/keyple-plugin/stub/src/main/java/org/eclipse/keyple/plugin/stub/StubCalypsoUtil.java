@@ -0,0 +1,151 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.stub;
+
+import java.security.GeneralSecurityException;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+
+/**
+ * APDU and cryptographic helpers shared by {@link StubCalypsoPo} and {@link StubCalypsoSam}
+ * <p>
+ * The simulated secure session is not the Calypso one: the keys are derived and the session
+ * signed with HMAC-SHA256, which only requires the PO and the SAM to share the same issuer key.
+ */
+final class StubCalypsoUtil {
+    static final int SW_SUCCESS = 0x9000;
+    static final int SW_SESSION_BUFFER_OVERFLOW = 0x6400;
+    static final int SW_WRONG_LENGTH = 0x6700;
+    static final int SW_FILE_TYPE_MISMATCH = 0x6981;
+    static final int SW_CONDITIONS_OF_USE = 0x6985;
+    static final int SW_INCORRECT_SIGNATURE = 0x6988;
+    static final int SW_INCORRECT_DATA = 0x6A80;
+    static final int SW_FILE_NOT_FOUND = 0x6A82;
+    static final int SW_RECORD_NOT_FOUND = 0x6A83;
+    static final int SW_INCORRECT_P1_P2 = 0x6B00;
+
+    static final int OFFSET_INS = 1;
+    static final int OFFSET_P1 = 2;
+    static final int OFFSET_P2 = 3;
+    static final int OFFSET_LC = 4;
+    static final int OFFSET_DATA = 5;
+
+    /** Issuer key shared by the stub PO and SAM created without key */
+    static final byte[] DEFAULT_ISSUER_KEY =
+            ByteArrayUtil.fromHex("4B45594C45535455424953535545524B");
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private StubCalypsoUtil() {}
+
+    /**
+     * @param sw the status word
+     * @return a response without data
+     */
+    static byte[] response(int sw) {
+        return new byte[] {(byte) (sw >> 8), (byte) sw};
+    }
+
+    /**
+     * @param data the buffer holding the response data
+     * @param offset the offset of the response data in the buffer
+     * @param length the length of the response data
+     * @param sw the status word
+     * @return the response data followed by the status word
+     */
+    static byte[] response(byte[] data, int offset, int length, int sw) {
+        byte[] response = new byte[length + 2];
+        System.arraycopy(data, offset, response, 0, length);
+        response[length] = (byte) (sw >> 8);
+        response[length + 1] = (byte) sw;
+        return response;
+    }
+
+    /**
+     * @param apdu a command APDU
+     * @return the length of the data field (Lc), 0 if the command has no data field
+     */
+    static int getDataLength(byte[] apdu) {
+        return apdu.length > OFFSET_DATA ? apdu[OFFSET_LC] & 0xFF : 0;
+    }
+
+    /**
+     * Gets the length of the command as taken into account in the session digest: the Le byte of
+     * a case 4 command is excluded.
+     *
+     * @param apdu a command APDU
+     * @return the number of bytes to digest
+     */
+    static int getDigestLength(byte[] apdu) {
+        int dataLength = getDataLength(apdu);
+        return dataLength > 0 && apdu.length == OFFSET_DATA + dataLength + 1 ? apdu.length - 1
+                : apdu.length;
+    }
+
+    /**
+     * @return a new MAC engine used for the key derivations and the session signatures
+     */
+    static Mac newMac() {
+        try {
+            return Mac.getInstance(MAC_ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unavailable MAC algorithm " + MAC_ALGORITHM, e);
+        }
+    }
+
+    private static byte[] sign(Mac mac, byte[] key, byte[]... data) {
+        try {
+            mac.init(new SecretKeySpec(key, MAC_ALGORITHM));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Invalid key", e);
+        }
+        for (byte[] block : data) {
+            mac.update(block);
+        }
+        return mac.doFinal();
+    }
+
+    /**
+     * Computes the key of a PO
+     *
+     * @param mac the MAC engine
+     * @param issuerKey the issuer key
+     * @param kif the key identifier
+     * @param kvc the key version
+     * @param poSerialNumber the application serial number of the PO
+     * @return the diversified key
+     */
+    static byte[] diversifyKey(Mac mac, byte[] issuerKey, byte kif, byte kvc,
+            byte[] poSerialNumber) {
+        return sign(mac, issuerKey, new byte[] {kif, kvc}, poSerialNumber);
+    }
+
+    /**
+     * Derives the session key from the challenges and prepares the MAC engine for the digest of
+     * the session
+     *
+     * @param mac the MAC engine
+     * @param poKey the diversified key of the PO
+     * @param samChallenge the challenge provided by the SAM
+     * @param poChallenge the challenge provided by the PO
+     */
+    static void initSessionDigest(Mac mac, byte[] poKey, byte[] samChallenge,
+            byte[] poChallenge) {
+        byte[] sessionKey = sign(mac, poKey, samChallenge, poChallenge);
+        try {
+            mac.init(new SecretKeySpec(sessionKey, MAC_ALGORITHM));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Invalid session key", e);
+        }
+    }
+}
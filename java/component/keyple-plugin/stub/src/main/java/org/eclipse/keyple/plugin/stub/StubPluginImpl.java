@@ -16,6 +16,7 @@ import java.util.concurrent.ConcurrentSkipListSet;
 import org.eclipse.keyple.core.seproxy.SeReader;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderException;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderNotFoundException;
+import org.eclipse.keyple.core.seproxy.metrics.MetricsRegistry;
 import org.eclipse.keyple.core.seproxy.plugin.AbstractThreadedObservablePlugin;
 import org.eclipse.keyple.core.seproxy.protocol.TransmissionMode;
 import org.slf4j.Logger;
@@ -137,6 +138,7 @@ final class StubPluginImpl extends AbstractThreadedObservablePlugin implements S
             if (synchronous) {
                 connectedStubNames.remove(name);
                 readers.remove(getReader(name));
+                MetricsRegistry.getInstance().removeReaderMetrics(getName(), name);
             } else {
                 connectedStubNames.remove(name);
             }
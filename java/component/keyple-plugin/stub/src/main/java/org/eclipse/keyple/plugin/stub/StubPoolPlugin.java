@@ -12,10 +12,16 @@
 package org.eclipse.keyple.plugin.stub;
 
 
-import org.eclipse.keyple.core.seproxy.ReaderPoolPlugin;
+import org.eclipse.keyple.core.seproxy.BlockingReaderPoolPlugin;
 import org.eclipse.keyple.core.seproxy.SeReader;
 
-public interface StubPoolPlugin extends ReaderPoolPlugin {
+/**
+ * Pool of {@link StubReader} sorted by group reference
+ * <p>
+ * A null group reference given to allocateReader stands for any group: the least used available
+ * reader of all groups is allocated. The blocking allocation waits for the release of a reader.
+ */
+public interface StubPoolPlugin extends BlockingReaderPoolPlugin {
 
     String PLUGIN_NAME = "STUB_POOL_PLUGIN";
 
@@ -31,11 +37,18 @@ public interface StubPoolPlugin extends ReaderPoolPlugin {
     SeReader plugStubPoolReader(String groupReference, String readerName, StubSecureElement se);
 
     /**
-     * Unplug synchronously a new reader by groupReference. A READER_DISCONNECTED event will be
-     * raised.
+     * Unplug synchronously the readers of a group. A READER_DISCONNECTED event will be raised.
      *
-     * @param groupReference groupReference of the reader to be unplugged
+     * @param groupReference groupReference of the readers to be unplugged
      */
     void unplugStubPoolReader(String groupReference);
 
+    /**
+     * Set the maximum duration of an allocation, the readers not released in time are released
+     * at the next allocation request
+     *
+     * @param leaseDuration the duration in milliseconds, 0 for unlimited allocations (default)
+     */
+    void setLeaseDuration(long leaseDuration);
+
 }
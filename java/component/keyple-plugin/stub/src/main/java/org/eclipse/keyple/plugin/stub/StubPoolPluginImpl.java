@@ -12,33 +12,65 @@
 package org.eclipse.keyple.plugin.stub;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import org.eclipse.keyple.core.seproxy.ReaderPlugin;
 import org.eclipse.keyple.core.seproxy.ReaderPoolPlugin;
 import org.eclipse.keyple.core.seproxy.SeReader;
 import org.eclipse.keyple.core.seproxy.exception.KeypleBaseException;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderException;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderNotFoundException;
+import org.eclipse.keyple.core.seproxy.plugin.ReaderPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Simulates a @{@link ReaderPoolPlugin} with {@link StubReaderImpl} and {@link StubSecureElement}
- * Manages allocation readers by group reference, Limitations : - each group can contain only one
- * StubReader thus one StubSecureElement This class uses internally @{@link StubPluginImpl} which is
- * a singleton.
+ * Manages allocation readers by group reference with a {@link ReaderPool}: each group can contain
+ * any number of StubReader, a reader whose SE has been removed is evicted from the pool and
+ * unplugged. This class uses internally @{@link StubPluginImpl} which is a singleton.
  */
 final class StubPoolPluginImpl implements StubPoolPlugin {
 
+    private static final Logger logger = LoggerFactory.getLogger(StubPoolPluginImpl.class);
+
     StubPluginImpl stubPlugin;
-    Map<String, StubReaderImpl> readerPool; // groupReference, seReader = limitation each
-                                            // groupReference
-    // can have only one reader
-    Map<String, String> allocatedReader;// readerName,groupReference
+    final ReaderPool<StubReaderImpl> readerPool = new ReaderPool<StubReaderImpl>() {
+        @Override
+        protected boolean isHealthy(StubReaderImpl stubReader) {
+            return stubReader.checkSePresence();
+        }
+
+        /**
+         * Remove and Re-insert SE to reset logical channel
+         */
+        @Override
+        protected void readerReleased(StubReaderImpl stubReader) {
+            StubSecureElement se = stubReader.getSe();
+            if (se != null) {
+                stubReader.removeSe();
+                stubReader.insertSe(se);
+            }
+        }
+
+        /**
+         * Unplug the evicted reader, a READER_DISCONNECTED event is raised
+         */
+        @Override
+        protected void readerEvicted(StubReaderImpl stubReader) {
+            try {
+                stubPlugin.unplugStubReader(stubReader.getName(), true);
+            } catch (KeypleReaderException e) {
+                logger.error("Unable to unplug the evicted reader {}", stubReader.getName(), e);
+            }
+        }
+    };
+    /* the leases of the allocated readers by reader name */
+    private final Map<String, ReaderPool.Lease<StubReaderImpl>> leases =
+            new ConcurrentHashMap<String, ReaderPool.Lease<StubReaderImpl>>();
 
 
     public StubPoolPluginImpl(StubPluginImpl stubPlugin) {
         this.stubPlugin = stubPlugin;
-        this.readerPool = new HashMap<String, StubReaderImpl>();
-        this.allocatedReader = new HashMap<String, String>();
-
     }
 
     @Override
@@ -48,7 +80,7 @@ final class StubPoolPluginImpl implements StubPoolPlugin {
 
     @Override
     public SortedSet<String> getReaderGroupReferences() {
-        return new TreeSet<String>(readerPool.keySet());
+        return readerPool.getGroupReferences();
     }
 
 
@@ -63,8 +95,8 @@ final class StubPoolPluginImpl implements StubPoolPlugin {
 
             newReader.insertSe(se);
 
-            // map reader to groupReference
-            readerPool.put(groupReference, newReader);
+            // add the reader to the group
+            readerPool.addReader(groupReference, newReader);
 
             return newReader;
         } catch (KeypleReaderNotFoundException e) {
@@ -76,15 +108,10 @@ final class StubPoolPluginImpl implements StubPoolPlugin {
 
     public void unplugStubPoolReader(String groupReference) {
         try {
-            // get reader
-            SeReader stubReader = readerPool.get(groupReference);
-
-            // remove reader from pool
-            readerPool.remove(groupReference);
-
-            // remove reader from plugin
-            stubPlugin.unplugStubReader(stubReader.getName(), true);
-
+            // remove the readers of the group from pool and from plugin
+            for (StubReaderImpl stubReader : readerPool.removeGroup(groupReference)) {
+                stubPlugin.unplugStubReader(stubReader.getName(), true);
+            }
         } catch (KeypleReaderException e) {
             throw new IllegalStateException(
                     "Impossible to release reader, reader with groupReference was not found in stubplugin : "
@@ -95,29 +122,52 @@ final class StubPoolPluginImpl implements StubPoolPlugin {
 
 
     /**
-     * Allocate a reader if available by groupReference
+     * Allocate the least used available reader of a group
      * 
-     * @param groupReference the reference of the group to which the reader belongs (may be null
-     *        depending on the implementation made)
+     * @param groupReference the reference of the group to which the reader belongs, null for any
+     *        group
      * @return seReader if available, null otherwise
      */
     @Override
     public SeReader allocateReader(String groupReference) {
-        // find the reader in the readerPool
-        StubReaderImpl seReader = readerPool.get(groupReference);
+        return allocated(readerPool.tryLease(groupReference));
+    }
+
+    /**
+     * Allocate the least used available reader of a group, waiting for a release if none is
+     * available
+     *
+     * @param groupReference the reference of the group to which the reader belongs, null for any
+     *        group
+     * @param timeout the maximum waiting time in milliseconds
+     * @return seReader if available before the timeout, null otherwise
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    @Override
+    public SeReader allocateReader(String groupReference, long timeout)
+            throws InterruptedException {
+        return allocated(readerPool.lease(groupReference, timeout));
+    }
 
-        // check if the reader is available
-        if (seReader == null || allocatedReader.containsKey(seReader.getName())) {
+    /* keeps the lease of an allocated reader until its release */
+    private SeReader allocated(ReaderPool.Lease<StubReaderImpl> lease) {
+        if (lease == null) {
             return null;
-        } else {
-            allocatedReader.put(seReader.getName(), groupReference);
-            return seReader;
         }
+        StubReaderImpl stubReader = lease.getReader();
+        leases.put(stubReader.getName(), lease);
+        return stubReader;
+    }
 
+    @Override
+    public void setLeaseDuration(long leaseDuration) {
+        readerPool.setLeaseDuration(leaseDuration);
     }
 
     /**
      * Release a reader
+     * <p>
+     * The last lease of the reader is released, it is ignored if this lease has expired.
      * 
      * @param seReader the SeReader to be released.
      */
@@ -130,23 +180,14 @@ final class StubPoolPluginImpl implements StubPoolPlugin {
             throw new IllegalArgumentException(
                     "Can not release seReader, SeReader should be of type StubReader");
         }
-
-        /**
-         * Remove and Re-insert SE to reset logical channel
-         */
-        StubReaderImpl stubReader = ((StubReaderImpl) seReader);
-        if (stubReader.checkSePresence()) {
-            StubSecureElement se = stubReader.getSe();
-            stubReader.removeSe();
-            stubReader.insertSe(se);
+        ReaderPool.Lease<StubReaderImpl> lease = leases.remove(seReader.getName());
+        if (lease != null && lease.getReader() == seReader) {
+            readerPool.release(lease);
         }
-
-        allocatedReader.remove(seReader.getName());
-
     }
 
     public Map<String, String> listAllocatedReaders() {
-        return allocatedReader;
+        return readerPool.getLeasedReaders();
     }
 
 
@@ -19,6 +19,7 @@ import org.eclipse.keyple.core.seproxy.exception.KeypleIOReaderException;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderException;
 import org.eclipse.keyple.core.seproxy.exception.NoStackTraceThrowable;
 import org.eclipse.keyple.core.seproxy.plugin.AbstractThreadedLocalReader;
+import org.eclipse.keyple.core.seproxy.plugin.ObservationScheduler;
 import org.eclipse.keyple.core.seproxy.protocol.SeProtocol;
 import org.eclipse.keyple.core.seproxy.protocol.TransmissionMode;
 import org.slf4j.Logger;
@@ -46,6 +47,8 @@ final class StubReaderImpl extends AbstractThreadedLocalReader implements StubRe
     StubReaderImpl(String name) {
         super(StubPlugin.PLUGIN_NAME, name);
         threadWaitTimeout = 2000; // time between two events
+        /* insertions and removals are signalled, no polling is needed */
+        setObservationScheduler(ObservationScheduler.getDefault(), 0);
     }
 
     StubReaderImpl(String name, TransmissionMode transmissionMode) {
@@ -94,16 +97,15 @@ final class StubReaderImpl extends AbstractThreadedLocalReader implements StubRe
         // Test protocolFlag to check if ATR based protocol filtering is required
         if (protocolFlag != null) {
             if (!isPhysicalChannelOpen()) {
-                openPhysicalChannel();
+                openPhysicalChannelAndRecord();
             }
             // the requestSet will be executed only if the protocol match the requestElement
-            String selectionMask = protocolsMap.get(protocolFlag);
+            Pattern selectionMask = getProtocolRulePattern(protocolFlag);
             if (selectionMask == null) {
                 throw new KeypleReaderException("Target selector mask not found!", null);
             }
-            Pattern p = Pattern.compile(selectionMask);
             String protocol = se.getSeProcotol();
-            if (!p.matcher(protocol).matches()) {
+            if (!selectionMask.matcher(protocol).matches()) {
                 logger.trace("[{}] protocolFlagMatches => unmatching SE. PROTOCOLFLAG = {}",
                         this.getName(), protocolFlag);
                 result = false;
@@ -166,12 +168,23 @@ final class StubReaderImpl extends AbstractThreadedLocalReader implements StubRe
             }
         }
         if (_se != null) {
+            if (se != null && se != _se) {
+                /* the SE is swapped without removal */
+                countSeRemoval();
+            }
             se = _se;
         }
+        notifyAll();
+        notifySePresenceChange();
     }
 
     public synchronized void removeSe() {
+        if (se != null) {
+            countSeRemoval();
+        }
         se = null;
+        notifyAll();
+        notifySePresenceChange();
     }
 
     public StubSecureElement getSe() {
@@ -186,19 +199,24 @@ final class StubReaderImpl extends AbstractThreadedLocalReader implements StubRe
      * @throws NoStackTraceThrowable in case of unplugging the reader
      */
     @Override
-    protected boolean waitForCardPresent(long timeout) throws NoStackTraceThrowable {
-        for (int i = 0; i < timeout / 10; i++) {
-            if (checkSePresence()) {
-                return true;
-            }
+    protected synchronized boolean waitForCardPresent(long timeout) throws NoStackTraceThrowable {
+        long deadline = System.currentTimeMillis() + timeout;
+        long remaining = timeout;
+        while (se == null && remaining > 0) {
             try {
-                Thread.sleep(10);
+                wait(remaining);
             } catch (InterruptedException e) {
-                logger.debug("Sleep was interrupted");
+                logger.debug("Wait was interrupted");
+                Thread.currentThread().interrupt();
+                throw new NoStackTraceThrowable();
             }
+            remaining = deadline - System.currentTimeMillis();
         }
-        logger.trace("[{}] no card was inserted", this.getName());
-        return false;
+        if (se == null) {
+            logger.trace("[{}] no card was inserted", this.getName());
+            return false;
+        }
+        return true;
     }
 
     /**
@@ -209,19 +227,24 @@ final class StubReaderImpl extends AbstractThreadedLocalReader implements StubRe
      * @throws NoStackTraceThrowable in case of unplugging the reader
      */
     @Override
-    protected boolean waitForCardAbsent(long timeout) throws NoStackTraceThrowable {
-        for (int i = 0; i < timeout / 10; i++) {
-            if (!checkSePresence()) {
-                logger.trace("[{}] card removed", this.getName());
-                return true;
-            }
+    protected synchronized boolean waitForCardAbsent(long timeout) throws NoStackTraceThrowable {
+        long deadline = System.currentTimeMillis() + timeout;
+        long remaining = timeout;
+        while (se != null && remaining > 0) {
             try {
-                Thread.sleep(10);
+                wait(remaining);
             } catch (InterruptedException e) {
-                logger.debug("Sleep was interrupted");
+                logger.debug("Wait was interrupted");
+                Thread.currentThread().interrupt();
+                throw new NoStackTraceThrowable();
             }
+            remaining = deadline - System.currentTimeMillis();
+        }
+        if (se != null) {
+            logger.trace("[{}] no card was removed", this.getName());
+            return false;
         }
-        logger.trace("[{}] no card was removed", this.getName());
-        return false;
+        logger.trace("[{}] card removed", this.getName());
+        return true;
     }
 }
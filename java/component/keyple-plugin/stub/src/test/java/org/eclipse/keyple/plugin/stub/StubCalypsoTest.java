@@ -0,0 +1,280 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.plugin.stub;
+
+import java.util.Arrays;
+import org.eclipse.keyple.calypso.command.po.parser.ReadDataStructure;
+import org.eclipse.keyple.calypso.command.sam.SamRevision;
+import org.eclipse.keyple.calypso.transaction.*;
+import org.eclipse.keyple.calypso.transaction.exception.KeypleCalypsoSecureSessionException;
+import org.eclipse.keyple.core.selection.SeSelection;
+import org.eclipse.keyple.core.selection.SelectionsResult;
+import org.eclipse.keyple.core.seproxy.ChannelState;
+import org.eclipse.keyple.core.seproxy.SeSelector;
+import org.eclipse.keyple.core.seproxy.exception.KeypleReaderException;
+import org.eclipse.keyple.core.seproxy.protocol.SeCommonProtocols;
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("PMD.SignatureDeclareThrowsException")
+public class StubCalypsoTest extends BaseStubTest {
+    private static final String PO_AID = "315449432E49434131";
+    private static final byte SFI_EVENT_LOG = (byte) 0x08;
+    private static final byte SFI_CONTRACTS = (byte) 0x09;
+    private static final byte SFI_COUNTERS = (byte) 0x19;
+    private static final byte[] PO_SERIAL_NUMBER = ByteArrayUtil.fromHex("0000000011223344");
+
+    private StubCalypsoPo stubPo;
+    private StubReader poReader;
+    private SecuritySettings securitySettings;
+
+    @Before
+    public void setUp() throws Exception {
+        setupStub();
+        stubPo = new StubCalypsoPo(PO_SERIAL_NUMBER);
+        stubPo.addCyclicFile(SFI_EVENT_LOG, 3, 29);
+        stubPo.addLinearFile(SFI_CONTRACTS, 4, 29);
+        stubPo.addCountersFile(SFI_COUNTERS, 9);
+        stubPo.setRecord(SFI_CONTRACTS, 1, ByteArrayUtil.fromHex("0102030405"));
+        stubPo.setRecord(SFI_COUNTERS, 1, ByteArrayUtil.fromHex("000064"));
+
+        poReader = plugReader("PO_READER", SeCommonProtocols.PROTOCOL_ISO14443_4);
+        poReader.insertSe(stubPo);
+        securitySettings = new SecuritySettings();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        clearStub();
+    }
+
+    private StubReader plugReader(String readerName, SeCommonProtocols protocol)
+            throws KeypleReaderException {
+        stubPlugin.plugStubReader(readerName, true);
+        StubReader reader = (StubReader) stubPlugin.getReader(readerName);
+        reader.addSeProtocolSetting(protocol,
+                StubProtocolSetting.STUB_PROTOCOL_SETTING.get(protocol));
+        return reader;
+    }
+
+    private SamResource getSamResource(StubCalypsoSam stubSam) throws KeypleReaderException {
+        StubReader samReader = plugReader("SAM_READER", SeCommonProtocols.PROTOCOL_ISO7816_3);
+        samReader.insertSe(stubSam);
+        SeSelection samSelection = new SeSelection();
+        samSelection.prepareSelection(new SamSelectionRequest(
+                new SamSelector(SamRevision.C1, ".*", "SAM C1"), ChannelState.KEEP_OPEN));
+        CalypsoSam calypsoSam = (CalypsoSam) samSelection.processExplicitSelection(samReader)
+                .getActiveSelection().getMatchingSe();
+        return new SamResource(samReader, calypsoSam);
+    }
+
+    private PoTransaction getPoTransaction(SamResource samResource)
+            throws KeypleReaderException {
+        SeSelection seSelection = new SeSelection();
+        seSelection.prepareSelection(new PoSelectionRequest(
+                new PoSelector(SeCommonProtocols.PROTOCOL_ISO14443_4, null,
+                        new PoSelector.PoAidSelector(new SeSelector.AidSelector.IsoAid(PO_AID),
+                                PoSelector.InvalidatedPo.REJECT),
+                        "AID: " + PO_AID),
+                ChannelState.KEEP_OPEN));
+        SelectionsResult selectionsResult = seSelection.processExplicitSelection(poReader);
+        Assert.assertTrue(selectionsResult.hasActiveSelection());
+        CalypsoPo calypsoPo = (CalypsoPo) selectionsResult.getActiveSelection().getMatchingSe();
+        Assert.assertArrayEquals(PO_SERIAL_NUMBER, calypsoPo.getApplicationSerialNumber());
+        return new PoTransaction(new PoResource(poReader, calypsoPo), samResource,
+                securitySettings);
+    }
+
+    /* opens a debit session reading the contract, reads the counters, prepares the closing */
+    private PoTransaction openSessionAndPrepareDebit(SamResource samResource)
+            throws KeypleReaderException {
+        PoTransaction poTransaction = getPoTransaction(samResource);
+        Assert.assertTrue(poTransaction.processOpening(PoTransaction.ModificationMode.ATOMIC,
+                PoTransaction.SessionAccessLevel.SESSION_LVL_DEBIT, SFI_CONTRACTS, (byte) 1));
+        Assert.assertArrayEquals(stubPo.getRecord(SFI_CONTRACTS, 1),
+                poTransaction.getOpenRecordDataRead());
+        poTransaction.prepareReadRecordsCmd(SFI_COUNTERS, ReadDataStructure.SINGLE_COUNTER,
+                (byte) 1, "Counters");
+        Assert.assertTrue(poTransaction.processPoCommandsInSession());
+        poTransaction.prepareDecreaseCmd(SFI_COUNTERS, (byte) 1, 10, "Debit");
+        poTransaction.prepareAppendRecordCmd(SFI_EVENT_LOG, ByteArrayUtil.fromHex("AABBCC"),
+                "Event");
+        return poTransaction;
+    }
+
+    @Test
+    public void secureSession_modificationsCommitted() throws Exception {
+        StubCalypsoSam stubSam = new StubCalypsoSam();
+        SamResource samResource = getSamResource(stubSam);
+
+        /* the next sessions reuse the diversification of the SAM */
+        for (int i = 1; i <= 3; i++) {
+            PoTransaction poTransaction = openSessionAndPrepareDebit(samResource);
+            Assert.assertTrue(poTransaction.processClosing(ChannelState.CLOSE_AFTER));
+            Assert.assertTrue(poTransaction.isSuccessful());
+
+            Assert.assertEquals(100 - 10 * i, stubPo.getCounterValue(SFI_COUNTERS, 1));
+            Assert.assertEquals(i, stubPo.getClosedSessionCount());
+            Assert.assertEquals(i, stubSam.getAuthenticatedSessionCount());
+        }
+        Assert.assertTrue(stubPo.isRatified());
+        Assert.assertEquals(0xFFFFFF - 3, stubPo.getTransactionCounter());
+        Assert.assertArrayEquals(ByteArrayUtil.fromHex("AABBCC"),
+                Arrays.copyOf(stubPo.getRecord(SFI_EVENT_LOG, 1), 3));
+        /* the digest data is sent with simple Digest Update commands by default */
+        Assert.assertEquals(0, stubSam.getDigestUpdateMultipleCount());
+    }
+
+    @Test
+    public void secureSession_digestUpdateMultiple_modificationsCommitted() throws Exception {
+        StubCalypsoSam stubSam = new StubCalypsoSam();
+        SamResource samResource = getSamResource(stubSam);
+        securitySettings.setDigestUpdateMultipleEnabled(true);
+
+        PoTransaction poTransaction = openSessionAndPrepareDebit(samResource);
+        Assert.assertTrue(poTransaction.processClosing(ChannelState.CLOSE_AFTER));
+        Assert.assertTrue(poTransaction.isSuccessful());
+
+        Assert.assertEquals(90, stubPo.getCounterValue(SFI_COUNTERS, 1));
+        Assert.assertEquals(1, stubSam.getAuthenticatedSessionCount());
+        Assert.assertTrue(stubSam.getDigestUpdateMultipleCount() > 0);
+    }
+
+    /*
+     * opens a session in multiple mode and prepares 13 updates of the contracts: the 13th one
+     * overflows the modifications buffer of the PO (12 * (29 + 6) bytes out of 430)
+     */
+    private PoTransaction openSessionAndPrepareUpdates(SamResource samResource,
+            int failingRecordNumber) throws KeypleReaderException {
+        PoTransaction poTransaction = getPoTransaction(samResource);
+        Assert.assertTrue(poTransaction.processOpening(PoTransaction.ModificationMode.MULTIPLE,
+                PoTransaction.SessionAccessLevel.SESSION_LVL_DEBIT, (byte) 0x00, (byte) 0x00));
+        for (int i = 1; i <= 12; i++) {
+            byte[] contract = new byte[29];
+            Arrays.fill(contract, (byte) i);
+            poTransaction.prepareUpdateRecordCmd(SFI_CONTRACTS,
+                    (byte) (i == 5 ? failingRecordNumber : 1), contract, "Contract " + i);
+        }
+        byte[] contract = Arrays.copyOf(ByteArrayUtil.fromHex("0A0B0C"), 29);
+        poTransaction.prepareUpdateRecordCmd(SFI_CONTRACTS, (byte) 2, contract, "Contract 13");
+        return poTransaction;
+    }
+
+    @Test
+    public void secureSession_bufferOverflow_sessionSplit() throws Exception {
+        StubCalypsoSam stubSam = new StubCalypsoSam();
+        PoTransaction poTransaction = openSessionAndPrepareUpdates(getSamResource(stubSam), 1);
+
+        /* the first 12 updates are sent with the Close Session command */
+        Assert.assertTrue(poTransaction.processPoCommandsInSession());
+        Assert.assertEquals(1, stubPo.getClosedSessionCount());
+        Assert.assertArrayEquals(ByteArrayUtil.fromHex("0C0C0C"),
+                Arrays.copyOf(stubPo.getRecord(SFI_CONTRACTS, 1), 3));
+
+        Assert.assertTrue(poTransaction.processClosing(ChannelState.CLOSE_AFTER));
+        Assert.assertTrue(poTransaction.isSuccessful());
+        Assert.assertEquals(2, stubPo.getClosedSessionCount());
+        Assert.assertEquals(2, stubSam.getAuthenticatedSessionCount());
+        Assert.assertArrayEquals(ByteArrayUtil.fromHex("0A0B0C"),
+                Arrays.copyOf(stubPo.getRecord(SFI_CONTRACTS, 2), 3));
+    }
+
+    @Test
+    public void secureSession_bufferOverflow_failingCommandRaised() throws Exception {
+        byte[] contract1 = stubPo.getRecord(SFI_CONTRACTS, 1);
+        byte[] contract2 = stubPo.getRecord(SFI_CONTRACTS, 2);
+        PoTransaction poTransaction =
+                openSessionAndPrepareUpdates(getSamResource(new StubCalypsoSam()), 9);
+
+        /* the PO cancels the first session, the failure is raised */
+        try {
+            poTransaction.processPoCommandsInSession();
+            Assert.fail("The failing command should be raised");
+        } catch (KeypleCalypsoSecureSessionException e) {
+            Assert.assertEquals(KeypleCalypsoSecureSessionException.Type.PO, e.getType());
+        }
+        Assert.assertEquals(0, stubPo.getClosedSessionCount());
+        Assert.assertEquals(1, stubPo.getCancelledSessionCount());
+        Assert.assertFalse(stubPo.isSessionOpen());
+
+        /* none of the modifications is committed */
+        Assert.assertArrayEquals(contract1, stubPo.getRecord(SFI_CONTRACTS, 1));
+        Assert.assertArrayEquals(contract2, stubPo.getRecord(SFI_CONTRACTS, 2));
+    }
+
+    @Test
+    public void secureSession_wrongKey_modificationsCancelled() throws Exception {
+        SamResource samResource = getSamResource(new StubCalypsoSam(
+                ByteArrayUtil.fromHex("12345678"), ByteArrayUtil.fromHex("00112233")));
+        PoTransaction poTransaction = openSessionAndPrepareDebit(samResource);
+        try {
+            poTransaction.processClosing(ChannelState.CLOSE_AFTER);
+            Assert.fail("The PO should reject the terminal signature");
+        } catch (KeypleReaderException e) {
+            /* expected */
+        }
+
+        Assert.assertEquals(100, stubPo.getCounterValue(SFI_COUNTERS, 1));
+        Assert.assertArrayEquals(new byte[29], stubPo.getRecord(SFI_EVENT_LOG, 1));
+        Assert.assertEquals(0, stubPo.getClosedSessionCount());
+        Assert.assertEquals(1, stubPo.getCancelledSessionCount());
+        Assert.assertFalse(stubPo.isSessionOpen());
+    }
+
+    @Test
+    public void secureSession_cancelled_modificationsRestored() throws Exception {
+        PoTransaction poTransaction =
+                openSessionAndPrepareDebit(getSamResource(new StubCalypsoSam()));
+        Assert.assertTrue(poTransaction.processPoCommandsInSession());
+        Assert.assertEquals(90, stubPo.getCounterValue(SFI_COUNTERS, 1));
+
+        Assert.assertTrue(poTransaction.processCancel(ChannelState.CLOSE_AFTER));
+
+        Assert.assertEquals(100, stubPo.getCounterValue(SFI_COUNTERS, 1));
+        Assert.assertArrayEquals(new byte[29], stubPo.getRecord(SFI_EVENT_LOG, 1));
+        Assert.assertEquals(1, stubPo.getCancelledSessionCount());
+    }
+
+    @Test
+    public void samResource_swappedSam_selectionInvalid() throws Exception {
+        SamResource samResource = getSamResource(new StubCalypsoSam());
+        Assert.assertTrue(samResource.isSelectionValid());
+
+        /* the SAM is swapped between two uses of the resource */
+        StubReader samReader = (StubReader) samResource.getSeReader();
+        samReader.removeSe();
+        samReader.insertSe(new StubCalypsoSam());
+
+        Assert.assertFalse(samResource.isSelectionValid());
+    }
+
+    @Test
+    public void secureSession_swappedSam_diversifiedAgain() throws Exception {
+        SamResource samResource = getSamResource(new StubCalypsoSam());
+        PoTransaction poTransaction = openSessionAndPrepareDebit(samResource);
+        Assert.assertTrue(poTransaction.processClosing(ChannelState.CLOSE_AFTER));
+
+        /* the SAM is swapped while the resource is held, the new one is not diversified */
+        StubCalypsoSam newStubSam = new StubCalypsoSam();
+        StubReader samReader = (StubReader) samResource.getSeReader();
+        samReader.removeSe();
+        samReader.insertSe(newStubSam);
+
+        poTransaction = openSessionAndPrepareDebit(samResource);
+        Assert.assertTrue(poTransaction.processClosing(ChannelState.CLOSE_AFTER));
+        Assert.assertTrue(poTransaction.isSuccessful());
+        Assert.assertEquals(1, newStubSam.getAuthenticatedSessionCount());
+    }
+}
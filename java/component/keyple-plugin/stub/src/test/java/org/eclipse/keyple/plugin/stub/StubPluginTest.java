@@ -21,6 +21,8 @@ import org.eclipse.keyple.core.seproxy.event.ObservablePlugin;
 import org.eclipse.keyple.core.seproxy.event.PluginEvent;
 import org.eclipse.keyple.core.seproxy.exception.KeyplePluginNotFoundException;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderException;
+import org.eclipse.keyple.core.seproxy.metrics.MetricsRegistry;
+import org.eclipse.keyple.core.seproxy.metrics.ReaderMetrics;
 import org.eclipse.keyple.core.seproxy.protocol.TransmissionMode;
 import org.junit.*;
 import org.junit.runner.RunWith;
@@ -124,6 +126,25 @@ public class StubPluginTest extends BaseStubTest {
 
     }
 
+    /**
+     * Unplug one reader synchronously Check: metrics of the reader removed
+     */
+    @Test
+    public void unplugOneReader_metricsRemoved()
+            throws InterruptedException, KeypleReaderException {
+        final String READER_NAME = "unplugOneReader_metricsRemoved";
+        stubPlugin.plugStubReader(READER_NAME, true);
+        ReaderMetrics readerMetrics =
+                MetricsRegistry.getInstance().getReaderMetrics(StubPlugin.PLUGIN_NAME, READER_NAME);
+        Assert.assertTrue(MetricsRegistry.getInstance().getAllReaderMetrics()
+                .contains(readerMetrics));
+
+        stubPlugin.unplugStubReader(READER_NAME, true);
+
+        Assert.assertFalse(MetricsRegistry.getInstance().getAllReaderMetrics()
+                .contains(readerMetrics));
+    }
+
 
 
     /**
@@ -17,6 +17,7 @@ import org.eclipse.keyple.core.seproxy.SeReader;
 import org.eclipse.keyple.core.seproxy.exception.KeyplePluginNotFoundException;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderException;
 import org.eclipse.keyple.core.seproxy.exception.NoStackTraceThrowable;
+import org.eclipse.keyple.core.seproxy.plugin.ReaderPool;
 import org.junit.*;
 import org.junit.runner.RunWith;
 import org.junit.runners.MethodSorters;
@@ -129,6 +130,79 @@ public class StubPoolPluginTest extends BaseStubTest {
         Assert.assertNull(seReader2);
     }
 
+    /**
+     * Allocate the readers of a group, then wait for a release
+     */
+    @Test
+    public void allocate_groupOfReaders() throws InterruptedException, KeypleReaderException {
+        // init stubPoolPlugin
+        StubPoolPluginImpl stubPoolPlugin =
+                (StubPoolPluginImpl) new StubPoolPluginFactory(new StubPluginFactory())
+                        .getPluginInstance();
+
+        // plug two readers in the same group
+        stubPoolPlugin.plugStubPoolReader("group1", "stub1", stubSe);
+        stubPoolPlugin.plugStubPoolReader("group1", "stub2", stubSe);
+        Assert.assertEquals(1, stubPoolPlugin.getReaderGroupReferences().size());
+
+        // allocate both readers
+        SeReader seReader = stubPoolPlugin.allocateReader("group1");
+        SeReader seReader2 = stubPoolPlugin.allocateReader("group1");
+        Assert.assertNotNull(seReader);
+        Assert.assertNotNull(seReader2);
+        Assert.assertNotSame(seReader, seReader2);
+        Assert.assertEquals(2, stubPoolPlugin.listAllocatedReaders().size());
+
+        // no reader is available before the timeout
+        Assert.assertNull(stubPoolPlugin.allocateReader("group1", 10));
+
+        // the released reader is allocated again
+        stubPoolPlugin.releaseReader(seReader);
+        Assert.assertSame(seReader, stubPoolPlugin.allocateReader("group1", 10));
+    }
+
+    /**
+     * A reader whose SE has been removed is evicted and unplugged
+     */
+    @Test
+    public void allocate_evictedReaderUnplugged()
+            throws InterruptedException, KeypleReaderException {
+        // init stubPoolPlugin
+        StubPoolPluginImpl stubPoolPlugin =
+                (StubPoolPluginImpl) new StubPoolPluginFactory(new StubPluginFactory())
+                        .getPluginInstance();
+
+        // plug a reader and remove its SE
+        StubReader stubReader =
+                (StubReader) stubPoolPlugin.plugStubPoolReader("group1", "stub1", stubSe);
+        stubReader.removeSe();
+
+        // the reader is not allocated but unplugged
+        Assert.assertNull(stubPoolPlugin.allocateReader("group1"));
+        Assert.assertEquals(0, stubPoolPlugin.getReaders().size());
+        Assert.assertEquals(0, stubPoolPlugin.getReaderGroupReferences().size());
+    }
+
+    /**
+     * Allocate a reader of any group
+     */
+    @Test
+    public void allocate_anyGroup() throws InterruptedException, KeypleReaderException {
+        // init stubPoolPlugin
+        StubPoolPluginImpl stubPoolPlugin =
+                (StubPoolPluginImpl) new StubPoolPluginFactory(new StubPluginFactory())
+                        .getPluginInstance();
+
+        // plug readers
+        stubPoolPlugin.plugStubPoolReader("group1", "stub1", stubSe);
+        stubPoolPlugin.plugStubPoolReader("group2", "stub2", stubSe);
+
+        // a null group reference stands for any group
+        Assert.assertNotNull(stubPoolPlugin.allocateReader(null));
+        Assert.assertNotNull(stubPoolPlugin.allocateReader(null));
+        Assert.assertNull(stubPoolPlugin.allocateReader(null));
+    }
+
     /**
      * Release one reader
      */
@@ -154,6 +228,32 @@ public class StubPoolPluginTest extends BaseStubTest {
 
     }
 
+    /**
+     * The release of a reader whose lease has expired is ignored
+     */
+    @Test
+    public void release_expiredLease() throws InterruptedException, KeypleReaderException {
+        // init stubPoolPlugin
+        StubPoolPluginImpl stubPoolPlugin =
+                (StubPoolPluginImpl) new StubPoolPluginFactory(new StubPluginFactory())
+                        .getPluginInstance();
+
+        // plug a reader and let its lease expire
+        stubPoolPlugin.plugStubPoolReader("group1", "stub1", stubSe);
+        stubPoolPlugin.setLeaseDuration(20);
+        SeReader seReader = stubPoolPlugin.allocateReader("group1");
+        Assert.assertNotNull(seReader);
+        Thread.sleep(40);
+        Assert.assertEquals(1, stubPoolPlugin.readerPool.reclaimExpiredLeases());
+
+        // the late release does not free the reader leased again
+        ReaderPool.Lease<StubReaderImpl> lease = stubPoolPlugin.readerPool.tryLease("group1");
+        Assert.assertSame(seReader, lease.getReader());
+        stubPoolPlugin.releaseReader(seReader);
+        Assert.assertEquals(1, stubPoolPlugin.listAllocatedReaders().size());
+        Assert.assertTrue(stubPoolPlugin.readerPool.release(lease));
+    }
+
     /**
      * Stub Secure Element
      */
@@ -15,6 +15,8 @@ package org.eclipse.keyple.plugin.stub;
 
 import java.util.*;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import org.eclipse.keyple.calypso.command.PoClass;
 import org.eclipse.keyple.calypso.command.po.builder.IncreaseCmdBuild;
@@ -35,6 +37,10 @@ import org.eclipse.keyple.core.seproxy.exception.KeypleIOReaderException;
 import org.eclipse.keyple.core.seproxy.exception.KeypleReaderException;
 import org.eclipse.keyple.core.seproxy.exception.NoStackTraceThrowable;
 import org.eclipse.keyple.core.seproxy.message.*;
+import org.eclipse.keyple.core.seproxy.metrics.MetricsRegistry;
+import org.eclipse.keyple.core.seproxy.metrics.ReaderMetrics;
+import org.eclipse.keyple.core.seproxy.plugin.AbstractObservableReader;
+import org.eclipse.keyple.core.seproxy.plugin.SeRequestTiming;
 import org.eclipse.keyple.core.seproxy.protocol.SeCommonProtocols;
 import org.eclipse.keyple.core.seproxy.protocol.TransmissionMode;
 import org.eclipse.keyple.core.util.ByteArrayUtil;
@@ -694,6 +700,88 @@ public class StubReaderTest extends BaseStubTest {
     // }
 
 
+    @Test
+    public void transmit_Hoplink_metricsRecorded() throws Exception {
+        stubPlugin.plugStubReader("StubReaderTest", true);
+        StubReader reader = (StubReader) stubPlugin.getReader("StubReaderTest");
+        reader.insertSe(hoplinkSE());
+        reader.addSeProtocolSetting(SeCommonProtocols.PROTOCOL_ISO14443_4,
+                StubProtocolSetting.STUB_PROTOCOL_SETTING
+                        .get(SeCommonProtocols.PROTOCOL_ISO14443_4));
+        ReaderMetrics metrics = MetricsRegistry.getInstance()
+                .getReaderMetrics(stubPlugin.getName(), "StubReaderTest");
+        metrics.reset();
+
+        selectSe(reader);
+        ((ProxyReader) reader).transmitSet(getRequestIsoDepSetSample());
+
+        Assert.assertTrue(metrics.getApduCount() >= 1);
+        Assert.assertEquals(metrics.getApduCount(), metrics.getApduLatency().getCount());
+        Assert.assertTrue(metrics.getBytesSent() > 0);
+        Assert.assertTrue(metrics.getBytesReceived() >= 2 * metrics.getApduCount());
+        Assert.assertTrue(metrics.getSelectionLatency().getCount() >= 1);
+        Assert.assertTrue(metrics.getPhysicalChannelOpeningLatency().getCount() >= 1);
+        Assert.assertEquals(0, metrics.getErrorCount());
+
+        /* an SE without response */
+        reader.removeSe();
+        reader.insertSe(noApduResponseSE());
+        selectSe(reader);
+        try {
+            ((ProxyReader) reader).transmitSet(getNoResponseRequest());
+            Assert.fail("KeypleReaderException expected");
+        } catch (KeypleReaderException e) {
+            Assert.assertEquals(1, metrics.getErrorCount());
+            Assert.assertEquals(Long.valueOf(1),
+                    metrics.getErrorCounts().get(e.getClass().getName()));
+        }
+    }
+
+    @Test
+    public void transmit_nullApduResponse_metricsRecorded() throws Exception {
+        stubPlugin.plugStubReader("StubReaderTest", true);
+        StubReader reader = (StubReader) stubPlugin.getReader("StubReaderTest");
+        /* an SE answering the selection only, the reader gives no response to the read */
+        reader.insertSe(new StubSecureElement() {
+            @Override
+            public byte[] processApdu(byte[] apduIn) throws KeypleIOReaderException {
+                addHexCommand("00 A4 04 00 0A A0 00 00 02 91 A0 00 00 01 91 00",
+                        "6F25840BA000000291A00000019102A516BF0C13C70800000000C0E11FA653070A3C230C1410019000");
+                if (apduIn[1] == (byte) 0xB2) {
+                    return null;
+                }
+                return super.processApdu(apduIn);
+            }
+
+            @Override
+            public byte[] getATR() {
+                return hoplinkSE().getATR();
+            }
+
+            @Override
+            public String getSeProcotol() {
+                return "PROTOCOL_ISO14443_4";
+            }
+        });
+        reader.addSeProtocolSetting(SeCommonProtocols.PROTOCOL_ISO14443_4,
+                StubProtocolSetting.STUB_PROTOCOL_SETTING
+                        .get(SeCommonProtocols.PROTOCOL_ISO14443_4));
+        MetricsRegistry.getInstance().setEnabled(true);
+        ReaderMetrics metrics = MetricsRegistry.getInstance()
+                .getReaderMetrics(stubPlugin.getName(), "StubReaderTest");
+
+        selectSe(reader);
+        metrics.reset();
+        List<SeResponse> seResponses =
+                ((ProxyReader) reader).transmitSet(getRequestIsoDepSetSample());
+
+        ApduResponse apduResponse = seResponses.get(0).getApduResponses().get(0);
+        Assert.assertNull(apduResponse.getBytes());
+        Assert.assertFalse(apduResponse.isSuccessful());
+        Assert.assertEquals(1, metrics.getApduCount());
+        Assert.assertEquals(0, metrics.getBytesReceived());
+    }
+
     @Test(expected = KeypleReaderException.class)
     public void transmit_no_response() throws Exception {
         stubPlugin.plugStubReader("StubReaderTest", true);
@@ -717,6 +805,175 @@ public class StubReaderTest extends BaseStubTest {
         List<SeResponse> seResponse = ((ProxyReader) reader).transmitSet(requests);
     }
 
+    @Test
+    public void transmitAsync_Hoplink_Successful() throws Exception {
+        stubPlugin.plugStubReader("StubReaderTest", true);
+        StubReader reader = (StubReader) stubPlugin.getReader("StubReaderTest");
+        Set<SeRequest> requests = getRequestIsoDepSetSample();
+        reader.insertSe(hoplinkSE());
+        reader.addSeProtocolSetting(SeCommonProtocols.PROTOCOL_ISO14443_4,
+                StubProtocolSetting.STUB_PROTOCOL_SETTING
+                        .get(SeCommonProtocols.PROTOCOL_ISO14443_4));
+        selectSe(reader);
+
+        final CountDownLatch lock = new CountDownLatch(1);
+        final List<List<SeResponse>> callbackResponses = new ArrayList<List<SeResponse>>();
+
+        // test
+        Future<List<SeResponse>> future = ((AbstractObservableReader) reader)
+                .transmitSetAsync(requests, new TransmitCallback<List<SeResponse>>() {
+                    @Override
+                    public void onComplete(List<SeResponse> response,
+                            KeypleReaderException exception) {
+                        callbackResponses.add(response);
+                        lock.countDown();
+                    }
+                });
+
+        // assert
+        List<SeResponse> seResponse = future.get(2, TimeUnit.SECONDS);
+        Assert.assertTrue(seResponse.get(0).getApduResponses().get(0).isSuccessful());
+        Assert.assertTrue(lock.await(2, TimeUnit.SECONDS));
+        Assert.assertSame(seResponse, callbackResponses.get(0));
+    }
+
+    @Test
+    public void transmitAsync_no_response() throws Exception {
+        stubPlugin.plugStubReader("StubReaderTest", true);
+        StubReader reader = (StubReader) stubPlugin.getReader("StubReaderTest");
+        Set<SeRequest> requests = getNoResponseRequest();
+        reader.insertSe(noApduResponseSE());
+        reader.addSeProtocolSetting(SeCommonProtocols.PROTOCOL_ISO14443_4,
+                StubProtocolSetting.STUB_PROTOCOL_SETTING
+                        .get(SeCommonProtocols.PROTOCOL_ISO14443_4));
+        selectSe(reader);
+
+        // test
+        Future<List<SeResponse>> future =
+                ((AbstractObservableReader) reader).transmitSetAsync(requests, null);
+
+        // assert
+        try {
+            future.get(2, TimeUnit.SECONDS);
+            Assert.fail("ExecutionException expected");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof KeypleReaderException);
+        }
+    }
+
+    @Test
+    public void transmitScript_Hoplink_Successful() throws Exception {
+        StubReader reader = getSelectedHoplinkReader();
+        ReadRecordsCmdBuild poReadRecordCmd_T2Env = new ReadRecordsCmdBuild(PoClass.ISO,
+                (byte) 0x14, ReadDataStructure.SINGLE_RECORD_DATA, (byte) 0x01, true, (byte) 0x20,
+                "");
+        List<SeRequest> seRequests = new ArrayList<SeRequest>();
+        seRequests.add(new SeRequest(Arrays.asList(poReadRecordCmd_T2Env.getApduRequest()),
+                ChannelState.KEEP_OPEN));
+        seRequests.add(new SeRequest(Arrays.asList(poReadRecordCmd_T2Env.getApduRequest()),
+                ChannelState.CLOSE_AFTER));
+
+        // test
+        List<SeResponse> seResponses =
+                ((AbstractObservableReader) reader).transmitScript(seRequests);
+
+        // assert
+        Assert.assertEquals(2, seResponses.size());
+        Assert.assertTrue(seResponses.get(0).getApduResponses().get(0).isSuccessful());
+        Assert.assertTrue(seResponses.get(1).getApduResponses().get(0).isSuccessful());
+    }
+
+    @Test
+    public void transmitScript_stopOnFailure() throws Exception {
+        StubReader reader = getSelectedHoplinkReader();
+        ReadRecordsCmdBuild poReadRecordCmd_T2Env = new ReadRecordsCmdBuild(PoClass.ISO,
+                (byte) 0x14, ReadDataStructure.SINGLE_RECORD_DATA, (byte) 0x01, true, (byte) 0x20,
+                "");
+        List<SeRequest> seRequests = new ArrayList<SeRequest>();
+        /* select an unknown application: 6A82 */
+        seRequests.add(new SeRequest(
+                Arrays.asList(new ApduRequest(
+                        ByteArrayUtil.fromHex("00A404000AA000000291A00000019200"), true)),
+                ChannelState.KEEP_OPEN));
+        seRequests.add(new SeRequest(Arrays.asList(poReadRecordCmd_T2Env.getApduRequest()),
+                ChannelState.KEEP_OPEN));
+
+        // test
+        List<SeResponse> seResponses =
+                ((AbstractObservableReader) reader).transmitScript(seRequests);
+
+        // assert: the second request is not processed
+        Assert.assertEquals(1, seResponses.size());
+        Assert.assertFalse(seResponses.get(0).getApduResponses().get(0).isSuccessful());
+    }
+
+    @Test
+    public void transmitSet_candidateSelections_atrReadOnce() throws Exception {
+        stubPlugin.plugStubReader("StubReaderTest", true);
+        StubReader reader = (StubReader) stubPlugin.getReader("StubReaderTest");
+        reader.addSeProtocolSetting(SeCommonProtocols.PROTOCOL_ISO14443_4,
+                StubProtocolSetting.STUB_PROTOCOL_SETTING
+                        .get(SeCommonProtocols.PROTOCOL_ISO14443_4));
+        final StubSecureElement hoplinkSE = hoplinkSE();
+        final int[] atrReadCount = new int[1];
+        reader.insertSe(new StubSecureElement() {
+            @Override
+            public byte[] processApdu(byte[] apduIn) throws KeypleIOReaderException {
+                return hoplinkSE.processApdu(apduIn);
+            }
+
+            @Override
+            public byte[] getATR() {
+                atrReadCount[0]++;
+                return hoplinkSE.getATR();
+            }
+
+            @Override
+            public String getSeProcotol() {
+                return hoplinkSE.getSeProcotol();
+            }
+        });
+
+        /* three candidate applications, only the second one is present */
+        Set<SeRequest> requests = new LinkedHashSet<SeRequest>();
+        for (String aid : new String[] {"A000000291A000000192", "A000000291A000000191",
+                "A000000291A000000192"}) {
+            requests.add(new SeRequest(
+                    new SeSelector(SeCommonProtocols.PROTOCOL_ISO14443_4,
+                            new SeSelector.AtrFilter(".*"),
+                            new SeSelector.AidSelector(new SeSelector.AidSelector.IsoAid(aid),
+                                    null),
+                            null),
+                    new ArrayList<ApduRequest>(), ChannelState.CLOSE_AFTER));
+        }
+
+        List<SeResponse> seResponses = ((ProxyReader) reader).transmitSet(requests);
+
+        Assert.assertEquals(3, seResponses.size());
+        Assert.assertFalse(seResponses.get(0).getSelectionStatus().hasMatched());
+        Assert.assertTrue(seResponses.get(1).getSelectionStatus().hasMatched());
+        Assert.assertFalse(seResponses.get(2).getSelectionStatus().hasMatched());
+        Assert.assertEquals(1, atrReadCount[0]);
+
+        List<SeRequestTiming> timings = ((StubReaderImpl) reader).getLastSeRequestSetTimings();
+        Assert.assertEquals(3, timings.size());
+        for (SeRequestTiming timing : timings) {
+            Assert.assertTrue(timing.isProcessed());
+            Assert.assertTrue(timing.getTotalDuration() >= timing.getSelectionDuration());
+        }
+    }
+
+    private StubReader getSelectedHoplinkReader() throws Exception {
+        stubPlugin.plugStubReader("StubReaderTest", true);
+        StubReader reader = (StubReader) stubPlugin.getReader("StubReaderTest");
+        reader.insertSe(hoplinkSE());
+        reader.addSeProtocolSetting(SeCommonProtocols.PROTOCOL_ISO14443_4,
+                StubProtocolSetting.STUB_PROTOCOL_SETTING
+                        .get(SeCommonProtocols.PROTOCOL_ISO14443_4));
+        selectSe(reader);
+        return reader;
+    }
+
     @Test
     public void transmit_partial_response_set_0() throws Exception {
         stubPlugin.plugStubReader("StubReaderTest", true);
@@ -12,6 +12,8 @@
 package org.eclipse.keyple.example.remote.transport.websocket;
 
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.Collections;
 import org.eclipse.keyple.plugin.remotese.transport.*;
 import org.eclipse.keyple.plugin.remotese.transport.factory.ClientNode;
 import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
@@ -24,7 +26,7 @@ import org.slf4j.LoggerFactory;
 
 
 /**
- * Web socket client
+ * Web socket client, the codec is negotiated during the handshake (see {@link WskCodecs})
  */
 public class WskClient extends WebSocketClient implements ClientNode {
 
@@ -32,9 +34,11 @@ public class WskClient extends WebSocketClient implements ClientNode {
     private DtoHandler dtoHandler;
     private final String clientNodeId;
     final private String serverNodeId;
+    private volatile DtoCodec codec = WskCodecs.newCodec(null);
 
     public WskClient(URI url, String clientNodeId, String serverNodeId) {
-        super(url);
+        super(url, Collections.singletonMap(WskCodecs.OFFERED_CODECS_HEADER,
+                WskCodecs.getOfferedCodecs()));
         this.clientNodeId = clientNodeId;
         this.serverNodeId = serverNodeId;
     }
@@ -42,11 +46,23 @@ public class WskClient extends WebSocketClient implements ClientNode {
     @Override
     public void onOpen(ServerHandshake handshakedata) {
         logger.trace("Web socket onOpen {}", handshakedata);
-
+        codec = WskCodecs.newCodec(handshakedata.getFieldValue(WskCodecs.CODEC_HEADER));
+        logger.debug("Codec negotiated with the server : {}", codec.getName());
     }
 
     @Override
     public void onMessage(final String message) {
+        logger.trace("Web socket onMessage {}", message);
+        onDto(KeypleDtoHelper.fromJson(message));
+    }
+
+    @Override
+    public void onMessage(ByteBuffer message) {
+        logger.trace("Web socket onMessage {} bytes", message.remaining());
+        onDto(WskCodecs.decode(codec, message));
+    }
+
+    private void onDto(final KeypleDto dto) {
 
         final WskClient thisClient = this;
 
@@ -54,9 +70,6 @@ public class WskClient extends WebSocketClient implements ClientNode {
         new Thread(new Runnable() {
             @Override
             public void run() {
-                logger.trace("Web socket onMessage {}", message);
-                KeypleDto dto = KeypleDtoHelper.fromJson(message);
-
                 // process dto
                 TransportDto transportDto =
                         dtoHandler.onDTO(new WskTransportDTO(dto, null, thisClient));
@@ -93,7 +106,7 @@ public class WskClient extends WebSocketClient implements ClientNode {
         if (!KeypleDtoHelper.isNoResponse(keypleDto)) {
             logger.trace("send message to server (KeypleDto) {}",
                     KeypleDtoHelper.toJson(keypleDto));
-            this.send(KeypleDtoHelper.toJson(keypleDto));
+            WskCodecs.send(this, codec, keypleDto);
         } else {
             logger.debug("No message to send back");
         }
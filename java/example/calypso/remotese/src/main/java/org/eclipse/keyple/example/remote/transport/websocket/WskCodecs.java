@@ -0,0 +1,99 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.example.remote.transport.websocket;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import org.eclipse.keyple.plugin.remotese.transport.DtoCodec;
+import org.eclipse.keyple.plugin.remotese.transport.DtoCodecs;
+import org.eclipse.keyple.plugin.remotese.transport.binary.BinaryDtoCodec;
+import org.eclipse.keyple.plugin.remotese.transport.json.JsonDtoCodec;
+import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
+import org.java_websocket.WebSocket;
+
+/**
+ * Codec negotiation over the websocket handshake
+ * <p>
+ * The client offers its codecs in the {@link #OFFERED_CODECS_HEADER} header of the handshake
+ * request, the server answers the chosen codec in the {@link #CODEC_HEADER} header. A node that
+ * doesn't negotiate gets Json. Json dtos are sent in text frames, binary dtos in binary frames.
+ */
+final class WskCodecs {
+
+    static final String OFFERED_CODECS_HEADER = "Keyple-Codecs";
+    static final String CODEC_HEADER = "Keyple-Codec";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private WskCodecs() {}
+
+    /**
+     * @return the value of the header offering the supported codecs
+     */
+    static String getOfferedCodecs() {
+        StringBuilder offeredCodecs = new StringBuilder();
+        for (String codecName : DtoCodecs.getSupportedCodecNames()) {
+            if (offeredCodecs.length() > 0) {
+                offeredCodecs.append(',');
+            }
+            offeredCodecs.append(codecName);
+        }
+        return offeredCodecs.toString();
+    }
+
+    /**
+     * Choose the codec from the header sent by the client
+     *
+     * @param offeredCodecs the header value, may be null or empty
+     * @return the name of the chosen codec
+     */
+    static String negotiate(String offeredCodecs) {
+        List<String> offeredCodecNames = null;
+        if (offeredCodecs != null && offeredCodecs.length() > 0) {
+            offeredCodecNames = new ArrayList<String>();
+            for (String codecName : offeredCodecs.split(",")) {
+                offeredCodecNames.add(codecName.trim());
+            }
+        }
+        return DtoCodecs.negotiate(offeredCodecNames);
+    }
+
+    /**
+     * Create the codec from the header answered by the server
+     *
+     * @param codecName the header value, may be null or empty
+     * @return the codec to use on the connection
+     */
+    static DtoCodec newCodec(String codecName) {
+        if (codecName == null || codecName.length() == 0) {
+            codecName = JsonDtoCodec.NAME;
+        }
+        return DtoCodecs.newCodec(codecName);
+    }
+
+    static void send(WebSocket conn, DtoCodec codec, KeypleDto keypleDto) {
+        byte[] message = codec.encode(keypleDto);
+        if (BinaryDtoCodec.NAME.equals(codec.getName())) {
+            conn.send(message);
+        } else {
+            conn.send(new String(message, UTF8));
+        }
+    }
+
+    static KeypleDto decode(DtoCodec codec, ByteBuffer message) {
+        byte[] bytes = new byte[message.remaining()];
+        message.get(bytes);
+        return codec.decode(bytes);
+    }
+}
@@ -12,8 +12,10 @@
 package org.eclipse.keyple.example.remote.transport.websocket;
 
 import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.eclipse.keyple.core.seproxy.exception.KeypleRuntimeException;
 import org.eclipse.keyple.plugin.remotese.transport.*;
 import org.eclipse.keyple.plugin.remotese.transport.factory.ServerNode;
@@ -21,13 +23,17 @@ import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
 import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDtoHelper;
 import org.eclipse.keyple.plugin.remotese.transport.model.TransportDto;
 import org.java_websocket.WebSocket;
+import org.java_websocket.drafts.Draft;
+import org.java_websocket.exceptions.InvalidDataException;
 import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.handshake.ServerHandshakeBuilder;
 import org.java_websocket.server.WebSocketServer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Web socket server
+ * Web socket server, a codec is negotiated with each connection during the handshake (see
+ * {@link WskCodecs})
  */
 class WskServer extends WebSocketServer implements ServerNode {
 
@@ -39,6 +45,9 @@ class WskServer extends WebSocketServer implements ServerNode {
     private WebSocket masterWebSocket;
     final private String serverNodeId;
 
+    // codec negotiated with each connection
+    final private Map<WebSocket, DtoCodec> codecs = new ConcurrentHashMap<WebSocket, DtoCodec>();
+
     public WskServer(InetSocketAddress address, Boolean isMaster, String serverNodeId) {
         super(address);
 
@@ -50,6 +59,25 @@ class WskServer extends WebSocketServer implements ServerNode {
     /*
      * WebSocketServer
      */
+    @Override
+    public ServerHandshakeBuilder onWebsocketHandshakeReceivedAsServer(WebSocket conn,
+            Draft draft, ClientHandshake request) throws InvalidDataException {
+        ServerHandshakeBuilder response =
+                super.onWebsocketHandshakeReceivedAsServer(conn, draft, request);
+        String codecName =
+                WskCodecs.negotiate(request.getFieldValue(WskCodecs.OFFERED_CODECS_HEADER));
+        codecs.put(conn, WskCodecs.newCodec(codecName));
+        response.put(WskCodecs.CODEC_HEADER, codecName);
+        logger.debug("Codec negotiated with {} : {}", conn, codecName);
+        return response;
+    }
+
+    private DtoCodec getCodec(WebSocket conn) {
+        DtoCodec codec = codecs.get(conn);
+        // connection that didn't negotiate
+        return codec != null ? codec : WskCodecs.newCodec(null);
+    }
+
     @Override
     public void onOpen(WebSocket conn, ClientHandshake handshake) {
         logger.debug("Web socket onOpen {} {}", conn, handshake);
@@ -59,6 +87,7 @@ class WskServer extends WebSocketServer implements ServerNode {
     @Override
     public void onClose(WebSocket conn, int code, String reason, boolean remote) {
         logger.debug("Web socket onClose {} {} {} {}", conn, code, reason, remote);
+        codecs.remove(conn);
     }
 
     /**
@@ -69,6 +98,23 @@ class WskServer extends WebSocketServer implements ServerNode {
      */
     @Override
     public void onMessage(final WebSocket conn, final String message) {
+        logger.trace("Server receive a message {} {}", conn, message);
+        onDto(conn, KeypleDtoHelper.fromJson(message));
+    }
+
+    /**
+     * Incoming message, encoded with the codec negotiated with the connection
+     *
+     * @param conn : websocket connection used
+     * @param message : incoming message
+     */
+    @Override
+    public void onMessage(final WebSocket conn, ByteBuffer message) {
+        logger.trace("Server receive a message {} {} bytes", conn, message.remaining());
+        onDto(conn, WskCodecs.decode(getCodec(conn), message));
+    }
+
+    private void onDto(final WebSocket conn, final KeypleDto keypleDto) {
 
         final WskServer thisServer = this;
 
@@ -76,9 +122,6 @@ class WskServer extends WebSocketServer implements ServerNode {
         new Thread(new Runnable() {
             @Override
             public void run() {
-                logger.trace("Server receive a message {} {}", conn, message);
-                KeypleDto keypleDto = KeypleDtoHelper.fromJson(message);
-
                 if (dtoHandler != null) {
 
 
@@ -159,14 +202,15 @@ class WskServer extends WebSocketServer implements ServerNode {
             if (!isMaster) {
                 logger.trace("Wsk Server is slave, use the master web socket {}", masterWebSocket);
                 // if server is client -> use the master web socket
-                masterWebSocket.send(KeypleDtoHelper.toJson(transportDto.getKeypleDTO()));
+                WskCodecs.send(masterWebSocket, getCodec(masterWebSocket),
+                        transportDto.getKeypleDTO());
             } else {
                 // server is master, can have numerous slave clients
                 logger.trace("Wsk Server is master, find to which client answer");
                 if (((WskTransportDTO) transportDto).getSocketWeb() != null) {
                     logger.trace("Use socketweb included in TransportDto");
-                    ((WskTransportDTO) transportDto).getSocketWeb()
-                            .send(KeypleDtoHelper.toJson(transportDto.getKeypleDTO()));
+                    WebSocket conn = ((WskTransportDTO) transportDto).getSocketWeb();
+                    WskCodecs.send(conn, getCodec(conn), transportDto.getKeypleDTO());
                 } else {
                     // if there is no socketweb defined in the transport dto
                     // retrieve the socketweb by the sessionId
@@ -189,7 +233,7 @@ class WskServer extends WebSocketServer implements ServerNode {
                         logger.trace("send DTO with websocket {} {}",
                                 KeypleDtoHelper.toJson(transportDto.getKeypleDTO()), conn);
 
-                        conn.send(KeypleDtoHelper.toJson(transportDto.getKeypleDTO()));
+                        WskCodecs.send(conn, getCodec(conn), transportDto.getKeypleDTO());
                     }
                 }
 
@@ -0,0 +1,101 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.example.remote.transport.wspolling;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.eclipse.keyple.plugin.remotese.transport.DtoCodec;
+import org.eclipse.keyple.plugin.remotese.transport.DtoCodecs;
+import org.eclipse.keyple.plugin.remotese.transport.binary.BinaryDtoCodec;
+import org.eclipse.keyple.plugin.remotese.transport.json.JsonDtoCodec;
+
+/**
+ * Codec negotiation over http
+ * <p>
+ * The client offers its codecs in the {@link #OFFERED_CODECS_HEADER} header of its requests, the
+ * server answers with the chosen codec, named in the {@link #CODEC_HEADER} header. The codec of
+ * a message is given by its Content-Type. A client that doesn't negotiate gets Json.
+ */
+public final class WsPCodecs {
+
+    public static final String OFFERED_CODECS_HEADER = "Keyple-Codecs";
+    public static final String CODEC_HEADER = "Keyple-Codec";
+
+    public static final String JSON_CONTENT_TYPE = "application/json; charset=UTF-8";
+    public static final String BINARY_CONTENT_TYPE = "application/octet-stream";
+
+    private WsPCodecs() {}
+
+    /**
+     * @return the value of the header offering the supported codecs
+     */
+    public static String getOfferedCodecs() {
+        StringBuilder offeredCodecs = new StringBuilder();
+        for (String codecName : DtoCodecs.getSupportedCodecNames()) {
+            if (offeredCodecs.length() > 0) {
+                offeredCodecs.append(',');
+            }
+            offeredCodecs.append(codecName);
+        }
+        return offeredCodecs.toString();
+    }
+
+    /**
+     * Choose the codec from the header sent by the client
+     *
+     * @param offeredCodecs the header value, may be null
+     * @return the codec to answer with
+     */
+    public static DtoCodec negotiate(String offeredCodecs) {
+        List<String> offeredCodecNames = null;
+        if (offeredCodecs != null && offeredCodecs.length() > 0) {
+            offeredCodecNames = new ArrayList<String>();
+            for (String codecName : offeredCodecs.split(",")) {
+                offeredCodecNames.add(codecName.trim());
+            }
+        }
+        return DtoCodecs.newCodec(DtoCodecs.negotiate(offeredCodecNames));
+    }
+
+    /**
+     * @param contentType the Content-Type of a message, may be null
+     * @return the codec of the message
+     */
+    public static DtoCodec getCodec(String contentType) {
+        if (contentType != null && contentType.startsWith(BINARY_CONTENT_TYPE)) {
+            return DtoCodecs.newCodec(BinaryDtoCodec.NAME);
+        }
+        return DtoCodecs.newCodec(JsonDtoCodec.NAME);
+    }
+
+    /**
+     * @param codec the codec of a message
+     * @return the Content-Type of the message
+     */
+    public static String getContentType(DtoCodec codec) {
+        return BinaryDtoCodec.NAME.equals(codec.getName()) ? BINARY_CONTENT_TYPE
+                : JSON_CONTENT_TYPE;
+    }
+
+    public static byte[] readFully(InputStream is) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int length;
+        while ((length = is.read(buffer)) != -1) {
+            bytes.write(buffer, 0, length);
+        }
+        return bytes.toByteArray();
+    }
+}
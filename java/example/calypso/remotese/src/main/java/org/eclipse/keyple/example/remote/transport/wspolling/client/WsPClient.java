@@ -12,27 +12,32 @@
 package org.eclipse.keyple.example.remote.transport.wspolling.client;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStreamWriter;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
-import java.util.Scanner;
+import org.eclipse.keyple.example.remote.transport.wspolling.WsPCodecs;
 import org.eclipse.keyple.example.remote.transport.wspolling.WsPTransportDTO;
 import org.eclipse.keyple.plugin.remotese.transport.*;
 import org.eclipse.keyple.plugin.remotese.transport.factory.ClientNode;
+import org.eclipse.keyple.plugin.remotese.transport.json.JsonDtoCodec;
 import org.eclipse.keyple.plugin.remotese.transport.json.JsonParser;
 import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
 import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDtoHelper;
 import org.eclipse.keyple.plugin.remotese.transport.model.TransportDto;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 
 /**
  * Rest client, polls server, based on java.net client and multi threads
+ * <p>
+ * The client offers its codecs in each request and encodes its dtos with the codec chosen by the
+ * server (see {@link WsPCodecs}).
+ * <p>
+ * The dtos are sent with a synchronous http request, hence this client is a
+ * {@link BlockingDtoSender}.
  */
-public class WsPClient implements ClientNode {
+public class WsPClient implements ClientNode, BlockingDtoSender {
 
 
     private static final Logger logger = LoggerFactory.getLogger(WsPClient.class);
@@ -45,6 +50,9 @@ public class WsPClient implements ClientNode {
 
     private DtoHandler dtoHandler;
 
+    // Json until the server answers its choice
+    private volatile DtoCodec codec = WsPCodecs.getCodec(null);
+
     public WsPClient(String baseUrl, String keypleDtoEndpoint, String pollingEndpoint,
             String clientNodeId, String serverNodeId) {
         this.baseUrl = baseUrl;
@@ -66,8 +74,8 @@ public class WsPClient implements ClientNode {
                 while (true) {
                     try {
                         logger.debug("Polling clientNodeId {}", clientNodeId);
-                        JsonObject httpResponse = httpPoll(getConnection(
-                                baseUrl + pollingEndpoint + "?clientNodeId=" + clientNodeId), "{}");
+                        KeypleDto httpResponse = httpPoll(getConnection(
+                                baseUrl + pollingEndpoint + "?clientNodeId=" + clientNodeId));
                         logger.debug("Polling for clientNodeId {} receive a httpResponse {}",
                                 clientNodeId, httpResponse);
                         processHttpResponseDTO(httpResponse);
@@ -85,12 +93,11 @@ public class WsPClient implements ClientNode {
     }
 
 
-    private void processHttpResponseDTO(JsonObject httpResponse) {
+    private void processHttpResponseDTO(KeypleDto responseDTO) {
 
         // is response DTO ?
-        if (KeypleDtoHelper.isKeypleDTO(httpResponse)) {
+        if (responseDTO != null) {
 
-            KeypleDto responseDTO = KeypleDtoHelper.fromJsonObject(httpResponse);
             TransportDto transportDto = new WsPTransportDTO(responseDTO, this);
             // connection
             final TransportDto sendback = this.dtoHandler.onDTO(transportDto);
@@ -117,8 +124,8 @@ public class WsPClient implements ClientNode {
         if (!KeypleDtoHelper.isNoResponse(transportDto.getKeypleDTO())) {
             try {
                 // send keyple dto
-                JsonObject httpResponse = httpPOSTJson(getConnection(baseUrl + keypleDtoEndpoint),
-                        KeypleDtoHelper.toJson(keypleDto));
+                KeypleDto httpResponse =
+                        httpPOST(getConnection(baseUrl + keypleDtoEndpoint), keypleDto);
 
                 processHttpResponseDTO(httpResponse);
 
@@ -170,29 +177,28 @@ public class WsPClient implements ClientNode {
     }
 
 
-    private JsonObject httpPOSTJson(HttpURLConnection conn, String json) throws IOException {
-        logger.trace("Url {} HTTP POST  : {} ", conn.getURL(), json);
+    private KeypleDto httpPOST(HttpURLConnection conn, KeypleDto keypleDto)
+            throws IOException {
+        DtoCodec requestCodec = codec;
+        byte[] body = requestCodec.encode(keypleDto);
+        logger.trace("Url {} HTTP POST  : {} bytes with codec {} ", conn.getURL(), body.length,
+                requestCodec.getName());
         // Encode data
         conn.setRequestMethod("POST");
         conn.setDoOutput(true);
-        conn.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
-        conn.setRequestProperty("Accept", "application/json");
+        conn.setRequestProperty("Content-Type", WsPCodecs.getContentType(requestCodec));
+        conn.setRequestProperty(WsPCodecs.OFFERED_CODECS_HEADER, WsPCodecs.getOfferedCodecs());
         conn.connect();
 
-        OutputStreamWriter osw = new OutputStreamWriter(conn.getOutputStream());
-        osw.write(json);
-        osw.flush();
-        osw.close();
+        OutputStream os = conn.getOutputStream();
+        os.write(body);
+        os.flush();
+        os.close();
 
         conn.setConnectTimeout(70000);
         conn.setReadTimeout(70000);
 
-
-        int responseCode = conn.getResponseCode();
-        logger.trace("Response code {}", responseCode);
-        JsonObject jsonObject = parseBody((InputStream) conn.getContent());
-        logger.trace("Response {}", jsonObject);
-        return jsonObject;
+        return parseResponse(conn);
     }
 
     private HttpURLConnection getConnection(String urlString) throws IOException {
@@ -201,30 +207,46 @@ public class WsPClient implements ClientNode {
     }
 
 
-    private JsonObject httpPoll(HttpURLConnection conn, String json) throws IOException {
-        logger.trace("Url {} HTTP GET  : {} ", conn.getURL(), json);
-        // Encode data
+    private KeypleDto httpPoll(HttpURLConnection conn) throws IOException {
+        logger.trace("Url {} HTTP GET", conn.getURL());
         conn.setRequestMethod("GET");
-        conn.setDoOutput(true);
-        conn.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
-        conn.setRequestProperty("Accept", "application/json");
+        conn.setRequestProperty(WsPCodecs.OFFERED_CODECS_HEADER, WsPCodecs.getOfferedCodecs());
         conn.connect();
 
         conn.setConnectTimeout(10000);
         conn.setReadTimeout(10000);
 
+        return parseResponse(conn);
+    }
+
+    /**
+     * @return the dto of the response, null if the response doesn't contain any
+     */
+    private KeypleDto parseResponse(HttpURLConnection conn) throws IOException {
         int responseCode = conn.getResponseCode();
         logger.trace("Response code {}", responseCode);
-        JsonObject jsonObject = parseBody((InputStream) conn.getContent());
-        logger.trace("Response {}", jsonObject);
-        return jsonObject;
-    }
 
-    private JsonObject parseBody(InputStream is) {
-        Scanner s = new Scanner(is).useDelimiter("\\A");
-        String result = s.hasNext() ? s.next() : "";
-        Gson gson = JsonParser.getGson();
-        return gson.fromJson(result, JsonObject.class);
+        // codec chosen by the server for the next requests
+        String codecName = conn.getHeaderField(WsPCodecs.CODEC_HEADER);
+        if (codecName != null && !codecName.equals(codec.getName())) {
+            logger.debug("Codec negotiated with the server : {}", codecName);
+            codec = DtoCodecs.newCodec(codecName);
+        }
+
+        if (responseCode == HttpURLConnection.HTTP_NO_CONTENT) {
+            return null;
+        }
+        byte[] body = WsPCodecs.readFully(conn.getInputStream());
+        DtoCodec responseCodec = WsPCodecs.getCodec(conn.getContentType());
+        if (!JsonDtoCodec.NAME.equals(responseCodec.getName())) {
+            return responseCodec.decode(body);
+        }
+        JsonObject jsonObject =
+                JsonParser.getGson().fromJson(new String(body, "UTF-8"), JsonObject.class);
+        logger.trace("Response {}", jsonObject);
+        return jsonObject != null && KeypleDtoHelper.isKeypleDTO(jsonObject)
+                ? KeypleDtoHelper.fromJsonObject(jsonObject)
+                : null;
     }
 
 }
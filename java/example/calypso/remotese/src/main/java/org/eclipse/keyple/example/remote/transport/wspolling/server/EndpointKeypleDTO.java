@@ -12,9 +12,8 @@
 package org.eclipse.keyple.example.remote.transport.wspolling.server;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.Scanner;
+import org.eclipse.keyple.example.remote.transport.wspolling.WsPCodecs;
 import org.eclipse.keyple.example.remote.transport.wspolling.WsPTransportDTO;
 import org.eclipse.keyple.plugin.remotese.transport.*;
 import org.eclipse.keyple.plugin.remotese.transport.DtoNode;
@@ -28,7 +27,8 @@ import com.sun.net.httpserver.HttpHandler;
 
 
 /**
- * Endpoint for receiving KeypleDTO from clients
+ * Endpoint for receiving KeypleDTO from clients, the request is decoded according to its
+ * Content-Type, the response is encoded with the codec negotiated by the request
  */
 class EndpointKeypleDTO implements HttpHandler, DtoNode {
 
@@ -52,15 +52,19 @@ class EndpointKeypleDTO implements HttpHandler, DtoNode {
         String requestMethod = t.getRequestMethod();
 
         if (requestMethod.equals("POST")) {
-            String body = parseBodyToString(t.getRequestBody());// .. parse the
-            // request body
-            KeypleDto incoming = KeypleDtoHelper.fromJson(body);
+            // parse the request body
+            DtoCodec requestCodec =
+                    WsPCodecs.getCodec(t.getRequestHeaders().getFirst("Content-Type"));
+            KeypleDto incoming = requestCodec.decode(WsPCodecs.readFully(t.getRequestBody()));
             TransportDto transportDto = new WsPTransportDTO(incoming, dtoSender);
 
             logger.trace("Incoming DTO {} ", KeypleDtoHelper.toJson(incoming));
             TransportDto outcoming = dtoHandler.onDTO(transportDto);
 
-            setHttpResponse(t, outcoming.getKeypleDTO());
+            setHttpResponse(t,
+                    WsPCodecs.negotiate(
+                            t.getRequestHeaders().getFirst(WsPCodecs.OFFERED_CODECS_HEADER)),
+                    outcoming.getKeypleDTO());
 
         }
     }
@@ -91,21 +95,24 @@ class EndpointKeypleDTO implements HttpHandler, DtoNode {
     }
 
 
-    private void setHttpResponse(HttpExchange t, KeypleDto resp) throws IOException {
+    private void setHttpResponse(HttpExchange t, DtoCodec codec, KeypleDto resp)
+            throws IOException {
+        t.getResponseHeaders().add(WsPCodecs.CODEC_HEADER, codec.getName());
         if (!resp.getAction().isEmpty()) {
-            String responseBody = KeypleDtoHelper.toJson(resp);
+            byte[] responseBody = codec.encode(resp);
             Integer responseCode = 200;
-            t.getResponseHeaders().add("Content-Type", "application/json");
-            t.sendResponseHeaders(responseCode, responseBody.length());
+            t.getResponseHeaders().add("Content-Type", WsPCodecs.getContentType(codec));
+            t.sendResponseHeaders(responseCode, responseBody.length);
             OutputStream os = t.getResponseBody();
-            os.write(responseBody.getBytes());
+            os.write(responseBody);
             os.close();
             logger.trace("Outcoming Response Code {} ", responseCode);
-            logger.trace("Outcoming Response Body {} ", responseBody);
+            logger.trace("Outcoming Response Body {} bytes with codec {} ", responseBody.length,
+                    codec.getName());
         } else {
             String responseBody = "{}";
             Integer responseCode = 200;
-            t.getResponseHeaders().add("Content-Type", "application/json");
+            t.getResponseHeaders().add("Content-Type", WsPCodecs.JSON_CONTENT_TYPE);
             t.sendResponseHeaders(responseCode, responseBody.length());
             OutputStream os = t.getResponseBody();
             os.write(responseBody.getBytes());
@@ -113,9 +120,4 @@ class EndpointKeypleDTO implements HttpHandler, DtoNode {
         }
     }
 
-    private String parseBodyToString(InputStream is) {
-        Scanner s = new Scanner(is).useDelimiter("\\A");
-        return s.hasNext() ? s.next() : "";
-    }
-
 }
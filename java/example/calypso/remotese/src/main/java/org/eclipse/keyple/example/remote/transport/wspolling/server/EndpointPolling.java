@@ -15,10 +15,10 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.Map;
+import org.eclipse.keyple.example.remote.transport.wspolling.WsPCodecs;
 import org.eclipse.keyple.plugin.remotese.transport.*;
 import org.eclipse.keyple.plugin.remotese.transport.DtoNode;
 import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDto;
-import org.eclipse.keyple.plugin.remotese.transport.model.KeypleDtoHelper;
 import org.eclipse.keyple.plugin.remotese.transport.model.TransportDto;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,7 +26,8 @@ import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
 /**
- * Endpoint for polling, used to send keypleDto to polling clients
+ * Endpoint for polling, used to send keypleDto to polling clients, encoded with the codec
+ * negotiated by the polling request
  */
 
 class EndpointPolling implements HttpHandler, DtoNode {
@@ -80,7 +81,8 @@ class EndpointPolling implements HttpHandler, DtoNode {
                     setNoContent(t);
                 } else {
                     logger.trace("Send keypleDto by polling {}", keypleDto);
-                    setHttpResponse(t, keypleDto);
+                    setHttpResponse(t, WsPCodecs.negotiate(t.getRequestHeaders()
+                            .getFirst(WsPCodecs.OFFERED_CODECS_HEADER)), keypleDto);
                 }
 
             } catch (IOException e) {
@@ -135,21 +137,24 @@ class EndpointPolling implements HttpHandler, DtoNode {
         return result;
     }
 
-    private void setHttpResponse(HttpExchange t, KeypleDto resp) throws IOException {
+    private void setHttpResponse(HttpExchange t, DtoCodec codec, KeypleDto resp)
+            throws IOException {
+        t.getResponseHeaders().add(WsPCodecs.CODEC_HEADER, codec.getName());
         if (!resp.getAction().isEmpty()) {
-            String responseBody = KeypleDtoHelper.toJson(resp);
+            byte[] responseBody = codec.encode(resp);
             Integer responseCode = 200;
-            t.getResponseHeaders().add("Content-Type", "application/json");
-            t.sendResponseHeaders(responseCode, responseBody.length());
+            t.getResponseHeaders().add("Content-Type", WsPCodecs.getContentType(codec));
+            t.sendResponseHeaders(responseCode, responseBody.length);
             OutputStream os = t.getResponseBody();
-            os.write(responseBody.getBytes());
+            os.write(responseBody);
             os.close();
             logger.trace("Outcoming Response Code {} ", responseCode);
-            logger.trace("Outcoming Response Body {} ", responseBody);
+            logger.trace("Outcoming Response Body {} bytes with codec {} ", responseBody.length,
+                    codec.getName());
         } else {
             String responseBody = "{}";
             Integer responseCode = 200;
-            t.getResponseHeaders().add("Content-Type", "application/json");
+            t.getResponseHeaders().add("Content-Type", WsPCodecs.JSON_CONTENT_TYPE);
             t.sendResponseHeaders(responseCode, responseBody.length());
             OutputStream os = t.getResponseBody();
             os.write(responseBody.getBytes());
@@ -0,0 +1,163 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.loadgen;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Arrival times of the card taps on a reader
+ * <p>
+ * The rates are expressed in taps per second and per reader.
+ */
+public abstract class ArrivalProcess {
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final String description;
+
+    private ArrivalProcess(String description) {
+        this.description = description;
+    }
+
+    /**
+     * Get the time between the previous tap and the next one
+     *
+     * @param elapsedTime the time of the previous tap, in nanoseconds since the start of the load
+     * @param random the random generator of the reader
+     * @return the time until the next tap in nanoseconds
+     */
+    public abstract long nextInterval(long elapsedTime, Random random);
+
+    private static void checkRate(double rate) {
+        if (!(rate > 0)) {
+            throw new IllegalArgumentException("The rate must be positive: " + rate);
+        }
+    }
+
+    /* interval of a Poisson process: exponential distribution */
+    private static double exponentialInterval(double rate, Random random) {
+        return -Math.log(1 - random.nextDouble()) / rate * NANOS_PER_SECOND;
+    }
+
+    /**
+     * Taps at a fixed interval
+     *
+     * @param rate the number of taps per second
+     * @return the arrival process
+     */
+    public static ArrivalProcess constant(final double rate) {
+        checkRate(rate);
+        final long interval = (long) (NANOS_PER_SECOND / rate);
+        return new ArrivalProcess("constant " + rate + "/s") {
+            @Override
+            public long nextInterval(long elapsedTime, Random random) {
+                return interval;
+            }
+        };
+    }
+
+    /**
+     * Taps arriving independently at a constant average rate
+     *
+     * @param rate the average number of taps per second
+     * @return the arrival process
+     */
+    public static ArrivalProcess poisson(final double rate) {
+        checkRate(rate);
+        return new ArrivalProcess("poisson " + rate + "/s") {
+            @Override
+            public long nextInterval(long elapsedTime, Random random) {
+                return (long) exponentialInterval(rate, random);
+            }
+        };
+    }
+
+    /**
+     * Poisson arrivals whose rate rises periodically during a peak, as at the rush hours of a
+     * transport network
+     * <p>
+     * The peak starts at the beginning of each period.
+     *
+     * @param offPeakRate the average number of taps per second out of the peaks
+     * @param peakRate the average number of taps per second during the peaks
+     * @param period the period of the peaks in milliseconds
+     * @param peakDuration the duration of a peak in milliseconds
+     * @return the arrival process
+     */
+    public static ArrivalProcess rushHour(final double offPeakRate, final double peakRate,
+            long period, long peakDuration) {
+        checkRate(offPeakRate);
+        checkRate(peakRate);
+        if (period <= 0 || peakDuration < 0 || peakDuration > period) {
+            throw new IllegalArgumentException("Invalid peak duration or period");
+        }
+        final long periodNanos = TimeUnit.MILLISECONDS.toNanos(period);
+        final long peakDurationNanos = TimeUnit.MILLISECONDS.toNanos(peakDuration);
+        final double maxRate = Math.max(offPeakRate, peakRate);
+        return new ArrivalProcess("rush hour " + offPeakRate + "/s, " + peakRate + "/s during "
+                + peakDuration + " ms every " + period + " ms") {
+            @Override
+            public long nextInterval(long elapsedTime, Random random) {
+                /*
+                 * thinning of a Poisson process at the maximum rate: a candidate tap is kept with
+                 * the probability rate(t) / maxRate
+                 */
+                double time = elapsedTime;
+                while (true) {
+                    time += exponentialInterval(maxRate, random);
+                    boolean peak = (long) time % periodNanos < peakDurationNanos;
+                    double rate = peak ? peakRate : offPeakRate;
+                    if (random.nextDouble() * maxRate < rate) {
+                        return (long) (time - elapsedTime);
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Parse an arrival process, the formats are:
+     * <ul>
+     * <li>constant:&lt;rate&gt;</li>
+     * <li>poisson:&lt;rate&gt;</li>
+     * <li>rushhour:&lt;off peak rate&gt;:&lt;peak rate&gt;:&lt;period ms&gt;:&lt;peak duration
+     * ms&gt;</li>
+     * </ul>
+     *
+     * @param value the textual form of the arrival process
+     * @return the arrival process
+     * @throws IllegalArgumentException if the value is not valid
+     */
+    public static ArrivalProcess parse(String value) {
+        String[] fields = value.split(":");
+        try {
+            if (fields[0].equals("constant") && fields.length == 2) {
+                return constant(Double.parseDouble(fields[1]));
+            }
+            if (fields[0].equals("poisson") && fields.length == 2) {
+                return poisson(Double.parseDouble(fields[1]));
+            }
+            if (fields[0].equals("rushhour") && fields.length == 5) {
+                return rushHour(Double.parseDouble(fields[1]), Double.parseDouble(fields[2]),
+                        Long.parseLong(fields[3]), Long.parseLong(fields[4]));
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid arrival process: " + value, e);
+        }
+        throw new IllegalArgumentException("Invalid arrival process: " + value);
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+}
@@ -0,0 +1,195 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.loadgen;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.keyple.calypso.transaction.SamResourceManager;
+import org.eclipse.keyple.core.seproxy.SeProxyService;
+import org.eclipse.keyple.core.seproxy.exception.KeypleBaseException;
+import org.eclipse.keyple.core.seproxy.exception.KeypleReaderNotFoundException;
+import org.eclipse.keyple.core.seproxy.plugin.AbstractObservableReader;
+import org.eclipse.keyple.core.seproxy.protocol.SeCommonProtocols;
+import org.eclipse.keyple.core.util.Observable;
+import org.eclipse.keyple.plugin.stub.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Card-tap load generator
+ * <p>
+ * Plugs stub PO readers and stub SAM readers, then presents new cards to each PO reader according
+ * to the arrival process during the requested duration. The cards are processed as in a
+ * validation terminal: the default selection is notified by the reader, then the observer runs
+ * the validation flow with a SAM allocated by a {@link SamResourceManager}.
+ * <p>
+ * The observers are notified through an executor, whose thread count limits the number of taps
+ * processed at the same time.
+ */
+public final class LoadGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(LoadGenerator.class);
+
+    private static final String PO_READER_PREFIX = "LOADGEN_PO_";
+    private static final String SAM_READER_PREFIX = "LOADGEN_SAM_";
+
+    /* maximum time to set up the SAM resources, in milliseconds */
+    private static final long SAM_SETUP_TIMEOUT = 10000;
+
+    private final int poReaderCount;
+    private final int samCount;
+    private final int flowThreadCount;
+    private final ArrivalProcess arrivalProcess;
+    private final ValidationFlow validationFlow;
+
+    /**
+     * Create a load generator
+     *
+     * @param poReaderCount the number of PO readers
+     * @param samCount the number of SAM, must be positive if the flow requires a SAM
+     * @param flowThreadCount the number of threads processing the taps
+     * @param arrivalProcess the arrival process of the taps on each PO reader
+     * @param validationFlow the processing of the taps
+     */
+    public LoadGenerator(int poReaderCount, int samCount, int flowThreadCount,
+            ArrivalProcess arrivalProcess, ValidationFlow validationFlow) {
+        if (poReaderCount < 1 || samCount < 0 || flowThreadCount < 1) {
+            throw new IllegalArgumentException("Invalid reader, SAM or thread count");
+        }
+        if (samCount == 0 && validationFlow.isSamRequired()) {
+            throw new IllegalArgumentException("The flow " + validationFlow + " requires a SAM");
+        }
+        this.poReaderCount = poReaderCount;
+        this.samCount = samCount;
+        this.flowThreadCount = flowThreadCount;
+        this.arrivalProcess = arrivalProcess;
+        this.validationFlow = validationFlow;
+    }
+
+    private static StubPlugin getStubPlugin() throws KeypleBaseException {
+        SeProxyService seProxyService = SeProxyService.getInstance();
+        if (!seProxyService.isRegistered(StubPlugin.PLUGIN_NAME)) {
+            seProxyService.registerPlugin(new StubPluginFactory());
+        }
+        return (StubPlugin) seProxyService.getPlugin(StubPlugin.PLUGIN_NAME);
+    }
+
+    private static Set<String> getReaderNames(String prefix, int count) {
+        Set<String> readerNames = new LinkedHashSet<String>();
+        for (int i = 1; i <= count; i++) {
+            readerNames.add(prefix + i);
+        }
+        return readerNames;
+    }
+
+    /**
+     * Plug the SAM readers and insert the SAM, the manager creates a resource for each of them
+     * when it is notified of the reader connection and of the SAM insertion.
+     */
+    private void plugSamReaders(StubPlugin stubPlugin, Set<String> samReaderNames,
+            SamResourceManager samResourceManager)
+            throws KeypleBaseException, InterruptedException {
+        stubPlugin.plugStubReaders(samReaderNames, false);
+        long deadline = System.currentTimeMillis() + SAM_SETUP_TIMEOUT;
+        Set<String> insertedSams = new HashSet<String>();
+        while (samResourceManager.getSamResourceCount() < samCount) {
+            for (String samReaderName : samReaderNames) {
+                if (insertedSams.contains(samReaderName)) {
+                    continue;
+                }
+                try {
+                    ((StubReader) stubPlugin.getReader(samReaderName))
+                            .insertSe(new StubCalypsoSam());
+                    insertedSams.add(samReaderName);
+                } catch (KeypleReaderNotFoundException e) {
+                    /* not yet connected */
+                }
+            }
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("Only " + samResourceManager.getSamResourceCount()
+                        + " SAM resources out of " + samCount + " were created");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Run the load
+     *
+     * @param duration the duration of the load
+     * @param unit the unit of the duration
+     * @return the report of the load
+     * @throws KeypleBaseException if the stub plugin fails
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public LoadReport run(long duration, TimeUnit unit)
+            throws KeypleBaseException, InterruptedException {
+        LoadReport report = new LoadReport(String.format(
+                "%d PO readers, %d SAM, %d flow threads, %s arrivals, %s flow", poReaderCount,
+                samCount, flowThreadCount, arrivalProcess, validationFlow));
+        StubPlugin stubPlugin = getStubPlugin();
+        Set<String> poReaderNames = getReaderNames(PO_READER_PREFIX, poReaderCount);
+        Set<String> samReaderNames = getReaderNames(SAM_READER_PREFIX, samCount);
+        ExecutorService flowExecutor = Executors.newFixedThreadPool(flowThreadCount);
+        List<Thread> tapThreads = new ArrayList<Thread>();
+        try {
+            SamResourceManager samResourceManager =
+                    new SamResourceManager(stubPlugin, SAM_READER_PREFIX + ".*");
+            plugSamReaders(stubPlugin, samReaderNames, samResourceManager);
+
+            stubPlugin.plugStubReaders(poReaderNames, true);
+            List<TapTerminal> terminals = new ArrayList<TapTerminal>();
+            for (String poReaderName : poReaderNames) {
+                StubReader poReader = (StubReader) stubPlugin.getReader(poReaderName);
+                poReader.addSeProtocolSetting(SeCommonProtocols.PROTOCOL_ISO14443_4,
+                        StubProtocolSetting.STUB_PROTOCOL_SETTING
+                                .get(SeCommonProtocols.PROTOCOL_ISO14443_4));
+                ((AbstractObservableReader) poReader).setAsynchronousDispatch(flowExecutor, 1,
+                        Observable.OverflowPolicy.BLOCK);
+                TapTerminal terminal = new TapTerminal(poReader, validationFlow,
+                        samResourceManager, arrivalProcess, report);
+                poReader.addObserver(terminal);
+                terminals.add(terminal);
+            }
+
+            ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+            threadMXBean.resetPeakThreadCount();
+            long startTime = System.nanoTime();
+            long endTime = startTime + unit.toNanos(duration);
+            for (TapTerminal terminal : terminals) {
+                terminal.setPeriod(startTime, endTime);
+                Thread tapThread = new Thread(terminal, "loadgen-tap-" + (tapThreads.size() + 1));
+                tapThreads.add(tapThread);
+                tapThread.start();
+            }
+            for (Thread tapThread : tapThreads) {
+                tapThread.join();
+            }
+            report.setDuration(System.nanoTime() - startTime);
+            report.setThreadCounts(threadMXBean.getThreadCount(),
+                    threadMXBean.getPeakThreadCount());
+            report.setSamAllocationFailureCount(samResourceManager.getAllocationFailureCount());
+        } finally {
+            for (Thread tapThread : tapThreads) {
+                tapThread.interrupt();
+            }
+            stubPlugin.unplugStubReaders(poReaderNames, true);
+            stubPlugin.unplugStubReaders(samReaderNames, true);
+            flowExecutor.shutdownNow();
+        }
+        logger.info("Load generated: {}", report);
+        return report;
+    }
+}
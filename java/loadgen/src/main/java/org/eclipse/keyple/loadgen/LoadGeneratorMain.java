@@ -0,0 +1,72 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.loadgen;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Command line of the load generator, the options are given as name=value:
+ * <ul>
+ * <li>readers: number of PO readers (default 8)</li>
+ * <li>sams: number of SAM (default 2)</li>
+ * <li>threads: number of threads processing the taps (default: one per PO reader)</li>
+ * <li>arrival: arrival process on each PO reader, see {@link ArrivalProcess#parse(String)}
+ * (default poisson:2)</li>
+ * <li>flow: SELECTION, READ or DEBIT (default DEBIT)</li>
+ * <li>duration: duration of the load in seconds (default 30)</li>
+ * </ul>
+ */
+public final class LoadGeneratorMain {
+
+    private LoadGeneratorMain() {}
+
+    public static void main(String[] args) throws Exception {
+        int poReaderCount = 8;
+        int samCount = 2;
+        int flowThreadCount = 0;
+        ArrivalProcess arrivalProcess = ArrivalProcess.poisson(2);
+        ValidationFlow validationFlow = ValidationFlow.DEBIT;
+        long duration = 30;
+
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid option: " + arg);
+            }
+            String name = arg.substring(0, separator);
+            String value = arg.substring(separator + 1);
+            if (name.equals("readers")) {
+                poReaderCount = Integer.parseInt(value);
+            } else if (name.equals("sams")) {
+                samCount = Integer.parseInt(value);
+            } else if (name.equals("threads")) {
+                flowThreadCount = Integer.parseInt(value);
+            } else if (name.equals("arrival")) {
+                arrivalProcess = ArrivalProcess.parse(value);
+            } else if (name.equals("flow")) {
+                validationFlow = ValidationFlow.valueOf(value.toUpperCase());
+            } else if (name.equals("duration")) {
+                duration = Long.parseLong(value);
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + name);
+            }
+        }
+        if (flowThreadCount == 0) {
+            flowThreadCount = poReaderCount;
+        }
+
+        LoadReport report = new LoadGenerator(poReaderCount, samCount, flowThreadCount,
+                arrivalProcess, validationFlow).run(duration, TimeUnit.SECONDS);
+        System.out.print(report);
+        System.exit(0);
+    }
+}
@@ -0,0 +1,168 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.loadgen;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.keyple.core.seproxy.metrics.LatencyHistogram;
+
+/**
+ * Results of a load generation
+ * <p>
+ * The tap-to-result latency is measured from the scheduled arrival of the tap to the end of the
+ * validation flow: when a reader is still busy with the previous card, the waiting time of the
+ * next one is included.
+ */
+public final class LoadReport {
+    private final String description;
+    private final LatencyHistogram tapLatency = new LatencyHistogram();
+    private final LatencyHistogram samWaitTime = new LatencyHistogram();
+    private final AtomicLong successCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private long duration;
+    private int threadCount;
+    private int peakThreadCount;
+    private long samAllocationFailureCount;
+
+    LoadReport(String description) {
+        this.description = description;
+    }
+
+    void recordTap(long latency, boolean success) {
+        tapLatency.record(latency);
+        if (success) {
+            successCount.incrementAndGet();
+        } else {
+            failureCount.incrementAndGet();
+        }
+    }
+
+    void recordTimeout() {
+        timeoutCount.incrementAndGet();
+    }
+
+    void recordSamWaitTime(long waitTime) {
+        samWaitTime.record(waitTime);
+    }
+
+    void setDuration(long duration) {
+        this.duration = duration;
+    }
+
+    void setThreadCounts(int threadCount, int peakThreadCount) {
+        this.threadCount = threadCount;
+        this.peakThreadCount = peakThreadCount;
+    }
+
+    void setSamAllocationFailureCount(long samAllocationFailureCount) {
+        this.samAllocationFailureCount = samAllocationFailureCount;
+    }
+
+    /**
+     * @return the latencies of the processed taps (successful or not) in nanoseconds
+     */
+    public LatencyHistogram getTapLatency() {
+        return tapLatency;
+    }
+
+    /**
+     * @return the waiting times of the SAM allocations in nanoseconds
+     */
+    public LatencyHistogram getSamWaitTime() {
+        return samWaitTime;
+    }
+
+    /**
+     * @return the number of taps whose validation succeeded
+     */
+    public long getSuccessCount() {
+        return successCount.get();
+    }
+
+    /**
+     * @return the number of taps whose validation failed
+     */
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    /**
+     * @return the number of taps not processed before the timeout
+     */
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    /**
+     * @return the duration of the load in nanoseconds
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * @return the number of successful validations per second
+     */
+    public double getThroughput() {
+        return duration == 0 ? 0 : successCount.get() * 1e9 / duration;
+    }
+
+    /**
+     * @return the number of live threads at the end of the load
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * @return the peak number of live threads during the load
+     */
+    public int getPeakThreadCount() {
+        return peakThreadCount;
+    }
+
+    /**
+     * @return the number of SAM allocations that failed
+     */
+    public long getSamAllocationFailureCount() {
+        return samAllocationFailureCount;
+    }
+
+    private static String toMillis(long nanos) {
+        return String.format("%.3f ms", nanos / 1e6);
+    }
+
+    private static void appendPercentiles(StringBuilder builder, String name,
+            LatencyHistogram histogram) {
+        builder.append(String.format("%-18s count %d, mean %s, p50 %s, p90 %s, p99 %s, max %s%n",
+                name, histogram.getCount(), toMillis(histogram.getMeanDuration()),
+                toMillis(histogram.getPercentile(50)), toMillis(histogram.getPercentile(90)),
+                toMillis(histogram.getPercentile(99)), toMillis(histogram.getMaxDuration())));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(description).append(String.format("%n"));
+        builder.append(String.format("%-18s %.1f s%n", "duration", duration / 1e9));
+        builder.append(String.format("%-18s %d succeeded, %d failed, %d timed out%n", "taps",
+                getSuccessCount(), getFailureCount(), getTimeoutCount()));
+        builder.append(String.format("%-18s %.1f validations/s%n", "throughput",
+                getThroughput()));
+        appendPercentiles(builder, "tap-to-result", tapLatency);
+        appendPercentiles(builder, "SAM wait", samWaitTime);
+        builder.append(String.format("%-18s %d%n", "SAM failures", samAllocationFailureCount));
+        builder.append(String.format("%-18s %d live, %d peak%n", "threads", threadCount,
+                peakThreadCount));
+        return builder.toString();
+    }
+}
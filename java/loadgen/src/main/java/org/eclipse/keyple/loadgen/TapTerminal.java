@@ -0,0 +1,182 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.loadgen;
+
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.keyple.calypso.transaction.*;
+import org.eclipse.keyple.core.selection.SeSelection;
+import org.eclipse.keyple.core.selection.SelectionsResult;
+import org.eclipse.keyple.core.seproxy.ChannelState;
+import org.eclipse.keyple.core.seproxy.SeSelector;
+import org.eclipse.keyple.core.seproxy.event.ObservableReader;
+import org.eclipse.keyple.core.seproxy.event.ReaderEvent;
+import org.eclipse.keyple.core.seproxy.exception.KeypleReaderException;
+import org.eclipse.keyple.core.seproxy.protocol.SeCommonProtocols;
+import org.eclipse.keyple.plugin.stub.StubReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A validation terminal: presents cards to a stub reader at the times given by the arrival process
+ * and processes them when the reader notifies their default selection.
+ * <p>
+ * The next card is presented once the previous one has been processed and removed.
+ */
+final class TapTerminal implements Runnable, ObservableReader.ReaderObserver {
+    private static final Logger logger = LoggerFactory.getLogger(TapTerminal.class);
+
+    /* maximum time to process a tap or to notify a removal, in milliseconds */
+    private static final long EVENT_TIMEOUT = 5000;
+
+    private static final AtomicLong cardSerialNumber = new AtomicLong();
+
+    private final StubReader poReader;
+    private final ValidationFlow validationFlow;
+    private final SamResourceManager samResourceManager;
+    private final ArrivalProcess arrivalProcess;
+    private final LoadReport report;
+    private final SeSelection seSelection;
+    private final Random random = new Random();
+    private final Semaphore tapProcessed = new Semaphore(0);
+    private final Semaphore seRemoved = new Semaphore(0);
+
+    private long startTime;
+    private long endTime;
+    /* scheduled arrival of the card being processed */
+    private volatile long arrivalTime;
+
+    TapTerminal(StubReader poReader, ValidationFlow validationFlow,
+            SamResourceManager samResourceManager, ArrivalProcess arrivalProcess,
+            LoadReport report) {
+        this.poReader = poReader;
+        this.validationFlow = validationFlow;
+        this.samResourceManager = samResourceManager;
+        this.arrivalProcess = arrivalProcess;
+        this.report = report;
+
+        seSelection = new SeSelection();
+        seSelection.prepareSelection(new PoSelectionRequest(
+                new PoSelector(SeCommonProtocols.PROTOCOL_ISO14443_4, null,
+                        new PoSelector.PoAidSelector(
+                                new SeSelector.AidSelector.IsoAid(ValidationFlow.PO_AID),
+                                PoSelector.InvalidatedPo.REJECT),
+                        "AID: " + ValidationFlow.PO_AID),
+                ChannelState.KEEP_OPEN));
+        poReader.setDefaultSelectionRequest(seSelection.getSelectionOperation(),
+                ObservableReader.NotificationMode.ALWAYS);
+    }
+
+    /**
+     * Set the period during which the cards are presented
+     *
+     * @param startTime the start of the load ({@link System#nanoTime()})
+     * @param endTime the end of the load ({@link System#nanoTime()})
+     */
+    void setPeriod(long startTime, long endTime) {
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    @Override
+    public void run() {
+        long nextArrivalTime = startTime;
+        try {
+            while (true) {
+                nextArrivalTime +=
+                        arrivalProcess.nextInterval(nextArrivalTime - startTime, random);
+                if (nextArrivalTime >= endTime) {
+                    break;
+                }
+                long delay = nextArrivalTime - System.nanoTime();
+                if (delay > 0) {
+                    TimeUnit.NANOSECONDS.sleep(delay);
+                }
+                tap(nextArrivalTime);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void tap(long scheduledArrivalTime) throws InterruptedException {
+        tapProcessed.drainPermits();
+        seRemoved.drainPermits();
+        arrivalTime = scheduledArrivalTime;
+        poReader.insertSe(ValidationFlow.newCard(cardSerialNumber.incrementAndGet()));
+        if (!tapProcessed.tryAcquire(EVENT_TIMEOUT, TimeUnit.MILLISECONDS)) {
+            logger.warn("[{}] tap not processed", poReader.getName());
+            report.recordTimeout();
+        }
+        poReader.removeSe();
+        if (!seRemoved.tryAcquire(EVENT_TIMEOUT, TimeUnit.MILLISECONDS)) {
+            logger.warn("[{}] removal not notified", poReader.getName());
+        }
+    }
+
+    @Override
+    public void update(ReaderEvent event) {
+        switch (event.getEventType()) {
+            case SE_MATCHED:
+                report.recordTap(System.nanoTime() - arrivalTime, processTap(event));
+                tapProcessed.release();
+                break;
+            case SE_INSERTED:
+            case IO_ERROR:
+                /* the card did not match the selection or was lost */
+                report.recordTap(System.nanoTime() - arrivalTime, false);
+                tapProcessed.release();
+                break;
+            case SE_REMOVAL:
+                seRemoved.release();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private boolean processTap(ReaderEvent event) {
+        SelectionsResult selectionsResult =
+                seSelection.processDefaultSelection(event.getDefaultSelectionsResponse());
+        if (!selectionsResult.hasActiveSelection()) {
+            return false;
+        }
+        CalypsoPo calypsoPo =
+                (CalypsoPo) selectionsResult.getActiveSelection().getMatchingSe();
+        SamResource samResource = null;
+        try {
+            if (validationFlow.isSamRequired()) {
+                long allocationTime = System.nanoTime();
+                /* each reader comes back to the same SAM whenever it is free */
+                samResource = samResourceManager.allocateSamResource(
+                        SamResourceManager.AllocationMode.BLOCKING, null, poReader.getName());
+                report.recordSamWaitTime(System.nanoTime() - allocationTime);
+                if (samResource == null) {
+                    return false;
+                }
+            }
+            return validationFlow.process(poReader, calypsoPo, samResource);
+        } catch (KeypleReaderException e) {
+            logger.warn("[{}] validation failed: {}", poReader.getName(), e.getMessage());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            if (samResource != null) {
+                samResourceManager.freeSamResource(samResource);
+            }
+        }
+    }
+}
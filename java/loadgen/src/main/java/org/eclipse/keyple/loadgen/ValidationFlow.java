@@ -0,0 +1,124 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.loadgen;
+
+import org.eclipse.keyple.calypso.command.po.parser.ReadDataStructure;
+import org.eclipse.keyple.calypso.transaction.*;
+import org.eclipse.keyple.core.seproxy.ChannelState;
+import org.eclipse.keyple.core.seproxy.SeReader;
+import org.eclipse.keyple.core.seproxy.exception.KeypleReaderException;
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+import org.eclipse.keyple.plugin.stub.StubCalypsoPo;
+
+/**
+ * Processing of a card tap, started once the default selection of the PO has succeeded
+ */
+public enum ValidationFlow {
+    /** the default selection only */
+    SELECTION(false) {
+        @Override
+        boolean process(SeReader poReader, CalypsoPo calypsoPo, SamResource samResource)
+                throws KeypleReaderException {
+            return true;
+        }
+    },
+    /** reading of the last event out of session */
+    READ(false) {
+        @Override
+        boolean process(SeReader poReader, CalypsoPo calypsoPo, SamResource samResource)
+                throws KeypleReaderException {
+            PoTransaction poTransaction = new PoTransaction(new PoResource(poReader, calypsoPo));
+            poTransaction.prepareReadRecordsCmd(SFI_EVENT_LOG,
+                    ReadDataStructure.SINGLE_RECORD_DATA, (byte) 1, "EventLog");
+            return poTransaction.processPoCommands(ChannelState.CLOSE_AFTER);
+        }
+    },
+    /**
+     * debit secure session: reading of the contract at the opening, reading and decrease of the
+     * counter, appending of an event, closing
+     */
+    DEBIT(true) {
+        @Override
+        boolean process(SeReader poReader, CalypsoPo calypsoPo, SamResource samResource)
+                throws KeypleReaderException {
+            PoTransaction poTransaction = new PoTransaction(new PoResource(poReader, calypsoPo),
+                    samResource, new SecuritySettings());
+            if (!poTransaction.processOpening(PoTransaction.ModificationMode.ATOMIC,
+                    PoTransaction.SessionAccessLevel.SESSION_LVL_DEBIT, SFI_CONTRACTS, (byte) 1)) {
+                return false;
+            }
+            /* the counter value is needed to anticipate the response of the decrease */
+            poTransaction.prepareReadRecordsCmd(SFI_COUNTERS, ReadDataStructure.SINGLE_COUNTER,
+                    (byte) 1, "Counters");
+            if (!poTransaction.processPoCommandsInSession()) {
+                return false;
+            }
+            poTransaction.prepareDecreaseCmd(SFI_COUNTERS, (byte) 1, 1, "Counter");
+            poTransaction.prepareAppendRecordCmd(SFI_EVENT_LOG, EVENT, "EventLog");
+            return poTransaction.processClosing(ChannelState.CLOSE_AFTER);
+        }
+    };
+
+    /** AID of the application of the cards */
+    static final String PO_AID = "315449432E49434131";
+
+    private static final byte SFI_EVENT_LOG = (byte) 0x08;
+    private static final byte SFI_CONTRACTS = (byte) 0x09;
+    private static final byte SFI_COUNTERS = (byte) 0x19;
+    private static final byte[] EVENT = ByteArrayUtil.fromHex("0102030405060708");
+
+    private final boolean samRequired;
+
+    ValidationFlow(boolean samRequired) {
+        this.samRequired = samRequired;
+    }
+
+    /**
+     * @return true if a SAM resource is allocated for the flow
+     */
+    public boolean isSamRequired() {
+        return samRequired;
+    }
+
+    /**
+     * Process a tap
+     *
+     * @param poReader the reader of the PO
+     * @param calypsoPo the PO resulting from the default selection
+     * @param samResource the allocated SAM resource, null if the flow does not require one
+     * @return true if the validation succeeded
+     * @throws KeypleReaderException if a reader error occurs
+     */
+    abstract boolean process(SeReader poReader, CalypsoPo calypsoPo, SamResource samResource)
+            throws KeypleReaderException;
+
+    /**
+     * Create a new card with an event log, a contracts file and a counters file
+     *
+     * @param serialNumber the serial number of the card
+     * @return the card
+     */
+    static StubCalypsoPo newCard(long serialNumber) {
+        byte[] serialNumberBytes = new byte[8];
+        for (int i = 7; i >= 0; i--) {
+            serialNumberBytes[i] = (byte) serialNumber;
+            serialNumber >>= 8;
+        }
+        StubCalypsoPo card = new StubCalypsoPo(serialNumberBytes);
+        card.addCyclicFile(SFI_EVENT_LOG, 3, 29);
+        card.addLinearFile(SFI_CONTRACTS, 4, 29);
+        card.addCountersFile(SFI_COUNTERS, 9);
+        card.setRecord(SFI_CONTRACTS, 1, ByteArrayUtil.fromHex("0101"));
+        card.setRecord(SFI_COUNTERS, 1, ByteArrayUtil.fromHex("000064"));
+        return card;
+    }
+}
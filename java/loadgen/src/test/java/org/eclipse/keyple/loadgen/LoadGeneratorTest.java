@@ -0,0 +1,66 @@
+/********************************************************************************
+ * Copyright (c) 2019 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information regarding copyright
+ * ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ********************************************************************************/
+package org.eclipse.keyple.loadgen;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+@SuppressWarnings("PMD.SignatureDeclareThrowsException")
+public class LoadGeneratorTest {
+
+    /* average rate of the arrivals generated during the provided time */
+    private static double measureRate(ArrivalProcess arrivalProcess, long time) {
+        Random random = new Random(1);
+        long elapsedTime = 0;
+        int count = 0;
+        while (true) {
+            elapsedTime += arrivalProcess.nextInterval(elapsedTime, random);
+            if (elapsedTime >= time) {
+                return count * 1e9 / time;
+            }
+            count++;
+        }
+    }
+
+    @Test
+    public void arrivalProcess_rates() {
+        long time = TimeUnit.SECONDS.toNanos(10000);
+        Assert.assertEquals(4, measureRate(ArrivalProcess.constant(4), time), 0.01);
+        Assert.assertEquals(4, measureRate(ArrivalProcess.poisson(4), time), 0.2);
+        /* 10 taps/s during 1/4 of the time, 2 taps/s otherwise */
+        Assert.assertEquals(4, measureRate(ArrivalProcess.rushHour(2, 10, 60000, 15000), time),
+                0.2);
+        Assert.assertEquals(ArrivalProcess.poisson(4).toString(),
+                ArrivalProcess.parse("poisson:4").toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void arrivalProcess_invalid() {
+        ArrivalProcess.parse("rushhour:1:2");
+    }
+
+    @Test
+    public void run_debit() throws Exception {
+        LoadReport report = new LoadGenerator(4, 2, 4, ArrivalProcess.constant(20),
+                ValidationFlow.DEBIT).run(1, TimeUnit.SECONDS);
+
+        /* about 19 taps per reader */
+        Assert.assertTrue(report.toString(), report.getSuccessCount() > 40);
+        Assert.assertEquals(report.toString(), 0, report.getFailureCount());
+        Assert.assertEquals(report.toString(), 0, report.getTimeoutCount());
+        Assert.assertEquals(report.getSuccessCount(), report.getTapLatency().getCount());
+        Assert.assertEquals(report.getSuccessCount(), report.getSamWaitTime().getCount());
+        Assert.assertTrue(report.getPeakThreadCount() >= 4);
+    }
+}